@@ -33,12 +33,18 @@ import org.aopalliance.aop.AspectException;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.Advisor;
 import org.springframework.aop.TargetSource;
 
 /**
  * CGLIB 2 AopProxy implementation for the Spring AOP framework.
- * Also implements the CGLIB MethodInterceptor and CallbackFilter
- * interfaces.
+ * Also implements the CGLIB MethodInterceptor interface.
+ *
+ * <p>Generated proxy classes are shared by all proxies with the same target class,
+ * interfaces and callback shape, as CGLIB caches generated classes by those.
+ * Only the callbacks, holding the advised configuration, are specific to each
+ * proxy instance. Statistics on proxy class reuse are available through
+ * DefaultAopProxyFactory.
  *
  * <p>Objects of this type should be obtained through proxy factories,
  * configured by a AdvisedSupport implementation. This class is internal
@@ -49,8 +55,9 @@ import org.springframework.aop.TargetSource;
  *
  * @author Rod Johnson
  * @version $Id: Cglib2AopProxy.java,v 1.6 2004/03/19 21:35:54 johnsonr Exp $
+ * @see DefaultAopProxyFactory#getCglibProxyClassCount
  */
-class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
+class Cglib2AopProxy implements AopProxy, MethodInterceptor {
 	
 	// Constants for CGLIB callback array indices
 	private static final int AOP_PROXY = 0;
@@ -103,7 +110,7 @@ class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
 			if (isEqualsMethod(method)) {
 				// This class implements the equals() method itself
 				// We don't need to use reflection
-				return new Boolean(equals(args[0]));
+				return equals(args[0]) ? Boolean.TRUE : Boolean.FALSE;
 			}
 			else if (Advised.class == method.getDeclaringClass()) {
 				// Service invocations on ProxyConfig with the proxy config
@@ -198,10 +205,13 @@ class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
 	/**
 	 * Is the given method the equals method?
 	 */
-	protected final boolean isEqualsMethod(Method m) {
-		return "equals".equals(m.getName()) && 
-				m.getParameterTypes().length == 1 && 
-				m.getParameterTypes()[0] == Object.class;
+	protected static final boolean isEqualsMethod(Method m) {
+		if (!"equals".equals(m.getName())) {
+			return false;
+		}
+		// getParameterTypes() returns a new array on every call
+		Class[] paramTypes = m.getParameterTypes();
+		return paramTypes.length == 1 && paramTypes[0] == Object.class;
 	}
 	
 
@@ -224,7 +234,8 @@ class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
 		Enhancer e = new Enhancer();
 		try {
 			e.setSuperclass(advised.getTargetSource().getTargetClass());
-			e.setCallbackFilter(this);
+			// The callback filter is part of CGLIB's cache key for the generated class
+			e.setCallbackFilter(new ProxyCallbackFilter(this.advised, canApplyCglibOptimizations()));
 			e.setInterfaces(AopProxyUtils.completeProxiedInterfaces(advised));
 			Callback targetInvoker = canApplyCglibOptimizations() ? 
 					(Callback) new StaticTargetInvoker(advised.getTargetSource().getTarget()) :
@@ -236,7 +247,9 @@ class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
 					NoOp.INSTANCE		// no override for methods mapped to this
 			});
 		
-			return e.create();
+			Object proxy = e.create();
+			DefaultAopProxyFactory.cglibProxyCreated(proxy.getClass());
+			return proxy;
 		}
 		catch (CodeGenerationException ex) {
 			throw new AspectException("Couldn't generate CGLIB subclass of class '" + advised.getTargetSource().getTargetClass() + "': " +
@@ -292,51 +305,109 @@ class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
 	}
 	
 	/**
-	 * Implementation of CallbackFilter.accept() to return the index of the
-	 * callback we need. This will mean either no overriding,
-	 * AOP_PROXY (run through our intercept method) or INVOKE_TARGET 
-	 * (optimized direct invocation of target without re-evaluating
-	 * advice chain at runtime).
-	 * @see net.sf.cglib.proxy.CallbackFilter#accept(java.lang.reflect.Method)
+	 * CallbackFilter determining the callback for each method of the proxy class.
+	 * Equal filters produce equal proxy classes, so CGLIB can reuse the generated
+	 * class for all proxies with an equal filter, target class and interfaces.
+	 * <p>Without optimizations, the callbacks don't depend on the advice, so all
+	 * such filters are equal, and the filter does not keep a reference to the
+	 * configuration it was created for. With optimizations, the callbacks depend
+	 * on the advice chain of each method, so filters are only equal for the
+	 * same Advisor instances. (Advisor equality is not used, as Advisors don't
+	 * necessarily implement hashCode consistently with equals.)
 	 */
-	public int accept(Method method) {
-		
-		if (method.getName().equals("finalize") && method.getDeclaringClass() == Object.class) {
-			return NO_OVERRIDE; 
-		}
-		
-		if (!canApplyCglibOptimizations()) {
-			return AOP_PROXY;
+	private static class ProxyCallbackFilter implements CallbackFilter {
+
+		private final Log logger = LogFactory.getLog(Cglib2AopProxy.class);
+
+		/** Only set if optimized */
+		private final AdvisedSupport advised;
+
+		/** Snapshot of the advisors that an optimized proxy class is generated for */
+		private final Advisor[] advisors;
+
+		public ProxyCallbackFilter(AdvisedSupport advised, boolean optimized) {
+			this.advised = optimized ? advised : null;
+			this.advisors = optimized ? advised.getAdvisors() : null;
 		}
+
+		/**
+		 * Implementation of CallbackFilter.accept() to return the index of the
+		 * callback we need. This will mean either no overriding,
+		 * AOP_PROXY (run through our intercept method) or INVOKE_TARGET 
+		 * (optimized direct invocation of target without re-evaluating
+		 * advice chain at runtime).
+		 * @see net.sf.cglib.proxy.CallbackFilter#accept(java.lang.reflect.Method)
+		 */
+		public int accept(Method method) {
+			
+			if (method.getName().equals("finalize") && method.getDeclaringClass() == Object.class) {
+				return NO_OVERRIDE; 
+			}
+			
+			if (this.advised == null) {
+				return AOP_PROXY;
+			}
+			
+			// Could consider more aggressive optimization in which we have a distinct
+			// callback with the advice chain for each method, but it's probably not
+			// worth it
+			
+			// We can apply optimizations
+			// The optimization means that we evaluate whether or not there's an
+			// advice chain once only, befre each invocation. 
 		
-		// Could consider more aggressive optimization in which we have a distinct
-		// callback with the advice chain for each method, but it's probably not
-		// worth it
-		
-		// We can apply optimizations
-		// The optimization means that we evaluate whether or not there's an
-		// advice chain once only, befre each invocation. 
-	
-		Class targetClass = advised.getTargetSource().getTargetClass();
+			Class targetClass = advised.getTargetSource().getTargetClass();
+			
+			// We must always proxy equals, to direct calls to this
+			if (isEqualsMethod(method))
+				return AOP_PROXY;
 		
-		// We must always proxy equals, to direct calls to this
-		if (isEqualsMethod(method))
-			return AOP_PROXY;
+			// Proxy is not yet available, but that shouldn't matter
+			List chain = advised.getAdvisorChainFactory().getInterceptorsAndDynamicInterceptionAdvice(advised, null, method, targetClass);
+			boolean  haveAdvice = !chain.isEmpty();
 	
-		// Proxy is not yet available, but that shouldn't matter
-		List chain = advised.getAdvisorChainFactory().getInterceptorsAndDynamicInterceptionAdvice(advised, null, method, targetClass);
-		boolean  haveAdvice = !chain.isEmpty();
+			if (haveAdvice) {
+				logger.info("CGLIB proxy for " + targetClass.getName() + 
+							" WILL override " + method);
+			}
+			else {
+				logger.info("Chain is empty for " + method + "; will NOT override");
+			}
+			return haveAdvice ? AOP_PROXY : INVOKE_TARGET;
+		}
 
-		if (haveAdvice) {
-			logger.info("CGLIB proxy for " + targetClass.getName() + 
-						" WILL override " + method);
+		public boolean equals(Object other) {
+			if (other == this)
+				return true;
+			if (!(other instanceof ProxyCallbackFilter))
+				return false;
+			Advisor[] otherAdvisors = ((ProxyCallbackFilter) other).advisors;
+			if (this.advisors == null || otherAdvisors == null) {
+				return this.advisors == otherAdvisors;
+			}
+			if (this.advisors.length != otherAdvisors.length) {
+				return false;
+			}
+			for (int i = 0; i < this.advisors.length; i++) {
+				if (this.advisors[i] != otherAdvisors[i]) {
+					return false;
+				}
+			}
+			return true;
 		}
-		else {
-			logger.info("Chain is empty for " + method + "; will NOT override");
+
+		public int hashCode() {
+			if (this.advisors == null) {
+				return 0;
+			}
+			int hashCode = 1;
+			for (int i = 0; i < this.advisors.length; i++) {
+				hashCode = 29 * hashCode + System.identityHashCode(this.advisors[i]);
+			}
+			return hashCode;
 		}
-		return haveAdvice ? AOP_PROXY : INVOKE_TARGET;
 	}
-	
+
 
 	/**
 	 * Equality means interceptors and interfaces are ==.
@@ -16,13 +16,77 @@
 
 package org.springframework.aop.framework;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * Simple implementation of AopProxyFactory
+ *
+ * <p>Also offers statistics on CGLIB proxy class generation: CGLIB proxy
+ * classes are shared by all proxies with the same target class, interfaces
+ * and callback shape, no matter which proxy factory created them. J2SE dynamic
+ * proxy classes are cached by java.lang.reflect.Proxy itself.
+ *
  * @author Rod Johnson
  * @version $Id: DefaultAopProxyFactory.java,v 1.2 2004/03/18 02:46:05 trisberg Exp $
  */
 public class DefaultAopProxyFactory implements AopProxyFactory {
 
+	/** CGLIB proxy classes seen so far, as weak keys */
+	private static final Map cglibProxyClasses = new WeakHashMap();
+
+	private static int cglibProxyCount;
+
+	private static int cglibProxyClassCount;
+
+	/**
+	 * Register the creation of a CGLIB proxy.
+	 * Called by Cglib2AopProxy.
+	 * @param proxyClass the class of the new proxy
+	 */
+	static void cglibProxyCreated(Class proxyClass) {
+		synchronized (cglibProxyClasses) {
+			cglibProxyCount++;
+			if (!cglibProxyClasses.containsKey(proxyClass)) {
+				cglibProxyClasses.put(proxyClass, Boolean.TRUE);
+				cglibProxyClassCount++;
+			}
+		}
+	}
+
+	/**
+	 * Return the number of CGLIB proxies created so far.
+	 */
+	public static int getCglibProxyCount() {
+		synchronized (cglibProxyClasses) {
+			return cglibProxyCount;
+		}
+	}
+
+	/**
+	 * Return the number of CGLIB proxy classes generated so far.
+	 * Lower than the number of proxies if proxy classes get reused.
+	 */
+	public static int getCglibProxyClassCount() {
+		synchronized (cglibProxyClasses) {
+			return cglibProxyClassCount;
+		}
+	}
+
+	/**
+	 * Return the ratio of CGLIB proxies that reused an existing proxy class,
+	 * between 0 and 1. Returns 0 if no CGLIB proxies have been created yet.
+	 */
+	public static double getCglibProxyClassCacheHitRatio() {
+		synchronized (cglibProxyClasses) {
+			if (cglibProxyCount == 0) {
+				return 0;
+			}
+			return (double) (cglibProxyCount - cglibProxyClassCount) / cglibProxyCount;
+		}
+	}
+
+
 	/**
 	 * @see org.springframework.aop.framework.AopProxyFactory#createAopProxy(org.springframework.aop.framework.AdvisedSupport)
 	 */
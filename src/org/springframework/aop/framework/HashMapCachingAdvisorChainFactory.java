@@ -21,58 +21,145 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
  * AdvisorChainFactory implementation that caches by method.
  * Uses IdentityHashMap in JVM 1.4, which skips expensive Method.hashCode()
  * call. In 1.3, falls back to using HashMap.
+ *
+ * <p>Safe for concurrent use by all proxies that share the same configuration.
+ * The method cache is never modified in place but replaced with an updated copy,
+ * so cached chains are read without synchronization. Each chain is calculated
+ * only once, and an advice change atomically discards all cached chains.
+ *
+ * <p>If the config's "precomputeAdvisorChains" flag is set, chains for all
+ * proxied methods are calculated when the first proxy gets created and after
+ * every advice change. As proxies pass their own Method instances, such
+ * precomputed chains are found via Method equality on first invocation.
+ *
  * @author Rod Johnson
  * @version $Id: HashMapCachingAdvisorChainFactory.java,v 1.4 2004/03/18 02:46:05 trisberg Exp $
+ * @see ProxyConfig#setPrecomputeAdvisorChains
  */
 public final class HashMapCachingAdvisorChainFactory implements AdvisorChainFactory {
-	
-	private Map methodCache = createMap();
-	
-	private Map createMap() {
+
+	private static final Log logger = LogFactory.getLog(HashMapCachingAdvisorChainFactory.class);
+
+	/**
+	 * Advisor chains keyed by Method instance. Never modified in place:
+	 * replaced with an updated copy whenever a chain is added.
+	 */
+	private volatile Map methodCache = createMap(null);
+
+	/**
+	 * Advisor chains keyed by Method equality, including precomputed chains.
+	 * Only accessed when synchronized on this object.
+	 */
+	private Map equalityCache = new HashMap();
+
+	private static Map createMap(Map entries) {
+		Map map = null;
 		// Use IdentityHashMap, introduced in Java 1.4, which is a lot faster
 		// as we want to compare Method keys by reference.
 		// The reason we do this via reflection rather than using new is to avoid a dependence in this
 		// class that will break it under 1.3
 		try {
 			Class clazz = Class.forName("java.util.IdentityHashMap");
-			return (Map) clazz.newInstance();
+			map = (Map) clazz.newInstance();
 		}
 		catch (Exception ex) {
 			// Shouldn't happen
-			LogFactory.getLog(getClass()).debug("Falling back to HashMap (JDK 1.3?): couldn't create an IdentityHashMap using reflection", ex);
-			return new HashMap();
+			logger.debug("Falling back to HashMap (JDK 1.3?): couldn't create an IdentityHashMap using reflection", ex);
+			map = new HashMap();
 		}
+		if (entries != null) {
+			map.putAll(entries);
+		}
+		return map;
 	}
 	
 	public List getInterceptorsAndDynamicInterceptionAdvice(Advised config, Object proxy, Method method, Class targetClass) {
 		List cached = (List) this.methodCache.get(method);
 		if (cached == null) {
-			// Recalculate
-			cached = AdvisorChainFactoryUtils.calculateInterceptorsAndDynamicInterceptionAdvice(config, proxy, method, targetClass);
-			this.methodCache.put(method, cached);
+			cached = cacheChain(config, proxy, method, targetClass);
 		}
 		return cached;
 	}
 
+	/**
+	 * Obtain the chain for the given method and add it to the method cache,
+	 * calculating it unless already known for an equal Method instance.
+	 * Cached chains are immutable InterceptorChains, shared by all invocations.
+	 */
+	private synchronized List cacheChain(Advised config, Object proxy, Method method, Class targetClass) {
+		// re-check within synchronized block
+		List cached = (List) this.methodCache.get(method);
+		if (cached == null) {
+			cached = (List) this.equalityCache.get(method);
+			if (cached == null) {
+				// Recalculate
+				cached = InterceptorChain.forList(
+						AdvisorChainFactoryUtils.calculateInterceptorsAndDynamicInterceptionAdvice(config, proxy, method, targetClass));
+				this.equalityCache.put(method, cached);
+			}
+			Map newMethodCache = createMap(this.methodCache);
+			newMethodCache.put(method, cached);
+			this.methodCache = newMethodCache;
+		}
+		return cached;
+	}
+
+	/**
+	 * Calculate the chains for all methods that may get invoked on
+	 * proxies for the given configuration.
+	 */
+	private void precomputeChains(AdvisedSupport advisedSupport) {
+		Class targetClass = advisedSupport.getTargetSource().getTargetClass();
+		Class[] interfaces = advisedSupport.getProxiedInterfaces();
+		for (int i = 0; i < interfaces.length; i++) {
+			precomputeChains(advisedSupport, interfaces[i].getMethods(), targetClass);
+		}
+		if (targetClass != null &&
+				(advisedSupport.getOptimize() || advisedSupport.getProxyTargetClass() || interfaces.length == 0)) {
+			// will be a CGLIB proxy for the target class
+			precomputeChains(advisedSupport, targetClass.getMethods(), targetClass);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Precomputed " + this.equalityCache.size() + " advisor chains for " + advisedSupport);
+		}
+	}
+
+	private void precomputeChains(AdvisedSupport advisedSupport, Method[] methods, Class targetClass) {
+		for (int i = 0; i < methods.length; i++) {
+			if (!this.equalityCache.containsKey(methods[i])) {
+				this.equalityCache.put(methods[i], InterceptorChain.forList(AdvisorChainFactoryUtils.calculateInterceptorsAndDynamicInterceptionAdvice(
+						advisedSupport, null, methods[i], targetClass)));
+			}
+		}
+	}
+
 
 	/**
 	 * @see org.springframework.aop.framework.AdvisedSupportListener#activated(org.springframework.aop.framework.AdvisedSupport)
 	 */
-	public void activated(AdvisedSupport advisedSupport) {
+	public synchronized void activated(AdvisedSupport advisedSupport) {
+		if (advisedSupport.getPrecomputeAdvisorChains()) {
+			precomputeChains(advisedSupport);
+		}
 	}
 
 
 	/**
 	 * @see org.springframework.aop.framework.AdvisedSupportListener#adviceChanged(org.springframework.aop.framework.AdvisedSupport)
 	 */
-	public void adviceChanged(AdvisedSupport advisedSupport) {
-		methodCache.clear();
+	public synchronized void adviceChanged(AdvisedSupport advisedSupport) {
+		this.methodCache = createMap(null);
+		this.equalityCache = new HashMap();
+		if (advisedSupport.getPrecomputeAdvisorChains()) {
+			precomputeChains(advisedSupport);
+		}
 	}
 
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.aop.framework;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Internal framework class.
+ * Immutable list of MethodInterceptor and InterceptorAndDynamicMethodMatcher,
+ * backed by an array that ReflectiveMethodInvocation can use directly.
+ * Caching AdvisorChainFactory implementations return chains of this type,
+ * so that invoking an advised method doesn't need to copy the chain.
+ * @since 1.0.1
+ * @see ReflectiveMethodInvocation
+ * @see HashMapCachingAdvisorChainFactory
+ */
+final class InterceptorChain extends AbstractList {
+
+	/** Shared instance for methods without advice */
+	public static final InterceptorChain EMPTY = new InterceptorChain(new Object[0]);
+
+	/**
+	 * Return an InterceptorChain for the given list of interceptors.
+	 * @param interceptorsAndDynamicMethodMatchers list of MethodInterceptor
+	 * and InterceptorAndDynamicMethodMatcher
+	 */
+	public static InterceptorChain forList(List interceptorsAndDynamicMethodMatchers) {
+		if (interceptorsAndDynamicMethodMatchers instanceof InterceptorChain) {
+			return (InterceptorChain) interceptorsAndDynamicMethodMatchers;
+		}
+		if (interceptorsAndDynamicMethodMatchers.isEmpty()) {
+			return EMPTY;
+		}
+		return new InterceptorChain(interceptorsAndDynamicMethodMatchers.toArray());
+	}
+
+
+	/** Never modified after construction */
+	final Object[] interceptors;
+
+	private InterceptorChain(Object[] interceptors) {
+		this.interceptors = interceptors;
+	}
+
+	public Object get(int index) {
+		return this.interceptors[index];
+	}
+
+	public int size() {
+		return this.interceptors.length;
+	}
+
+}
@@ -103,7 +103,7 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
 				// What if equals throws exception!?
 
 				// This class implements the equals() method itself
-				return new Boolean(equals(args[0]));
+				return equals(args[0]) ? Boolean.TRUE : Boolean.FALSE;
 			}
 			else if (Advised.class == method.getDeclaringClass()) {
 				// Service invocations on ProxyConfig with the proxy config
@@ -139,6 +139,8 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
 			}
 			else {
 				// We need to create a method invocation...
+				// This is the only allocation per call if the chain factory caches
+				// chains, as the invocation iterates over the chain's array.
 				//invocation = advised.getMethodInvocationFactory().getMethodInvocation(proxy, method, targetClass, target, args, chain, advised);
 				
 				invocation = new ReflectiveMethodInvocation(proxy, target,
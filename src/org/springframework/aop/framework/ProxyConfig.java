@@ -66,6 +66,12 @@ public class ProxyConfig {
 	 */
 	protected boolean exposeProxy;
 
+	/**
+	 * Should advisor chains for all proxied methods be calculated
+	 * when the first proxy gets created, rather than on first invocation?
+	 */
+	private boolean precomputeAdvisorChains;
+
 	
 	public ProxyConfig() {
 	}
@@ -79,6 +85,7 @@ public class ProxyConfig {
 		this.proxyTargetClass = other.proxyTargetClass;
 		this.exposeProxy = other.exposeProxy;
 		this.frozen = other.frozen;
+		this.precomputeAdvisorChains = other.precomputeAdvisorChains;
 		this.aopProxyFactory = other.aopProxyFactory;
 	}
 
@@ -185,10 +192,34 @@ public class ProxyConfig {
 		this.frozen = frozen;
 	}
 	
+	/**
+	 * @return whether advisor chains get calculated for all proxied
+	 * methods when the first proxy is created
+	 */
+	public boolean getPrecomputeAdvisorChains() {
+		return precomputeAdvisorChains;
+	}
+
+	/**
+	 * Set whether the advisor chains for all methods of the proxied interfaces
+	 * (and of the target class, in case of a CGLIB proxy) should be calculated
+	 * when the first proxy is created and on every advice change, rather than
+	 * lazily on first invocation of each method. This moves the cost of pointcut
+	 * evaluation from the first requests after deployment to proxy creation.
+	 * Only applies to advisor chain factories that cache chains.
+	 * @param precomputeAdvisorChains whether to precompute advisor chains.
+	 * Default is false.
+	 * @see HashMapCachingAdvisorChainFactory
+	 */
+	public void setPrecomputeAdvisorChains(boolean precomputeAdvisorChains) {
+		this.precomputeAdvisorChains = precomputeAdvisorChains;
+	}
+
 	public String toString() {
 		StringBuffer sb = new StringBuffer();
 		sb.append("exposeProxy=" + exposeProxy + "; ");
 		sb.append("frozen=" + frozen + "; ");
+		sb.append("precomputeAdvisorChains=" + precomputeAdvisorChains + "; ");
 		sb.append("enableCglibSubclassOptimizations=" + optimize + "; ");
 		sb.append("aopProxyFactory=" + aopProxyFactory + "; ");
 		return sb.toString();
@@ -46,6 +46,12 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 	 **/
 	protected List interceptorsAndDynamicMethodMatchers;
 	
+	/**
+	 * Array holding the interceptors of the list, as iterated by proceed().
+	 * Shared with the chain if that's an InterceptorChain, so must not be modified.
+	 */
+	private final Object[] interceptors;
+	
 	/**
 	 * Index from 0 of the current interceptor we're invoking.
 	 * -1 until we invoke: then the current interceptor
@@ -60,8 +66,9 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 	 * @param interceptorsAndDynamicMethodMatchers interceptors that should be applied,
 	 * along with any InterceptorAndDynamicMethodMatchers that need evaluation at runtime.
 	 * MethodMatchers included in this struct must already have been found to have matched as far
-	 * as was possibly statically. Passing an array might be about 10% faster, but would complicate
-	 * the code. And it would work only for static pointcuts.
+	 * as was possibly statically. Passing an InterceptorChain, as returned by caching
+	 * AdvisorChainFactory implementations, avoids copying the list into an array.
+	 * @see InterceptorChain
 	 */
 	public ReflectiveMethodInvocation(Object proxy, Object target, 
 					Method m, Object[] arguments,
@@ -72,6 +79,7 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 		this.method = m;
 		this.arguments = arguments;
 		this.interceptorsAndDynamicMethodMatchers = interceptorsAndDynamicMethodMatchers;
+		this.interceptors = InterceptorChain.forList(interceptorsAndDynamicMethodMatchers).interceptors;
 	}
 	
 	
@@ -110,29 +118,25 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 	 */
 	public Object proceed() throws Throwable {
 		//	We start with an index of -1 and increment early
-		if (this.currentInterceptorIndex == this.interceptorsAndDynamicMethodMatchers.size() - 1) {
-			return invokeJoinpoint();
-		}
-
-		Object interceptorOrInterceptionAdvice = this.interceptorsAndDynamicMethodMatchers.get(++this.currentInterceptorIndex);
-		if (interceptorOrInterceptionAdvice instanceof InterceptorAndDynamicMethodMatcher) {
-			// Evaluate dynamic method matcher here: static part will already have
-			// been evaluated and found to match
-			InterceptorAndDynamicMethodMatcher dm = (InterceptorAndDynamicMethodMatcher) interceptorOrInterceptionAdvice;
-			if (dm.methodMatcher.matches(this.method, this.targetClass, this.arguments)) {
-				return dm.interceptor.invoke(this);
+		while (this.currentInterceptorIndex < this.interceptors.length - 1) {
+			Object interceptorOrInterceptionAdvice = this.interceptors[++this.currentInterceptorIndex];
+			if (interceptorOrInterceptionAdvice instanceof InterceptorAndDynamicMethodMatcher) {
+				// Evaluate dynamic method matcher here: static part will already have
+				// been evaluated and found to match
+				InterceptorAndDynamicMethodMatcher dm = (InterceptorAndDynamicMethodMatcher) interceptorOrInterceptionAdvice;
+				if (dm.methodMatcher.matches(this.method, this.targetClass, this.arguments)) {
+					return dm.interceptor.invoke(this);
+				}
+				// Dynamic matching failed
+				// Skip this interceptor and try the next in the chain
 			}
 			else {
-				// Dynamic matching failed
-				// Skip this interceptor and invoke the next in the chain
-				return proceed();
+				// It's an interceptor so we just invoke it: the pointcut will have
+				// been evaluated statically before this object was constructed
+				return ((MethodInterceptor) interceptorOrInterceptionAdvice).invoke(this);
 			}
 		}
-		else {
-			// It's an interceptor so we just invoke it: the pointcut will have
-			// been evaluated statically before this object was constructed
-			return ((MethodInterceptor) interceptorOrInterceptionAdvice).invoke(this);
-		}
+		return invokeJoinpoint();
 	}
 	
 	/**
@@ -32,7 +32,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -310,18 +309,30 @@ public class BeanWrapperImpl implements BeanWrapper {
 	 * @return a BeanWrapper for the target bean
 	 */
 	private BeanWrapperImpl getBeanWrapperForPropertyPath(String propertyPath) {
-		int pos = propertyPath.indexOf(NESTED_PROPERTY_SEPARATOR);
-		// Handle nested properties recursively
-		if (pos > -1) {
-			String nestedProperty = propertyPath.substring(0, pos);
-			String nestedPath = propertyPath.substring(pos + 1);
-			logger.debug("Navigating to nested property '" + nestedProperty + "' of property path '" + propertyPath + "'");
-			BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
-			return nestedBw.getBeanWrapperForPropertyPath(nestedPath);
-		}
-		else {
-			return this;
+		return getBeanWrapperForPropertyPath(getPropertyPathTokens(propertyPath));
+	}
+
+	/**
+	 * Navigate to return a BeanWrapper for the given parsed property path.
+	 * @param tokens the tokens of the property path
+	 * @return a BeanWrapper for the bean that holds the last property of the path
+	 */
+	private BeanWrapperImpl getBeanWrapperForPropertyPath(PropertyPathAccessor.PropertyToken[] tokens) {
+		BeanWrapperImpl bw = this;
+		for (int i = 0; i < tokens.length - 1; i++) {
+			bw = bw.getNestedBeanWrapper(tokens[i]);
 		}
+		return bw;
+	}
+
+	/**
+	 * Return the parsed tokens of the given property path,
+	 * cached per bean class and property path.
+	 * @param propertyPath property path, which may be nested
+	 * @return the tokens of the property path, one per nesting level
+	 */
+	private PropertyPathAccessor.PropertyToken[] getPropertyPathTokens(String propertyPath) {
+		return this.cachedIntrospectionResults.getPropertyPathAccessor(propertyPath).getTokens();
 	}
 
 	/**
@@ -375,8 +386,10 @@ public class BeanWrapperImpl implements BeanWrapper {
 	}
 
 	private List getBeanWrappersForNestedProperty(String propertyPath, String nestedProperty, String nestedPath) {
-		logger.debug("Navigating to nested property '" + nestedProperty + "' of property path '" + propertyPath + "'");
-		BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Navigating to nested property '" + nestedProperty + "' of property path '" + propertyPath + "'");
+		}
+		BeanWrapperImpl nestedBw = getNestedBeanWrapper(new PropertyPathAccessor.PropertyToken(nestedProperty));
 		return nestedBw.getBeanWrappersForPropertyPath(nestedPath);
 	}
 
@@ -388,14 +401,13 @@ public class BeanWrapperImpl implements BeanWrapper {
 	 * @param nestedProperty property to create the BeanWrapper for
 	 * @return the BeanWrapper instance, either cached or newly created
 	 */
-	private BeanWrapperImpl getNestedBeanWrapper(String nestedProperty) {
+	private BeanWrapperImpl getNestedBeanWrapper(PropertyPathAccessor.PropertyToken nestedProperty) {
 		if (this.nestedBeanWrappers == null) {
 			this.nestedBeanWrappers = new HashMap();
 		}
 		// get value of bean property
-		String[] tokens = getPropertyNameTokens(nestedProperty);
-		Object propertyValue = getPropertyValue(tokens[0], tokens[1], tokens[2]);
-		String canonicalName = tokens[0];
+		Object propertyValue = getPropertyValue(nestedProperty);
+		String canonicalName = nestedProperty.getCanonicalName();
 		if (propertyValue == null) {
 			throw new NullValueInNestedPathException(getWrappedClass(), canonicalName);
 		}
@@ -403,7 +415,9 @@ public class BeanWrapperImpl implements BeanWrapper {
 		// lookup cached sub-BeanWrapper, create new one if not found
 		BeanWrapperImpl nestedBw = (BeanWrapperImpl) this.nestedBeanWrappers.get(canonicalName);
 		if (nestedBw == null) {
-			logger.debug("Creating new nested BeanWrapper for property '" + canonicalName + "'");
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating new nested BeanWrapper for property '" + canonicalName + "'");
+			}
 			nestedBw = new BeanWrapperImpl(propertyValue, this.nestedPath + canonicalName + NESTED_PROPERTY_SEPARATOR);
 			// inherit all type-specific PropertyEditors
 			if (this.customEditors != null) {
@@ -419,45 +433,30 @@ public class BeanWrapperImpl implements BeanWrapper {
 			this.nestedBeanWrappers.put(canonicalName, nestedBw);
 		}
 		else {
-			logger.debug("Using cached nested BeanWrapper for property '" + canonicalName + "'");
-		}
-		return nestedBw;
-	}
-
-	private String[] getPropertyNameTokens(String propertyName) {
-		String actualName = propertyName;
-		String key = null;
-		int keyStart = propertyName.indexOf('[');
-		if (keyStart != -1 && propertyName.endsWith("]")) {
-			actualName = propertyName.substring(0, keyStart);
-			key = propertyName.substring(keyStart + 1, propertyName.length() - 1);
-			if (key.startsWith("'") && key.endsWith("'")) {
-				key = key.substring(1, key.length() - 1);
-			}
-			else if (key.startsWith("\"") && key.endsWith("\"")) {
-				key = key.substring(1, key.length() - 1);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using cached nested BeanWrapper for property '" + canonicalName + "'");
 			}
 		}
-		String canonicalName = actualName;
-		if (key != null) {
-			canonicalName += "[" + key + "]";
-		}
-		return new String[] {canonicalName, actualName, key};
+		return nestedBw;
 	}
 
 
 	public Object getPropertyValue(String propertyName) throws BeansException {
-		if (isNestedProperty(propertyName)) {
-			BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-			return nestedBw.getPropertyValue(getFinalPath(propertyName));
+		PropertyPathAccessor.PropertyToken[] tokens = getPropertyPathTokens(propertyName);
+		BeanWrapperImpl bw = getBeanWrapperForPropertyPath(tokens);
+		return bw.getPropertyValue(tokens[tokens.length - 1]);
+	}
+
+	private Object getPropertyValue(PropertyPathAccessor.PropertyToken token) throws BeansException {
+		Object value = getSimplePropertyValue(token.getActualName());
+		if (token.getKey() != null) {
+			return token.getIndexedValue(value, token.getCanonicalName());
 		}
-		String[] tokens = getPropertyNameTokens(propertyName);
-		return getPropertyValue(tokens[0], tokens[1], tokens[2]);
+		return value;
 	}
 
-	private Object getPropertyValue(String propertyName, String actualName, String key) {
-		PropertyDescriptor pd = getPropertyDescriptor(actualName);
-		Method readMethod = pd.getReadMethod();
+	private Object getSimplePropertyValue(String actualName) throws BeansException {
+		Method readMethod = this.cachedIntrospectionResults.getPropertyInfo(actualName).getReadMethod();
 		if (readMethod == null) {
 			throw new FatalBeanException("Cannot get property '" + actualName + "': not readable", null);
 		}
@@ -465,46 +464,7 @@ public class BeanWrapperImpl implements BeanWrapper {
 			logger.debug("About to invoke read method [" + readMethod +
 			             "] on object of class [" + this.object.getClass().getName() + "]");
 		try {
-			Object value = readMethod.invoke(this.object, null);
-			if (key != null) {
-				if (value == null) {
-					throw new FatalBeanException("Cannot access indexed value in property referenced in indexed property path '" +
-					                             propertyName + "': returned null");
-				}
-				else if (value.getClass().isArray()) {
-					Object[] array = (Object[]) value;
-					return array[Integer.parseInt(key)];
-				}
-				else if (value instanceof List) {
-					List list = (List) value;
-					return list.get(Integer.parseInt(key));
-				}
-				else if (value instanceof Set) {
-					// apply index to Iterator in case of a Set
-					Set set = (Set) value;
-					int index = Integer.parseInt(key);
-					Iterator it = set.iterator();
-					for (int i = 0; it.hasNext(); i++) {
-						Object elem = it.next();
-						if (i == index) {
-							return elem;
-						}
-					}
-					throw new FatalBeanException("Cannot get element with index " + index + " from Set of size " +
-																			 set.size() + ", accessed using property path '" + propertyName + "'");
-				}
-				else if (value instanceof Map) {
-					Map map = (Map) value;
-					return map.get(key);
-				}
-				else {
-					throw new FatalBeanException("Property referenced in indexed property path '" + propertyName +
-					                             "' is neither an array nor a List nor a Map; returned value was [" + value + "]");
-				}
-			}
-			else {
-				return value;
-			}
+			return readMethod.invoke(this.object, null);
 		}
 		catch (InvocationTargetException ex) {
 			throw new FatalBeanException("Getter for property '" + actualName + "' threw exception", ex);
@@ -512,19 +472,14 @@ public class BeanWrapperImpl implements BeanWrapper {
 		catch (IllegalAccessException ex) {
 			throw new FatalBeanException("Illegal attempt to get property '" + actualName + "' threw exception", ex);
 		}
-		catch (IndexOutOfBoundsException ex) {
-			throw new FatalBeanException("Index of out of bounds in property path '" + propertyName + "'", ex);
-		}
-		catch (NumberFormatException ex) {
-			throw new FatalBeanException("Invalid index in property path '" + propertyName + "'");
-		}
 	}
 
 	public void setPropertyValue(String propertyName, Object value) throws BeansException {
-		if (isNestedProperty(propertyName)) {
+		PropertyPathAccessor.PropertyToken[] tokens = getPropertyPathTokens(propertyName);
+		if (tokens.length > 1) {
 			try {
-				BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-				nestedBw.setPropertyValue(new PropertyValue(getFinalPath(propertyName), value));
+				BeanWrapperImpl nestedBw = getBeanWrapperForPropertyPath(tokens);
+				nestedBw.setPropertyValue(tokens[tokens.length - 1], value);
 				return;
 			}
 			catch (NullValueInNestedPathException ex) {
@@ -536,66 +491,36 @@ public class BeanWrapperImpl implements BeanWrapper {
 				throw new NotWritablePropertyException(propertyName, getWrappedClass(), ex);
 			}
 		}
-		String[] tokens = getPropertyNameTokens(propertyName);
-		setPropertyValue(tokens[0], tokens[1], tokens[2], value);
+		setPropertyValue(tokens[0], value);
 	}
 
-	private void setPropertyValue(String propertyName, String actualName, String key, Object value)
-			throws BeansException {
-		if (key != null) {
-			Object propValue = getPropertyValue(actualName);
-			if (propValue == null) {
-				throw new FatalBeanException("Cannot access indexed value in property referenced in indexed property path '" +
-																		 propertyName + "': returned null");
-			}
-			else if (propValue.getClass().isArray()) {
-				Object[] array = (Object[]) propValue;
-				array[Integer.parseInt(key)] = value;
-			}
-			else if (propValue instanceof List) {
-				List list = (List) propValue;
-				int index = Integer.parseInt(key);
-				if (index < list.size()) {
-					list.set(index, value);
-				}
-				else if (index >= list.size()) {
-					for (int i = list.size(); i < index; i++) {
-						try {
-							list.add(null);
-						}
-						catch (NullPointerException ex) {
-							throw new FatalBeanException("Cannot set element with index " + index + " in List of size " +
-																					 list.size() + ", accessed using property path '" + propertyName +
-																					 "': List does not support filling up gaps with null elements");
-						}
-					}
-					list.add(value);
-				}
-			}
-			else if (propValue instanceof Map) {
-				Map map = (Map) propValue;
-				map.put(key, value);
-			}
-			else {
-				throw new FatalBeanException("Property referenced in indexed property path '" + propertyName +
-																		 "' is neither an array nor a List nor a Map; returned value was [" + value + "]");
-			}
+	private void setPropertyValue(PropertyPathAccessor.PropertyToken token, Object value) throws BeansException {
+		String propertyName = token.getCanonicalName();
+		if (token.getKey() != null) {
+			token.setIndexedValue(getSimplePropertyValue(token.getActualName()), value, propertyName);
 		}
 		else {
-			if (!isWritableProperty(propertyName)) {
+			CachedIntrospectionResults.PropertyInfo pi = null;
+			try {
+				pi = this.cachedIntrospectionResults.getPropertyInfo(propertyName);
+			}
+			catch (BeansException ex) {
+				// doesn't exist, so can't be writable
+			}
+			if (pi == null || pi.getWriteMethod() == null) {
 				throw new NotWritablePropertyException(propertyName, getWrappedClass());
 			}
-			PropertyDescriptor pd = getPropertyDescriptor(propertyName);
-			Method writeMethod = pd.getWriteMethod();
+			Method writeMethod = pi.getWriteMethod();
+			Class propertyType = pi.getPropertyType();
 			Object newValue = null;
 			try {
 				// old value may still be null
-				newValue = doTypeConversionIfNecessary(propertyName, propertyName, null, value, pd.getPropertyType());
+				newValue = doTypeConversionIfNecessary(propertyName, propertyName, null, value, propertyType);
 
-				if (pd.getPropertyType().isPrimitive() &&
+				if (propertyType.isPrimitive() &&
 						(newValue == null || "".equals(newValue))) {
 					throw new IllegalArgumentException("Invalid value [" + value + "] for property '" +
-								pd.getName() + "' of primitive type [" + pd.getPropertyType() + "]");
+								pi.getName() + "' of primitive type [" + propertyType + "]");
 				}
 
 				if (logger.isDebugEnabled()) {
@@ -606,11 +531,11 @@ public class BeanWrapperImpl implements BeanWrapper {
 				if (logger.isDebugEnabled()) {
 					String msg = "Invoked write method [" + writeMethod + "] with value ";
 					// only cause toString invocation of new value in case of simple property
-					if (newValue == null || BeanUtils.isSimpleProperty(pd.getPropertyType())) {
+					if (newValue == null || BeanUtils.isSimpleProperty(propertyType)) {
 						logger.debug(msg + "[" + newValue + "]");
 					}
 					else {
-						logger.debug(msg + "of type [" + pd.getPropertyType().getName() + "]");
+						logger.debug(msg + "of type [" + propertyType.getName() + "]");
 					}
 				}
 			}
@@ -621,7 +546,7 @@ public class BeanWrapperImpl implements BeanWrapper {
 				PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(this.object, this.nestedPath + propertyName,
 																																					null, newValue);
 				if (ex.getTargetException() instanceof ClassCastException) {
-					throw new TypeMismatchException(propertyChangeEvent, pd.getPropertyType(), ex.getTargetException());
+					throw new TypeMismatchException(propertyChangeEvent, propertyType, ex.getTargetException());
 				}
 				else {
 					throw new MethodInvocationException(ex.getTargetException(), propertyChangeEvent);
@@ -633,7 +558,7 @@ public class BeanWrapperImpl implements BeanWrapper {
 			catch (IllegalArgumentException ex) {
 				PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(this.object, this.nestedPath + propertyName,
 																																					null, newValue);
-				throw new TypeMismatchException(propertyChangeEvent, pd.getPropertyType(), ex);
+				throw new TypeMismatchException(propertyChangeEvent, propertyType, ex);
 			}
 		}
 	}
@@ -20,61 +20,124 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.util.ClassLoaderUtils;
+
 /**
  * Class to cache PropertyDescriptor information for a Java class.
  * Package-visible; not for use by application code.
  *
  * <p>Necessary as Introspector.getBeanInfo() in JDK 1.3 will return a new
  * deep copy of the BeanInfo every time we ask for it. We take the opportunity
- * to hash property descriptors by method name for fast lookup.
+ * to hash property descriptors by method name for fast lookup, resolving
+ * read and write methods and property types once per property.
  *
  * <p>Information is cached statically, so we don't need to create new
  * objects of this class for every JavaBean we manipulate. Thus this class
  * implements the factory design pattern, using a private constructor
  * and a public static forClass() method to obtain instances.
  *
+ * <p>The cache is keyed weakly by class. Results for classes that are not
+ * loaded by the class loader of this class (or a parent of it) are only
+ * referenced softly: They stay cached while memory is available, but do
+ * not pin web application class loaders in memory after redeployment
+ * once the garbage collector needs the space.
+ *
  * @author Rod Johnson
  * @since 05 May 2001
 *  @version $Id: CachedIntrospectionResults.java,v 1.8 2004/03/19 07:40:13 jhoeller Exp $
  */
 final class CachedIntrospectionResults {
 
+	/** Maximum number of PropertyPathAccessors to cache per class */
+	protected static final int MAX_CACHED_PROPERTY_PATHS = 256;
+
 	private static final Log logger = LogFactory.getLog(CachedIntrospectionResults.class);
 
-	/** Map keyed by class containing CachedIntrospectionResults */
-	private static HashMap classCache = new HashMap();
+	/**
+	 * Map keyed by class containing CachedIntrospectionResults,
+	 * or References to CachedIntrospectionResults for classes
+	 * that are not cache-safe.
+	 */
+	private static final Map classCache = Collections.synchronizedMap(new WeakHashMap());
+
+	/**
+	 * Read-only snapshot of the results for cache-safe classes, read without
+	 * locking. Those results are strongly held by the class cache anyway.
+	 * Replaced on every insertion while synchronized on the class cache.
+	 */
+	private static volatile Map safeClassCache = Collections.EMPTY_MAP;
 
 	/**
-	 * We might use this from the EJB tier, so we don't want to use synchronization.
-	 * Object references are atomic, so we can live with doing the occasional
-	 * unnecessary lookup at startup only.
+	 * Create CachedIntrospectionResults for the given bean class,
+	 * reusing cached results if available. Concurrent first access might
+	 * introspect the same class twice, which is harmless: the results
+	 * are equivalent, and the last one registered wins.
+	 * @param clazz the bean class to analyze
+	 * @return the corresponding CachedIntrospectionResults
 	 */
 	protected static CachedIntrospectionResults forClass(Class clazz) throws BeansException {
-		Object results = classCache.get(clazz);
+		CachedIntrospectionResults results = (CachedIntrospectionResults) safeClassCache.get(clazz);
+		if (results != null) {
+			return results;
+		}
+		Object value = classCache.get(clazz);
+		if (value instanceof Reference) {
+			results = (CachedIntrospectionResults) ((Reference) value).get();
+		}
+		else {
+			results = (CachedIntrospectionResults) value;
+		}
 		if (results == null) {
 			// can throw BeansException
 			results = new CachedIntrospectionResults(clazz);
-			classCache.put(clazz, results);
+			if (ClassLoaderUtils.isCacheSafe(clazz, CachedIntrospectionResults.class.getClassLoader())) {
+				synchronized (classCache) {
+					classCache.put(clazz, results);
+					Map newSafeClassCache = new HashMap(safeClassCache);
+					newSafeClassCache.put(clazz, results);
+					safeClassCache = newSafeClassCache;
+				}
+			}
+			else {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Not strongly caching class [" + clazz.getName() + "] because it is not cache-safe");
+				}
+				classCache.put(clazz, new SoftReference(results));
+			}
 		}
 		else {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Using cached introspection results for class " + clazz.getName());
 			}
 		}
-		return (CachedIntrospectionResults) results;
+		return results;
 	}
 
 
-	private BeanInfo beanInfo;
+	private final Class beanClass;
+
+	private final BeanInfo beanInfo;
 
-	/** Property descriptors keyed by property name */
-	private Map propertyDescriptorMap;
+	/** PropertyInfo objects keyed by property name */
+	private final Map propertyInfoMap;
+
+	/**
+	 * PropertyPathAccessors keyed by property path. Read-only snapshot,
+	 * read without locking and replaced on every insertion while
+	 * synchronized on this CachedIntrospectionResults instance.
+	 */
+	private volatile Map propertyPathAccessorCache = Collections.EMPTY_MAP;
 
 	/**
 	 * Create new CachedIntrospectionResults instance fot the given class.
@@ -82,16 +145,19 @@ final class CachedIntrospectionResults {
 	private CachedIntrospectionResults(Class clazz) throws FatalBeanException {
 		try {
 			logger.debug("Getting BeanInfo for class [" + clazz.getName() + "]");
+			this.beanClass = clazz;
 			this.beanInfo = Introspector.getBeanInfo(clazz);
 
 			logger.debug("Caching PropertyDescriptors for class [" + clazz.getName() + "]");
-			this.propertyDescriptorMap = new HashMap();
+			this.propertyInfoMap = new HashMap();
 			// This call is slow so we do it once
 			PropertyDescriptor[] pds = this.beanInfo.getPropertyDescriptors();
 			for (int i = 0; i < pds.length; i++) {
-				logger.debug("Found property '" + pds[i].getName() + "' of type [" + pds[i].getPropertyType() +
-										 "]; editor=[" + pds[i].getPropertyEditorClass() + "]");
-				this.propertyDescriptorMap.put(pds[i].getName(), pds[i]);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Found property '" + pds[i].getName() + "' of type [" + pds[i].getPropertyType() +
+											 "]; editor=[" + pds[i].getPropertyEditorClass() + "]");
+				}
+				this.propertyInfoMap.put(pds[i].getName(), new PropertyInfo(clazz, pds[i]));
 			}
 		}
 		catch (IntrospectionException ex) {
@@ -104,15 +170,116 @@ final class CachedIntrospectionResults {
 	}
 
 	protected Class getBeanClass() {
-		return beanInfo.getBeanDescriptor().getBeanClass();
+		return beanClass;
 	}
 
 	protected PropertyDescriptor getPropertyDescriptor(String propertyName) throws BeansException {
-		PropertyDescriptor pd = (PropertyDescriptor) this.propertyDescriptorMap.get(propertyName);
-		if (pd == null) {
+		return getPropertyInfo(propertyName).getPropertyDescriptor();
+	}
+
+	/**
+	 * Return the resolved accessor information for the given property.
+	 * @param propertyName the name of the property
+	 * @return the PropertyInfo (never null)
+	 * @throws FatalBeanException if there is no such property
+	 */
+	protected PropertyInfo getPropertyInfo(String propertyName) throws BeansException {
+		PropertyInfo pi = (PropertyInfo) this.propertyInfoMap.get(propertyName);
+		if (pi == null) {
 			throw new FatalBeanException("No property '" + propertyName + "' in class [" + getBeanClass().getName() + "]", null);
 		}
-		return pd;
+		return pi;
+	}
+
+	/**
+	 * Return the compiled accessor for the given property path on this class.
+	 * <p>Property paths may come from user input, e.g. from request parameter
+	 * names in case of data binding, so the number of cached accessors per
+	 * class is limited. Further accessors get created on every call.
+	 * <p>Lookups do not lock; accessors are compiled outside of any lock.
+	 * Concurrent first access might compile the same path twice, which
+	 * is harmless as the accessors are equivalent.
+	 * @param propertyPath the property path, which may be nested and indexed
+	 * @return the PropertyPathAccessor (never null)
+	 * @see #MAX_CACHED_PROPERTY_PATHS
+	 */
+	protected PropertyPathAccessor getPropertyPathAccessor(String propertyPath) {
+		PropertyPathAccessor accessor = (PropertyPathAccessor) this.propertyPathAccessorCache.get(propertyPath);
+		if (accessor == null) {
+			accessor = new PropertyPathAccessor(this.beanClass, propertyPath);
+			if (this.propertyPathAccessorCache.size() < MAX_CACHED_PROPERTY_PATHS) {
+				cachePropertyPathAccessor(propertyPath, accessor);
+			}
+		}
+		return accessor;
+	}
+
+	/**
+	 * Register the given accessor in a copy of the current cache snapshot,
+	 * unless another thread has registered one in the meantime or the
+	 * cache has reached its limit.
+	 */
+	private synchronized void cachePropertyPathAccessor(String propertyPath, PropertyPathAccessor accessor) {
+		Map cache = this.propertyPathAccessorCache;
+		if (!cache.containsKey(propertyPath) && cache.size() < MAX_CACHED_PROPERTY_PATHS) {
+			Map newCache = new HashMap(cache);
+			newCache.put(propertyPath, accessor);
+			this.propertyPathAccessorCache = newCache;
+		}
+	}
+
+
+	/**
+	 * Holder for a PropertyDescriptor and its resolved read method,
+	 * write method and property type, avoiding repeated lookups
+	 * on the PropertyDescriptor for every property access.
+	 */
+	static final class PropertyInfo {
+
+		private final PropertyDescriptor propertyDescriptor;
+
+		private final Method readMethod;
+
+		private final Method writeMethod;
+
+		private final Class propertyType;
+
+		private final Class beanClass;
+
+		private PropertyInfo(Class beanClass, PropertyDescriptor propertyDescriptor) {
+			this.beanClass = beanClass;
+			this.propertyDescriptor = propertyDescriptor;
+			this.readMethod = propertyDescriptor.getReadMethod();
+			this.writeMethod = propertyDescriptor.getWriteMethod();
+			this.propertyType = propertyDescriptor.getPropertyType();
+		}
+
+		public PropertyDescriptor getPropertyDescriptor() {
+			return propertyDescriptor;
+		}
+
+		public String getName() {
+			return propertyDescriptor.getName();
+		}
+
+		public Method getReadMethod() {
+			return readMethod;
+		}
+
+		public Method getWriteMethod() {
+			return writeMethod;
+		}
+
+		public Class getPropertyType() {
+			return propertyType;
+		}
+
+		/**
+		 * Return the class that this property information has been resolved for.
+		 */
+		public Class getBeanClass() {
+			return beanClass;
+		}
 	}
 
 }
@@ -0,0 +1,423 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyChangeEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled form of a property path like "address.city" or "items[3].name",
+ * for repeated access to the same property path on many objects.
+ *
+ * <p>The path is parsed once, and read and write methods are resolved on
+ * first access and kept for subsequent accesses to objects of the same class.
+ * In contrast to BeanWrapperImpl, no intermediate BeanWrappers are created
+ * for nested paths, and no type conversion is applied on write access:
+ * values have to match the target property type.
+ *
+ * <p>Instances are thread-safe and cached per bean class and property path.
+ * Obtain them via the static forPath method.
+ *
+ * <p>Supports the same indexed and mapped property syntax as BeanWrapperImpl:
+ * arrays, Lists and Sets can be accessed via an index, Maps via a key.
+ *
+ * @since 1.0.1
+ * @see #forPath
+ * @see BeanWrapperImpl
+ * @see org.springframework.beans.support.PropertyComparator
+ */
+public final class PropertyPathAccessor {
+
+	/**
+	 * Return the compiled accessor for the given property path on the given bean class.
+	 * @param beanClass the class of the beans to access
+	 * @param propertyPath the property path, which may be nested and indexed
+	 * @return the (potentially cached) PropertyPathAccessor
+	 * @throws BeansException if the bean class cannot be introspected
+	 */
+	public static PropertyPathAccessor forPath(Class beanClass, String propertyPath) throws BeansException {
+		if (propertyPath == null) {
+			throw new IllegalArgumentException("Property path must not be null");
+		}
+		return CachedIntrospectionResults.forClass(beanClass).getPropertyPathAccessor(propertyPath);
+	}
+
+
+	private final Class beanClass;
+
+	private final String propertyPath;
+
+	private final PropertyToken[] tokens;
+
+	/**
+	 * Create a new PropertyPathAccessor for the given bean class and path.
+	 * Use the forPath method to benefit from caching.
+	 */
+	PropertyPathAccessor(Class beanClass, String propertyPath) {
+		this.beanClass = beanClass;
+		this.propertyPath = propertyPath;
+		List tokenList = new ArrayList();
+		String remainingPath = propertyPath;
+		int pos = remainingPath.indexOf(BeanWrapper.NESTED_PROPERTY_SEPARATOR);
+		while (pos != -1) {
+			tokenList.add(new PropertyToken(remainingPath.substring(0, pos)));
+			remainingPath = remainingPath.substring(pos + 1);
+			pos = remainingPath.indexOf(BeanWrapper.NESTED_PROPERTY_SEPARATOR);
+		}
+		tokenList.add(new PropertyToken(remainingPath));
+		this.tokens = (PropertyToken[]) tokenList.toArray(new PropertyToken[tokenList.size()]);
+	}
+
+	/**
+	 * Return the bean class that this accessor has been compiled for.
+	 * Can also be applied to objects of other classes that
+	 * provide the same properties.
+	 */
+	public Class getBeanClass() {
+		return beanClass;
+	}
+
+	/**
+	 * Return the property path that this accessor has been compiled for.
+	 */
+	public String getPropertyPath() {
+		return propertyPath;
+	}
+
+	/**
+	 * Return the parsed tokens of the property path, one per nesting level.
+	 */
+	PropertyToken[] getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * Return whether the property path is nested, i.e. consists of
+	 * more than one property.
+	 */
+	public boolean isNested() {
+		return (this.tokens.length > 1);
+	}
+
+	/**
+	 * Get the value of the property path on the given object.
+	 * @param bean the object to read from
+	 * @return the value of the property
+	 * @throws NullValueInNestedPathException if an intermediate value is null
+	 * @throws FatalBeanException if the property isn't readable
+	 */
+	public Object getPropertyValue(Object bean) throws BeansException {
+		Object value = bean;
+		for (int i = 0; i < this.tokens.length; i++) {
+			if (value == null) {
+				throw new NullValueInNestedPathException(bean.getClass(), getNestedPath(i));
+			}
+			value = this.tokens[i].getValue(value, this.propertyPath);
+		}
+		return value;
+	}
+
+	/**
+	 * Set the value of the property path on the given object.
+	 * The value needs to match the type of the target property,
+	 * as no type conversion is performed.
+	 * @param bean the object to write to
+	 * @param value the new value
+	 * @throws NullValueInNestedPathException if an intermediate value is null
+	 * @throws NotWritablePropertyException if the property isn't writable
+	 * @throws TypeMismatchException if the value doesn't match the property type
+	 */
+	public void setPropertyValue(Object bean, Object value) throws BeansException {
+		Object target = bean;
+		int last = this.tokens.length - 1;
+		for (int i = 0; i < last; i++) {
+			target = this.tokens[i].getValue(target, this.propertyPath);
+			if (target == null) {
+				throw new NullValueInNestedPathException(bean.getClass(), getNestedPath(i + 1));
+			}
+		}
+		this.tokens[last].setValue(target, value, this.propertyPath);
+	}
+
+	/**
+	 * Return the part of the property path up to the given token.
+	 */
+	private String getNestedPath(int tokenCount) {
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < tokenCount; i++) {
+			if (i > 0) {
+				sb.append(BeanWrapper.NESTED_PROPERTY_SEPARATOR);
+			}
+			sb.append(this.tokens[i].getCanonicalName());
+		}
+		return sb.toString();
+	}
+
+	public String toString() {
+		return "PropertyPathAccessor for path '" + this.propertyPath + "' on class [" + this.beanClass.getName() + "]";
+	}
+
+
+	/**
+	 * A single element of a property path, like "name" or "items[3]".
+	 * Caches the property accessor information for the class
+	 * that it has last been applied to.
+	 */
+	static final class PropertyToken {
+
+		private final String canonicalName;
+
+		private final String actualName;
+
+		private final String key;
+
+		private volatile CachedIntrospectionResults.PropertyInfo cachedPropertyInfo;
+
+		PropertyToken(String propertyName) {
+			String actualName = propertyName;
+			String key = null;
+			int keyStart = propertyName.indexOf('[');
+			if (keyStart != -1 && propertyName.endsWith("]")) {
+				actualName = propertyName.substring(0, keyStart);
+				key = propertyName.substring(keyStart + 1, propertyName.length() - 1);
+				if (key.startsWith("'") && key.endsWith("'")) {
+					key = key.substring(1, key.length() - 1);
+				}
+				else if (key.startsWith("\"") && key.endsWith("\"")) {
+					key = key.substring(1, key.length() - 1);
+				}
+			}
+			this.actualName = actualName;
+			this.key = key;
+			this.canonicalName = (key != null ? actualName + "[" + key + "]" : actualName);
+		}
+
+		/**
+		 * Return the canonical name of this token, with quotes
+		 * removed from the key of an indexed or mapped property.
+		 */
+		String getCanonicalName() {
+			return canonicalName;
+		}
+
+		/**
+		 * Return the name of the bean property, without key.
+		 */
+		String getActualName() {
+			return actualName;
+		}
+
+		/**
+		 * Return the key of an indexed or mapped property, or null if none.
+		 */
+		String getKey() {
+			return key;
+		}
+
+		/**
+		 * Return the accessor information for this token's bean property
+		 * on the given object, reusing the last resolved information
+		 * if it was resolved for the same class. Information resolved for a
+		 * superclass is not reused, as a subclass might e.g. add a setter.
+		 */
+		CachedIntrospectionResults.PropertyInfo getPropertyInfo(Object bean) throws BeansException {
+			CachedIntrospectionResults.PropertyInfo pi = this.cachedPropertyInfo;
+			if (pi == null || pi.getBeanClass() != bean.getClass()) {
+				pi = CachedIntrospectionResults.forClass(bean.getClass()).getPropertyInfo(this.actualName);
+				this.cachedPropertyInfo = pi;
+			}
+			return pi;
+		}
+
+		/**
+		 * Read this token's value from the given object,
+		 * applying the key in case of an indexed or mapped property.
+		 */
+		Object getValue(Object bean, String propertyPath) throws BeansException {
+			Method readMethod = getPropertyInfo(bean).getReadMethod();
+			if (readMethod == null) {
+				throw new FatalBeanException("Cannot get property '" + this.actualName + "': not readable", null);
+			}
+			Object value = null;
+			try {
+				value = readMethod.invoke(bean, null);
+			}
+			catch (InvocationTargetException ex) {
+				throw new FatalBeanException("Getter for property '" + this.actualName + "' threw exception", ex);
+			}
+			catch (IllegalAccessException ex) {
+				throw new FatalBeanException("Illegal attempt to get property '" + this.actualName + "' threw exception", ex);
+			}
+			if (this.key != null) {
+				return getIndexedValue(value, propertyPath);
+			}
+			return value;
+		}
+
+		/**
+		 * Apply this token's key to the given array, List, Set or Map.
+		 */
+		Object getIndexedValue(Object value, String propertyPath) throws BeansException {
+			if (value == null) {
+				throw new FatalBeanException("Cannot access indexed value in property referenced in indexed property path '" +
+																		 propertyPath + "': returned null");
+			}
+			try {
+				if (value.getClass().isArray()) {
+					Object[] array = (Object[]) value;
+					return array[Integer.parseInt(this.key)];
+				}
+				else if (value instanceof List) {
+					List list = (List) value;
+					return list.get(Integer.parseInt(this.key));
+				}
+				else if (value instanceof Set) {
+					// apply index to Iterator in case of a Set
+					Set set = (Set) value;
+					int index = Integer.parseInt(this.key);
+					Iterator it = set.iterator();
+					for (int i = 0; it.hasNext(); i++) {
+						Object elem = it.next();
+						if (i == index) {
+							return elem;
+						}
+					}
+					throw new FatalBeanException("Cannot get element with index " + index + " from Set of size " +
+																			 set.size() + ", accessed using property path '" + propertyPath + "'");
+				}
+				else if (value instanceof Map) {
+					Map map = (Map) value;
+					return map.get(this.key);
+				}
+				else {
+					throw new FatalBeanException("Property referenced in indexed property path '" + propertyPath +
+																			 "' is neither an array nor a List nor a Map; returned value was [" + value + "]");
+				}
+			}
+			catch (IndexOutOfBoundsException ex) {
+				throw new FatalBeanException("Index of out of bounds in property path '" + propertyPath + "'", ex);
+			}
+			catch (NumberFormatException ex) {
+				throw new FatalBeanException("Invalid index in property path '" + propertyPath + "'");
+			}
+		}
+
+		/**
+		 * Write the given value to this token's property on the given object,
+		 * as element of an array, List or Map in case of an indexed or mapped property.
+		 */
+		void setValue(Object bean, Object value, String propertyPath) throws BeansException {
+			if (this.key != null) {
+				Method readMethod = getPropertyInfo(bean).getReadMethod();
+				if (readMethod == null) {
+					throw new FatalBeanException("Cannot get property '" + this.actualName + "': not readable", null);
+				}
+				try {
+					setIndexedValue(readMethod.invoke(bean, null), value, propertyPath);
+				}
+				catch (InvocationTargetException ex) {
+					throw new FatalBeanException("Getter for property '" + this.actualName + "' threw exception", ex);
+				}
+				catch (IllegalAccessException ex) {
+					throw new FatalBeanException("Illegal attempt to get property '" + this.actualName + "' threw exception", ex);
+				}
+			}
+			else {
+				CachedIntrospectionResults.PropertyInfo pi = null;
+				try {
+					pi = getPropertyInfo(bean);
+				}
+				catch (BeansException ex) {
+					// doesn't exist, so can't be writable
+				}
+				if (pi == null || pi.getWriteMethod() == null) {
+					throw new NotWritablePropertyException(propertyPath, bean.getClass());
+				}
+				try {
+					pi.getWriteMethod().invoke(bean, new Object[] {value});
+				}
+				catch (InvocationTargetException ex) {
+					PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(bean, propertyPath, null, value);
+					if (ex.getTargetException() instanceof ClassCastException) {
+						throw new TypeMismatchException(propertyChangeEvent, pi.getPropertyType(), ex.getTargetException());
+					}
+					else {
+						throw new MethodInvocationException(ex.getTargetException(), propertyChangeEvent);
+					}
+				}
+				catch (IllegalAccessException ex) {
+					throw new FatalBeanException("Illegal attempt to set property [" + value + "] threw exception", ex);
+				}
+				catch (IllegalArgumentException ex) {
+					PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(bean, propertyPath, null, value);
+					throw new TypeMismatchException(propertyChangeEvent, pi.getPropertyType(), ex);
+				}
+			}
+		}
+
+		/**
+		 * Set the given value as element of the given array, List or Map,
+		 * using this token's key. Lists get filled up with null elements
+		 * if the index exceeds their current size.
+		 */
+		void setIndexedValue(Object propValue, Object value, String propertyPath) throws BeansException {
+			if (propValue == null) {
+				throw new FatalBeanException("Cannot access indexed value in property referenced in indexed property path '" +
+																		 propertyPath + "': returned null");
+			}
+			else if (propValue.getClass().isArray()) {
+				Object[] array = (Object[]) propValue;
+				array[Integer.parseInt(this.key)] = value;
+			}
+			else if (propValue instanceof List) {
+				List list = (List) propValue;
+				int index = Integer.parseInt(this.key);
+				if (index < list.size()) {
+					list.set(index, value);
+				}
+				else if (index >= list.size()) {
+					for (int i = list.size(); i < index; i++) {
+						try {
+							list.add(null);
+						}
+						catch (NullPointerException ex) {
+							throw new FatalBeanException("Cannot set element with index " + index + " in List of size " +
+																					 list.size() + ", accessed using property path '" + propertyPath +
+																					 "': List does not support filling up gaps with null elements");
+						}
+					}
+					list.add(value);
+				}
+			}
+			else if (propValue instanceof Map) {
+				Map map = (Map) propValue;
+				map.put(this.key, value);
+			}
+			else {
+				throw new FatalBeanException("Property referenced in indexed property path '" + propertyPath +
+																		 "' is neither an array nor a List nor a Map; returned value was [" + value + "]");
+			}
+		}
+	}
+
+}
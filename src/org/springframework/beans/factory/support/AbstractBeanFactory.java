@@ -53,6 +53,11 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
  * definitions. It also allows for management of a bean factory hierarchy,
  * implementing the HierarchicalBeanFactory interface.
  *
+ * <p>Fully initialized singletons and aliases are read from copy-on-write
+ * snapshots, so retrieving an existing singleton does not acquire any lock.
+ * Singleton creation and registration are still serialized, guaranteeing that
+ * each singleton gets created only once.
+ *
  * <p>The main template methods to be implemented by subclasses are
  * getBeanDefinition and createBean, retrieving a bean definition for
  * a given bean name respectively creating a bean instance for a given
@@ -92,11 +97,35 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	/** BeanPostProcessors to apply in createBean */
 	private final List beanPostProcessors = new ArrayList();
 
-	/** Map from alias to canonical bean name */
-	private final Map aliasMap = Collections.synchronizedMap(new HashMap());
+	/**
+	 * Map from alias to canonical bean name. Never modified in place:
+	 * replaced with an updated copy on alias registration.
+	 * Safely published through the volatile field, as guaranteed
+	 * by the J2SE 5.0 memory model.
+	 */
+	private volatile Map aliasMap = Collections.EMPTY_MAP;
+
+	/**
+	 * Cache of singletons: bean name --> bean instance.
+	 * Also holds singletons that are still in creation;
+	 * all access needs to be synchronized on this map.
+	 */
+	private final Map singletonCache = new HashMap();
+
+	/**
+	 * Read-only snapshot of the singleton cache, containing fully initialized
+	 * singletons only. Replaced whenever the outermost singleton creation
+	 * finishes or a singleton gets registered or destroyed. Like the alias
+	 * map, read without locking and safely published through the volatile field.
+	 */
+	private volatile Map publishedSingletons = Collections.EMPTY_MAP;
 
-	/** Cache of singletons: bean name --> bean instance */
-	private final Map singletonCache = Collections.synchronizedMap(new HashMap());
+	/**
+	 * Number of nested singleton creations in progress, plus the number of
+	 * batches that currently defer publication of the singleton cache.
+	 * Only modified when synchronized on the singleton cache.
+	 */
+	private volatile int singletonCreationDepth = 0;
 
 
 	/**
@@ -128,13 +157,19 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	 */
 	public Object getBean(String name) throws BeansException {
 		String beanName = transformedBeanName(name);
-		// eagerly check singleton cache for manually registered singletons
-		Object sharedInstance = this.singletonCache.get(beanName);
+		// eagerly check singleton cache for manually registered singletons,
+		// without locking for fully initialized ones
+		Object sharedInstance = this.publishedSingletons.get(beanName);
+		if (sharedInstance == null && this.singletonCreationDepth > 0) {
+			// singleton creation in progress: check for early references
+			// to singletons that are currently in creation
+			sharedInstance = getSingleton(beanName);
+		}
 		if (sharedInstance != null) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Returning cached instance of singleton bean '" + beanName + "'");
 			}
-			return getObjectForSharedInstance(name, sharedInstance);
+			return getObjectForSharedInstance(name, beanName, sharedInstance);
 		}
 		else {
 			// check if bean definition exists
@@ -156,11 +191,18 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 					sharedInstance = this.singletonCache.get(beanName);
 					if (sharedInstance == null) {
 						logger.info("Creating shared instance of singleton bean '" + beanName + "'");
-						sharedInstance = createBean(beanName, mergedBeanDefinition);
-						addSingleton(beanName, sharedInstance);
+						this.singletonCreationDepth++;
+						try {
+							sharedInstance = createBean(beanName, mergedBeanDefinition);
+							this.singletonCache.put(beanName, sharedInstance);
+						}
+						finally {
+							this.singletonCreationDepth--;
+							publishSingletons();
+						}
 					}
 				}
-				return getObjectForSharedInstance(name, sharedInstance);
+				return getObjectForSharedInstance(name, beanName, sharedInstance);
 			}
 			else {
 				return createBean(name, mergedBeanDefinition);
@@ -178,7 +220,7 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 
 	public boolean containsBean(String name) {
 		String beanName = transformedBeanName(name);
-		if (this.singletonCache.containsKey(beanName)) {
+		if (getSingleton(beanName) != null) {
 			return true;
 		}
 		if (containsBeanDefinition(beanName)) {
@@ -200,7 +242,7 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		try {
 			Class beanClass = null;
 			boolean singleton = true;
-			Object beanInstance = this.singletonCache.get(beanName);
+			Object beanInstance = getSingleton(beanName);
 			if (beanInstance != null) {
 				beanClass = beanInstance.getClass();
 				singleton = true;
@@ -231,7 +273,7 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	public String[] getAliases(String name) throws NoSuchBeanDefinitionException {
 		String beanName = transformedBeanName(name);
 		// check if bean actually exists in this bean factory
-		if (this.singletonCache.containsKey(beanName) || containsBeanDefinition(beanName)) {
+		if (getSingleton(beanName) != null || containsBeanDefinition(beanName)) {
 			// if found, gather aliases
 			List aliases = new ArrayList();
 			for (Iterator it = this.aliasMap.entrySet().iterator(); it.hasNext();) {
@@ -306,13 +348,15 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 
 	public void registerAlias(String beanName, String alias) throws BeanDefinitionStoreException {
 		logger.debug("Registering alias '" + alias + "' for bean with name '" + beanName + "'");
-		synchronized (this.aliasMap) {
+		synchronized (this) {
 			Object registeredName = this.aliasMap.get(alias);
 			if (registeredName != null) {
 				throw new BeanDefinitionStoreException("Cannot register alias '" + alias + "' for bean name '" + beanName +
 																							 "': it's already registered for bean name '" + registeredName + "'");
 			}
-			this.aliasMap.put(alias, beanName);
+			Map newAliasMap = new HashMap(this.aliasMap);
+			newAliasMap.put(alias, beanName);
+			this.aliasMap = newAliasMap;
 		}
 	}
 
@@ -336,7 +380,61 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	 * @param singletonObject the singleton object
 	 */
 	protected void addSingleton(String beanName, Object singletonObject) {
-		this.singletonCache.put(beanName, singletonObject);
+		synchronized (this.singletonCache) {
+			this.singletonCache.put(beanName, singletonObject);
+			publishSingletons();
+		}
+	}
+
+	/**
+	 * Return the singleton registered under the given name, including
+	 * singletons that are currently in creation. Will only be visible
+	 * to the creating thread in the latter case.
+	 * @param beanName the name of the bean
+	 * @return the registered singleton object, or null if none found
+	 */
+	protected Object getSingleton(String beanName) {
+		synchronized (this.singletonCache) {
+			return this.singletonCache.get(beanName);
+		}
+	}
+
+	/**
+	 * Expose the current state of the singleton cache for unsynchronized
+	 * access. Only done if no singleton creation is in progress, to avoid
+	 * exposing incompletely initialized singletons to other threads.
+	 */
+	private void publishSingletons() {
+		if (this.singletonCreationDepth == 0) {
+			this.publishedSingletons = Collections.unmodifiableMap(new HashMap(this.singletonCache));
+		}
+	}
+
+	/**
+	 * Defer exposing the singleton cache for unsynchronized access until the
+	 * matching publishDeferredSingletons call. To be used around the creation
+	 * of many singletons, so that the cache gets copied once per batch rather
+	 * than once per singleton. Lookups of singletons created in the meantime
+	 * fall back to the synchronized singleton cache.
+	 * @see #publishDeferredSingletons
+	 */
+	protected void deferSingletonPublication() {
+		synchronized (this.singletonCache) {
+			this.singletonCreationDepth++;
+		}
+	}
+
+	/**
+	 * End a batch started with deferSingletonPublication, exposing the
+	 * current state of the singleton cache if no other batch or singleton
+	 * creation is in progress.
+	 * @see #deferSingletonPublication
+	 */
+	protected void publishDeferredSingletons() {
+		synchronized (this.singletonCache) {
+			this.singletonCreationDepth--;
+			publishSingletons();
+		}
 	}
 
 	public void destroySingletons() {
@@ -344,9 +442,19 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 			logger.info("Destroying singletons in factory {" + this + "}");
 		}
 		synchronized (this.singletonCache) {
-			Set singletonCacheKeys = new HashSet(this.singletonCache.keySet());
-			for (Iterator it = singletonCacheKeys.iterator(); it.hasNext();) {
-				destroySingleton((String) it.next());
+			// withdraw the published singletons right away,
+			// but publish the emptied cache once rather than once per singleton
+			this.publishedSingletons = Collections.EMPTY_MAP;
+			this.singletonCreationDepth++;
+			try {
+				Set singletonCacheKeys = new HashSet(this.singletonCache.keySet());
+				for (Iterator it = singletonCacheKeys.iterator(); it.hasNext();) {
+					destroySingleton((String) it.next());
+				}
+			}
+			finally {
+				this.singletonCreationDepth--;
+				publishSingletons();
 			}
 		}
 	}
@@ -358,7 +466,11 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	 * @see #destroyBean
 	 */
 	protected void destroySingleton(String beanName) {
-		Object singletonInstance = this.singletonCache.remove(beanName);
+		Object singletonInstance = null;
+		synchronized (this.singletonCache) {
+			singletonInstance = this.singletonCache.remove(beanName);
+			publishSingletons();
+		}
 		if (singletonInstance != null) {
 			destroyBean(beanName, singletonInstance);
 		}
@@ -377,10 +489,10 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		if (name == null) {
 			throw new NoSuchBeanDefinitionException(name, "Cannot get bean with null name");
 		}
-		if (name.startsWith(FACTORY_BEAN_PREFIX)) {
+		if (isFactoryDereference(name)) {
 			name = name.substring(FACTORY_BEAN_PREFIX.length());
 		}
-		// handle aliasing
+		// handle aliasing, reading the current alias map without locking
 		String canonicalName = (String) this.aliasMap.get(name);
 		return canonicalName != null ? canonicalName : name;
 	}
@@ -415,14 +527,14 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	 * object type (including subclasses), or an empty array if none
 	 */
 	public String[] getSingletonNames(Class type) {
-		Set keys = this.singletonCache.keySet();
 		Set matches = new HashSet();
-		Iterator itr = keys.iterator();
-		while (itr.hasNext()) {
-			String name = (String) itr.next();
-			Object singletonObject = this.singletonCache.get(name);
-			if (type == null || type.isAssignableFrom(singletonObject.getClass())) {
-				matches.add(name);
+		synchronized (this.singletonCache) {
+			Iterator itr = this.singletonCache.entrySet().iterator();
+			while (itr.hasNext()) {
+				Map.Entry entry = (Map.Entry) itr.next();
+				if (type == null || type.isAssignableFrom(entry.getValue().getClass())) {
+					matches.add(entry.getKey());
+				}
 			}
 		}
 		return (String[]) matches.toArray(new String[matches.size()]);
@@ -436,8 +548,18 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	 * @return the singleton instance of the bean
 	 */
 	protected Object getObjectForSharedInstance(String name, Object beanInstance) {
-		String beanName = transformedBeanName(name);
+		return getObjectForSharedInstance(name, transformedBeanName(name), beanInstance);
+	}
 
+	/**
+	 * Get the object for the given shared bean, either the bean
+	 * instance itself or its created object in case of a FactoryBean.
+	 * @param name name that may include factory dereference prefix
+	 * @param beanName the already transformed (canonical) bean name
+	 * @param beanInstance the shared bean instance
+	 * @return the singleton instance of the bean
+	 */
+	private Object getObjectForSharedInstance(String name, String beanName, Object beanInstance) {
 		// Don't let calling code try to dereference the
 		// bean factory if the bean isn't a factory
 		if (isFactoryDereference(name) && !(beanInstance instanceof FactoryBean)) {
@@ -452,7 +574,9 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 			if (!isFactoryDereference(name)) {
 				// return bean instance from factory
 				FactoryBean factory = (FactoryBean) beanInstance;
-				logger.debug("Bean with name '" + beanName + "' is a factory bean");
+				if (logger.isDebugEnabled()) {
+					logger.debug("Bean with name '" + beanName + "' is a factory bean");
+				}
 				try {
 					beanInstance = factory.getObject();
 				}
@@ -470,7 +594,9 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 			}
 			else {
 				// the user wants the factory itself
-				logger.debug("Calling code asked for FactoryBean instance for name '" + beanName + "'");
+				if (logger.isDebugEnabled()) {
+					logger.debug("Calling code asked for FactoryBean instance for name '" + beanName + "'");
+				}
 			}
 		}
 
@@ -163,23 +163,29 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (logger.isInfoEnabled()) {
 			logger.info("Pre-instantiating singletons in factory [" + this + "]");
 		}
-		for (Iterator it = this.beanDefinitionNames.iterator(); it.hasNext();) {
-			String beanName = (String) it.next();
-			if (containsBeanDefinition(beanName)) {
-				RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
-				if (bd.isSingleton() && !bd.isLazyInit()) {
-					if (FactoryBean.class.isAssignableFrom(bd.getBeanClass())) {
-						FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
-						if (factory.isSingleton()) {
+		deferSingletonPublication();
+		try {
+			for (Iterator it = this.beanDefinitionNames.iterator(); it.hasNext();) {
+				String beanName = (String) it.next();
+				if (containsBeanDefinition(beanName)) {
+					RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
+					if (bd.isSingleton() && !bd.isLazyInit()) {
+						if (FactoryBean.class.isAssignableFrom(bd.getBeanClass())) {
+							FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
+							if (factory.isSingleton()) {
+								getBean(beanName);
+							}
+						}
+						else {
 							getBean(beanName);
 						}
 					}
-					else {
-						getBean(beanName);
-					}
 				}
 			}
 		}
+		finally {
+			publishDeferredSingletons();
+		}
 	}
 
 
@@ -19,20 +19,19 @@ package org.springframework.beans.support;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyPathAccessor;
 
 /**
  * PropertyComparator performs a comparison of two beans,
- * using the specified bean property via a BeanWrapper.
+ * using the specified bean property via a PropertyPathAccessor.
+ * The property path is compiled once and reused for all compared
+ * objects, as long as the sort property doesn't change.
  * @author Juergen Hoeller
  * @author Jean-Pierre Pawlak
  * @since 19.05.2003
@@ -43,7 +42,7 @@ public class PropertyComparator implements Comparator {
 
 	private SortDefinition sortDefinition;
 
-	private Map cachedBeanWrappers = new HashMap();
+	private PropertyPathAccessor cachedAccessor;
 
 	public PropertyComparator(SortDefinition sortDefinition) {
 		this.sortDefinition = sortDefinition;
@@ -77,12 +76,13 @@ public class PropertyComparator implements Comparator {
 	}
 
 	private Object getPropertyValue(Object o) throws BeansException {
-		BeanWrapper bw = (BeanWrapper) this.cachedBeanWrappers.get(o);
-		if (bw == null) {
-			bw = new BeanWrapperImpl(o);
-			this.cachedBeanWrappers.put(o, bw);
+		String property = this.sortDefinition.getProperty();
+		PropertyPathAccessor accessor = this.cachedAccessor;
+		if (accessor == null || !accessor.getPropertyPath().equals(property)) {
+			accessor = PropertyPathAccessor.forPath(o.getClass(), property);
+			this.cachedAccessor = accessor;
 		}
-		return bw.getPropertyValue(this.sortDefinition.getProperty());
+		return accessor.getPropertyValue(o);
 	}
 
 
@@ -16,53 +16,359 @@
 
 package org.springframework.context.event;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.Constants;
 
 /**
  * Concrete implementation of ApplicationEventMulticaster
  * Doesn't permit multiple instances of the same listener.
  *
- * <p>Note that this class doesn't try to do anything clever to ensure thread
- * safety if listeners are added or removed at runtime. A technique such as
- * Copy-on-Write (Lea:137) could be used to ensure this, but the assumption in
- * this version of this framework is that listeners will be added at application
- * configuration time and not added or removed as the application runs.
+ * <p>Listeners are held in a copy-on-write array, so listeners can safely be
+ * added or removed at runtime: each event is delivered to the listeners that
+ * were registered when its delivery started. The listeners to notify are cached
+ * per event class, so SmartApplicationListeners that are not interested in an
+ * event type are neither asked nor invoked again for events of that type.
  *
- * <p>All listeners are invoked in the calling thread. This allows the danger of
- * a rogue listener blocking the entire application, but adds minimal overhead.
+ * <p>By default, all listeners are invoked in the calling thread. This allows the
+ * danger of a rogue listener blocking the entire application, but adds minimal
+ * overhead. Alternatively, events can be delivered by a number of daemon worker
+ * threads: see the "asyncThreadCount", "asyncQueueCapacity" and "queueFullPolicy"
+ * properties. In that case, exceptions thrown by listeners are logged rather than
+ * propagated to the publisher, and with more than one worker thread, events may
+ * be delivered in a different order than they were published.
  *
- * <p>An alternative implementation could be more sophisticated in both these respects.
+ * <p>To use asynchronous delivery in an application context, define a bean of
+ * this class with the name "applicationEventMulticaster".
  *
  * @author Rod Johnson
+ * @see SmartApplicationListener
+ * @see org.springframework.context.support.AbstractApplicationContext#APPLICATION_EVENT_MULTICASTER_BEAN_NAME
  */
-public class ApplicationEventMulticasterImpl implements ApplicationEventMulticaster {
+public class ApplicationEventMulticasterImpl implements ApplicationEventMulticaster, DisposableBean {
+
+	/**
+	 * Queue full policy: deliver the event in the publishing thread.
+	 * This is the default.
+	 */
+	public static final int QUEUE_FULL_CALLER_RUNS = 0;
+
+	/**
+	 * Queue full policy: block the publishing thread until a worker
+	 * thread has taken an event off the queue.
+	 */
+	public static final int QUEUE_FULL_BLOCK = 1;
+
+	/**
+	 * Queue full policy: discard the event, logging a warning.
+	 */
+	public static final int QUEUE_FULL_DISCARD = 2;
+
+	/** Prefix for queue full policy constants */
+	public static final String QUEUE_FULL_CONSTANT_PREFIX = "QUEUE_FULL_";
+
+	/** Constants instance for this class */
+	private static final Constants constants = new Constants(ApplicationEventMulticasterImpl.class);
+
+	private static final ApplicationListener[] NO_LISTENERS = new ApplicationListener[0];
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	/** Array of listeners, replaced on every change */
+	private volatile ApplicationListener[] eventListeners = NO_LISTENERS;
+
+	/** Arrays of listeners to notify, keyed by event class. Replaced on every change. */
+	private volatile Map listenerCache = Collections.synchronizedMap(new HashMap());
+
+	private int asyncThreadCount = 0;
+
+	private int asyncQueueCapacity = 1000;
+
+	private int queueFullPolicy = QUEUE_FULL_CALLER_RUNS;
+
+	/** Events waiting for asynchronous delivery. Also serves as monitor for the worker threads. */
+	private final LinkedList eventQueue = new LinkedList();
+
+	private Thread[] workerThreads;
 
-	/** Set of listeners */
-	private Set eventListeners = new HashSet();
+	/** Number of worker threads that have not stopped yet */
+	private int activeWorkerCount = 0;
 
-	public void addApplicationListener(ApplicationListener l) {
-		eventListeners.add(l);
+	private boolean shutdown = false;
+
+
+	/**
+	 * Set the number of worker threads that deliver events asynchronously.
+	 * Default is 0, meaning that listeners are invoked in the publishing thread.
+	 * <p>Worker threads are started on the first event, so this must be set
+	 * before publishing events.
+	 */
+	public void setAsyncThreadCount(int asyncThreadCount) {
+		this.asyncThreadCount = asyncThreadCount;
+	}
+
+	public int getAsyncThreadCount() {
+		return asyncThreadCount;
+	}
+
+	/**
+	 * Set the maximum number of events waiting for asynchronous delivery.
+	 * Default is 1000. Only applies if "asyncThreadCount" is positive.
+	 * @see #setQueueFullPolicy
+	 */
+	public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+		if (asyncQueueCapacity <= 0) {
+			throw new IllegalArgumentException("asyncQueueCapacity must be positive");
+		}
+		this.asyncQueueCapacity = asyncQueueCapacity;
+	}
+
+	public int getAsyncQueueCapacity() {
+		return asyncQueueCapacity;
+	}
+
+	/**
+	 * Set the policy for events published while the asynchronous delivery queue
+	 * is full by the name of the corresponding constant in this class,
+	 * e.g. "QUEUE_FULL_BLOCK".
+	 * @param constantName name of the constant
+	 * @throws java.lang.IllegalArgumentException if an invalid constant was specified
+	 * @see #QUEUE_FULL_CALLER_RUNS
+	 * @see #QUEUE_FULL_BLOCK
+	 * @see #QUEUE_FULL_DISCARD
+	 */
+	public void setQueueFullPolicyName(String constantName) throws IllegalArgumentException {
+		if (constantName == null || !constantName.startsWith(QUEUE_FULL_CONSTANT_PREFIX)) {
+			throw new IllegalArgumentException("Only queue full policy constants allowed");
+		}
+		setQueueFullPolicy(constants.asNumber(constantName).intValue());
+	}
+
+	/**
+	 * Set the policy for events published while the asynchronous delivery queue
+	 * is full. Default is QUEUE_FULL_CALLER_RUNS, which slows down publishers
+	 * to the speed of the listeners without losing events.
+	 * @see #QUEUE_FULL_CALLER_RUNS
+	 * @see #QUEUE_FULL_BLOCK
+	 * @see #QUEUE_FULL_DISCARD
+	 */
+	public void setQueueFullPolicy(int queueFullPolicy) {
+		if (!constants.getValues(QUEUE_FULL_CONSTANT_PREFIX).contains(new Integer(queueFullPolicy))) {
+			throw new IllegalArgumentException("Only values of queue full policy constants allowed");
+		}
+		this.queueFullPolicy = queueFullPolicy;
 	}
 
-	public void removeApplicationListener(ApplicationListener l) {
-		eventListeners.remove(l);
+	public int getQueueFullPolicy() {
+		return queueFullPolicy;
+	}
+
+
+	public synchronized void addApplicationListener(ApplicationListener l) {
+		ApplicationListener[] listeners = this.eventListeners;
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i].equals(l)) {
+				return;
+			}
+		}
+		ApplicationListener[] newListeners = new ApplicationListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+		newListeners[listeners.length] = l;
+		setEventListeners(newListeners);
+	}
+
+	public synchronized void removeApplicationListener(ApplicationListener l) {
+		ApplicationListener[] listeners = this.eventListeners;
+		List newListeners = new ArrayList(listeners.length);
+		for (int i = 0; i < listeners.length; i++) {
+			if (!listeners[i].equals(l)) {
+				newListeners.add(listeners[i]);
+			}
+		}
+		if (newListeners.size() < listeners.length) {
+			setEventListeners((ApplicationListener[]) newListeners.toArray(new ApplicationListener[newListeners.size()]));
+		}
+	}
+
+	public synchronized void removeAllListeners() {
+		setEventListeners(NO_LISTENERS);
+	}
+
+	/**
+	 * Publish the given listeners and discard the listeners cached per event class.
+	 * Readers obtain the cache before the listeners, so they cannot add entries
+	 * for the old listeners to the new cache.
+	 */
+	private void setEventListeners(ApplicationListener[] listeners) {
+		this.eventListeners = listeners;
+		this.listenerCache = Collections.synchronizedMap(new HashMap());
+	}
+
+	/**
+	 * Return the listeners to notify of events of the given class.
+	 * @param eventClass the class of the event
+	 * @return the listeners (never null)
+	 * @see SmartApplicationListener#supportsEventType
+	 */
+	protected ApplicationListener[] getApplicationListeners(Class eventClass) {
+		Map cache = this.listenerCache;
+		ApplicationListener[] listeners = (ApplicationListener[]) cache.get(eventClass);
+		if (listeners == null) {
+			ApplicationListener[] allListeners = this.eventListeners;
+			List matchingListeners = new ArrayList(allListeners.length);
+			for (int i = 0; i < allListeners.length; i++) {
+				if (!(allListeners[i] instanceof SmartApplicationListener) ||
+						((SmartApplicationListener) allListeners[i]).supportsEventType(eventClass)) {
+					matchingListeners.add(allListeners[i]);
+				}
+			}
+			listeners = (ApplicationListener[]) matchingListeners.toArray(new ApplicationListener[matchingListeners.size()]);
+			cache.put(eventClass, listeners);
+		}
+		return listeners;
 	}
 
 	public void onApplicationEvent(ApplicationEvent e) {
-		Iterator i = eventListeners.iterator();
-		while (i.hasNext()) {
-			ApplicationListener l = (ApplicationListener) i.next();
-			l.onApplicationEvent(e);
+		if (this.asyncThreadCount > 0 && queueEvent(e)) {
+			return;
 		}
+		invokeListeners(e);
 	}
 
-	public void removeAllListeners() {
-		eventListeners.clear();
+	/**
+	 * Invoke all listeners interested in the given event.
+	 */
+	private void invokeListeners(ApplicationEvent e) {
+		ApplicationListener[] listeners = getApplicationListeners(e.getClass());
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].onApplicationEvent(e);
+		}
+	}
+
+	/**
+	 * Queue the given event for asynchronous delivery,
+	 * starting the worker threads if necessary.
+	 * @return whether the event has been taken care of, or rather needs
+	 * to be delivered in the calling thread
+	 */
+	private boolean queueEvent(ApplicationEvent e) {
+		synchronized (this.eventQueue) {
+			if (this.shutdown) {
+				return false;
+			}
+			if (this.workerThreads == null) {
+				startWorkerThreads();
+			}
+			else if (this.activeWorkerCount == 0) {
+				// all worker threads have been interrupted
+				return false;
+			}
+			while (this.eventQueue.size() >= this.asyncQueueCapacity) {
+				if (this.queueFullPolicy == QUEUE_FULL_CALLER_RUNS) {
+					return false;
+				}
+				else if (this.queueFullPolicy == QUEUE_FULL_DISCARD) {
+					logger.warn("Event queue full: discarding event [" + e + "]");
+					return true;
+				}
+				try {
+					this.eventQueue.wait();
+				}
+				catch (InterruptedException ex) {
+					// deliver the event in the calling thread rather than losing it
+					Thread.currentThread().interrupt();
+					return false;
+				}
+				if (this.shutdown || this.activeWorkerCount == 0) {
+					return false;
+				}
+			}
+			this.eventQueue.addLast(e);
+			this.eventQueue.notifyAll();
+			return true;
+		}
+	}
+
+	private void startWorkerThreads() {
+		logger.info("Starting " + this.asyncThreadCount + " worker threads for asynchronous event delivery");
+		this.workerThreads = new Thread[this.asyncThreadCount];
+		this.activeWorkerCount = this.workerThreads.length;
+		for (int i = 0; i < this.workerThreads.length; i++) {
+			this.workerThreads[i] = new Thread(new EventDeliveryWorker(), getClass().getName() + "-" + (i + 1));
+			this.workerThreads[i].setDaemon(true);
+			this.workerThreads[i].start();
+		}
+	}
+
+	/**
+	 * Stop the worker threads for asynchronous event delivery, if any.
+	 * Events that have already been queued will still be delivered;
+	 * further events will be delivered in the publishing thread.
+	 */
+	public void destroy() {
+		synchronized (this.eventQueue) {
+			this.shutdown = true;
+			this.eventQueue.notifyAll();
+		}
+	}
+
+
+	/**
+	 * Runnable for worker threads, delivering queued events
+	 * until the multicaster is shut down and the queue is empty.
+	 * <p>A worker thread that gets interrupted stops as well, with its
+	 * interrupted status restored. If it is the last one, it delivers the
+	 * events that are still queued first; further events will be delivered
+	 * in the publishing thread.
+	 */
+	private class EventDeliveryWorker implements Runnable {
+
+		public void run() {
+			boolean interrupted = false;
+			while (true) {
+				ApplicationEvent event = null;
+				synchronized (eventQueue) {
+					while (eventQueue.isEmpty() && !shutdown && !interrupted) {
+						try {
+							eventQueue.wait();
+						}
+						catch (InterruptedException ex) {
+							interrupted = true;
+						}
+					}
+					if (eventQueue.isEmpty() || (interrupted && activeWorkerCount > 1)) {
+						activeWorkerCount--;
+						// wake up publishers blocked on a full queue
+						eventQueue.notifyAll();
+						if (interrupted) {
+							Thread.currentThread().interrupt();
+						}
+						return;
+					}
+					event = (ApplicationEvent) eventQueue.removeFirst();
+					// wake up publishers blocked on a full queue
+					eventQueue.notifyAll();
+				}
+				try {
+					invokeListeners(event);
+				}
+				catch (Throwable ex) {
+					logger.error("Application listener failed on event [" + event + "]", ex);
+				}
+			}
+		}
 	}
 
 }
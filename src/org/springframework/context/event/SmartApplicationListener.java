@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.context.event;
+
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Extension of the ApplicationListener interface for listeners that are only
+ * interested in certain types of events. ApplicationEventMulticasterImpl
+ * will not notify such listeners of other events, caching the listeners
+ * to notify per event class.
+ *
+ * <p>Plain ApplicationListeners are notified of all events.
+ *
+ * @since 1.0.1
+ * @see ApplicationEventMulticasterImpl
+ */
+public interface SmartApplicationListener extends ApplicationListener {
+
+	/**
+	 * Determine whether this listener wants to be notified of events
+	 * of the given type. The result must not change over time, as it will
+	 * be cached per event class.
+	 * @param eventType the class of the event, a subclass of ApplicationEvent
+	 * @return whether onApplicationEvent should be invoked for such events
+	 */
+	boolean supportsEventType(Class eventType);
+
+}
@@ -65,7 +65,9 @@ import org.springframework.core.io.ResourceLoader;
  *
  * <p>A MessageSource may be also supplied as a bean in the context, with
  * the name "messageSource". Else, message resolution is delegated to the
- * parent context.
+ * parent context. Likewise, an ApplicationEventMulticaster may be supplied
+ * with the name "applicationEventMulticaster", for example to deliver
+ * events asynchronously.
  *
  * <p>Implements resource loading through extending DefaultResourceLoader.
  * Therefore, treats resource paths as class path resources. Only supports
@@ -79,6 +81,7 @@ import org.springframework.core.io.ResourceLoader;
  * @see #refreshBeanFactory
  * @see #getBeanFactory
  * @see #MESSAGE_SOURCE_BEAN_NAME
+ * @see #APPLICATION_EVENT_MULTICASTER_BEAN_NAME
  */
 public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		implements ConfigurableApplicationContext {
@@ -90,6 +93,14 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	 */
 	public static final String MESSAGE_SOURCE_BEAN_NAME = "messageSource";
 
+	/**
+	 * Name of the ApplicationEventMulticaster bean in the factory.
+	 * If none is supplied, a default ApplicationEventMulticasterImpl is used.
+	 * @see org.springframework.context.event.ApplicationEventMulticaster
+	 * @see org.springframework.context.event.ApplicationEventMulticasterImpl
+	 */
+	public static final String APPLICATION_EVENT_MULTICASTER_BEAN_NAME = "applicationEventMulticaster";
+
 
 	//---------------------------------------------------------------------
 	// Instance data
@@ -114,7 +125,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	private MessageSource messageSource;
 
 	/** Helper class used in event publishing */
-	private final ApplicationEventMulticaster eventMulticaster = new ApplicationEventMulticasterImpl();
+	private ApplicationEventMulticaster eventMulticaster = new ApplicationEventMulticasterImpl();
+
+	/** Listeners registered via addListener, to be passed on to a new multicaster */
+	private final List applicationListeners = new ArrayList();
 
 
 	//---------------------------------------------------------------------
@@ -256,6 +270,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		// initialize message source for this context
 		initMessageSource();
 
+		// initialize event multicaster for this context
+		initApplicationEventMulticaster();
+
 		// initialize other special beans in specific context subclasses
 		onRefresh();
 
@@ -338,6 +355,23 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		}
 	}
 
+	/**
+	 * Initialize the ApplicationEventMulticaster.
+	 * Keep the default ApplicationEventMulticasterImpl if none defined in the context.
+	 * A multicaster defined in a parent context is not used, as it would deliver
+	 * events published in the parent to listeners in this context.
+	 */
+	private void initApplicationEventMulticaster() throws BeansException {
+		if (containsBeanDefinition(APPLICATION_EVENT_MULTICASTER_BEAN_NAME)) {
+			this.eventMulticaster = (ApplicationEventMulticaster)
+					getBean(APPLICATION_EVENT_MULTICASTER_BEAN_NAME, ApplicationEventMulticaster.class);
+			logger.info("Using ApplicationEventMulticaster [" + this.eventMulticaster + "]");
+			for (Iterator it = this.applicationListeners.iterator(); it.hasNext();) {
+				this.eventMulticaster.addApplicationListener((ApplicationListener) it.next());
+			}
+		}
+	}
+
 	/**
 	 * Template method which can be overridden to add context-specific refresh work.
 	 * Called on initialization of special beans, before instantiation of singletons.
@@ -358,8 +392,11 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		logger.debug("Found " + listeners.size() + " listeners in bean factory");
 		for (Iterator it = listeners.iterator(); it.hasNext();) {
 			ApplicationListener listener = (ApplicationListener) it.next();
-			addListener(listener);
-			logger.info("Application listener [" + listener + "] added");
+			// an ApplicationEventMulticaster bean is a listener too
+			if (listener != this.eventMulticaster) {
+				this.eventMulticaster.addApplicationListener(listener);
+				logger.info("Application listener [" + listener + "] added");
+			}
 		}
 	}
 
@@ -369,6 +406,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	 * @param listener the listener to register
 	 */
 	protected void addListener(ApplicationListener listener) {
+		this.applicationListeners.add(listener);
 		this.eventMulticaster.addApplicationListener(listener);
 	}
 
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.TypeMismatchDataAccessException;
+
+/**
+ * Generic RowMapper implementation that maps each row to a new instance
+ * of the given JavaBean class, setting the bean properties that match
+ * the column names of the ResultSet.
+ *
+ * <p>A column matches a property if its name equals the property name,
+ * ignoring case, either directly or after removing underscores:
+ * for example, "FIRST_NAME" and "firstname" both map to "firstName".
+ * Columns without a matching writable property are ignored.
+ *
+ * <p>For each ResultSet shape, i.e. each sequence of column labels, a mapping
+ * plan gets computed once and cached. It holds the resolved setter and the
+ * typed ResultSet getter to use for every column, so mapping a row does
+ * not involve any property lookups or type conversion: only getInt,
+ * getString etc and the setter invocations. The getter is chosen by the
+ * property type, not by the column type, which is therefore not part of
+ * the cache key. Null values are not applied to primitive properties,
+ * which keep their default values.
+ *
+ * <p>Instances are thread-safe and intended to be reused, typically
+ * one per mapped class in a DAO, to profit from the cached plans.
+ * Use a RowMapperResultReader to collect the mapped objects via
+ * JdbcTemplate's query methods.
+ *
+ * @since 1.0.1
+ * @see RowMapperResultReader
+ */
+public class BeanPropertyRowMapper implements RowMapper {
+
+	/** Maximum number of ResultSet shapes to cache plans for */
+	public static final int MAX_CACHED_PLANS = 64;
+
+	private static final int TYPE_OBJECT = 0;
+	private static final int TYPE_STRING = 1;
+	private static final int TYPE_INT = 2;
+	private static final int TYPE_LONG = 3;
+	private static final int TYPE_DOUBLE = 4;
+	private static final int TYPE_FLOAT = 5;
+	private static final int TYPE_SHORT = 6;
+	private static final int TYPE_BYTE = 7;
+	private static final int TYPE_BOOLEAN = 8;
+	private static final int TYPE_BIG_DECIMAL = 9;
+	private static final int TYPE_TIMESTAMP = 10;
+	private static final int TYPE_DATE = 11;
+	private static final int TYPE_TIME = 12;
+	private static final int TYPE_BYTES = 13;
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final Class mappedClass;
+
+	private final Constructor constructor;
+
+	/** Writable PropertyDescriptors keyed by lower-case property name */
+	private final Map mappedProperties = new HashMap();
+
+	/** MappingPlans keyed by ResultSet shape */
+	private final Map planCache = new HashMap();
+
+	/** Plan for the ResultSet that the last row came from */
+	private volatile ResultSetPlan lastPlan;
+
+	/**
+	 * Create a new BeanPropertyRowMapper for the given class.
+	 * @param mappedClass the JavaBean class that each row should be mapped to.
+	 * Needs a public no-arg constructor.
+	 */
+	public BeanPropertyRowMapper(Class mappedClass) {
+		if (mappedClass == null) {
+			throw new IllegalArgumentException("mappedClass is required");
+		}
+		this.mappedClass = mappedClass;
+		try {
+			this.constructor = mappedClass.getConstructor(new Class[0]);
+		}
+		catch (NoSuchMethodException ex) {
+			throw new InvalidDataAccessApiUsageException(
+					"Mapped class [" + mappedClass.getName() + "] does not have a public no-arg constructor", ex);
+		}
+		PropertyDescriptor[] pds = new BeanWrapperImpl(mappedClass).getPropertyDescriptors();
+		for (int i = 0; i < pds.length; i++) {
+			if (pds[i].getWriteMethod() != null) {
+				this.mappedProperties.put(pds[i].getName().toLowerCase(), pds[i]);
+			}
+		}
+	}
+
+	/**
+	 * Return the class that rows are mapped to.
+	 */
+	public Class getMappedClass() {
+		return mappedClass;
+	}
+
+	public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+		ResultSetPlan current = this.lastPlan;
+		if (current == null || current.resultSetRef.get() != rs) {
+			current = new ResultSetPlan(rs, getMappingPlan(rs.getMetaData()));
+			this.lastPlan = current;
+		}
+		Object bean = BeanUtils.instantiateClass(this.constructor, NO_ARGS);
+		current.plan.apply(rs, bean);
+		return bean;
+	}
+
+	/**
+	 * Return the mapping plan for the given ResultSet shape, identified by
+	 * its column labels, computing it if not cached yet.
+	 * @param rsmd the metadata of the ResultSet to map
+	 * @return the MappingPlan (never null)
+	 */
+	protected MappingPlan getMappingPlan(ResultSetMetaData rsmd) throws SQLException {
+		int columnCount = rsmd.getColumnCount();
+		String[] columnNames = new String[columnCount];
+		StringBuffer key = new StringBuffer();
+		for (int i = 0; i < columnCount; i++) {
+			String name = rsmd.getColumnLabel(i + 1);
+			if (name == null || name.length() == 0) {
+				name = rsmd.getColumnName(i + 1);
+			}
+			columnNames[i] = name;
+			key.append(name).append(',');
+		}
+		String shape = key.toString();
+		synchronized (this.planCache) {
+			MappingPlan plan = (MappingPlan) this.planCache.get(shape);
+			if (plan == null) {
+				plan = createMappingPlan(columnNames);
+				if (this.planCache.size() < MAX_CACHED_PLANS) {
+					this.planCache.put(shape, plan);
+				}
+			}
+			return plan;
+		}
+	}
+
+	private MappingPlan createMappingPlan(String[] columnNames) {
+		int count = 0;
+		int[] columns = new int[columnNames.length];
+		Method[] setters = new Method[columnNames.length];
+		int[] getterTypes = new int[columnNames.length];
+		Class[] propertyTypes = new Class[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++) {
+			PropertyDescriptor pd = findProperty(columnNames[i]);
+			if (pd != null) {
+				columns[count] = i + 1;
+				setters[count] = pd.getWriteMethod();
+				propertyTypes[count] = pd.getPropertyType();
+				getterTypes[count] = getterTypeFor(propertyTypes[count]);
+				count++;
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("No property found for column '" + columnNames[i] + "' in class [" +
+										 this.mappedClass.getName() + "]");
+			}
+		}
+		return new MappingPlan(count, columns, setters, getterTypes, propertyTypes);
+	}
+
+	private PropertyDescriptor findProperty(String columnName) {
+		String name = columnName.toLowerCase();
+		PropertyDescriptor pd = (PropertyDescriptor) this.mappedProperties.get(name);
+		if (pd == null && name.indexOf('_') != -1) {
+			StringBuffer sb = new StringBuffer(name.length());
+			for (int i = 0; i < name.length(); i++) {
+				char c = name.charAt(i);
+				if (c != '_') {
+					sb.append(c);
+				}
+			}
+			pd = (PropertyDescriptor) this.mappedProperties.get(sb.toString());
+		}
+		return pd;
+	}
+
+	private static int getterTypeFor(Class type) {
+		if (type.equals(String.class)) {
+			return TYPE_STRING;
+		}
+		else if (type.equals(int.class) || type.equals(Integer.class)) {
+			return TYPE_INT;
+		}
+		else if (type.equals(long.class) || type.equals(Long.class)) {
+			return TYPE_LONG;
+		}
+		else if (type.equals(double.class) || type.equals(Double.class)) {
+			return TYPE_DOUBLE;
+		}
+		else if (type.equals(float.class) || type.equals(Float.class)) {
+			return TYPE_FLOAT;
+		}
+		else if (type.equals(short.class) || type.equals(Short.class)) {
+			return TYPE_SHORT;
+		}
+		else if (type.equals(byte.class) || type.equals(Byte.class)) {
+			return TYPE_BYTE;
+		}
+		else if (type.equals(boolean.class) || type.equals(Boolean.class)) {
+			return TYPE_BOOLEAN;
+		}
+		else if (type.equals(BigDecimal.class)) {
+			return TYPE_BIG_DECIMAL;
+		}
+		else if (type.equals(java.util.Date.class) || type.equals(Timestamp.class)) {
+			return TYPE_TIMESTAMP;
+		}
+		else if (type.equals(java.sql.Date.class)) {
+			return TYPE_DATE;
+		}
+		else if (type.equals(Time.class)) {
+			return TYPE_TIME;
+		}
+		else if (type.equals(byte[].class)) {
+			return TYPE_BYTES;
+		}
+		return TYPE_OBJECT;
+	}
+
+
+	/**
+	 * Precomputed mapping of the columns of a ResultSet shape
+	 * to the setters of the mapped class.
+	 */
+	protected static class MappingPlan {
+
+		private final int count;
+
+		/** Column indexes, starting from 1 */
+		private final int[] columns;
+
+		private final Method[] setters;
+
+		private final int[] getterTypes;
+
+		private final Class[] propertyTypes;
+
+		private MappingPlan(int count, int[] columns, Method[] setters, int[] getterTypes, Class[] propertyTypes) {
+			this.count = count;
+			this.columns = columns;
+			this.setters = setters;
+			this.getterTypes = getterTypes;
+			this.propertyTypes = propertyTypes;
+		}
+
+		/**
+		 * Return the number of columns that are mapped to a property.
+		 */
+		public int getMappedColumnCount() {
+			return count;
+		}
+
+		private void apply(ResultSet rs, Object bean) throws SQLException {
+			Object[] args = new Object[1];
+			for (int i = 0; i < this.count; i++) {
+				Object value = getColumnValue(rs, this.columns[i], this.getterTypes[i]);
+				Class type = this.propertyTypes[i];
+				if (value == null) {
+					if (type.isPrimitive()) {
+						continue;
+					}
+				}
+				else if (this.getterTypes[i] == TYPE_OBJECT && !type.isInstance(value)) {
+					throw new TypeMismatchDataAccessException("Value of column " + this.columns[i] + " of type [" +
+							value.getClass().getName() + "] is not assignable to property type [" + type.getName() + "]", null);
+				}
+				args[0] = value;
+				try {
+					this.setters[i].invoke(bean, args);
+				}
+				catch (IllegalAccessException ex) {
+					throw new DataRetrievalFailureException("Could not access setter " + this.setters[i], ex);
+				}
+				catch (InvocationTargetException ex) {
+					throw new DataRetrievalFailureException("Setter " + this.setters[i] + " threw exception",
+																									ex.getTargetException());
+				}
+			}
+		}
+
+		private static Object getColumnValue(ResultSet rs, int index, int getterType) throws SQLException {
+			Object value = null;
+			switch (getterType) {
+				case TYPE_STRING:
+					return rs.getString(index);
+				case TYPE_INT:
+					value = new Integer(rs.getInt(index));
+					break;
+				case TYPE_LONG:
+					value = new Long(rs.getLong(index));
+					break;
+				case TYPE_DOUBLE:
+					value = new Double(rs.getDouble(index));
+					break;
+				case TYPE_FLOAT:
+					value = new Float(rs.getFloat(index));
+					break;
+				case TYPE_SHORT:
+					value = new Short(rs.getShort(index));
+					break;
+				case TYPE_BYTE:
+					value = new Byte(rs.getByte(index));
+					break;
+				case TYPE_BOOLEAN:
+					value = (rs.getBoolean(index) ? Boolean.TRUE : Boolean.FALSE);
+					break;
+				case TYPE_BIG_DECIMAL:
+					return rs.getBigDecimal(index);
+				case TYPE_TIMESTAMP:
+					return rs.getTimestamp(index);
+				case TYPE_DATE:
+					return rs.getDate(index);
+				case TYPE_TIME:
+					return rs.getTime(index);
+				case TYPE_BYTES:
+					return rs.getBytes(index);
+				default:
+					return rs.getObject(index);
+			}
+			return (rs.wasNull() ? null : value);
+		}
+	}
+
+
+	/**
+	 * Holder for the ResultSet that a plan has been looked up for,
+	 * to avoid metadata access for every row of the same ResultSet.
+	 * References the ResultSet weakly, to not keep it in memory
+	 * after it has been processed.
+	 */
+	private static class ResultSetPlan {
+
+		private final WeakReference resultSetRef;
+
+		private final MappingPlan plan;
+
+		private ResultSetPlan(ResultSet resultSet, MappingPlan plan) {
+			this.resultSetRef = new WeakReference(resultSet);
+			this.plan = plan;
+		}
+	}
+
+}
@@ -0,0 +1,549 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Disconnected, read-only result of a query that stores its values
+ * column by column rather than as one Map per row.
+ *
+ * <p>The column names are held once for the whole row set, and the values
+ * of each column are kept in a single array. Columns whose non-null values
+ * are all Integers, Longs or Doubles are stored in primitive arrays, with
+ * null values tracked in a BitSet. Other columns are stored in an Object
+ * array. This typically needs a fraction of the memory of the List of
+ * HashMaps returned by JdbcTemplate's queryForList, which repeats the hash
+ * table and entries for every row.
+ *
+ * <p>For compatibility with code written against queryForList, this class
+ * implements the List interface: each element is a read-only Map view of a
+ * row, keyed by column name, which returns the same objects as
+ * ResultSet.getObject would have. Map views are created on access and do
+ * not hold any values themselves.
+ *
+ * @since 1.0.1
+ * @see JdbcTemplate#queryForRowSet(String)
+ * @see JdbcTemplate#queryForList(String)
+ */
+public class CompactRowSet extends AbstractList {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final String[] columnNames;
+
+	/** Column indexes (starting from 0) keyed by column name */
+	private final Map columnIndexes;
+
+	/** Indexes of the columns that the row Map views expose */
+	private final int[] mapColumns;
+
+	private final ColumnValues[] columns;
+
+	private int rowCount;
+
+	/**
+	 * Create a new CompactRowSet with the remaining rows of the given ResultSet.
+	 * Reads the ResultSet until it is exhausted, but does not close it.
+	 * @param rs the ResultSet to read
+	 * @throws SQLException if thrown by JDBC methods
+	 */
+	public CompactRowSet(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		this.columnNames = new String[columnCount];
+		this.columns = new ColumnValues[columnCount];
+		this.columnIndexes = new HashMap(columnCount);
+		for (int i = 0; i < columnCount; i++) {
+			this.columnNames[i] = rsmd.getColumnName(i + 1);
+			this.columns[i] = new ColumnValues();
+			// later columns win in case of duplicate names, like in a HashMap
+			this.columnIndexes.put(this.columnNames[i], new Integer(i));
+		}
+		this.mapColumns = new int[this.columnIndexes.size()];
+		int mapColumnCount = 0;
+		for (int i = 0; i < columnCount; i++) {
+			if (((Integer) this.columnIndexes.get(this.columnNames[i])).intValue() == i) {
+				this.mapColumns[mapColumnCount++] = i;
+			}
+		}
+		while (rs.next()) {
+			for (int i = 0; i < columnCount; i++) {
+				this.columns[i].add(rs.getObject(i + 1));
+			}
+			this.rowCount++;
+		}
+		for (int i = 0; i < columnCount; i++) {
+			this.columns[i].trimToSize();
+		}
+	}
+
+	/**
+	 * Return the number of rows.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Return the number of columns.
+	 */
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	/**
+	 * Return the name of the given column.
+	 * @param column the column index, starting from 1 as in JDBC
+	 */
+	public String getColumnName(int column) {
+		return this.columnNames[column - 1];
+	}
+
+	/**
+	 * Return the index of the column with the given name.
+	 * @param columnName the column name, as returned by ResultSetMetaData
+	 * @return the column index, starting from 1 as in JDBC
+	 * @throws IllegalArgumentException if there is no such column
+	 */
+	public int findColumn(String columnName) {
+		Integer index = (Integer) this.columnIndexes.get(columnName);
+		if (index == null) {
+			throw new IllegalArgumentException("No column named '" + columnName + "' in row set");
+		}
+		return index.intValue() + 1;
+	}
+
+	/**
+	 * Return the value of the given column in the given row,
+	 * as returned by ResultSet.getObject.
+	 * @param row the row index, starting from 0 as in a List
+	 * @param column the column index, starting from 1 as in JDBC
+	 */
+	public Object getObject(int row, int column) {
+		checkRow(row);
+		return this.columns[column - 1].get(row);
+	}
+
+	/**
+	 * Return the value of the given column in the given row.
+	 * @param row the row index, starting from 0 as in a List
+	 * @param columnName the column name, as returned by ResultSetMetaData
+	 */
+	public Object getObject(int row, String columnName) {
+		return getObject(row, findColumn(columnName));
+	}
+
+	/**
+	 * Return whether the given column is SQL NULL in the given row.
+	 * @param row the row index, starting from 0 as in a List
+	 * @param column the column index, starting from 1 as in JDBC
+	 */
+	public boolean isNull(int row, int column) {
+		checkRow(row);
+		return this.columns[column - 1].isNull(row);
+	}
+
+	/**
+	 * Return the value of the given numeric column in the given row as int,
+	 * without creating a wrapper object for primitive columns.
+	 * @param row the row index, starting from 0 as in a List
+	 * @param column the column index, starting from 1 as in JDBC
+	 * @return the value, or 0 in case of SQL NULL
+	 * @throws ClassCastException if the column does not contain numbers
+	 */
+	public int getInt(int row, int column) {
+		checkRow(row);
+		ColumnValues values = this.columns[column - 1];
+		if (values.kind == ColumnValues.INT) {
+			return values.ints[row];
+		}
+		Number number = (Number) values.get(row);
+		return (number != null ? number.intValue() : 0);
+	}
+
+	/**
+	 * Return the value of the given numeric column in the given row as long,
+	 * without creating a wrapper object for primitive columns.
+	 * @param row the row index, starting from 0 as in a List
+	 * @param column the column index, starting from 1 as in JDBC
+	 * @return the value, or 0 in case of SQL NULL
+	 * @throws ClassCastException if the column does not contain numbers
+	 */
+	public long getLong(int row, int column) {
+		checkRow(row);
+		ColumnValues values = this.columns[column - 1];
+		if (values.kind == ColumnValues.INT) {
+			return values.ints[row];
+		}
+		if (values.kind == ColumnValues.LONG) {
+			return values.longs[row];
+		}
+		Number number = (Number) values.get(row);
+		return (number != null ? number.longValue() : 0);
+	}
+
+	/**
+	 * Return the value of the given numeric column in the given row as double,
+	 * without creating a wrapper object for primitive columns.
+	 * @param row the row index, starting from 0 as in a List
+	 * @param column the column index, starting from 1 as in JDBC
+	 * @return the value, or 0 in case of SQL NULL
+	 * @throws ClassCastException if the column does not contain numbers
+	 */
+	public double getDouble(int row, int column) {
+		checkRow(row);
+		ColumnValues values = this.columns[column - 1];
+		if (values.kind == ColumnValues.DOUBLE) {
+			return values.doubles[row];
+		}
+		Number number = (Number) values.get(row);
+		return (number != null ? number.doubleValue() : 0);
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= this.rowCount) {
+			throw new IndexOutOfBoundsException("Row index " + row + " out of bounds; row count is " + this.rowCount);
+		}
+	}
+
+	/**
+	 * Return a read-only Map view of the given row,
+	 * keyed by column name.
+	 */
+	public Object get(int row) {
+		checkRow(row);
+		return new RowMap(row);
+	}
+
+	public int size() {
+		return rowCount;
+	}
+
+
+	/**
+	 * Values of a single column. Starts out undecided, switches to primitive
+	 * storage on the first Integer, Long or Double value, and falls back to
+	 * Object storage on the first value that does not fit.
+	 */
+	private static class ColumnValues {
+
+		private static final int UNDECIDED = 0;
+		private static final int INT = 1;
+		private static final int LONG = 2;
+		private static final int DOUBLE = 3;
+		private static final int OBJECT = 4;
+
+		private int kind = UNDECIDED;
+
+		private int size;
+
+		private int[] ints;
+
+		private long[] longs;
+
+		private double[] doubles;
+
+		private Object[] objects;
+
+		/** Null markers for primitive and undecided storage, created on first null */
+		private BitSet nulls;
+
+		private void add(Object value) {
+			if (value == null) {
+				if (this.kind == OBJECT) {
+					ensureCapacity();
+				}
+				else {
+					if (this.nulls == null) {
+						this.nulls = new BitSet();
+					}
+					this.nulls.set(this.size);
+					if (this.kind != UNDECIDED) {
+						ensureCapacity();
+					}
+				}
+				this.size++;
+				return;
+			}
+			if (this.kind == UNDECIDED) {
+				decideKind(value);
+			}
+			if (this.kind == INT && value instanceof Integer) {
+				ensureCapacity();
+				this.ints[this.size] = ((Integer) value).intValue();
+			}
+			else if (this.kind == LONG && value instanceof Long) {
+				ensureCapacity();
+				this.longs[this.size] = ((Long) value).longValue();
+			}
+			else if (this.kind == DOUBLE && value instanceof Double) {
+				ensureCapacity();
+				this.doubles[this.size] = ((Double) value).doubleValue();
+			}
+			else {
+				if (this.kind != OBJECT) {
+					switchToObjects();
+				}
+				ensureCapacity();
+				this.objects[this.size] = value;
+			}
+			this.size++;
+		}
+
+		private void decideKind(Object value) {
+			int capacity = Math.max(INITIAL_CAPACITY, this.size + 1);
+			if (value instanceof Integer) {
+				this.kind = INT;
+				this.ints = new int[capacity];
+			}
+			else if (value instanceof Long) {
+				this.kind = LONG;
+				this.longs = new long[capacity];
+			}
+			else if (value instanceof Double) {
+				this.kind = DOUBLE;
+				this.doubles = new double[capacity];
+			}
+			else {
+				this.kind = OBJECT;
+				this.objects = new Object[capacity];
+				this.nulls = null;
+			}
+		}
+
+		private void switchToObjects() {
+			Object[] newObjects = new Object[Math.max(INITIAL_CAPACITY, this.size + 1)];
+			for (int i = 0; i < this.size; i++) {
+				newObjects[i] = get(i);
+			}
+			this.kind = OBJECT;
+			this.objects = newObjects;
+			this.ints = null;
+			this.longs = null;
+			this.doubles = null;
+			this.nulls = null;
+		}
+
+		private void ensureCapacity() {
+			int capacity = getCapacity();
+			if (this.size < capacity) {
+				return;
+			}
+			int newCapacity = capacity * 3 / 2 + 1;
+			switch (this.kind) {
+				case INT:
+					int[] newInts = new int[newCapacity];
+					System.arraycopy(this.ints, 0, newInts, 0, this.size);
+					this.ints = newInts;
+					break;
+				case LONG:
+					long[] newLongs = new long[newCapacity];
+					System.arraycopy(this.longs, 0, newLongs, 0, this.size);
+					this.longs = newLongs;
+					break;
+				case DOUBLE:
+					double[] newDoubles = new double[newCapacity];
+					System.arraycopy(this.doubles, 0, newDoubles, 0, this.size);
+					this.doubles = newDoubles;
+					break;
+				case OBJECT:
+					Object[] newObjects = new Object[newCapacity];
+					System.arraycopy(this.objects, 0, newObjects, 0, this.size);
+					this.objects = newObjects;
+					break;
+			}
+		}
+
+		private int getCapacity() {
+			switch (this.kind) {
+				case INT:
+					return this.ints.length;
+				case LONG:
+					return this.longs.length;
+				case DOUBLE:
+					return this.doubles.length;
+				case OBJECT:
+					return this.objects.length;
+				default:
+					return 0;
+			}
+		}
+
+		private void trimToSize() {
+			if (this.size == getCapacity()) {
+				return;
+			}
+			switch (this.kind) {
+				case INT:
+					int[] newInts = new int[this.size];
+					System.arraycopy(this.ints, 0, newInts, 0, this.size);
+					this.ints = newInts;
+					break;
+				case LONG:
+					long[] newLongs = new long[this.size];
+					System.arraycopy(this.longs, 0, newLongs, 0, this.size);
+					this.longs = newLongs;
+					break;
+				case DOUBLE:
+					double[] newDoubles = new double[this.size];
+					System.arraycopy(this.doubles, 0, newDoubles, 0, this.size);
+					this.doubles = newDoubles;
+					break;
+				case OBJECT:
+					Object[] newObjects = new Object[this.size];
+					System.arraycopy(this.objects, 0, newObjects, 0, this.size);
+					this.objects = newObjects;
+					break;
+			}
+		}
+
+		private boolean isNull(int row) {
+			if (this.kind == OBJECT) {
+				return (this.objects[row] == null);
+			}
+			return (this.kind == UNDECIDED || this.nulls != null && this.nulls.get(row));
+		}
+
+		private Object get(int row) {
+			if (this.kind == OBJECT) {
+				return this.objects[row];
+			}
+			if (isNull(row)) {
+				return null;
+			}
+			switch (this.kind) {
+				case INT:
+					return new Integer(this.ints[row]);
+				case LONG:
+					return new Long(this.longs[row]);
+				default:
+					return new Double(this.doubles[row]);
+			}
+		}
+	}
+
+
+	/**
+	 * Read-only Map view of a single row.
+	 */
+	private class RowMap extends AbstractMap {
+
+		private final int row;
+
+		private RowMap(int row) {
+			this.row = row;
+		}
+
+		public int size() {
+			return mapColumns.length;
+		}
+
+		public boolean containsKey(Object key) {
+			return columnIndexes.containsKey(key);
+		}
+
+		public Object get(Object key) {
+			Integer index = (Integer) columnIndexes.get(key);
+			return (index != null ? columns[index.intValue()].get(this.row) : null);
+		}
+
+		public Set entrySet() {
+			return new AbstractSet() {
+				public int size() {
+					return mapColumns.length;
+				}
+				public Iterator iterator() {
+					return new Iterator() {
+						private int next = 0;
+						public boolean hasNext() {
+							return (this.next < mapColumns.length);
+						}
+						public Object next() {
+							if (this.next >= mapColumns.length) {
+								throw new NoSuchElementException();
+							}
+							return new RowEntry(row, mapColumns[this.next++]);
+						}
+						public void remove() {
+							throw new UnsupportedOperationException("CompactRowSet is read-only");
+						}
+					};
+				}
+			};
+		}
+	}
+
+
+	/**
+	 * Map entry for a single column value of a row.
+	 */
+	private class RowEntry implements Map.Entry {
+
+		private final int row;
+
+		private final int column;
+
+		private RowEntry(int row, int column) {
+			this.row = row;
+			this.column = column;
+		}
+
+		public Object getKey() {
+			return columnNames[this.column];
+		}
+
+		public Object getValue() {
+			return columns[this.column].get(this.row);
+		}
+
+		public Object setValue(Object value) {
+			throw new UnsupportedOperationException("CompactRowSet is read-only");
+		}
+
+		public boolean equals(Object other) {
+			if (!(other instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry otherEntry = (Map.Entry) other;
+			Object value = getValue();
+			return (getKey().equals(otherEntry.getKey()) &&
+					(value == null ? otherEntry.getValue() == null : value.equals(otherEntry.getValue())));
+		}
+
+		public int hashCode() {
+			Object value = getValue();
+			return (getKey().hashCode() ^ (value == null ? 0 : value.hashCode()));
+		}
+
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -86,6 +87,38 @@ public interface JdbcOperations {
 	 */
 	List query(String sql, RowCallbackHandler rch) throws DataAccessException;
 
+	/**
+	 * Execute a query given static SQL, reading the ResultSet with a
+	 * ResultSetExtractor, applying the given statement settings instead of
+	 * the template's ones.
+	 * <p>Uses a JDBC Statement, not a PreparedStatement.
+	 * @param sql SQL query to execute
+	 * @param settings statement settings for this query
+	 * @param rse object that will extract all rows of results
+	 * @return an arbitrary result object, as returned by the ResultSetExtractor
+	 * @throws DataAccessException if there is any problem executing the query
+	 * @see StatementSettings
+	 */
+	Object query(String sql, StatementSettings settings, ResultSetExtractor rse)
+	    throws DataAccessException;
+
+	/**
+	 * Execute a query given static SQL, reading the ResultSet on a per-row
+	 * basis with a RowCallbackHandler, applying the given statement settings
+	 * instead of the template's ones. Rows are processed as they are read,
+	 * so combined with a suitable fetch size, this is the way to export
+	 * large results without holding them in memory.
+	 * <p>Uses a JDBC Statement, not a PreparedStatement.
+	 * @param sql SQL query to execute
+	 * @param settings statement settings for this query
+	 * @param rch object that will extract results
+	 * @return the result List in case of a ResultReader, or null else
+	 * @throws DataAccessException if there is any problem executing the query
+	 * @see StatementSettings
+	 */
+	List query(String sql, StatementSettings settings, RowCallbackHandler rch)
+	    throws DataAccessException;
+
 	/**
 	 * Execute a query for a result list, given static SQL.
 	 * <p>Uses a JDBC Statement, not a PreparedStatement. If you want to execute
@@ -101,6 +134,22 @@ public interface JdbcOperations {
 	 */
 	List queryForList(String sql) throws DataAccessException;
 
+	/**
+	 * Execute a query for a compact row set, given static SQL.
+	 * <p>Uses a JDBC Statement, not a PreparedStatement. If you want to execute
+	 * a static query with a PreparedStatement, use the overloaded queryForRowSet
+	 * method with null as argument array.
+	 * <p>An alternative to queryForList for large results: the returned
+	 * CompactRowSet is a List of Map views too, but stores the column names
+	 * once and the values in per-column arrays.
+	 * @param sql SQL query to execute
+	 * @return a CompactRowSet that contains all rows
+	 * @throws DataAccessException if there is any problem executing the query
+	 * @see #queryForRowSet(String, Object[])
+	 * @see CompactRowSet
+	 */
+	CompactRowSet queryForRowSet(String sql) throws DataAccessException;
+
 	/**
 	 * Execute a query for a result object, given static SQL.
 	 * <p>Uses a JDBC Statement, not a PreparedStatement. If you want to execute
@@ -266,6 +315,23 @@ public interface JdbcOperations {
 	List query(String sql, final Object[] args, RowCallbackHandler rch)
 	    throws DataAccessException;
 
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, reading the ResultSet on a per-row basis
+	 * with a RowCallbackHandler, applying the given statement settings instead
+	 * of the template's ones.
+	 * @param sql SQL to execute
+	 * @param args arguments to bind to the query
+	 * (leaving it to the PreparedStatement to guess the respective SQL type)
+	 * @param settings statement settings for this query
+	 * @param rch object that will extract results
+	 * @return the result List in case of a ResultReader, or null else
+	 * @throws DataAccessException if the query fails
+	 * @see StatementSettings
+	 */
+	List query(String sql, Object[] args, StatementSettings settings, RowCallbackHandler rch)
+	    throws DataAccessException;
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL and a
 	 * list of arguments to bind to the query, expecting a result list.
@@ -281,6 +347,22 @@ public interface JdbcOperations {
 	 */
 	List queryForList(String sql, final Object[] args) throws DataAccessException;
 
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a
+	 * list of arguments to bind to the query, expecting a compact row set.
+	 * <p>An alternative to queryForList for large results: the returned
+	 * CompactRowSet is a List of Map views too, but stores the column names
+	 * once and the values in per-column arrays.
+	 * @param sql SQL to execute
+	 * @param args arguments to bind to the query
+	 * (leaving it to the PreparedStatement to guess the respective SQL type)
+	 * @return a CompactRowSet that contains all rows
+	 * @throws DataAccessException if the query fails
+	 * @see #queryForRowSet(String)
+	 * @see CompactRowSet
+	 */
+	CompactRowSet queryForRowSet(String sql, final Object[] args) throws DataAccessException;
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL and a
 	 * list of arguments to bind to the query, expecting a result object.
@@ -384,6 +466,45 @@ public interface JdbcOperations {
 	 */
 	int[] batchUpdate(String sql, BatchPreparedStatementSetter pss) throws DataAccessException;
 
+	/**
+	 * Issue multiple updates on a single PreparedStatement, binding each element
+	 * of the given Iterator as arguments, and executing the statements in JDBC 2.0
+	 * batches of the given size. The arguments are read as they are needed, so
+	 * a lazily computed Iterator allows for loading an arbitrary number of rows
+	 * without holding them all in memory.
+	 * <p>Will fall back to separate updates on a single PreparedStatement
+	 * if the JDBC driver does not support batch updates.
+	 * @param sql SQL, containing bind parameters.
+	 * All statements in the batch will use the same SQL.
+	 * @param batchArgs Iterator over Object arrays, each containing the arguments
+	 * for one statement (leaving it to the PreparedStatement to guess the
+	 * respective SQL types)
+	 * @param batchSize the number of statements to execute per JDBC batch
+	 * @return the total number of rows affected. Statements for which the
+	 * JDBC driver reports success without the number of affected rows
+	 * (Statement.SUCCESS_NO_INFO) count as one row each.
+	 * @throws DataAccessException if there is any problem issuing the update
+	 */
+	int batchUpdate(String sql, Iterator batchArgs, int batchSize) throws DataAccessException;
+
+	/**
+	 * Issue multiple updates on a single PreparedStatement, binding each element
+	 * of the given Iterator as arguments, and executing the statements in JDBC 2.0
+	 * batches of the given size.
+	 * @param sql SQL, containing bind parameters.
+	 * All statements in the batch will use the same SQL.
+	 * @param batchArgs Iterator over Object arrays, each containing the arguments
+	 * for one statement
+	 * @param argTypes SQL types of the arguments (constants from java.sql.Types)
+	 * @param batchSize the number of statements to execute per JDBC batch
+	 * @return the total number of rows affected. Statements for which the
+	 * JDBC driver reports success without the number of affected rows
+	 * (Statement.SUCCESS_NO_INFO) count as one row each.
+	 * @throws DataAccessException if there is any problem issuing the update
+	 * @see #batchUpdate(String, java.util.Iterator, int)
+	 */
+	int batchUpdate(String sql, Iterator batchArgs, int[] argTypes, int batchSize) throws DataAccessException;
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
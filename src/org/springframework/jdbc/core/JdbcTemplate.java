@@ -18,6 +18,7 @@ package org.springframework.jdbc.core;
 
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -25,9 +26,12 @@ import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.sql.DataSource;
 
@@ -39,6 +43,8 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.SQLWarningException;
 import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.ReadOnlyRoutingDataSource;
 import org.springframework.jdbc.support.JdbcAccessor;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.nativejdbc.NativeJdbcExtractor;
@@ -69,6 +75,15 @@ import org.springframework.jdbc.support.nativejdbc.NativeJdbcExtractor;
  * <a href="http://www.amazon.com/exec/obidos/tg/detail/-/0764543857/">Expert One-On-One J2EE Design and Development</a>
  * by Rod Johnson (Wrox, 2002).
  *
+ * <p>For large result sets, use the query methods that take a RowCallbackHandler
+ * or ResultSetExtractor rather than queryForList: rows are then processed as
+ * they are read, without holding the entire result in memory. Configure a
+ * fetch size to make the driver read such results in chunks, as some drivers
+ * read all rows on query execution by default. StatementSettings allow for a
+ * fetch size and timeout for a single query. If the entire result is needed,
+ * queryForRowSet holds it in a CompactRowSet, which needs much less memory
+ * than the List of HashMaps that queryForList returns.
+ *
  * <p>Because this class is parameterizable by the callback interfaces and
  * the SQLExceptionTranslator interface, it isn't necessary to subclass it.
  * All SQL issued by this class is logged.
@@ -94,6 +109,25 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 	/** If this variable is false, we will throw exceptions on SQL warnings */
 	private boolean ignoreWarnings = true;
 
+	/** Fetch size for JDBC Statements, 0 for the driver default */
+	private int fetchSize = 0;
+
+	/** Maximum number of rows for JDBC Statements, 0 for no limit */
+	private int maxRows = 0;
+
+	/** Query timeout in seconds for JDBC Statements, 0 for none */
+	private int queryTimeout = 0;
+
+	/** Maximum number of statements per JDBC batch, 0 for no limit */
+	private int maxBatchSize = 0;
+
+	/**
+	 * Whether DataSources support batch updates: Boolean values keyed by
+	 * the DataSource that actually provides the connections
+	 * @see #getBatchSupportCacheKey
+	 */
+	private static final Map batchSupportCache = Collections.synchronizedMap(new WeakHashMap());
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -148,6 +182,90 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 		return ignoreWarnings;
 	}
 
+	/**
+	 * Set the fetch size for this JdbcTemplate. This is important for processing
+	 * large result sets: Setting this higher than the default value will increase
+	 * processing speed at the cost of memory consumption; setting this lower can
+	 * avoid transferring row data that will never be read by the application.
+	 * Some drivers need a fetch size to stream results instead of reading all
+	 * rows on query execution.
+	 * <p>Default is 0, indicating to use the JDBC driver's default.
+	 * <p>To override this value for a specific query, pass StatementSettings
+	 * to the respective query method, or set the fetch size on the statement in
+	 * a PreparedStatementSetter or PreparedStatementCallback: these get invoked
+	 * after the template settings have been applied.
+	 * @see StatementSettings
+	 * @see java.sql.Statement#setFetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Return the fetch size specified for this JdbcTemplate.
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows for this JdbcTemplate. This is important
+	 * for processing subsets of large result sets, avoiding to read and hold
+	 * the entire result set in the database or in the JDBC driver if we're
+	 * never interested in the entire result in the first place.
+	 * <p>Default is 0, indicating to use the JDBC driver's default,
+	 * i.e. no limit.
+	 * @see java.sql.Statement#setMaxRows
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	/**
+	 * Return the maximum number of rows specified for this JdbcTemplate.
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * Set the query timeout in seconds for statements that this JdbcTemplate
+	 * executes. A timeout of the current transaction takes precedence.
+	 * <p>Default is 0, indicating to use the JDBC driver's default,
+	 * usually no timeout.
+	 * @see java.sql.Statement#setQueryTimeout
+	 * @see org.springframework.jdbc.datasource.DataSourceUtils#applyTimeout
+	 */
+	public void setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
+	/**
+	 * Return the query timeout in seconds for statements that this JdbcTemplate executes.
+	 */
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	/**
+	 * Set the maximum number of statements to send to the database in one
+	 * JDBC batch when executing batchUpdate with a BatchPreparedStatementSetter.
+	 * Larger batches get executed in chunks of this size, keeping the memory
+	 * that the JDBC driver needs for the pending statements bounded.
+	 * <p>Default is 0, indicating to execute all statements in one batch.
+	 * @see #batchUpdate(String, BatchPreparedStatementSetter)
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Return the maximum number of statements per JDBC batch.
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with static SQL (java.sql.Statement)
@@ -163,7 +281,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
 			}
 			stmt = conToUse.createStatement();
-			DataSourceUtils.applyTransactionTimeout(stmt, getDataSource());
+			applyStatementSettings(stmt);
 			Statement stmtToUse = stmt;
 			if (this.nativeJdbcExtractor != null) {
 				stmtToUse = this.nativeJdbcExtractor.getNativeStatement(stmt);
@@ -194,7 +312,12 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 		});
 	}
 
-	public Object query(final String sql, final ResultSetExtractor rse) throws DataAccessException {
+	public Object query(String sql, ResultSetExtractor rse) throws DataAccessException {
+		return query(sql, (StatementSettings) null, rse);
+	}
+
+	public Object query(final String sql, final StatementSettings settings, final ResultSetExtractor rse)
+			throws DataAccessException {
 		if (sql == null) {
 			throw new InvalidDataAccessApiUsageException("SQL may not be null");
 		}
@@ -207,6 +330,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 		}
 		return execute(new StatementCallback() {
 			public Object doInStatement(Statement stmt) throws SQLException {
+				if (settings != null) {
+					applyStatementSettings(stmt, settings);
+				}
 				ResultSet rs = null;
 				try {
 					rs = stmt.executeQuery(sql);
@@ -227,10 +353,19 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 		return (List) query(sql, new RowCallbackHandlerResultSetExtractor(rch));
 	}
 
+	public List query(String sql, StatementSettings settings, RowCallbackHandler rch)
+			throws DataAccessException {
+		return (List) query(sql, settings, new RowCallbackHandlerResultSetExtractor(rch));
+	}
+
 	public List queryForList(String sql) throws DataAccessException {
 		return (List) query(sql, new ListResultSetExtractor());
 	}
 
+	public CompactRowSet queryForRowSet(String sql) throws DataAccessException {
+		return (CompactRowSet) query(sql, new CompactRowSetResultSetExtractor());
+	}
+
 	public Object queryForObject(String sql, Class requiredType) throws DataAccessException {
 		return query(sql, new ObjectResultSetExtractor(requiredType));
 	}
@@ -276,7 +411,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
 			}
 			ps = psc.createPreparedStatement(conToUse);
-			DataSourceUtils.applyTransactionTimeout(ps, getDataSource());
+			applyStatementSettings(ps);
 			PreparedStatement psToUse = ps;
 			if (this.nativeJdbcExtractor != null) {
 				psToUse = this.nativeJdbcExtractor.getNativePreparedStatement(ps);
@@ -390,6 +525,23 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 		}, rch);
 	}
 
+	public List query(String sql, final Object[] args, final StatementSettings settings, RowCallbackHandler rch)
+			throws DataAccessException {
+		return query(sql, new PreparedStatementSetter() {
+			public void setValues(PreparedStatement ps) throws SQLException {
+				// invoked after the template settings have been applied
+				if (settings != null) {
+					applyStatementSettings(ps, settings);
+				}
+				if (args != null) {
+					for (int i = 0; i < args.length; i++) {
+						ps.setObject(i + 1, args[i]);
+					}
+				}
+			}
+		}, rch);
+	}
+
 	public List queryForList(String sql, final Object[] args) throws DataAccessException {
 		return (List) query(sql,
 				new PreparedStatementSetter() {
@@ -404,6 +556,20 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 				new ListResultSetExtractor());
 	}
 
+	public CompactRowSet queryForRowSet(String sql, final Object[] args) throws DataAccessException {
+		return (CompactRowSet) query(sql,
+				new PreparedStatementSetter() {
+					public void setValues(PreparedStatement ps) throws SQLException {
+						if (args != null) {
+							for (int i = 0; i < args.length; i++) {
+								ps.setObject(i + 1, args[i]);
+							}
+						}
+					}
+				},
+				new CompactRowSetResultSetExtractor());
+	}
+
 	public Object queryForObject(String sql, final Object[] args, Class requiredType)
 			throws DataAccessException {
 		return query(sql,
@@ -484,12 +650,27 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 		return (int[]) execute(sql, new PreparedStatementCallback() {
 			public Object doInPreparedStatement(PreparedStatement ps) throws SQLException {
 				int batchSize = pss.getBatchSize();
-				if (ps.getConnection().getMetaData().supportsBatchUpdates()) {
+				if (supportsBatchUpdates(ps.getConnection())) {
+					if (maxBatchSize <= 0 || batchSize <= maxBatchSize) {
+						for (int i = 0; i < batchSize; i++) {
+							pss.setValues(ps, i);
+							ps.addBatch();
+						}
+						return ps.executeBatch();
+					}
+					int[] rowsAffected = new int[batchSize];
+					int chunkStart = 0;
 					for (int i = 0; i < batchSize; i++) {
 						pss.setValues(ps, i);
 						ps.addBatch();
+						if (i + 1 - chunkStart == maxBatchSize || i + 1 == batchSize) {
+							int[] chunkRowsAffected = ps.executeBatch();
+							System.arraycopy(chunkRowsAffected, 0, rowsAffected, chunkStart,
+							                 Math.min(chunkRowsAffected.length, i + 1 - chunkStart));
+							chunkStart = i + 1;
+						}
 					}
-					return ps.executeBatch();
+					return rowsAffected;
 				}
 				else {
 					int[] rowsAffected = new int[batchSize];
@@ -504,6 +685,124 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 	}
 
 
+	public int batchUpdate(String sql, Iterator batchArgs, int batchSize) throws DataAccessException {
+		return batchUpdate(sql, batchArgs, null, batchSize);
+	}
+
+	public int batchUpdate(String sql, final Iterator batchArgs, final int[] argTypes, final int batchSize)
+			throws DataAccessException {
+		if (batchSize <= 0) {
+			throw new InvalidDataAccessApiUsageException("Batch size must be greater than 0");
+		}
+		Integer result = (Integer) execute(sql, new PreparedStatementCallback() {
+			public Object doInPreparedStatement(PreparedStatement ps) throws SQLException {
+				boolean batchSupported = supportsBatchUpdates(ps.getConnection());
+				int totalRowsAffected = 0;
+				int pendingStatements = 0;
+				while (batchArgs.hasNext()) {
+					Object[] args = (Object[]) batchArgs.next();
+					if (argTypes != null && args.length > argTypes.length) {
+						throw new InvalidDataAccessApiUsageException(
+								"Batch arguments contain " + args.length + " values but only " + argTypes.length +
+								" SQL types have been specified");
+					}
+					for (int i = 0; i < args.length; i++) {
+						if (argTypes == null) {
+							ps.setObject(i + 1, args[i]);
+						}
+						else if (args[i] == null) {
+							ps.setNull(i + 1, argTypes[i]);
+						}
+						else {
+							ps.setObject(i + 1, args[i], argTypes[i]);
+						}
+					}
+					if (batchSupported) {
+						ps.addBatch();
+						if (++pendingStatements == batchSize) {
+							totalRowsAffected += sumRowsAffected(ps.executeBatch());
+							pendingStatements = 0;
+						}
+					}
+					else {
+						totalRowsAffected += ps.executeUpdate();
+					}
+				}
+				if (pendingStatements > 0) {
+					totalRowsAffected += sumRowsAffected(ps.executeBatch());
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("SQL batch update affected " + totalRowsAffected + " rows");
+				}
+				return new Integer(totalRowsAffected);
+			}
+		});
+		return result.intValue();
+	}
+
+	/**
+	 * Return whether the JDBC driver supports JDBC 2.0 batch updates.
+	 * Determined once per cache key and cached; checked against the given
+	 * Connection's metadata every time if there is no cache key.
+	 * @param con the Connection to check, obtained from this template's DataSource
+	 * @see #getBatchSupportCacheKey
+	 * @see java.sql.DatabaseMetaData#supportsBatchUpdates
+	 */
+	protected boolean supportsBatchUpdates(Connection con) throws SQLException {
+		Object cacheKey = getBatchSupportCacheKey();
+		Boolean supported = (cacheKey != null ? (Boolean) batchSupportCache.get(cacheKey) : null);
+		if (supported == null) {
+			DatabaseMetaData dbmd = con.getMetaData();
+			supported = (dbmd != null && dbmd.supportsBatchUpdates()) ? Boolean.TRUE : Boolean.FALSE;
+			if (cacheKey != null) {
+				batchSupportCache.put(cacheKey, supported);
+			}
+		}
+		return supported.booleanValue();
+	}
+
+	/**
+	 * Return the key to cache the batch update capability under, or null
+	 * if connections from this template's DataSource may come from different
+	 * databases and need to be checked individually.
+	 * <p>The default implementation unwraps LazyConnectionDataSourceProxy
+	 * to its target DataSource, and returns null for ReadOnlyRoutingDataSource,
+	 * as its connections come from the primary or any of the replicas.
+	 * Can be overridden to handle custom routing DataSources.
+	 * @see org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy
+	 * @see org.springframework.jdbc.datasource.ReadOnlyRoutingDataSource
+	 */
+	protected Object getBatchSupportCacheKey() {
+		DataSource ds = getDataSource();
+		while (ds instanceof LazyConnectionDataSourceProxy) {
+			ds = ((LazyConnectionDataSourceProxy) ds).getTargetDataSource();
+		}
+		if (ds instanceof ReadOnlyRoutingDataSource) {
+			return null;
+		}
+		return ds;
+	}
+
+	/**
+	 * Sum up the given update counts. Statement.SUCCESS_NO_INFO, indicating
+	 * a successful statement with an unknown number of affected rows, counts
+	 * as one row; other negative values, i.e. Statement.EXECUTE_FAILED,
+	 * are not counted.
+	 */
+	private static int sumRowsAffected(int[] rowsAffected) {
+		int sum = 0;
+		for (int i = 0; i < rowsAffected.length; i++) {
+			if (rowsAffected[i] > 0) {
+				sum += rowsAffected[i];
+			}
+			else if (rowsAffected[i] == Statement.SUCCESS_NO_INFO) {
+				sum++;
+			}
+		}
+		return sum;
+	}
+
+
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
 	//-------------------------------------------------------------------------
@@ -518,7 +817,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
 			}
 			cs = csc.createCallableStatement(conToUse);
-			DataSourceUtils.applyTransactionTimeout(cs, getDataSource());
+			applyStatementSettings(cs);
 			CallableStatement csToUse = cs;
 			if (nativeJdbcExtractor != null) {
 				csToUse = nativeJdbcExtractor.getNativeCallableStatement(cs);
@@ -671,6 +970,46 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 	}
 
 
+	/**
+	 * Prepare the given JDBC Statement (or PreparedStatement or CallableStatement),
+	 * applying statement settings such as fetch size, max rows, and query timeout.
+	 * Settings are only applied if specified, leaving driver defaults untouched.
+	 * @param stmt the JDBC Statement to prepare
+	 * @see #setFetchSize
+	 * @see #setMaxRows
+	 * @see #setQueryTimeout
+	 * @see org.springframework.jdbc.datasource.DataSourceUtils#applyTimeout
+	 */
+	protected void applyStatementSettings(Statement stmt) throws SQLException {
+		if (this.fetchSize > 0) {
+			stmt.setFetchSize(this.fetchSize);
+		}
+		if (this.maxRows > 0) {
+			stmt.setMaxRows(this.maxRows);
+		}
+		DataSourceUtils.applyTimeout(stmt, getDataSource(), this.queryTimeout);
+	}
+
+	/**
+	 * Apply the given settings for a single operation to the given JDBC
+	 * Statement, on top of the settings applied by applyStatementSettings.
+	 * Only overrides settings that are specified in the given object.
+	 * @param stmt the JDBC Statement to prepare
+	 * @param settings the statement settings for this operation
+	 * @see #applyStatementSettings(java.sql.Statement)
+	 */
+	protected void applyStatementSettings(Statement stmt, StatementSettings settings) throws SQLException {
+		if (settings.getFetchSize() > 0) {
+			stmt.setFetchSize(settings.getFetchSize());
+		}
+		if (settings.getMaxRows() > 0) {
+			stmt.setMaxRows(settings.getMaxRows());
+		}
+		if (settings.getQueryTimeout() > 0) {
+			DataSourceUtils.applyTimeout(stmt, getDataSource(), settings.getQueryTimeout());
+		}
+	}
+
 	/**
 	 * Throw an SQLWarningException if we're not ignoring warnings.
 	 * @param warning warning from current statement. May be null,
@@ -801,6 +1140,17 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 	}
 
 
+	/**
+	 * ResultSetExtractor implementation that returns a CompactRowSet.
+	 */
+	protected static final class CompactRowSetResultSetExtractor implements ResultSetExtractor {
+
+		public Object extractData(ResultSet rs) throws SQLException {
+			return new CompactRowSet(rs);
+		}
+	}
+
+
 	/**
 	 * ResultSetExtractor implementation that returns single result object.
 	 */
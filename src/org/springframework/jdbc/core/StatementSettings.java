@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core;
+
+/**
+ * Statement settings for a single JdbcTemplate query, overriding the fetch
+ * size, maximum number of rows and query timeout of the template. Settings
+ * that are left at 0 are taken from the template. As with the template
+ * settings, a timeout of the current transaction takes precedence.
+ *
+ * <p>Useful for exports of large results, which typically need a larger
+ * fetch size and a longer timeout than the other queries of an application.
+ *
+ * @since 1.0.1
+ * @see JdbcTemplate#setFetchSize
+ * @see JdbcTemplate#setMaxRows
+ * @see JdbcTemplate#setQueryTimeout
+ * @see JdbcOperations#query(String, StatementSettings, RowCallbackHandler)
+ */
+public class StatementSettings {
+
+	private int fetchSize = 0;
+
+	private int maxRows = 0;
+
+	private int queryTimeout = 0;
+
+
+	/**
+	 * Create new StatementSettings, to be configured via the setters.
+	 */
+	public StatementSettings() {
+	}
+
+	/**
+	 * Create new StatementSettings with the given values.
+	 * @param fetchSize the fetch size, or 0 for the template's value
+	 * @param maxRows the maximum number of rows, or 0 for the template's value
+	 * @param queryTimeout the query timeout in seconds, or 0 for the template's value
+	 */
+	public StatementSettings(int fetchSize, int maxRows, int queryTimeout) {
+		this.fetchSize = fetchSize;
+		this.maxRows = maxRows;
+		this.queryTimeout = queryTimeout;
+	}
+
+	/**
+	 * Set the fetch size for the query.
+	 * Default is 0, indicating to use the template's fetch size.
+	 * @see java.sql.Statement#setFetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows for the query.
+	 * Default is 0, indicating to use the template's maximum number of rows.
+	 * @see java.sql.Statement#setMaxRows
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * Set the query timeout in seconds for the query.
+	 * Default is 0, indicating to use the template's query timeout.
+	 * @see java.sql.Statement#setQueryTimeout
+	 */
+	public void setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core.async;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Exception thrown when a thread gets interrupted while waiting for the
+ * result of an asynchronously executed JDBC operation. The interrupted
+ * status of the thread is restored before this exception is thrown.
+ *
+ * @since 1.0.1
+ * @see JdbcFuture#get(long)
+ */
+public class AsyncJdbcInterruptedException extends DataAccessResourceFailureException {
+
+	/**
+	 * Constructor for AsyncJdbcInterruptedException.
+	 * @param msg message
+	 */
+	public AsyncJdbcInterruptedException(String msg) {
+		super(msg);
+	}
+
+}
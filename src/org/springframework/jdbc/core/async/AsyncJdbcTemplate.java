@@ -0,0 +1,424 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.async;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Executes JDBC work asynchronously on a bounded set of worker threads,
+ * on top of a JdbcTemplate. Useful for issuing independent queries
+ * concurrently, for example to assemble a page from multiple queries:
+ * The latency is then determined by the slowest query rather than
+ * the sum of all queries.
+ *
+ * <p>Each callback that gets executed on a worker thread obtains its own
+ * connection from the DataSource, so the DataSource needs to be able to
+ * provide multiple connections concurrently, typically a connection pool.
+ *
+ * <p>Transaction-bound connections cannot be shared across threads.
+ * Therefore, callbacks submitted within a transaction, i.e. when a
+ * connection is bound to the current thread for the DataSource or
+ * transaction synchronization is active, are executed synchronously
+ * in the calling thread, participating in the transaction.
+ *
+ * <p>The number of worker threads is limited by the "maxThreads" property,
+ * the number of pending callbacks by the "queueCapacity" property.
+ * If the queue is full, callbacks are executed in the calling thread,
+ * throttling callers instead of queueing work without bounds.
+ * Worker threads are started on demand and are daemon threads.
+ *
+ * <p>The result of a submitted callback is available via a JdbcFuture.
+ * The "defaultTimeout" property specifies how long scatter waits for
+ * results by default. A timeout does not stop a statement that is already
+ * executing: Specify a query timeout on the JdbcTemplate for that.
+ *
+ * @since 1.0.1
+ * @see JdbcCallback
+ * @see JdbcFuture
+ * @see org.springframework.jdbc.core.JdbcTemplate#setQueryTimeout
+ */
+public class AsyncJdbcTemplate implements InitializingBean, DisposableBean {
+
+	/** Default maximum number of worker threads */
+	public static final int DEFAULT_MAX_THREADS = 4;
+
+	/** Default maximum number of pending callbacks */
+	public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private JdbcTemplate jdbcTemplate;
+
+	private int maxThreads = DEFAULT_MAX_THREADS;
+
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	private long defaultTimeout = 0;
+
+	/** Pending JdbcFutures, also used as monitor for the worker state */
+	private final LinkedList queue = new LinkedList();
+
+	private int threadCount = 0;
+
+	private int idleCount = 0;
+
+	private boolean shutdown = false;
+
+	/**
+	 * Create a new AsyncJdbcTemplate for bean usage.
+	 * Note: The JdbcTemplate has to be set before using the instance.
+	 * @see #setJdbcTemplate
+	 */
+	public AsyncJdbcTemplate() {
+	}
+
+	/**
+	 * Create a new AsyncJdbcTemplate for the given DataSource.
+	 * @param dataSource JDBC DataSource to obtain connections from
+	 */
+	public AsyncJdbcTemplate(DataSource dataSource) {
+		this(new JdbcTemplate(dataSource));
+	}
+
+	/**
+	 * Create a new AsyncJdbcTemplate for the given JdbcTemplate.
+	 * @param jdbcTemplate the JdbcTemplate to execute callbacks with
+	 */
+	public AsyncJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Set the JdbcTemplate to execute callbacks with.
+	 */
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Return the JdbcTemplate that callbacks get executed with.
+	 */
+	public JdbcTemplate getJdbcTemplate() {
+		return jdbcTemplate;
+	}
+
+	/**
+	 * Set the maximum number of worker threads. Default is 4.
+	 * <p>Should not exceed the number of connections that the DataSource
+	 * can provide concurrently, to not let worker threads block each other.
+	 */
+	public void setMaxThreads(int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+
+	/**
+	 * Return the maximum number of worker threads.
+	 */
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	/**
+	 * Set the maximum number of callbacks waiting for a worker thread.
+	 * Further callbacks get executed in the calling thread. Default is 100.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Return the maximum number of callbacks waiting for a worker thread.
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Set the default time in milliseconds that scatter waits for results.
+	 * Default is 0, indicating to wait indefinitely.
+	 * @see #scatter(JdbcCallback[])
+	 */
+	public void setDefaultTimeout(long defaultTimeout) {
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	/**
+	 * Return the default time in milliseconds that scatter waits for results.
+	 */
+	public long getDefaultTimeout() {
+		return defaultTimeout;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.jdbcTemplate == null) {
+			throw new IllegalArgumentException("jdbcTemplate is required");
+		}
+		if (this.maxThreads < 1) {
+			throw new IllegalArgumentException("maxThreads must be at least 1");
+		}
+	}
+
+
+	/**
+	 * Submit the given callback for asynchronous execution.
+	 * <p>Within a transaction, the callback gets executed synchronously in
+	 * the calling thread, and the returned JdbcFuture is already done.
+	 * @param callback the JdbcCallback to execute
+	 * @return a JdbcFuture for the result of the callback
+	 * @throws InvalidDataAccessApiUsageException if this template has been shut down
+	 */
+	public JdbcFuture submit(JdbcCallback callback) throws DataAccessException {
+		JdbcFuture future = new JdbcFuture(callback, this.jdbcTemplate);
+		if (isTransactionBound()) {
+			logger.debug("Executing JDBC callback synchronously within transaction");
+			future.run();
+		}
+		else if (!enqueue(future)) {
+			logger.debug("Queue for asynchronous JDBC callbacks is full - executing in calling thread");
+			future.run();
+		}
+		return future;
+	}
+
+	/**
+	 * Execute the given callbacks concurrently and return their results,
+	 * waiting for at most the default timeout.
+	 * @param callbacks the JdbcCallbacks to execute
+	 * @return the results of the callbacks, in the order of the callbacks
+	 * @throws AsyncQueryTimeoutException if not all callbacks completed in time
+	 * @throws DataAccessException the first exception thrown by a callback, if any
+	 * @see #setDefaultTimeout
+	 */
+	public Object[] scatter(JdbcCallback[] callbacks) throws DataAccessException {
+		return scatter(callbacks, this.defaultTimeout);
+	}
+
+	/**
+	 * Execute the given callbacks concurrently and return their results.
+	 * <p>Within a transaction, the callbacks get executed sequentially in the
+	 * calling thread, as the transactional connection cannot be shared across
+	 * threads. If a callback fails or the timeout elapses, callbacks that have
+	 * not been started yet get cancelled.
+	 * @param callbacks the JdbcCallbacks to execute
+	 * @param timeout the maximum time in milliseconds to wait for all results,
+	 * or 0 to wait indefinitely
+	 * @return the results of the callbacks, in the order of the callbacks
+	 * @throws AsyncQueryTimeoutException if not all callbacks completed in time
+	 * @throws AsyncJdbcInterruptedException if the calling thread got interrupted
+	 * while waiting for the results
+	 * @throws DataAccessException the first exception thrown by a callback, if any
+	 */
+	public Object[] scatter(JdbcCallback[] callbacks, long timeout) throws DataAccessException {
+		JdbcFuture[] futures = new JdbcFuture[callbacks.length];
+		for (int i = 0; i < callbacks.length; i++) {
+			futures[i] = submit(callbacks[i]);
+		}
+		long deadline = (timeout > 0 ? System.currentTimeMillis() + timeout : 0);
+		Object[] results = new Object[futures.length];
+		try {
+			for (int i = 0; i < futures.length; i++) {
+				if (deadline > 0) {
+					long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0) {
+						throw new AsyncQueryTimeoutException("Asynchronous JDBC callbacks did not complete within " +
+																								 timeout + " ms");
+					}
+					results[i] = futures[i].get(remaining);
+				}
+				else {
+					results[i] = futures[i].get();
+				}
+			}
+		}
+		catch (RuntimeException ex) {
+			for (int i = 0; i < futures.length; i++) {
+				futures[i].cancel();
+			}
+			throw ex;
+		}
+		return results;
+	}
+
+	/**
+	 * Return whether callbacks need to be executed in the calling thread,
+	 * because a connection for the DataSource is bound to the thread or
+	 * transaction synchronization is active.
+	 * @see org.springframework.jdbc.datasource.DataSourceUtils#getConnection
+	 */
+	protected boolean isTransactionBound() {
+		DataSource dataSource = this.jdbcTemplate.getDataSource();
+		return (TransactionSynchronizationManager.isSynchronizationActive() ||
+				(dataSource != null && TransactionSynchronizationManager.hasResource(dataSource)));
+	}
+
+
+	//-------------------------------------------------------------------------
+	// Convenience methods for common queries
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Execute a query for a result list asynchronously.
+	 * @see JdbcOperations#queryForList(String, Object[])
+	 */
+	public JdbcFuture queryForList(final String sql, final Object[] args) throws DataAccessException {
+		return submit(new JdbcCallback() {
+			public Object doInJdbc(JdbcOperations jdbcOperations) {
+				return jdbcOperations.queryForList(sql, args);
+			}
+		});
+	}
+
+	/**
+	 * Execute a query for a CompactRowSet asynchronously.
+	 * @see JdbcOperations#queryForRowSet(String, Object[])
+	 */
+	public JdbcFuture queryForRowSet(final String sql, final Object[] args) throws DataAccessException {
+		return submit(new JdbcCallback() {
+			public Object doInJdbc(JdbcOperations jdbcOperations) {
+				return jdbcOperations.queryForRowSet(sql, args);
+			}
+		});
+	}
+
+	/**
+	 * Execute a query for a result object asynchronously.
+	 * @see JdbcOperations#queryForObject(String, Object[], Class)
+	 */
+	public JdbcFuture queryForObject(final String sql, final Object[] args, final Class requiredType)
+			throws DataAccessException {
+		return submit(new JdbcCallback() {
+			public Object doInJdbc(JdbcOperations jdbcOperations) {
+				return jdbcOperations.queryForObject(sql, args, requiredType);
+			}
+		});
+	}
+
+	/**
+	 * Execute a query with a RowCallbackHandler asynchronously.
+	 * The handler gets invoked on a worker thread.
+	 * @see JdbcOperations#query(String, Object[], RowCallbackHandler)
+	 */
+	public JdbcFuture query(final String sql, final Object[] args, final RowCallbackHandler rch)
+			throws DataAccessException {
+		return submit(new JdbcCallback() {
+			public Object doInJdbc(JdbcOperations jdbcOperations) {
+				return jdbcOperations.query(sql, args, rch);
+			}
+		});
+	}
+
+
+	//-------------------------------------------------------------------------
+	// Worker thread management
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Add the given future to the queue, starting a worker thread if necessary.
+	 * @return whether the future has been queued, or false if the queue is full
+	 */
+	private boolean enqueue(JdbcFuture future) {
+		synchronized (this.queue) {
+			if (this.shutdown) {
+				throw new InvalidDataAccessApiUsageException("AsyncJdbcTemplate has been shut down");
+			}
+			if (this.queue.size() >= this.queueCapacity) {
+				return false;
+			}
+			this.queue.addLast(future);
+			if (this.queue.size() > this.idleCount && this.threadCount < this.maxThreads) {
+				this.threadCount++;
+				Thread thread = new Thread(new Worker(), "AsyncJdbcTemplate-" + this.threadCount);
+				thread.setDaemon(true);
+				thread.start();
+			}
+			else {
+				this.queue.notify();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Stop the worker threads. Callbacks that are still waiting for
+	 * execution get cancelled; callbacks that are executing complete.
+	 */
+	public void destroy() {
+		List pending = null;
+		synchronized (this.queue) {
+			this.shutdown = true;
+			pending = new LinkedList(this.queue);
+			this.queue.clear();
+			this.queue.notifyAll();
+		}
+		for (int i = 0; i < pending.size(); i++) {
+			((JdbcFuture) pending.get(i)).cancel(
+					new DataAccessResourceFailureException("AsyncJdbcTemplate has been shut down"));
+		}
+	}
+
+
+	/**
+	 * Worker that executes queued futures until shutdown.
+	 */
+	private class Worker implements Runnable {
+
+		public void run() {
+			while (true) {
+				JdbcFuture future = null;
+				synchronized (queue) {
+					while (queue.isEmpty() && !shutdown) {
+						idleCount++;
+						try {
+							queue.wait();
+						}
+						catch (InterruptedException ex) {
+							// just check the queue again
+						}
+						finally {
+							idleCount--;
+						}
+					}
+					if (queue.isEmpty()) {
+						threadCount--;
+						return;
+					}
+					future = (JdbcFuture) queue.removeFirst();
+				}
+				future.run();
+			}
+		}
+	}
+
+}
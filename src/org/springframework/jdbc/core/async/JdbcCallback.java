@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.async;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * Callback interface for JDBC work to be executed asynchronously
+ * by AsyncJdbcTemplate, typically on a worker thread.
+ *
+ * <p>Implementations must not rely on thread-bound state of the submitting
+ * thread, like transaction-bound connections: each callback executed on a
+ * worker thread obtains its own connection from the DataSource.
+ *
+ * @since 1.0.1
+ * @see AsyncJdbcTemplate#submit
+ * @see AsyncJdbcTemplate#scatter
+ */
+public interface JdbcCallback {
+
+	/**
+	 * Perform JDBC work with the given JdbcOperations.
+	 * @param jdbcOperations the JdbcOperations to work with
+	 * @return a result object, or null if none
+	 * @throws DataAccessException in case of data access errors
+	 */
+	Object doInJdbc(JdbcOperations jdbcOperations) throws DataAccessException;
+
+}
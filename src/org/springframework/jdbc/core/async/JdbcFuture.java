@@ -0,0 +1,182 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.async;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * Handle for the result of a JdbcCallback submitted to AsyncJdbcTemplate.
+ * The result can be retrieved via the get methods, which block until the
+ * callback has been executed or the given timeout has elapsed.
+ *
+ * <p>Exceptions thrown by the callback are rethrown to the thread calling
+ * get, as they are.
+ *
+ * @since 1.0.1
+ * @see AsyncJdbcTemplate#submit
+ */
+public class JdbcFuture {
+
+	private final JdbcCallback callback;
+
+	private final JdbcOperations jdbcOperations;
+
+	private boolean started = false;
+
+	private boolean done = false;
+
+	private boolean cancelled = false;
+
+	private Object result;
+
+	private Throwable exception;
+
+	/**
+	 * Create a new JdbcFuture for the given callback.
+	 * @param callback the JdbcCallback to execute
+	 * @param jdbcOperations the JdbcOperations to execute the callback with
+	 */
+	JdbcFuture(JdbcCallback callback, JdbcOperations jdbcOperations) {
+		this.callback = callback;
+		this.jdbcOperations = jdbcOperations;
+	}
+
+	/**
+	 * Execute the callback in the current thread, unless it has already
+	 * been started or cancelled, and notify waiting threads of the outcome.
+	 */
+	void run() {
+		synchronized (this) {
+			if (this.started || this.cancelled) {
+				return;
+			}
+			this.started = true;
+		}
+		Object result = null;
+		Throwable exception = null;
+		try {
+			result = this.callback.doInJdbc(this.jdbcOperations);
+		}
+		catch (Throwable ex) {
+			exception = ex;
+		}
+		synchronized (this) {
+			this.result = result;
+			this.exception = exception;
+			this.done = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Cancel the callback if it has not been started yet, letting threads
+	 * that wait for the result fail with the given exception.
+	 * @param ex the exception to rethrow on get
+	 * @return whether the callback has been cancelled
+	 */
+	synchronized boolean cancel(RuntimeException ex) {
+		if (this.started || this.cancelled) {
+			return false;
+		}
+		this.cancelled = true;
+		this.exception = ex;
+		this.done = true;
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Cancel the callback if it has not been started yet.
+	 * A callback that is already executing will run to completion.
+	 * @return whether the callback has been cancelled
+	 */
+	public boolean cancel() {
+		return cancel(new AsyncQueryTimeoutException("Asynchronous JDBC callback has been cancelled"));
+	}
+
+	/**
+	 * Return whether the callback has been cancelled before execution.
+	 */
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Return whether the callback has completed, either normally,
+	 * by throwing an exception, or by cancellation.
+	 */
+	public synchronized boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Wait for the callback to complete and return its result.
+	 * @return the result object returned by the callback
+	 * @throws DataAccessException the exception thrown by the callback, if any
+	 */
+	public Object get() throws DataAccessException {
+		return get(0);
+	}
+
+	/**
+	 * Wait for the callback to complete and return its result.
+	 * A callback that has not been started yet when the timeout elapses
+	 * gets cancelled, to not occupy a worker thread for a result that
+	 * nobody waits for anymore.
+	 * @param timeout the maximum time to wait in milliseconds,
+	 * or 0 to wait indefinitely
+	 * @return the result object returned by the callback
+	 * @throws AsyncQueryTimeoutException if the callback did not complete in time
+	 * @throws AsyncJdbcInterruptedException if the current thread got interrupted
+	 * while waiting; a callback that has not been started yet gets cancelled then
+	 * @throws DataAccessException the exception thrown by the callback, if any
+	 */
+	public Object get(long timeout) throws DataAccessException {
+		synchronized (this) {
+			long deadline = (timeout > 0 ? System.currentTimeMillis() + timeout : 0);
+			while (!this.done) {
+				long wait = 0;
+				if (deadline > 0) {
+					wait = deadline - System.currentTimeMillis();
+					if (wait <= 0) {
+						cancel();
+						throw new AsyncQueryTimeoutException("Asynchronous JDBC callback did not complete within " +
+																								 timeout + " ms");
+					}
+				}
+				try {
+					wait(wait);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					cancel();
+					throw new AsyncJdbcInterruptedException("Interrupted while waiting for asynchronous JDBC callback");
+				}
+			}
+			if (this.exception instanceof RuntimeException) {
+				throw (RuntimeException) this.exception;
+			}
+			if (this.exception instanceof Error) {
+				throw (Error) this.exception;
+			}
+			return this.result;
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.CompactRowSet;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Interface that specifies a basic set of JDBC operations for SQL statements
+ * with named parameters, as an alternative to JdbcOperations' methods that
+ * take arrays of positional arguments. Implemented by NamedParameterJdbcTemplate.
+ *
+ * <p>Parameter values are given as a Map from parameter name to value.
+ * A Collection value gets expanded into an IN list.
+ *
+ * @since 1.0.1
+ * @see NamedParameterJdbcTemplate
+ * @see NamedParameterUtils
+ * @see org.springframework.jdbc.core.JdbcOperations
+ */
+public interface NamedParameterJdbcOperations {
+
+	/**
+	 * Expose the underlying JdbcOperations,
+	 * to allow for invoking the methods for positional arguments.
+	 */
+	JdbcOperations getJdbcOperations();
+
+	/**
+	 * Query given SQL with named parameters, reading the ResultSet
+	 * with a ResultSetExtractor.
+	 * @param sql SQL query to execute
+	 * @param paramMap Map of parameter names to values
+	 * @param rse object that will extract results
+	 * @return an arbitrary result object, as returned by the ResultSetExtractor
+	 * @throws DataAccessException if the query fails
+	 */
+	Object query(String sql, Map paramMap, ResultSetExtractor rse) throws DataAccessException;
+
+	/**
+	 * Query given SQL with named parameters, reading the ResultSet
+	 * on a per-row basis with a RowCallbackHandler (potentially
+	 * implementing the ResultReader sub-interface that provides a result List).
+	 * @param sql SQL query to execute
+	 * @param paramMap Map of parameter names to values
+	 * @param rch object that will extract results
+	 * @return the result List in case of a ResultReader, or null else
+	 * @throws DataAccessException if the query fails
+	 */
+	List query(String sql, Map paramMap, RowCallbackHandler rch) throws DataAccessException;
+
+	/**
+	 * Query given SQL with named parameters, expecting a result list.
+	 * @param sql SQL query to execute
+	 * @param paramMap Map of parameter names to values
+	 * @return an ArrayList that contains a HashMap per row
+	 * @throws DataAccessException if the query fails
+	 * @see org.springframework.jdbc.core.JdbcOperations#queryForList(String, Object[])
+	 */
+	List queryForList(String sql, Map paramMap) throws DataAccessException;
+
+	/**
+	 * Query given SQL with named parameters, expecting a compact row set.
+	 * @param sql SQL query to execute
+	 * @param paramMap Map of parameter names to values
+	 * @return a CompactRowSet that contains all rows
+	 * @throws DataAccessException if the query fails
+	 * @see org.springframework.jdbc.core.JdbcOperations#queryForRowSet(String, Object[])
+	 */
+	CompactRowSet queryForRowSet(String sql, Map paramMap) throws DataAccessException;
+
+	/**
+	 * Query given SQL with named parameters, expecting a single row/single
+	 * column result object.
+	 * @param sql SQL query to execute
+	 * @param paramMap Map of parameter names to values
+	 * @param requiredType the type that the result object is expected to match
+	 * @return the result object of the required type, or null in case of SQL NULL
+	 * @throws DataAccessException if the query fails
+	 * @see org.springframework.jdbc.core.JdbcOperations#queryForObject(String, Object[], Class)
+	 */
+	Object queryForObject(String sql, Map paramMap, Class requiredType) throws DataAccessException;
+
+	/**
+	 * Query given SQL with named parameters, expecting a single row/single
+	 * column result that can be converted to a long.
+	 * @param sql SQL query to execute
+	 * @param paramMap Map of parameter names to values
+	 * @return the long value, or 0 in case of SQL NULL
+	 * @throws DataAccessException if the query fails
+	 */
+	long queryForLong(String sql, Map paramMap) throws DataAccessException;
+
+	/**
+	 * Query given SQL with named parameters, expecting a single row/single
+	 * column result that can be converted to an int.
+	 * @param sql SQL query to execute
+	 * @param paramMap Map of parameter names to values
+	 * @return the int value, or 0 in case of SQL NULL
+	 * @throws DataAccessException if the query fails
+	 */
+	int queryForInt(String sql, Map paramMap) throws DataAccessException;
+
+	/**
+	 * Issue an update with named parameters.
+	 * @param sql SQL containing named parameters
+	 * @param paramMap Map of parameter names to values
+	 * @return the number of rows affected
+	 * @throws DataAccessException if there is any problem issuing the update
+	 */
+	int update(String sql, Map paramMap) throws DataAccessException;
+
+}
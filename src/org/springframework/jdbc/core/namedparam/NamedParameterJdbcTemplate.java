@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.CompactRowSet;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Template class with a basic set of JDBC operations for SQL statements
+ * with named parameters like ":name", rather than "?" placeholders.
+ *
+ * <p>Delegates to a wrapped JdbcOperations instance, typically a JdbcTemplate,
+ * once the named parameters have been substituted with JDBC placeholders.
+ * The wrapped template's settings and exception translation thus apply.
+ * Parsed statements are cached by NamedParameterUtils, so the per-call
+ * overhead consists of looking up the parsed statement and building the
+ * array of values.
+ *
+ * <pre>
+ * Map params = new HashMap();
+ * params.put("status", "OPEN");
+ * params.put("ids", idList);
+ * List rows = namedTemplate.queryForList(
+ *     "SELECT * FROM ORDERS WHERE STATUS = :status AND ID IN (:ids)", params);</pre>
+ *
+ * @since 1.0.1
+ * @see NamedParameterUtils
+ * @see org.springframework.jdbc.core.JdbcTemplate
+ */
+public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations {
+
+	private final JdbcOperations classicJdbcTemplate;
+
+	/**
+	 * Create a new NamedParameterJdbcTemplate for the given DataSource,
+	 * wrapping a new JdbcTemplate.
+	 * @param dataSource the JDBC DataSource to access
+	 */
+	public NamedParameterJdbcTemplate(DataSource dataSource) {
+		this(new JdbcTemplate(dataSource));
+	}
+
+	/**
+	 * Create a new NamedParameterJdbcTemplate for the given classic
+	 * JdbcTemplate, for example a shared and specifically configured one.
+	 * @param classicJdbcTemplate the JdbcOperations instance to delegate to
+	 */
+	public NamedParameterJdbcTemplate(JdbcOperations classicJdbcTemplate) {
+		if (classicJdbcTemplate == null) {
+			throw new IllegalArgumentException("classicJdbcTemplate is required");
+		}
+		this.classicJdbcTemplate = classicJdbcTemplate;
+	}
+
+	public JdbcOperations getJdbcOperations() {
+		return classicJdbcTemplate;
+	}
+
+	public Object query(String sql, Map paramMap, ResultSetExtractor rse) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		final Object[] args = NamedParameterUtils.buildValueArray(parsedSql, paramMap);
+		return this.classicJdbcTemplate.query(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+				new PreparedStatementSetter() {
+					public void setValues(PreparedStatement ps) throws SQLException {
+						for (int i = 0; i < args.length; i++) {
+							ps.setObject(i + 1, args[i]);
+						}
+					}
+				},
+				rse);
+	}
+
+	public List query(String sql, Map paramMap, RowCallbackHandler rch) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		return this.classicJdbcTemplate.query(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+		                                      NamedParameterUtils.buildValueArray(parsedSql, paramMap), rch);
+	}
+
+	public List queryForList(String sql, Map paramMap) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		return this.classicJdbcTemplate.queryForList(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+		                                             NamedParameterUtils.buildValueArray(parsedSql, paramMap));
+	}
+
+	public CompactRowSet queryForRowSet(String sql, Map paramMap) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		return this.classicJdbcTemplate.queryForRowSet(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+		                                               NamedParameterUtils.buildValueArray(parsedSql, paramMap));
+	}
+
+	public Object queryForObject(String sql, Map paramMap, Class requiredType) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		return this.classicJdbcTemplate.queryForObject(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+		                                               NamedParameterUtils.buildValueArray(parsedSql, paramMap),
+		                                               requiredType);
+	}
+
+	public long queryForLong(String sql, Map paramMap) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		return this.classicJdbcTemplate.queryForLong(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+		                                             NamedParameterUtils.buildValueArray(parsedSql, paramMap));
+	}
+
+	public int queryForInt(String sql, Map paramMap) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		return this.classicJdbcTemplate.queryForInt(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+		                                            NamedParameterUtils.buildValueArray(parsedSql, paramMap));
+	}
+
+	public int update(String sql, Map paramMap) throws DataAccessException {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		return this.classicJdbcTemplate.update(NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap),
+		                                       NamedParameterUtils.buildValueArray(parsedSql, paramMap));
+	}
+
+}
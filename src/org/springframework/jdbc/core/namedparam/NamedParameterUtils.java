@@ -0,0 +1,298 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+/**
+ * Helper methods for SQL statements with named parameters,
+ * i.e. parameters of the form ":name" rather than JDBC's "?" placeholders.
+ *
+ * <p>A parameter name consists of letters, digits and underscores.
+ * Colons within quoted literals or identifiers and within comments are
+ * ignored, as are double colons like in PostgreSQL's "::" cast syntax.
+ *
+ * <p>Parsed statements are cached per SQL string, so repeated executions
+ * of the same statement do not parse it again. The cache is read without
+ * locking; once full, further statements are parsed on every use.
+ *
+ * <p>A parameter value that is a Collection is expanded into a list of
+ * placeholders, one per element, for use in an IN list. To keep the number
+ * of distinct SQL strings and thus the number of statements prepared by
+ * the driver small, the list is padded to a bucket size by repeating its
+ * last element, which does not change the result of an IN condition.
+ *
+ * @since 1.0.1
+ * @see #parseSqlStatement
+ * @see #getInListBucketSize
+ */
+public abstract class NamedParameterUtils {
+
+	/** Maximum number of parsed SQL statements to cache */
+	public static final int PARSED_SQL_CACHE_LIMIT = 256;
+
+	/**
+	 * ParsedSql objects keyed by SQL String. Read-only snapshot, replaced
+	 * on every insertion while synchronized on NamedParameterUtils.class.
+	 */
+	private static volatile Map parsedSqlCache = Collections.EMPTY_MAP;
+
+	/**
+	 * Parse the given SQL statement, finding its named parameters and
+	 * JDBC-style placeholders. Returns a cached ParsedSql if available.
+	 * @param sql the SQL statement
+	 * @return the ParsedSql (never null)
+	 */
+	public static ParsedSql parseSqlStatement(String sql) {
+		if (sql == null) {
+			throw new IllegalArgumentException("SQL must not be null");
+		}
+		ParsedSql parsedSql = (ParsedSql) parsedSqlCache.get(sql);
+		if (parsedSql == null) {
+			parsedSql = doParseSqlStatement(sql);
+			cacheParsedSql(sql, parsedSql);
+		}
+		return parsedSql;
+	}
+
+	/**
+	 * Register the given ParsedSql in a copy of the current cache snapshot,
+	 * unless the statement is already cached or the limit has been reached.
+	 * Not clearing a full cache avoids copying it over and over when more
+	 * statements than the limit are in use.
+	 */
+	private static synchronized void cacheParsedSql(String sql, ParsedSql parsedSql) {
+		if (parsedSqlCache.size() < PARSED_SQL_CACHE_LIMIT && !parsedSqlCache.containsKey(sql)) {
+			Map newParsedSqlCache = new HashMap(parsedSqlCache);
+			newParsedSqlCache.put(sql, parsedSql);
+			parsedSqlCache = newParsedSqlCache;
+		}
+	}
+
+	/**
+	 * Remove all parsed statements from the cache. Visible for testing.
+	 */
+	static synchronized void clearParsedSqlCache() {
+		parsedSqlCache = Collections.EMPTY_MAP;
+	}
+
+	private static ParsedSql doParseSqlStatement(String sql) {
+		List names = new ArrayList();
+		List starts = new ArrayList();
+		List ends = new ArrayList();
+		int unnamedCount = 0;
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (c == '\'' || c == '"') {
+				// skip quoted literal or identifier, doubled quotes included
+				int end = sql.indexOf(c, i + 1);
+				i = (end != -1 ? end + 1 : length);
+			}
+			else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				int end = sql.indexOf('\n', i + 2);
+				i = (end != -1 ? end + 1 : length);
+			}
+			else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				int end = sql.indexOf("*/", i + 2);
+				i = (end != -1 ? end + 2 : length);
+			}
+			else if (c == ':') {
+				if (i + 1 < length && sql.charAt(i + 1) == ':') {
+					i += 2;
+				}
+				else {
+					int end = i + 1;
+					while (end < length && isParameterNameChar(sql.charAt(end))) {
+						end++;
+					}
+					if (end > i + 1) {
+						names.add(sql.substring(i + 1, end));
+						starts.add(new Integer(i));
+						ends.add(new Integer(end));
+					}
+					i = end;
+				}
+			}
+			else {
+				if (c == '?') {
+					unnamedCount++;
+				}
+				i++;
+			}
+		}
+		int[] startIndexes = new int[starts.size()];
+		int[] endIndexes = new int[ends.size()];
+		for (int j = 0; j < startIndexes.length; j++) {
+			startIndexes[j] = ((Integer) starts.get(j)).intValue();
+			endIndexes[j] = ((Integer) ends.get(j)).intValue();
+		}
+		return new ParsedSql(sql, (String[]) names.toArray(new String[names.size()]),
+		                     startIndexes, endIndexes, unnamedCount);
+	}
+
+	private static boolean isParameterNameChar(char c) {
+		return (Character.isLetterOrDigit(c) || c == '_');
+	}
+
+	/**
+	 * Return the number of placeholders to use for an IN list with the given
+	 * number of elements: the exact number up to 4 elements, the next power
+	 * of two up to 256 elements, and the next multiple of 100 above that.
+	 * The latter keeps lists of up to 1000 elements within the limits of
+	 * databases like Oracle.
+	 * @param size the number of elements
+	 * @return the bucket size, at least the given size
+	 */
+	public static int getInListBucketSize(int size) {
+		if (size <= 4) {
+			return size;
+		}
+		if (size <= 256) {
+			int bucket = 8;
+			while (bucket < size) {
+				bucket *= 2;
+			}
+			return bucket;
+		}
+		return (size + 99) / 100 * 100;
+	}
+
+	/**
+	 * Return the number of JDBC placeholders to use for the given
+	 * named parameter occurrence.
+	 * @param parsedSql the parsed SQL statement
+	 * @param index the index of the named parameter occurrence
+	 * @param paramMap Map of parameter names to values
+	 * @return 1 for a simple value, the IN list bucket size for a Collection
+	 * @throws InvalidDataAccessApiUsageException if no value has been given
+	 * for the parameter, or if an empty Collection has been given
+	 */
+	public static int getPlaceholderCount(ParsedSql parsedSql, int index, Map paramMap)
+			throws InvalidDataAccessApiUsageException {
+		Object value = getParameterValue(parsedSql, index, paramMap);
+		if (value instanceof Collection) {
+			int size = ((Collection) value).size();
+			if (size == 0) {
+				throw new InvalidDataAccessApiUsageException("Empty Collection given for SQL parameter '" +
+						parsedSql.getParameterName(index) + "': cannot expand into an IN list");
+			}
+			return getInListBucketSize(size);
+		}
+		return 1;
+	}
+
+	private static Object getParameterValue(ParsedSql parsedSql, int index, Map paramMap) {
+		String name = parsedSql.getParameterName(index);
+		if (paramMap == null || !paramMap.containsKey(name)) {
+			throw new InvalidDataAccessApiUsageException("No value supplied for the SQL parameter '" + name +
+			                                             "' in SQL [" + parsedSql.getSql() + "]");
+		}
+		return paramMap.get(name);
+	}
+
+	/**
+	 * Return the SQL statement with JDBC placeholders substituted for the
+	 * named parameters, expanding Collection values into IN lists.
+	 * @param parsedSql the parsed SQL statement
+	 * @param paramMap Map of parameter names to values
+	 * @return the SQL statement to execute via JDBC
+	 * @throws InvalidDataAccessApiUsageException if the statement contains
+	 * JDBC placeholders, or if a parameter value is missing
+	 */
+	public static String substituteNamedParameters(ParsedSql parsedSql, Map paramMap)
+			throws InvalidDataAccessApiUsageException {
+		checkNoUnnamedParameters(parsedSql);
+		int count = parsedSql.getNamedParameterCount();
+		int[] placeholderCounts = null;
+		for (int i = 0; i < count; i++) {
+			int placeholderCount = getPlaceholderCount(parsedSql, i, paramMap);
+			if (placeholderCount != 1 && placeholderCounts == null) {
+				placeholderCounts = new int[count];
+				for (int j = 0; j < i; j++) {
+					placeholderCounts[j] = 1;
+				}
+			}
+			if (placeholderCounts != null) {
+				placeholderCounts[i] = placeholderCount;
+			}
+		}
+		if (placeholderCounts == null) {
+			return parsedSql.getJdbcSql();
+		}
+		return parsedSql.getExpandedSql(placeholderCounts);
+	}
+
+	/**
+	 * Convert the given named parameter values to an array of values
+	 * for the JDBC placeholders of the substituted SQL statement,
+	 * expanding Collection values like substituteNamedParameters does.
+	 * @param parsedSql the parsed SQL statement
+	 * @param paramMap Map of parameter names to values
+	 * @return the array of values, one per JDBC placeholder
+	 * @throws InvalidDataAccessApiUsageException if the statement contains
+	 * JDBC placeholders, or if a parameter value is missing
+	 * @see #substituteNamedParameters
+	 */
+	public static Object[] buildValueArray(ParsedSql parsedSql, Map paramMap)
+			throws InvalidDataAccessApiUsageException {
+		checkNoUnnamedParameters(parsedSql);
+		int count = parsedSql.getNamedParameterCount();
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			total += getPlaceholderCount(parsedSql, i, paramMap);
+		}
+		Object[] values = new Object[total];
+		int index = 0;
+		for (int i = 0; i < count; i++) {
+			Object value = getParameterValue(parsedSql, i, paramMap);
+			if (value instanceof Collection) {
+				Collection collection = (Collection) value;
+				Object element = null;
+				for (Iterator it = collection.iterator(); it.hasNext();) {
+					element = it.next();
+					values[index++] = element;
+				}
+				// pad to bucket size with the last element
+				for (int j = collection.size(); j < getInListBucketSize(collection.size()); j++) {
+					values[index++] = element;
+				}
+			}
+			else {
+				values[index++] = value;
+			}
+		}
+		return values;
+	}
+
+	private static void checkNoUnnamedParameters(ParsedSql parsedSql) {
+		if (parsedSql.getUnnamedParameterCount() > 0) {
+			throw new InvalidDataAccessApiUsageException("SQL [" + parsedSql.getSql() +
+			                                             "] must use named parameters, not '?' placeholders");
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds information about a parsed SQL statement: the names and positions
+ * of its named parameters, and the equivalent SQL with a JDBC placeholder
+ * for each of them. Immutable apart from an internal cache of SQL strings
+ * with expanded IN lists, so instances can be shared between threads.
+ *
+ * <p>Instances are created by NamedParameterUtils.parseSqlStatement,
+ * which caches them per SQL string.
+ *
+ * @since 1.0.1
+ * @see NamedParameterUtils#parseSqlStatement
+ */
+public class ParsedSql {
+
+	/** Maximum number of IN list expansions to cache per statement */
+	private static final int MAX_CACHED_EXPANSIONS = 32;
+
+	private final String sql;
+
+	/** Parameter names, one per occurrence in the SQL */
+	private final String[] parameterNames;
+
+	/** Start index of each parameter occurrence, including the colon */
+	private final int[] startIndexes;
+
+	/** End index of each parameter occurrence (exclusive) */
+	private final int[] endIndexes;
+
+	private final int unnamedParameterCount;
+
+	private final String jdbcSql;
+
+	/**
+	 * Expanded SQL strings keyed by IN list sizes. Read-only snapshot,
+	 * replaced on every insertion while synchronized on this object.
+	 */
+	private volatile Map expandedSqlCache = Collections.EMPTY_MAP;
+
+	ParsedSql(String sql, String[] parameterNames, int[] startIndexes, int[] endIndexes,
+	          int unnamedParameterCount) {
+		this.sql = sql;
+		this.parameterNames = parameterNames;
+		this.startIndexes = startIndexes;
+		this.endIndexes = endIndexes;
+		this.unnamedParameterCount = unnamedParameterCount;
+		this.jdbcSql = buildJdbcSql(null);
+	}
+
+	/**
+	 * Return the SQL statement as it has been parsed.
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * Return the number of named parameter occurrences in the SQL statement.
+	 * A parameter that is used twice counts twice.
+	 */
+	public int getNamedParameterCount() {
+		return parameterNames.length;
+	}
+
+	/**
+	 * Return the name of the given named parameter occurrence.
+	 * @param index the index of the occurrence, starting from 0
+	 */
+	public String getParameterName(int index) {
+		return parameterNames[index];
+	}
+
+	/**
+	 * Return the number of JDBC-style "?" placeholders in the SQL statement.
+	 */
+	public int getUnnamedParameterCount() {
+		return unnamedParameterCount;
+	}
+
+	/**
+	 * Return the SQL statement with each named parameter replaced
+	 * by a single JDBC placeholder.
+	 */
+	public String getJdbcSql() {
+		return jdbcSql;
+	}
+
+	/**
+	 * Return the SQL statement with the given number of JDBC placeholders
+	 * for each named parameter occurrence, caching the result.
+	 * @param placeholderCounts the number of placeholders per occurrence
+	 * @see NamedParameterUtils#substituteNamedParameters
+	 */
+	String getExpandedSql(int[] placeholderCounts) {
+		StringBuffer keyBuffer = new StringBuffer();
+		for (int i = 0; i < placeholderCounts.length; i++) {
+			keyBuffer.append(placeholderCounts[i]).append(',');
+		}
+		String key = keyBuffer.toString();
+		String expandedSql = (String) this.expandedSqlCache.get(key);
+		if (expandedSql == null) {
+			expandedSql = buildJdbcSql(placeholderCounts);
+			if (this.expandedSqlCache.size() < MAX_CACHED_EXPANSIONS) {
+				cacheExpandedSql(key, expandedSql);
+			}
+		}
+		return expandedSql;
+	}
+
+	private synchronized void cacheExpandedSql(String key, String expandedSql) {
+		Map cache = this.expandedSqlCache;
+		if (!cache.containsKey(key) && cache.size() < MAX_CACHED_EXPANSIONS) {
+			Map newCache = new HashMap(cache);
+			newCache.put(key, expandedSql);
+			this.expandedSqlCache = newCache;
+		}
+	}
+
+	private String buildJdbcSql(int[] placeholderCounts) {
+		StringBuffer buf = new StringBuffer(this.sql.length());
+		int lastIndex = 0;
+		for (int i = 0; i < this.parameterNames.length; i++) {
+			buf.append(this.sql.substring(lastIndex, this.startIndexes[i]));
+			int count = (placeholderCounts != null ? placeholderCounts[i] : 1);
+			for (int j = 0; j < count; j++) {
+				if (j > 0) {
+					buf.append(", ");
+				}
+				buf.append('?');
+			}
+			lastIndex = this.endIndexes[i];
+		}
+		buf.append(this.sql.substring(lastIndex));
+		return buf.toString();
+	}
+
+	public String toString() {
+		return sql;
+	}
+
+}
@@ -18,6 +18,8 @@ package org.springframework.jdbc.datasource;
 
 import java.io.PrintWriter;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
@@ -61,4 +63,29 @@ public abstract class AbstractDataSource implements DataSource {
 		throw new UnsupportedOperationException("setLogWriter");
 	}
 
+	/**
+	 * Logging happens via Commons Logging rather than java.util.logging.
+	 */
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException("getParentLogger");
+	}
+
+	/**
+	 * Returns this DataSource if it implements the given interface.
+	 */
+	public Object unwrap(Class iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return this;
+		}
+		throw new SQLException("DataSource of type [" + getClass().getName() +
+				"] cannot be unwrapped as [" + iface.getName() + "]");
+	}
+
+	/**
+	 * Returns whether this DataSource implements the given interface.
+	 */
+	public boolean isWrapperFor(Class iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+
 }
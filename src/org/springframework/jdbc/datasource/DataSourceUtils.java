@@ -156,6 +156,27 @@ public abstract class DataSourceUtils {
 		}
 	}
 
+	/**
+	 * Apply the current transaction timeout, if any, to the given JDBC
+	 * Statement object, else the given default query timeout.
+	 * A transaction timeout always takes precedence, as the transaction
+	 * deadline must not be exceeded by any of its statements.
+	 * @param stmt the JDBC Statement object
+	 * @param ds DataSource that the connection came from
+	 * @param timeout the query timeout in seconds to apply outside of
+	 * transactions with a timeout (0 for none, i.e. the driver default)
+	 * @see #applyTransactionTimeout
+	 */
+	public static void applyTimeout(Statement stmt, DataSource ds, int timeout) throws SQLException {
+		ConnectionHolder holder = (ConnectionHolder) TransactionSynchronizationManager.getResource(ds);
+		if (holder != null && holder.getDeadline() != null) {
+			stmt.setQueryTimeout(holder.getTimeToLiveInSeconds());
+		}
+		else if (timeout > 0) {
+			stmt.setQueryTimeout(timeout);
+		}
+	}
+
 	/**
 	 * Close the given connection if necessary, i.e. if it is not bound to the thread
 	 * and it is not created by a SmartDataSource returning shouldClose=false.
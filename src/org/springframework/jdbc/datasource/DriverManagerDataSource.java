@@ -19,8 +19,6 @@ package org.springframework.jdbc.datasource;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.SQLFeatureNotSupportedException;
-import java.util.logging.Logger;
 
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
 
@@ -39,6 +37,7 @@ import org.springframework.jdbc.CannotGetJdbcConnectionException;
  * a local DataSource bean like this class.
  *
  * <p>If you need a "real" connection pool outside of a J2EE container, consider
+ * PoolingDataSource, which supports the same basic properties as this class, or
  * <a href="http://jakarta.apache.org/commons/dbcp">Apache's Jakarta Commons DBCP</a>.
  * Its BasicDataSource is a full connection pool bean, supporting the same basic
  * properties as this class plus specific settings. It can be used as a replacement
@@ -50,6 +49,7 @@ import org.springframework.jdbc.CannotGetJdbcConnectionException;
  * @version $Id: DriverManagerDataSource.java,v 1.7 2004/03/18 02:46:05 trisberg Exp $
  * @see org.springframework.jndi.support.SimpleNamingContextBuilder
  * @see org.springframework.jndi.JndiObjectFactoryBean
+ * @see PoolingDataSource
  * @see org.apache.commons.dbcp.BasicDataSource
  */
 public class DriverManagerDataSource extends AbstractDataSource implements SmartDataSource {
@@ -155,15 +155,4 @@ public class DriverManagerDataSource extends AbstractDataSource implements Smart
 		return DriverManager.getConnection(url, username, password);
 	}
 
-	public Logger getParentLogger() throws SQLFeatureNotSupportedException{
-		throw new UnsupportedOperationException("为了编译通过，添加的该方法");
-	}
-
-	public boolean isWrapperFor(java.lang.Class iface) throws java.sql.SQLException{
-		throw new UnsupportedOperationException("为了编译通过，添加的该方法");
-	}
-
-	public Object unwrap(java.lang.Class iface) throws java.sql.SQLException{
-		throw new UnsupportedOperationException("为了编译通过，添加的该方法");
-	}
 }
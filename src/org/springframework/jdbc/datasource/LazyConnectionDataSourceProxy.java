@@ -0,0 +1,326 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.Constants;
+
+/**
+ * Proxy for a target DataSource, fetching actual JDBC Connections lazily,
+ * i.e. not until first creation of a Statement. Connection initialization
+ * properties like auto-commit mode, transaction isolation and read-only mode
+ * are recorded and applied to the actual JDBC Connection once it is fetched.
+ * Consequently, commit and rollback calls are ignored if no Statements
+ * have been created.
+ *
+ * <p>This is particularly useful with DataSourceTransactionManager: a
+ * transaction that never touches the database, for example because all
+ * data came from a cache, will not hold a pooled connection for its
+ * whole duration. If the target is a ReadOnlyRoutingDataSource, the
+ * routing decision is also deferred to the first actual JDBC use.
+ *
+ * <p>The default auto-commit mode and transaction isolation of the target
+ * connections are used to answer queries before an actual connection has
+ * been fetched. They can be specified explicitly; else, they are determined
+ * from a target connection on initialization.
+ *
+ * <p><b>Note:</b> The target DataSource should return connections with
+ * consistent default settings. A connection pool typically ensures this.
+ *
+ * @since 1.0.1
+ * @see DataSourceTransactionManager
+ * @see ReadOnlyRoutingDataSource
+ */
+public class LazyConnectionDataSourceProxy extends AbstractDataSource implements InitializingBean {
+
+	/** Constants instance for java.sql.Connection */
+	private static final Constants constants = new Constants(Connection.class);
+
+
+	private DataSource targetDataSource;
+
+	private Boolean defaultAutoCommit;
+
+	private Integer defaultTransactionIsolation;
+
+
+	/**
+	 * Create a new LazyConnectionDataSourceProxy.
+	 * @see #setTargetDataSource
+	 */
+	public LazyConnectionDataSourceProxy() {
+	}
+
+	/**
+	 * Create a new LazyConnectionDataSourceProxy.
+	 * @param targetDataSource the target DataSource
+	 */
+	public LazyConnectionDataSourceProxy(DataSource targetDataSource) {
+		setTargetDataSource(targetDataSource);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Set the target DataSource that this DataSource should delegate to.
+	 */
+	public void setTargetDataSource(DataSource targetDataSource) {
+		this.targetDataSource = targetDataSource;
+	}
+
+	/**
+	 * Return the target DataSource that this DataSource delegates to.
+	 */
+	public DataSource getTargetDataSource() {
+		return targetDataSource;
+	}
+
+	/**
+	 * Set the default auto-commit mode of connections from the target
+	 * DataSource, to be exposed until an actual connection has been fetched.
+	 * <p>If not specified, it is determined from a target connection
+	 * on initialization.
+	 */
+	public void setDefaultAutoCommit(boolean defaultAutoCommit) {
+		this.defaultAutoCommit = new Boolean(defaultAutoCommit);
+	}
+
+	/**
+	 * Set the default transaction isolation by the name of the corresponding
+	 * constant in java.sql.Connection, e.g. "TRANSACTION_SERIALIZABLE".
+	 * @param constantName name of the constant
+	 * @see java.sql.Connection#TRANSACTION_READ_COMMITTED
+	 */
+	public void setDefaultTransactionIsolationName(String constantName) {
+		setDefaultTransactionIsolation(constants.asNumber(constantName).intValue());
+	}
+
+	/**
+	 * Set the default transaction isolation of connections from the target
+	 * DataSource, to be exposed until an actual connection has been fetched.
+	 * <p>If not specified, it is determined from a target connection
+	 * on initialization.
+	 * @see java.sql.Connection#TRANSACTION_READ_COMMITTED
+	 */
+	public void setDefaultTransactionIsolation(int defaultTransactionIsolation) {
+		this.defaultTransactionIsolation = new Integer(defaultTransactionIsolation);
+	}
+
+	public void afterPropertiesSet() {
+		if (this.targetDataSource == null) {
+			throw new IllegalArgumentException("targetDataSource is required");
+		}
+		// Determine default auto-commit and transaction isolation
+		// via a target connection, if not specified explicitly.
+		if (this.defaultAutoCommit == null || this.defaultTransactionIsolation == null) {
+			try {
+				Connection con = this.targetDataSource.getConnection();
+				try {
+					if (this.defaultAutoCommit == null) {
+						this.defaultAutoCommit = new Boolean(con.getAutoCommit());
+					}
+					if (this.defaultTransactionIsolation == null) {
+						this.defaultTransactionIsolation = new Integer(con.getTransactionIsolation());
+					}
+				}
+				finally {
+					con.close();
+				}
+			}
+			catch (SQLException ex) {
+				logger.warn("Could not retrieve default auto-commit and transaction isolation settings", ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Return a Connection handle that lazily fetches an actual JDBC Connection
+	 * when asked for a Statement (or PreparedStatement or CallableStatement).
+	 */
+	public Connection getConnection() throws SQLException {
+		return getLazyConnectionProxy(null, null);
+	}
+
+	/**
+	 * Return a Connection handle that lazily fetches an actual JDBC Connection
+	 * with the given credentials when asked for a Statement.
+	 */
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getLazyConnectionProxy(username, password);
+	}
+
+	/**
+	 * Returns this proxy if it implements the given interface,
+	 * else delegates to the target DataSource.
+	 */
+	public Object unwrap(Class iface) throws SQLException {
+		if (iface.isInstance(this) || this.targetDataSource == null) {
+			return super.unwrap(iface);
+		}
+		return this.targetDataSource.unwrap(iface);
+	}
+
+	/**
+	 * Returns whether this proxy or the target DataSource
+	 * implements or wraps the given interface.
+	 */
+	public boolean isWrapperFor(Class iface) throws SQLException {
+		return (super.isWrapperFor(iface) ||
+				(this.targetDataSource != null && this.targetDataSource.isWrapperFor(iface)));
+	}
+
+	private Connection getLazyConnectionProxy(String username, String password) {
+		if (this.targetDataSource == null) {
+			throw new IllegalStateException("LazyConnectionDataSourceProxy has not been initialized");
+		}
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+		                                           new Class[] {Connection.class},
+		                                           new LazyConnectionInvocationHandler(username, password));
+	}
+
+
+	/**
+	 * Invocation handler that defers fetching an actual JDBC Connection
+	 * until first creation of a Statement.
+	 */
+	private class LazyConnectionInvocationHandler implements InvocationHandler {
+
+		private final String username;
+
+		private final String password;
+
+		private Boolean readOnly = Boolean.FALSE;
+
+		private Integer transactionIsolation;
+
+		private Boolean autoCommit;
+
+		private boolean closed = false;
+
+		private Connection target;
+
+		private LazyConnectionInvocationHandler(String username, String password) {
+			this.username = username;
+			this.password = password;
+			this.transactionIsolation = defaultTransactionIsolation;
+			this.autoCommit = defaultAutoCommit;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+
+			if (methodName.equals("equals")) {
+				// only consider equal when proxies are identical
+				return (proxy == args[0] ? Boolean.TRUE : Boolean.FALSE);
+			}
+			else if (methodName.equals("hashCode")) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+
+			if (this.target == null) {
+				// no actual connection yet: handle the call locally if possible
+				if (methodName.equals("toString")) {
+					return "Lazy connection proxy for target DataSource [" + targetDataSource + "]";
+				}
+				else if (methodName.equals("isReadOnly")) {
+					return this.readOnly;
+				}
+				else if (methodName.equals("setReadOnly")) {
+					this.readOnly = (Boolean) args[0];
+					return null;
+				}
+				else if (methodName.equals("getTransactionIsolation") && this.transactionIsolation != null) {
+					return this.transactionIsolation;
+				}
+				else if (methodName.equals("setTransactionIsolation")) {
+					this.transactionIsolation = (Integer) args[0];
+					return null;
+				}
+				else if (methodName.equals("getAutoCommit") && this.autoCommit != null) {
+					return this.autoCommit;
+				}
+				else if (methodName.equals("setAutoCommit")) {
+					this.autoCommit = (Boolean) args[0];
+					return null;
+				}
+				else if (methodName.equals("commit") || methodName.equals("rollback")) {
+					// ignore: no statements created yet
+					return null;
+				}
+				else if (methodName.equals("getWarnings") || methodName.equals("clearWarnings")) {
+					return null;
+				}
+				else if (methodName.equals("isClosed")) {
+					return (this.closed ? Boolean.TRUE : Boolean.FALSE);
+				}
+				else if (methodName.equals("close")) {
+					// ignore: no target connection yet
+					this.closed = true;
+					return null;
+				}
+				else if (this.closed) {
+					throw new SQLException("Illegal operation: connection handle already closed");
+				}
+			}
+
+			try {
+				return method.invoke(getTargetConnection(method), args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		/**
+		 * Return the target Connection, fetching it and initializing it if necessary.
+		 */
+		private Connection getTargetConnection(Method operation) throws SQLException {
+			if (this.target == null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Connecting to database for operation '" + operation.getName() + "'");
+				}
+				this.target = (this.username != null) ?
+				    targetDataSource.getConnection(this.username, this.password) :
+				    targetDataSource.getConnection();
+
+				// apply recorded settings to the actual connection
+				if (this.readOnly.booleanValue()) {
+					this.target.setReadOnly(true);
+				}
+				if (this.transactionIsolation != null &&
+						!this.transactionIsolation.equals(defaultTransactionIsolation)) {
+					this.target.setTransactionIsolation(this.transactionIsolation.intValue());
+				}
+				if (this.autoCommit != null && !this.autoCommit.equals(defaultAutoCommit)) {
+					this.target.setAutoCommit(this.autoCommit.booleanValue());
+				}
+			}
+			return this.target;
+		}
+	}
+
+}
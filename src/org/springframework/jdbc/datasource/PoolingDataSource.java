@@ -0,0 +1,1113 @@
+
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.LruCache;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Implementation of SmartDataSource that keeps a pool of JDBC connections,
+ * configured via the same bean properties as DriverManagerDataSource.
+ * Avoids creating a new physical connection for every getConnection call.
+ *
+ * <p>Returns connection handles whose close() method returns the connection
+ * to the pool, so both DataSourceUtils-aware code and persistence tools that
+ * call close themselves will work, as will DataSourceTransactionManager.
+ * On return, a connection that is not in auto-commit mode gets rolled back
+ * and switched back to auto-commit. A handle cannot be used anymore once it
+ * has been closed.
+ *
+ * <p>Statements created via a connection handle are handles too: their
+ * getConnection method returns the connection handle, and statements that
+ * are still open when the connection gets returned to the pool are closed
+ * at that point, so they cannot be used against a connection that has been
+ * handed out to somebody else.
+ *
+ * <p>Supports a maximum number of active connections with a bounded wait
+ * for a free connection, validation of connections on borrow, eviction of
+ * connections that have been idle for too long, and detection of connections
+ * that have not been returned within a given time. Statistics such as the
+ * number of active and idle connections and a histogram of the time spent
+ * waiting for a connection are available at runtime.
+ *
+ * <p>Optionally caches PreparedStatements per physical connection, so that
+ * code preparing the same SQL over and over again, like JdbcTemplate and
+ * RdbmsOperation subclasses, reuses statements transparently, within and
+ * across transactions. See setStatementCacheSize.
+ *
+ * <p>Getting a connection with a custom username and password bypasses the
+ * pool, returning a new physical connection like DriverManagerDataSource.
+ *
+ * <p>All pool state is guarded by a single monitor that is only held for
+ * a few operations on the pool structures: connections are never created,
+ * validated or closed while holding it.
+ *
+ * <p>As this bean implements DisposableBean, a bean factory will automatically
+ * close the pooled connections on shutdown.
+ *
+ * @since 1.0.1
+ * @see #setMaxActive
+ * @see #setMaxWait
+ * @see #setTestOnBorrow
+ * @see #setTimeBetweenEvictionRunsMillis
+ * @see #setLeakDetectionThresholdMillis
+ * @see #setStatementCacheSize
+ * @see DataSourceUtils#closeConnectionIfNecessary
+ */
+public class PoolingDataSource extends DriverManagerDataSource implements DisposableBean {
+
+	/** Default maximum number of active connections */
+	public static final int DEFAULT_MAX_ACTIVE = 8;
+
+	/**
+	 * Upper bounds in milliseconds of the wait time histogram buckets,
+	 * with an implicit last bucket for anything longer.
+	 * @see #getWaitTimeHistogram
+	 */
+	public static final long[] WAIT_TIME_HISTOGRAM_BOUNDS = {1, 10, 100, 1000};
+
+	/** Constructors of the handle proxy classes, looked up once */
+	private static final Constructor connectionHandleConstructor = getProxyConstructor(Connection.class);
+
+	private static final Constructor statementHandleConstructor = getProxyConstructor(Statement.class);
+
+	private static final Constructor preparedStatementHandleConstructor = getProxyConstructor(PreparedStatement.class);
+
+	private static final Constructor callableStatementHandleConstructor = getProxyConstructor(CallableStatement.class);
+
+	private static Constructor getProxyConstructor(Class interfaceClass) {
+		try {
+			Class proxyClass = Proxy.getProxyClass(interfaceClass.getClassLoader(), new Class[] {interfaceClass});
+			return proxyClass.getConstructor(new Class[] {InvocationHandler.class});
+		}
+		catch (NoSuchMethodException ex) {
+			throw new IllegalStateException("Proxy class for [" + interfaceClass.getName() +
+			                                "] has no InvocationHandler constructor");
+		}
+	}
+
+	private static Object newProxy(Constructor proxyConstructor, InvocationHandler handler) {
+		try {
+			return proxyConstructor.newInstance(new Object[] {handler});
+		}
+		catch (InvocationTargetException ex) {
+			throw new IllegalStateException("Could not create handle proxy: " + ex.getTargetException());
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException("Could not create handle proxy: " + ex);
+		}
+	}
+
+
+	private int maxActive = DEFAULT_MAX_ACTIVE;
+
+	private int maxIdle = DEFAULT_MAX_ACTIVE;
+
+	private long maxWait = -1;
+
+	private String validationQuery;
+
+	private boolean testOnBorrow = false;
+
+	private long timeBetweenEvictionRunsMillis = -1;
+
+	private long minEvictableIdleTimeMillis = 1000 * 60 * 30;
+
+	private long leakDetectionThresholdMillis = -1;
+
+	private int statementCacheSize = 0;
+
+	/** Monitor guarding all pool state */
+	private final Object monitor = new Object();
+
+	/** Idle PooledConnections, most recently returned last */
+	private final LinkedList idleConnections = new LinkedList();
+
+	/** Borrowed PooledConnections */
+	private final Set activeConnections = new HashSet();
+
+	/** Number of physical connections currently being created */
+	private int pendingCreations = 0;
+
+	/** Number of threads waiting for a connection to be returned */
+	private int numWaiters = 0;
+
+	private boolean closed = false;
+
+	private Timer evictionTimer;
+
+	private long borrowCount = 0;
+
+	private long createdCount = 0;
+
+	private long timeoutCount = 0;
+
+	private long totalWaitTimeMillis = 0;
+
+	private final long[] waitTimeHistogram = new long[WAIT_TIME_HISTOGRAM_BOUNDS.length + 1];
+
+	private long statementCacheHits = 0;
+
+	private long statementCacheMisses = 0;
+
+
+	/**
+	 * Constructor for bean-style configuration.
+	 */
+	public PoolingDataSource() {
+	}
+
+	/**
+	 * Create a new PoolingDataSource with the given standard
+	 * DriverManager parameters.
+	 */
+	public PoolingDataSource(String driverClassName, String url, String username, String password) {
+		super(driverClassName, url, username, password);
+	}
+
+	/**
+	 * Set the maximum number of connections that can be borrowed at the same time.
+	 * Default is 8.
+	 */
+	public void setMaxActive(int maxActive) {
+		this.maxActive = maxActive;
+	}
+
+	/**
+	 * Return the maximum number of connections that can be borrowed at the same time.
+	 */
+	public int getMaxActive() {
+		return maxActive;
+	}
+
+	/**
+	 * Set the maximum number of idle connections to keep in the pool.
+	 * Connections returned when the pool is full get closed. Default is 8.
+	 */
+	public void setMaxIdle(int maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Return the maximum number of idle connections to keep in the pool.
+	 */
+	public int getMaxIdle() {
+		return maxIdle;
+	}
+
+	/**
+	 * Set the maximum number of milliseconds to wait for a connection to be
+	 * returned when all connections are in use, before throwing an SQLException.
+	 * Default is -1, indicating to wait indefinitely.
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Return the maximum number of milliseconds to wait for a connection.
+	 */
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * Set the SQL query to validate connections with, e.g. "SELECT 1".
+	 * The query needs to return at least one row. If not specified,
+	 * validation just checks whether the connection has been closed.
+	 * @see #setTestOnBorrow
+	 */
+	public void setValidationQuery(String validationQuery) {
+		this.validationQuery = validationQuery;
+	}
+
+	/**
+	 * Return the SQL query to validate connections with.
+	 */
+	public String getValidationQuery() {
+		return validationQuery;
+	}
+
+	/**
+	 * Set whether to validate pooled connections before handing them out.
+	 * Connections that fail validation get closed, and another one is tried.
+	 * Default is false.
+	 * @see #setValidationQuery
+	 */
+	public void setTestOnBorrow(boolean testOnBorrow) {
+		this.testOnBorrow = testOnBorrow;
+	}
+
+	/**
+	 * Return whether to validate pooled connections before handing them out.
+	 */
+	public boolean isTestOnBorrow() {
+		return testOnBorrow;
+	}
+
+	/**
+	 * Set the number of milliseconds between runs of the background task that
+	 * evicts idle connections and checks for leaked connections. Default is -1,
+	 * indicating to not run the task. Takes effect on the first getConnection call.
+	 * @see #setMinEvictableIdleTimeMillis
+	 * @see #setLeakDetectionThresholdMillis
+	 */
+	public void setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis) {
+		this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
+	}
+
+	/**
+	 * Return the number of milliseconds between runs of the eviction task.
+	 */
+	public long getTimeBetweenEvictionRunsMillis() {
+		return timeBetweenEvictionRunsMillis;
+	}
+
+	/**
+	 * Set the minimum number of milliseconds that a connection needs to be
+	 * idle before it can be evicted. Default is 30 minutes.
+	 * @see #setTimeBetweenEvictionRunsMillis
+	 */
+	public void setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis) {
+		this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+	}
+
+	/**
+	 * Return the minimum number of milliseconds that a connection needs to be idle
+	 * before it can be evicted.
+	 */
+	public long getMinEvictableIdleTimeMillis() {
+		return minEvictableIdleTimeMillis;
+	}
+
+	/**
+	 * Set the number of milliseconds after which a borrowed connection that has
+	 * not been returned gets reported as a possible leak, including the stack
+	 * trace of the code that borrowed it. Default is -1, indicating no detection.
+	 * <p>Checked by the eviction task, so timeBetweenEvictionRunsMillis needs to
+	 * be set too. Recording the stack trace on every borrow has a cost, so this
+	 * is intended for development and diagnosis.
+	 * @see #setTimeBetweenEvictionRunsMillis
+	 */
+	public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+		this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+	}
+
+	/**
+	 * Return the number of milliseconds after which a borrowed connection
+	 * gets reported as a possible leak.
+	 */
+	public long getLeakDetectionThresholdMillis() {
+		return leakDetectionThresholdMillis;
+	}
+
+	/**
+	 * Set the maximum number of PreparedStatements to cache per physical
+	 * connection. Default is 0, indicating to not cache statements.
+	 * <p>If specified, prepareStatement calls with the same SQL (and the same
+	 * result set type and concurrency, if given) return a handle to a cached
+	 * statement, as long as it is not in use. Closing the handle clears the
+	 * parameters and warnings and restores fetch size, max rows and query
+	 * timeout, keeping the statement open for reuse. Statements that have not
+	 * been used for the longest time get closed when the cache is full.
+	 * <p>Note that each cached statement may hold resources in the database,
+	 * so the cache size needs to be chosen with the database limits in mind.
+	 * @see #getStatementCacheHits
+	 * @see #getStatementCacheMisses
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Return the maximum number of PreparedStatements to cache per physical connection.
+	 */
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+
+	public Connection getConnection() throws SQLException {
+		long startTime = System.currentTimeMillis();
+		PooledConnection pc = null;
+		while (pc == null) {
+			pc = borrowIdleConnection(startTime);
+			if (pc == null) {
+				// reserved a slot for a new physical connection
+				pc = createPooledConnection();
+			}
+			else if (this.testOnBorrow && !isValid(pc.connection)) {
+				logger.info("Closing pooled JDBC connection that failed validation: " + pc.connection);
+				synchronized (this.monitor) {
+					this.pendingCreations--;
+					this.monitor.notify();
+				}
+				closePhysicalConnection(pc.connection);
+				pc = null;
+			}
+		}
+		long now = System.currentTimeMillis();
+		pc.borrowedTime = now;
+		pc.leakReported = false;
+		pc.borrowStackTrace = (this.leakDetectionThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null);
+		synchronized (this.monitor) {
+			this.pendingCreations--;
+			this.activeConnections.add(pc);
+			this.borrowCount++;
+			long waitTime = now - startTime;
+			this.totalWaitTimeMillis += waitTime;
+			int bucket = 0;
+			while (bucket < WAIT_TIME_HISTOGRAM_BOUNDS.length && waitTime >= WAIT_TIME_HISTOGRAM_BOUNDS[bucket]) {
+				bucket++;
+			}
+			this.waitTimeHistogram[bucket]++;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Returning pooled JDBC connection: " + pc.connection);
+		}
+		return (Connection) newProxy(connectionHandleConstructor, new ConnectionHandle(pc));
+	}
+
+	/**
+	 * Take an idle connection from the pool, or reserve a slot for a new one,
+	 * waiting for a connection to be returned if necessary.
+	 * Either way, the caller needs to decrement pendingCreations again.
+	 * @param startTime the time when the caller started to wait
+	 * @return the idle PooledConnection, or null if a new one needs to be created
+	 * @throws SQLException if the pool is closed or the maximum wait time is exceeded
+	 */
+	private PooledConnection borrowIdleConnection(long startTime) throws SQLException {
+		synchronized (this.monitor) {
+			startEvictionTimerIfNecessary();
+			while (true) {
+				if (this.closed) {
+					throw new SQLException("PoolingDataSource has been closed");
+				}
+				if (!this.idleConnections.isEmpty()) {
+					this.pendingCreations++;
+					return (PooledConnection) this.idleConnections.removeLast();
+				}
+				if (this.activeConnections.size() + this.pendingCreations < this.maxActive) {
+					this.pendingCreations++;
+					return null;
+				}
+				if (this.maxWait < 0) {
+					waitForConnection(0);
+				}
+				else {
+					long remaining = startTime + this.maxWait - System.currentTimeMillis();
+					if (remaining <= 0) {
+						this.timeoutCount++;
+						throw new SQLException("Timed out after " + this.maxWait + " ms waiting for a pooled " +
+						                       "JDBC connection: all " + this.maxActive + " connections in use");
+					}
+					waitForConnection(remaining);
+				}
+			}
+		}
+	}
+
+	private void waitForConnection(long timeout) throws SQLException {
+		this.numWaiters++;
+		try {
+			this.monitor.wait(timeout);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a pooled JDBC connection");
+		}
+		finally {
+			this.numWaiters--;
+		}
+	}
+
+	/**
+	 * Create a new physical connection for a slot reserved in borrowIdleConnection,
+	 * releasing the slot again if the connection cannot be created.
+	 */
+	private PooledConnection createPooledConnection() throws SQLException {
+		Connection con = null;
+		try {
+			con = getConnectionFromDriverManager();
+		}
+		finally {
+			synchronized (this.monitor) {
+				if (con == null) {
+					this.pendingCreations--;
+					this.monitor.notify();
+				}
+				else {
+					this.createdCount++;
+				}
+			}
+		}
+		return new PooledConnection(con);
+	}
+
+	/**
+	 * Return the given connection to the pool, or close it if it is broken
+	 * or if there are enough idle connections already. Statements that are
+	 * still open get closed, respectively returned to the statement cache.
+	 */
+	private void returnConnection(PooledConnection pc) {
+		List openStatements = pc.removeOpenStatements();
+		for (Iterator it = openStatements.iterator(); it.hasNext();) {
+			StatementHandle statementHandle = (StatementHandle) it.next();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Closing statement that is still open on return of pooled JDBC connection: " +
+				             statementHandle.statement);
+			}
+			try {
+				statementHandle.invalidate();
+			}
+			catch (SQLException ex) {
+				logger.info("Could not close JDBC statement on return of pooled JDBC connection", ex);
+			}
+		}
+		boolean reusable;
+		try {
+			if (!pc.connection.getAutoCommit()) {
+				pc.connection.rollback();
+				pc.connection.setAutoCommit(true);
+			}
+			reusable = !pc.connection.isClosed();
+		}
+		catch (SQLException ex) {
+			logger.info("Could not reset pooled JDBC connection - closing it", ex);
+			reusable = false;
+		}
+		boolean pooled = false;
+		synchronized (this.monitor) {
+			this.activeConnections.remove(pc);
+			if (reusable && !this.closed && this.idleConnections.size() < this.maxIdle) {
+				pc.lastReturnedTime = System.currentTimeMillis();
+				this.idleConnections.addLast(pc);
+				pooled = true;
+			}
+			this.monitor.notify();
+		}
+		if (!pooled) {
+			closePhysicalConnection(pc.connection);
+		}
+	}
+
+	/**
+	 * Validate the given connection, using the validation query if specified.
+	 * @see #setValidationQuery
+	 */
+	protected boolean isValid(Connection con) {
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			if (con.isClosed()) {
+				return false;
+			}
+			if (this.validationQuery == null) {
+				return true;
+			}
+			stmt = con.createStatement();
+			rs = stmt.executeQuery(this.validationQuery);
+			return rs.next();
+		}
+		catch (SQLException ex) {
+			logger.debug("Validation of pooled JDBC connection failed", ex);
+			return false;
+		}
+		finally {
+			JdbcUtils.closeResultSet(rs);
+			JdbcUtils.closeStatement(stmt);
+		}
+	}
+
+	/**
+	 * Return a handle to a cached PreparedStatement for the given SQL and
+	 * result set settings, preparing and caching a new one if necessary.
+	 * If the cached statement is in use, returns a new uncached statement.
+	 * @param pc the pooled connection to prepare the statement on
+	 * @param connectionHandle the connection handle to expose to the statement user
+	 * @param args the arguments of the prepareStatement call: SQL, and optionally
+	 * result set type and concurrency
+	 */
+	private PreparedStatement prepareCachedStatement(PooledConnection pc, Connection connectionHandle, Object[] args)
+			throws SQLException {
+		if (pc.statementCache == null) {
+			pc.statementCache = new StatementCache(this.statementCacheSize);
+		}
+		String key = (args.length == 1 ? (String) args[0] : args[1] + ":" + args[2] + ":" + args[0]);
+		CachedStatement cs = (CachedStatement) pc.statementCache.get(key);
+		if (cs != null && cs.evicted) {
+			// closed after a failure to reset it
+			pc.statementCache.remove(key);
+			cs = null;
+		}
+		boolean hit = (cs != null && !cs.inUse);
+		synchronized (this.monitor) {
+			if (hit) {
+				this.statementCacheHits++;
+			}
+			else {
+				this.statementCacheMisses++;
+			}
+		}
+		if (cs != null && cs.inUse) {
+			// nested use of the same SQL: not worth caching
+			return (PreparedStatement) newStatementHandle(
+					pc, prepareStatement(pc.connection, args), null, connectionHandle, PreparedStatement.class);
+		}
+		if (cs == null) {
+			cs = new CachedStatement(prepareStatement(pc.connection, args));
+			pc.statementCache.put(key, cs);
+		}
+		cs.inUse = true;
+		return (PreparedStatement) newStatementHandle(pc, cs.statement, cs, connectionHandle, PreparedStatement.class);
+	}
+
+	/**
+	 * Create a handle for the given statement, registered as open statement
+	 * of the given pooled connection until the handle gets closed.
+	 * @param pc the pooled connection that the statement has been created on
+	 * @param statement the statement
+	 * @param cachedStatement the cache entry for the statement, or null if not cached
+	 * @param connectionHandle the connection handle to expose to the statement user
+	 * @param statementType the statement interface to expose: Statement,
+	 * PreparedStatement or CallableStatement
+	 */
+	private Statement newStatementHandle(PooledConnection pc, Statement statement, CachedStatement cachedStatement,
+	                                     Connection connectionHandle, Class statementType) {
+		StatementHandle statementHandle = new StatementHandle(pc, statement, cachedStatement, connectionHandle);
+		pc.addOpenStatement(statementHandle);
+		Constructor proxyConstructor = statementHandleConstructor;
+		if (CallableStatement.class.equals(statementType)) {
+			proxyConstructor = callableStatementHandleConstructor;
+		}
+		else if (PreparedStatement.class.equals(statementType)) {
+			proxyConstructor = preparedStatementHandleConstructor;
+		}
+		return (Statement) newProxy(proxyConstructor, statementHandle);
+	}
+
+	private PreparedStatement prepareStatement(Connection con, Object[] args) throws SQLException {
+		if (args.length == 1) {
+			return con.prepareStatement((String) args[0]);
+		}
+		else {
+			return con.prepareStatement((String) args[0], ((Integer) args[1]).intValue(), ((Integer) args[2]).intValue());
+		}
+	}
+
+	private void closePhysicalConnection(Connection con) {
+		try {
+			con.close();
+		}
+		catch (SQLException ex) {
+			logger.info("Could not close pooled JDBC connection", ex);
+		}
+		catch (RuntimeException ex) {
+			logger.error("Unexpected exception on closing pooled JDBC connection", ex);
+		}
+	}
+
+	private void startEvictionTimerIfNecessary() {
+		if (this.evictionTimer == null && this.timeBetweenEvictionRunsMillis > 0) {
+			this.evictionTimer = new Timer(true);
+			this.evictionTimer.schedule(new TimerTask() {
+				public void run() {
+					evict();
+				}
+			}, this.timeBetweenEvictionRunsMillis, this.timeBetweenEvictionRunsMillis);
+		}
+	}
+
+	/**
+	 * Close idle connections that have been idle for longer than the
+	 * minimum evictable idle time, and report borrowed connections that
+	 * have not been returned within the leak detection threshold.
+	 * Invoked by the eviction task.
+	 * @see #setTimeBetweenEvictionRunsMillis
+	 */
+	public void evict() {
+		long now = System.currentTimeMillis();
+		List evicted = new ArrayList();
+		List leaked = new ArrayList();
+		synchronized (this.monitor) {
+			// oldest idle connections come first
+			while (!this.idleConnections.isEmpty() &&
+					now - ((PooledConnection) this.idleConnections.getFirst()).lastReturnedTime >=
+					this.minEvictableIdleTimeMillis) {
+				evicted.add(this.idleConnections.removeFirst());
+			}
+			if (this.leakDetectionThresholdMillis > 0) {
+				for (Iterator it = this.activeConnections.iterator(); it.hasNext();) {
+					PooledConnection pc = (PooledConnection) it.next();
+					if (!pc.leakReported && now - pc.borrowedTime >= this.leakDetectionThresholdMillis) {
+						pc.leakReported = true;
+						leaked.add(pc);
+					}
+				}
+			}
+		}
+		for (Iterator it = evicted.iterator(); it.hasNext();) {
+			PooledConnection pc = (PooledConnection) it.next();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Evicting idle JDBC connection: " + pc.connection);
+			}
+			closePhysicalConnection(pc.connection);
+		}
+		for (Iterator it = leaked.iterator(); it.hasNext();) {
+			PooledConnection pc = (PooledConnection) it.next();
+			logger.warn("Pooled JDBC connection [" + pc.connection + "] has not been returned for " +
+			            (now - pc.borrowedTime) + " ms - possible connection leak", pc.borrowStackTrace);
+		}
+	}
+
+
+	/**
+	 * Return the number of connections that are currently borrowed.
+	 */
+	public int getNumActive() {
+		synchronized (this.monitor) {
+			return this.activeConnections.size();
+		}
+	}
+
+	/**
+	 * Return the number of idle connections in the pool.
+	 */
+	public int getNumIdle() {
+		synchronized (this.monitor) {
+			return this.idleConnections.size();
+		}
+	}
+
+	/**
+	 * Return the number of threads that are currently waiting
+	 * for a connection to be returned to the pool.
+	 * @see #setMaxActive
+	 */
+	public int getNumWaiters() {
+		synchronized (this.monitor) {
+			return this.numWaiters;
+		}
+	}
+
+	/**
+	 * Return the number of connections handed out so far.
+	 */
+	public long getBorrowCount() {
+		synchronized (this.monitor) {
+			return this.borrowCount;
+		}
+	}
+
+	/**
+	 * Return the number of physical connections created so far.
+	 */
+	public long getCreatedCount() {
+		synchronized (this.monitor) {
+			return this.createdCount;
+		}
+	}
+
+	/**
+	 * Return the number of getConnection calls that timed out
+	 * waiting for a connection.
+	 * @see #setMaxWait
+	 */
+	public long getTimeoutCount() {
+		synchronized (this.monitor) {
+			return this.timeoutCount;
+		}
+	}
+
+	/**
+	 * Return the total number of milliseconds that getConnection calls
+	 * have spent obtaining a connection, including creating connections.
+	 */
+	public long getTotalWaitTimeMillis() {
+		synchronized (this.monitor) {
+			return this.totalWaitTimeMillis;
+		}
+	}
+
+	/**
+	 * Return the number of prepareStatement calls that reused a cached statement.
+	 * @see #setStatementCacheSize
+	 */
+	public long getStatementCacheHits() {
+		synchronized (this.monitor) {
+			return this.statementCacheHits;
+		}
+	}
+
+	/**
+	 * Return the number of prepareStatement calls that had to prepare a new
+	 * statement although statement caching is active.
+	 * @see #setStatementCacheSize
+	 */
+	public long getStatementCacheMisses() {
+		synchronized (this.monitor) {
+			return this.statementCacheMisses;
+		}
+	}
+
+	/**
+	 * Return the number of successful getConnection calls per wait time bucket.
+	 * Element i counts the calls that took less than WAIT_TIME_HISTOGRAM_BOUNDS[i]
+	 * milliseconds (and at least the previous bound); the last element counts
+	 * the calls that took longer than the last bound.
+	 * @return a copy of the histogram
+	 * @see #WAIT_TIME_HISTOGRAM_BOUNDS
+	 */
+	public long[] getWaitTimeHistogram() {
+		synchronized (this.monitor) {
+			long[] histogram = new long[this.waitTimeHistogram.length];
+			System.arraycopy(this.waitTimeHistogram, 0, histogram, 0, histogram.length);
+			return histogram;
+		}
+	}
+
+
+	/**
+	 * Returns a new physical connection, bypassing the pool,
+	 * unless given the configured username and password.
+	 */
+	public Connection getConnection(String username, String password) throws SQLException {
+		if (ObjectUtils.nullSafeEquals(username, getUsername()) &&
+				ObjectUtils.nullSafeEquals(password, getPassword())) {
+			return getConnection();
+		}
+		else {
+			return super.getConnection(username, password);
+		}
+	}
+
+	/**
+	 * Close the pool and all idle connections. Connections that are currently
+	 * borrowed get closed when they are returned.
+	 * <p>As this bean implements DisposableBean, a bean factory will
+	 * automatically invoke this on destruction of its cached singletons.
+	 */
+	public void destroy() {
+		List toClose;
+		synchronized (this.monitor) {
+			this.closed = true;
+			if (this.evictionTimer != null) {
+				this.evictionTimer.cancel();
+				this.evictionTimer = null;
+			}
+			toClose = new ArrayList(this.idleConnections);
+			this.idleConnections.clear();
+			this.monitor.notifyAll();
+		}
+		for (Iterator it = toClose.iterator(); it.hasNext();) {
+			closePhysicalConnection(((PooledConnection) it.next()).connection);
+		}
+	}
+
+
+	/**
+	 * Physical connection in the pool, with its bookkeeping data.
+	 */
+	private static class PooledConnection {
+
+		private final Connection connection;
+
+		private long lastReturnedTime;
+
+		private long borrowedTime;
+
+		private Throwable borrowStackTrace;
+
+		private boolean leakReported;
+
+		/** Cached PreparedStatements, created on first use */
+		private StatementCache statementCache;
+
+		/** StatementHandles that have not been closed yet, guarded by this object */
+		private final Set openStatements = new HashSet();
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+		}
+
+		private synchronized void addOpenStatement(StatementHandle statementHandle) {
+			this.openStatements.add(statementHandle);
+		}
+
+		private synchronized void removeOpenStatement(StatementHandle statementHandle) {
+			this.openStatements.remove(statementHandle);
+		}
+
+		private synchronized List removeOpenStatements() {
+			List statementHandles = new ArrayList(this.openStatements);
+			this.openStatements.clear();
+			return statementHandles;
+		}
+	}
+
+
+	/**
+	 * LRU cache of CachedStatements, closing evicted statements
+	 * unless they are in use at that time.
+	 */
+	private static class StatementCache extends LruCache {
+
+		private StatementCache(int maxSize) {
+			super(maxSize);
+		}
+
+		protected void onEviction(Object key, Object value) {
+			CachedStatement cs = (CachedStatement) value;
+			if (cs.inUse) {
+				// will get closed when its handle gets closed
+				cs.evicted = true;
+			}
+			else {
+				JdbcUtils.closeStatement(cs.statement);
+			}
+		}
+	}
+
+
+	/**
+	 * PreparedStatement in a StatementCache, with the settings
+	 * to restore when returning it to the cache.
+	 */
+	private static class CachedStatement {
+
+		private final PreparedStatement statement;
+
+		private final int fetchSize;
+
+		private final int maxRows;
+
+		private final int queryTimeout;
+
+		private boolean inUse;
+
+		private boolean evicted;
+
+		private CachedStatement(PreparedStatement statement) throws SQLException {
+			this.statement = statement;
+			this.fetchSize = statement.getFetchSize();
+			this.maxRows = statement.getMaxRows();
+			this.queryTimeout = statement.getQueryTimeout();
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a statement created on a pooled connection,
+	 * closing the statement on close, or returning it to the statement cache
+	 * if cached. Closed on return of the connection if still open. Any further
+	 * use of the handle after close results in an SQLException.
+	 */
+	private static class StatementHandle implements InvocationHandler {
+
+		private final PooledConnection pooledConnection;
+
+		private final Statement statement;
+
+		/** The cache entry for the statement, or null if not cached */
+		private final CachedStatement cachedStatement;
+
+		private final Connection connectionHandle;
+
+		private boolean handleClosed = false;
+
+		private boolean settingsChanged = false;
+
+		private StatementHandle(PooledConnection pooledConnection, Statement statement,
+		                        CachedStatement cachedStatement, Connection connectionHandle) {
+			this.pooledConnection = pooledConnection;
+			this.statement = statement;
+			this.cachedStatement = cachedStatement;
+			this.connectionHandle = connectionHandle;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+			if (methodName.equals("equals")) {
+				return (proxy == args[0] ? Boolean.TRUE : Boolean.FALSE);
+			}
+			else if (methodName.equals("hashCode")) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+			else if (methodName.equals("toString")) {
+				return (this.cachedStatement != null ? "Cached statement" : "Statement") +
+						" handle for [" + this.statement + "]";
+			}
+			synchronized (this) {
+				if (methodName.equals("close")) {
+					if (!this.handleClosed) {
+						this.pooledConnection.removeOpenStatement(this);
+						invalidate();
+					}
+					return null;
+				}
+				else if (methodName.equals("isClosed") && this.handleClosed) {
+					return Boolean.TRUE;
+				}
+				else if (this.handleClosed) {
+					throw new SQLException("Statement handle has already been closed");
+				}
+			}
+			if (methodName.equals("getConnection")) {
+				return this.connectionHandle;
+			}
+			else if (methodName.equals("setFetchSize") || methodName.equals("setMaxRows") ||
+					methodName.equals("setQueryTimeout")) {
+				this.settingsChanged = true;
+			}
+			try {
+				return method.invoke(this.statement, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		/**
+		 * Close this handle, closing the statement or returning it to the
+		 * statement cache. Does nothing if the handle has already been closed.
+		 */
+		private synchronized void invalidate() throws SQLException {
+			if (this.handleClosed) {
+				return;
+			}
+			this.handleClosed = true;
+			if (this.cachedStatement != null) {
+				returnStatement();
+			}
+			else {
+				this.statement.close();
+			}
+		}
+
+		private void returnStatement() throws SQLException {
+			CachedStatement cs = this.cachedStatement;
+			PreparedStatement ps = cs.statement;
+			if (cs.evicted) {
+				ps.close();
+				return;
+			}
+			try {
+				ps.clearParameters();
+				ps.clearWarnings();
+				if (this.settingsChanged) {
+					ps.setFetchSize(cs.fetchSize);
+					ps.setMaxRows(cs.maxRows);
+					ps.setQueryTimeout(cs.queryTimeout);
+				}
+			}
+			catch (SQLException ex) {
+				// don't reuse a statement in unknown state
+				cs.evicted = true;
+				ps.close();
+				throw ex;
+			}
+			finally {
+				cs.inUse = false;
+			}
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a borrowed connection, returning the
+	 * connection to the pool on close. Any further use of the handle
+	 * after close results in an SQLException.
+	 */
+	private class ConnectionHandle implements InvocationHandler {
+
+		private final PooledConnection pooledConnection;
+
+		private boolean handleClosed = false;
+
+		private ConnectionHandle(PooledConnection pooledConnection) {
+			this.pooledConnection = pooledConnection;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+			if (methodName.equals("equals")) {
+				return (proxy == args[0] ? Boolean.TRUE : Boolean.FALSE);
+			}
+			else if (methodName.equals("hashCode")) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+			else if (methodName.equals("toString")) {
+				return "Pooled connection handle for [" + this.pooledConnection.connection + "]";
+			}
+			synchronized (this) {
+				if (methodName.equals("close")) {
+					if (!this.handleClosed) {
+						this.handleClosed = true;
+						returnConnection(this.pooledConnection);
+					}
+					return null;
+				}
+				else if (methodName.equals("isClosed") && this.handleClosed) {
+					return Boolean.TRUE;
+				}
+				else if (this.handleClosed) {
+					throw new SQLException("Connection handle has already been closed");
+				}
+			}
+			if (methodName.equals("prepareStatement") && statementCacheSize > 0 &&
+					(args.length == 1 || (args.length == 3 && args[1] instanceof Integer))) {
+				return prepareCachedStatement(this.pooledConnection, (Connection) proxy, args);
+			}
+			Object result = null;
+			try {
+				result = method.invoke(this.pooledConnection.connection, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+			if (result instanceof Statement) {
+				// createStatement, prepareStatement or prepareCall
+				return newStatementHandle(this.pooledConnection, (Statement) result, null,
+				                          (Connection) proxy, method.getReturnType());
+			}
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.Constants;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that routes connection requests to a primary DataSource or to
+ * one of several read replicas, depending on whether the current transaction
+ * is read-only. Reads are balanced across the replicas according to the
+ * configured load balancing strategy.
+ *
+ * <p>The read-only flag is exposed by AbstractPlatformTransactionManager
+ * before a new transaction obtains its resources, so a DataSourceTransactionManager
+ * for this DataSource will fetch the transaction's connection from a replica
+ * if the transaction definition is read-only. All other connection requests,
+ * including those outside of a transaction, go to the primary DataSource.
+ *
+ * <p>Returned connections are proxies that keep track of the number of active
+ * connections per target DataSource, exposed via getTargetMetrics. Closing the
+ * proxy closes the underlying connection, i.e. returns it to the target pool.
+ *
+ * <p>Note that routing happens at connection retrieval. To defer it to the
+ * first actual JDBC use of a connection, wrap this DataSource with a
+ * LazyConnectionDataSourceProxy before handing it to the transaction manager.
+ *
+ * @since 1.0.1
+ * @see #setPrimaryDataSource
+ * @see #setReplicaDataSources
+ * @see #setLoadBalancingStrategy
+ * @see org.springframework.transaction.support.TransactionSynchronizationManager#isCurrentTransactionReadOnly
+ * @see DataSourceTransactionManager
+ * @see LazyConnectionDataSourceProxy
+ */
+public class ReadOnlyRoutingDataSource extends AbstractDataSource implements InitializingBean {
+
+	/**
+	 * Hand out replica connections in turn.
+	 */
+	public static final int LOAD_BALANCING_ROUND_ROBIN = 0;
+
+	/**
+	 * Hand out connections from the replica with the fewest active connections.
+	 * The first such replica wins on a tie.
+	 */
+	public static final int LOAD_BALANCING_LEAST_ACTIVE = 1;
+
+	/** Constants instance for ReadOnlyRoutingDataSource */
+	private static final Constants constants = new Constants(ReadOnlyRoutingDataSource.class);
+
+
+	private DataSource primaryDataSource;
+
+	private List replicaDataSources = new ArrayList();
+
+	private int loadBalancingStrategy = LOAD_BALANCING_ROUND_ROBIN;
+
+	private TargetMetrics primaryMetrics;
+
+	/** TargetMetrics for each replica, in configuration order */
+	private TargetMetrics[] replicaMetrics;
+
+	private int nextReplicaIndex = 0;
+
+
+	/**
+	 * Create a new ReadOnlyRoutingDataSource.
+	 * @see #setPrimaryDataSource
+	 * @see #setReplicaDataSources
+	 */
+	public ReadOnlyRoutingDataSource() {
+	}
+
+	/**
+	 * Create a new ReadOnlyRoutingDataSource.
+	 * @param primaryDataSource the DataSource for read-write access
+	 * @param replicaDataSources the DataSources for read-only access
+	 */
+	public ReadOnlyRoutingDataSource(DataSource primaryDataSource, List replicaDataSources) {
+		setPrimaryDataSource(primaryDataSource);
+		setReplicaDataSources(replicaDataSources);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Set the DataSource to use for read-write transactions
+	 * and for non-transactional access.
+	 */
+	public void setPrimaryDataSource(DataSource primaryDataSource) {
+		this.primaryDataSource = primaryDataSource;
+	}
+
+	/**
+	 * Return the DataSource used for read-write access.
+	 */
+	public DataSource getPrimaryDataSource() {
+		return primaryDataSource;
+	}
+
+	/**
+	 * Set the DataSources to use for read-only transactions.
+	 * If empty, read-only transactions will use the primary DataSource.
+	 * @param replicaDataSources List of DataSource instances
+	 */
+	public void setReplicaDataSources(List replicaDataSources) {
+		this.replicaDataSources = replicaDataSources;
+	}
+
+	/**
+	 * Return the DataSources used for read-only access.
+	 */
+	public List getReplicaDataSources() {
+		return replicaDataSources;
+	}
+
+	/**
+	 * Set the load balancing strategy by the name of the corresponding constant
+	 * in this class, e.g. "LOAD_BALANCING_LEAST_ACTIVE".
+	 * @param constantName name of the constant
+	 * @see #LOAD_BALANCING_ROUND_ROBIN
+	 * @see #LOAD_BALANCING_LEAST_ACTIVE
+	 */
+	public void setLoadBalancingStrategyName(String constantName) {
+		setLoadBalancingStrategy(constants.asNumber(constantName).intValue());
+	}
+
+	/**
+	 * Set how read-only connection requests are spread across the replicas.
+	 * Default is round-robin.
+	 * @see #LOAD_BALANCING_ROUND_ROBIN
+	 * @see #LOAD_BALANCING_LEAST_ACTIVE
+	 */
+	public void setLoadBalancingStrategy(int loadBalancingStrategy) {
+		if (loadBalancingStrategy != LOAD_BALANCING_ROUND_ROBIN &&
+				loadBalancingStrategy != LOAD_BALANCING_LEAST_ACTIVE) {
+			throw new IllegalArgumentException("Invalid load balancing strategy: " + loadBalancingStrategy);
+		}
+		this.loadBalancingStrategy = loadBalancingStrategy;
+	}
+
+	/**
+	 * Return how read-only connection requests are spread across the replicas.
+	 */
+	public int getLoadBalancingStrategy() {
+		return loadBalancingStrategy;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.primaryDataSource == null) {
+			throw new IllegalArgumentException("primaryDataSource is required");
+		}
+		if (this.replicaDataSources == null) {
+			throw new IllegalArgumentException("replicaDataSources must not be null");
+		}
+		this.primaryMetrics = new TargetMetrics(this.primaryDataSource);
+		this.replicaMetrics = new TargetMetrics[this.replicaDataSources.size()];
+		int i = 0;
+		for (Iterator it = this.replicaDataSources.iterator(); it.hasNext(); i++) {
+			Object replica = it.next();
+			if (!(replica instanceof DataSource)) {
+				throw new IllegalArgumentException("Replica [" + replica + "] is not a DataSource");
+			}
+			this.replicaMetrics[i] = new TargetMetrics((DataSource) replica);
+		}
+	}
+
+
+	public Connection getConnection() throws SQLException {
+		TargetMetrics target = determineTarget();
+		return getConnectionProxy(target.getDataSource().getConnection(), target);
+	}
+
+	public Connection getConnection(String username, String password) throws SQLException {
+		TargetMetrics target = determineTarget();
+		return getConnectionProxy(target.getDataSource().getConnection(username, password), target);
+	}
+
+	/**
+	 * Determine the target for the current connection request: a replica
+	 * if the current transaction is read-only, else the primary DataSource.
+	 * @see org.springframework.transaction.support.TransactionSynchronizationManager#isCurrentTransactionReadOnly
+	 */
+	protected TargetMetrics determineTarget() {
+		if (this.primaryMetrics == null) {
+			throw new IllegalStateException("ReadOnlyRoutingDataSource has not been initialized");
+		}
+		if (this.replicaMetrics.length == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return this.primaryMetrics;
+		}
+		TargetMetrics target = selectReplica(this.replicaMetrics);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Routing read-only connection request to replica [" + target.getDataSource() + "]");
+		}
+		return target;
+	}
+
+	/**
+	 * Select one of the given replicas according to the load balancing strategy.
+	 * Can be overridden in subclasses for custom strategies.
+	 * @param replicas the TargetMetrics for all replicas, never empty
+	 * @return the TargetMetrics of the chosen replica
+	 */
+	protected TargetMetrics selectReplica(TargetMetrics[] replicas) {
+		if (this.loadBalancingStrategy == LOAD_BALANCING_LEAST_ACTIVE) {
+			TargetMetrics target = replicas[0];
+			for (int i = 1; i < replicas.length; i++) {
+				if (replicas[i].getActiveConnectionCount() < target.getActiveConnectionCount()) {
+					target = replicas[i];
+				}
+			}
+			return target;
+		}
+		synchronized (this) {
+			int index = this.nextReplicaIndex;
+			this.nextReplicaIndex = (index + 1) % replicas.length;
+			return replicas[index];
+		}
+	}
+
+	/**
+	 * Wrap the given target connection with a proxy that updates the metrics
+	 * of the given target on close.
+	 */
+	private Connection getConnectionProxy(Connection source, TargetMetrics target) {
+		target.connectionOpened();
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+		                                           new Class[] {Connection.class},
+		                                           new MetricsInvocationHandler(source, target));
+	}
+
+	/**
+	 * Return the metrics for all targets: the primary DataSource first,
+	 * followed by the replicas in configuration order.
+	 * @return unmodifiable List of TargetMetrics instances
+	 */
+	public List getTargetMetrics() {
+		if (this.primaryMetrics == null) {
+			return Collections.EMPTY_LIST;
+		}
+		List metrics = new ArrayList(this.replicaMetrics.length + 1);
+		metrics.add(this.primaryMetrics);
+		for (int i = 0; i < this.replicaMetrics.length; i++) {
+			metrics.add(this.replicaMetrics[i]);
+		}
+		return Collections.unmodifiableList(metrics);
+	}
+
+
+	/**
+	 * Connection counts for a single target DataSource.
+	 */
+	public static class TargetMetrics {
+
+		private final DataSource dataSource;
+
+		private int activeConnectionCount = 0;
+
+		private long totalConnectionCount = 0;
+
+		private TargetMetrics(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		private synchronized void connectionOpened() {
+			this.activeConnectionCount++;
+			this.totalConnectionCount++;
+		}
+
+		private synchronized void connectionClosed() {
+			this.activeConnectionCount--;
+		}
+
+		/**
+		 * Return the target DataSource.
+		 */
+		public DataSource getDataSource() {
+			return dataSource;
+		}
+
+		/**
+		 * Return the number of connections obtained from this target
+		 * that have not been closed yet.
+		 */
+		public synchronized int getActiveConnectionCount() {
+			return activeConnectionCount;
+		}
+
+		/**
+		 * Return the number of connections obtained from this target so far.
+		 */
+		public synchronized long getTotalConnectionCount() {
+			return totalConnectionCount;
+		}
+
+		public String toString() {
+			return "TargetMetrics for [" + this.dataSource + "]: active=" + getActiveConnectionCount() +
+			    ", total=" + getTotalConnectionCount();
+		}
+	}
+
+
+	/**
+	 * Invocation handler that updates the target's metrics
+	 * when the connection gets closed.
+	 */
+	private static class MetricsInvocationHandler implements InvocationHandler {
+
+		private final Connection source;
+
+		private final TargetMetrics target;
+
+		private boolean closed = false;
+
+		private MetricsInvocationHandler(Connection source, TargetMetrics target) {
+			this.source = source;
+			this.target = target;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().equals("close")) {
+				synchronized (this) {
+					if (!this.closed) {
+						this.closed = true;
+						this.target.connectionClosed();
+					}
+				}
+			}
+			try {
+				return method.invoke(this.source, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+}
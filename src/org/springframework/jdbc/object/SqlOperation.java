@@ -17,10 +17,18 @@
 package org.springframework.jdbc.object;
 
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
 import org.springframework.jdbc.support.JdbcUtils;
 
 /**
@@ -30,6 +38,14 @@ import org.springframework.jdbc.support.JdbcUtils;
  * <p>Configures a PreparedStatementCreatorFactory based on the
  * declared parameters.
  *
+ * <p>The SQL may use named parameters like ":name" instead of "?"
+ * placeholders. Each named parameter must correspond to a declared
+ * parameter with the same name, and may occur more than once. Parameter
+ * values can then be passed either in the order of declaration, or as a
+ * Map keyed by name; Collection values get expanded into IN lists.
+ * The mapping from named parameter occurrences to declared parameters
+ * is computed once on compilation.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @version $Id: SqlOperation.java,v 1.10 2004/03/18 02:46:13 trisberg Exp $
@@ -46,6 +62,15 @@ public abstract class SqlOperation extends RdbmsOperation {
 	 */
 	private PreparedStatementCreatorFactory preparedStatementFactory;
 
+	/** Parsed SQL if the SQL uses named parameters, else null */
+	private ParsedSql parsedSql;
+
+	/**
+	 * Index of the declared parameter for each named parameter occurrence,
+	 * or null if the SQL does not use named parameters.
+	 */
+	private int[] declaredParameterIndexes;
+
 
 	/**
 	 * Set whether to use prepared statements that return a
@@ -89,26 +114,75 @@ public abstract class SqlOperation extends RdbmsOperation {
 	 * @see RdbmsOperation#compileInternal()
 	 */
 	protected final void compileInternal() {
-		// validate parameter count
-		int bindVarCount = 0;
-		try {
-			bindVarCount = JdbcUtils.countParameterPlaceholders(getSql(), '?', '\'');
+		// SQL with "?" placeholders is always treated as positional,
+		// even if it happens to contain something like a named parameter
+		ParsedSql parsed = NamedParameterUtils.parseSqlStatement(getSql());
+		if (parsed.getNamedParameterCount() > 0 && parsed.getUnnamedParameterCount() == 0) {
+			compileNamedParameters(parsed);
 		}
-		catch (IllegalArgumentException ex) {
-			// transform JDBC-agnostic error to data access error
-			throw new InvalidDataAccessApiUsageException(ex.getMessage());
+		else {
+			// validate parameter count
+			int bindVarCount = 0;
+			try {
+				bindVarCount = JdbcUtils.countParameterPlaceholders(getSql(), '?', '\'');
+			}
+			catch (IllegalArgumentException ex) {
+				// transform JDBC-agnostic error to data access error
+				throw new InvalidDataAccessApiUsageException(ex.getMessage());
+			}
+			if (bindVarCount != getDeclaredParameters().size())
+				throw new InvalidDataAccessApiUsageException("SQL '" + getSql() + "' requires " + bindVarCount +
+				                                             " bind variables, but " + getDeclaredParameters().size() +
+																										 " variables were declared for this object");
+			this.preparedStatementFactory = newPreparedStatementCreatorFactory(getSql(), getDeclaredParameters());
 		}
-		if (bindVarCount != getDeclaredParameters().size())
-			throw new InvalidDataAccessApiUsageException("SQL '" + getSql() + "' requires " + bindVarCount +
-			                                             " bind variables, but " + getDeclaredParameters().size() +
-																									 " variables were declared for this object");
-
-		this.preparedStatementFactory = new PreparedStatementCreatorFactory(getSql(), getDeclaredParameters());
-		this.preparedStatementFactory.setResultSetType(this.resultSetType);
-		this.preparedStatementFactory.setUpdatableResults(this.updatableResults);
 		onCompileInternal();
 	}
 
+	/**
+	 * Resolve the declared parameter for each named parameter occurrence,
+	 * and configure the PreparedStatementCreatorFactory for the SQL with
+	 * JDBC placeholders substituted.
+	 */
+	private void compileNamedParameters(ParsedSql parsed) {
+		List declaredParameters = getDeclaredParameters();
+		int count = parsed.getNamedParameterCount();
+		int[] indexes = new int[count];
+		List occurrenceParameters = new ArrayList(count);
+		for (int i = 0; i < count; i++) {
+			String name = parsed.getParameterName(i);
+			indexes[i] = -1;
+			for (int j = 0; j < declaredParameters.size() && indexes[i] == -1; j++) {
+				if (name.equals(((SqlParameter) declaredParameters.get(j)).getName())) {
+					indexes[i] = j;
+				}
+			}
+			if (indexes[i] == -1) {
+				throw new InvalidDataAccessApiUsageException("SQL '" + getSql() + "' uses parameter ':" + name +
+				                                             "', but no parameter with that name was declared for this object");
+			}
+			occurrenceParameters.add(declaredParameters.get(indexes[i]));
+		}
+		this.parsedSql = parsed;
+		this.declaredParameterIndexes = indexes;
+		this.preparedStatementFactory = newPreparedStatementCreatorFactory(parsed.getJdbcSql(), occurrenceParameters);
+	}
+
+	private PreparedStatementCreatorFactory newPreparedStatementCreatorFactory(String sql, List parameters) {
+		PreparedStatementCreatorFactory factory = new PreparedStatementCreatorFactory(sql, parameters);
+		factory.setResultSetType(this.resultSetType);
+		factory.setUpdatableResults(this.updatableResults);
+		return factory;
+	}
+
+	/**
+	 * Return whether the SQL of this operation uses named parameters.
+	 * Only valid once the operation has been compiled.
+	 */
+	protected boolean isNamedParameterSql() {
+		return (this.parsedSql != null);
+	}
+
 	/**
 	 * Hook method that subclasses may override to react to compilation.
 	 * This implementation does nothing.
@@ -122,7 +196,135 @@ public abstract class SqlOperation extends RdbmsOperation {
 	 * @param params parameters. May be null.
 	 */
 	protected PreparedStatementCreator newPreparedStatementCreator(Object[] params) {
+		if (this.parsedSql != null) {
+			for (int i = 0; params != null && i < params.length; i++) {
+				if (params[i] instanceof Collection) {
+					return newPreparedStatementCreator(buildParameterMap(params));
+				}
+			}
+			return this.preparedStatementFactory.newPreparedStatementCreator(toNamedParameterValues(params));
+		}
 		return this.preparedStatementFactory.newPreparedStatementCreator(params);
 	}
 
+	/**
+	 * Validate the named parameters passed to an execute method.
+	 * Subclasses should invoke this method before executing with a Map of
+	 * named parameters. Checks that the SQL uses named parameters; missing
+	 * values are detected when creating the PreparedStatementCreator.
+	 * @param paramMap Map of parameter names to values. May be null.
+	 * @throws InvalidDataAccessApiUsageException if the parameters are invalid
+	 */
+	protected void validateNamedParameters(Map paramMap) throws InvalidDataAccessApiUsageException {
+		if (!isCompiled()) {
+			logger.info("SQL operation not compiled before execution - invoking compile");
+			compile();
+		}
+		if (this.parsedSql == null) {
+			throw new InvalidDataAccessApiUsageException("SQL '" + getSql() + "' does not use named parameters");
+		}
+	}
+
+	/**
+	 * Return a PreparedStatementCreator to perform an operation
+	 * with the given named parameters. Collection values get
+	 * expanded into IN lists.
+	 * @param paramMap Map of parameter names to values
+	 * @throws InvalidDataAccessApiUsageException if the SQL does not use
+	 * named parameters, or if a parameter value is missing
+	 */
+	protected PreparedStatementCreator newPreparedStatementCreator(Map paramMap) {
+		if (this.parsedSql == null) {
+			throw new InvalidDataAccessApiUsageException("SQL '" + getSql() + "' does not use named parameters");
+		}
+		String sql = NamedParameterUtils.substituteNamedParameters(this.parsedSql, paramMap);
+		Object[] values = NamedParameterUtils.buildValueArray(this.parsedSql, paramMap);
+		if (sql.equals(this.parsedSql.getJdbcSql())) {
+			return this.preparedStatementFactory.newPreparedStatementCreator(values);
+		}
+		// expanded IN lists: repeat the declared parameter for each placeholder
+		List declaredParameters = getDeclaredParameters();
+		List parameters = new ArrayList(values.length);
+		for (int i = 0; i < this.declaredParameterIndexes.length; i++) {
+			Object param = declaredParameters.get(this.declaredParameterIndexes[i]);
+			int count = NamedParameterUtils.getPlaceholderCount(this.parsedSql, i, paramMap);
+			for (int j = 0; j < count; j++) {
+				parameters.add(param);
+			}
+		}
+		return newPreparedStatementCreatorFactory(sql, parameters).newPreparedStatementCreator(values);
+	}
+
+	/**
+	 * Convert the given parameter values, in the order of declaration,
+	 * to the values for the named parameter occurrences in the SQL.
+	 * The given parameters must not contain Collections.
+	 * @param params parameter values in the order of declaration
+	 * @return the values in the order of the JDBC placeholders
+	 * in the substituted SQL
+	 */
+	protected Object[] toNamedParameterValues(Object[] params) {
+		Object[] values = new Object[this.declaredParameterIndexes.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = params[this.declaredParameterIndexes[i]];
+		}
+		return values;
+	}
+
+	/**
+	 * Return the SQL with JDBC placeholders substituted
+	 * for named parameters, if any, for use in batch updates.
+	 * @see #toNamedParameterValues
+	 */
+	protected String getJdbcSql() {
+		return (this.parsedSql != null ? this.parsedSql.getJdbcSql() : getSql());
+	}
+
+	/**
+	 * Return the declared parameters in the order of the JDBC placeholders
+	 * in the SQL returned by getJdbcSql().
+	 * @see #getJdbcSql
+	 */
+	protected List getJdbcParameters() {
+		if (this.parsedSql == null) {
+			return getDeclaredParameters();
+		}
+		List declaredParameters = getDeclaredParameters();
+		List parameters = new ArrayList(this.declaredParameterIndexes.length);
+		for (int i = 0; i < this.declaredParameterIndexes.length; i++) {
+			parameters.add(declaredParameters.get(this.declaredParameterIndexes[i]));
+		}
+		return parameters;
+	}
+
+	/**
+	 * Build a Map of parameter names to values from the given parameter
+	 * values, which are expected in the order of declaration.
+	 * @param params parameter values in the order of declaration
+	 */
+	protected Map buildParameterMap(Object[] params) {
+		List declaredParameters = getDeclaredParameters();
+		Map paramMap = new HashMap(declaredParameters.size());
+		for (int i = 0; params != null && i < params.length; i++) {
+			paramMap.put(((SqlParameter) declaredParameters.get(i)).getName(), params[i]);
+		}
+		return paramMap;
+	}
+
+	/**
+	 * Build an array of parameter values in the order of declaration
+	 * from the given Map of parameter names to values, for example to
+	 * pass them to callbacks that expect positional parameters.
+	 * Parameters without a value in the Map are represented as null.
+	 * @param paramMap Map of parameter names to values
+	 */
+	protected Object[] buildParameterArray(Map paramMap) {
+		List declaredParameters = getDeclaredParameters();
+		Object[] params = new Object[declaredParameters.size()];
+		for (int i = 0; paramMap != null && i < params.length; i++) {
+			params[i] = paramMap.get(((SqlParameter) declaredParameters.get(i)).getName());
+		}
+		return params;
+	}
+
 }
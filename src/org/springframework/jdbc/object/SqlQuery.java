@@ -207,6 +207,30 @@ public abstract class SqlQuery extends SqlOperation {
 		return execute(p1, null);
 	}
 
+	/**
+	 * Execute with named parameters, for SQL that uses parameters like
+	 * ":name" rather than "?" placeholders. Collection values get expanded
+	 * into IN lists.
+	 * @param paramMap Map of parameter names to values. The names must
+	 * correspond to the names of the declared parameters.
+	 * @param context contextual information passed to the callback mapRow method
+	 * @return a list of objects, one per row of the ResultSet
+	 * @see org.springframework.jdbc.core.namedparam.NamedParameterUtils
+	 */
+	public List executeByNamedParam(Map paramMap, Map context) throws DataAccessException {
+		validateNamedParameters(paramMap);
+		ResultReader rr = newResultReader(this.rowsExpected, buildParameterArray(paramMap), context);
+		return getJdbcTemplate().query(newPreparedStatementCreator(paramMap), rr);
+	}
+
+	/**
+	 * Convenient method to execute with named parameters, without context.
+	 * @param paramMap Map of parameter names to values
+	 */
+	public List executeByNamedParam(Map paramMap) throws DataAccessException {
+		return executeByNamedParam(paramMap, null);
+	}
+
 	/**
 	 * Generic findObject method, used by all other findObject() methods.
 	 * findObject() methods are like EJB entity bean finders, in that it is
@@ -232,6 +256,28 @@ public abstract class SqlQuery extends SqlOperation {
 		return findObject(parameters, null);
 	}
 
+	/**
+	 * Find a single object given named parameters and a context.
+	 * @see #executeByNamedParam(Map, Map)
+	 */
+	public Object findObjectByNamedParam(Map paramMap, Map context) throws DataAccessException {
+		List l = executeByNamedParam(paramMap, context);
+		if (l.size() == 0) {
+			return null;
+		}
+		if (l.size() > 1) {
+			throw new InvalidDataAccessApiUsageException("Result is not unique. Found " + l.size() + " objects");
+		}
+		return l.get(0);
+	}
+
+	/**
+	 * Convenience method to find a single object given named parameters.
+	 */
+	public Object findObjectByNamedParam(Map paramMap) throws DataAccessException {
+		return findObjectByNamedParam(paramMap, null);
+	}
+
 	/**
 	 * Convenience method to find a single object given a single int parameter
 	 * and a context.
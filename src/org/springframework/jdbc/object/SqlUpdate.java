@@ -16,10 +16,15 @@
 
 package org.springframework.jdbc.object;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 import javax.sql.DataSource;
 
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.SqlParameter;
 
 /**
  * RdbmsOperation subclass representing a SQL update.
@@ -135,16 +140,86 @@ public class SqlUpdate extends SqlOperation {
 
 		int rowsAffected = getJdbcTemplate().update(newPreparedStatementCreator(args));
 		logger.debug("Executing update statement: " + getSql());
+		checkRowsAffected(rowsAffected);
+		logger.debug(rowsAffected + " rows affected by SQL update [" + getSql() + "]");
+		return rowsAffected;
+	}
+
+	/**
+	 * Execute the update given named parameters, for SQL that uses
+	 * parameters like ":name" rather than "?" placeholders.
+	 * Collection values get expanded into IN lists.
+	 * @param paramMap Map of parameter names to values. The names must
+	 * correspond to the names of the declared parameters.
+	 * @return the number of rows affected by the update
+	 * @see org.springframework.jdbc.core.namedparam.NamedParameterUtils
+	 */
+	public int updateByNamedParam(Map paramMap) throws InvalidDataAccessApiUsageException {
+		validateNamedParameters(paramMap);
+		int rowsAffected = getJdbcTemplate().update(newPreparedStatementCreator(paramMap));
+		checkRowsAffected(rowsAffected);
+		return rowsAffected;
+	}
 
+	/**
+	 * Check the given number of affected rows against the specified
+	 * maximum number or required number of rows affected.
+	 * @param rowsAffected the number of affected rows
+	 * @throws JdbcUpdateAffectedIncorrectNumberOfRowsException if the
+	 * actually affected rows are not within the specified limits
+	 */
+	protected void checkRowsAffected(int rowsAffected) throws JdbcUpdateAffectedIncorrectNumberOfRowsException {
 		if (this.maxRowsAffected != 0 && rowsAffected > this.maxRowsAffected) {
 			throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(getSql(), this.maxRowsAffected, rowsAffected);
 		}
 		if (this.requiredRowsAffected != 0 && rowsAffected != this.requiredRowsAffected) {
 			throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(getSql(), this.requiredRowsAffected, rowsAffected);
 		}
-
 		logger.debug(rowsAffected + " rows affected by SQL update [" + getSql() + "]");
-		return rowsAffected;
+	}
+
+	/**
+	 * Execute the update once for each element of the given Iterator,
+	 * sending the statements to the database in JDBC 2.0 batches of the
+	 * given size. The arguments are read as they are needed, so a lazily
+	 * computed Iterator allows for loading an arbitrary number of rows
+	 * without holding them all in memory.
+	 * <p>The maximum and required number of rows affected do not apply to
+	 * batch updates, as the number of rows affected per statement may not
+	 * be available from the JDBC driver.
+	 * <p>For SQL with named parameters, the arguments are expected in the
+	 * order of declaration too. Collection arguments are not supported here,
+	 * as all statements of a batch share the same SQL.
+	 * @param batchArgs Iterator over Object arrays, each containing the
+	 * arguments for one update
+	 * @param batchSize the number of updates to execute per JDBC batch
+	 * @return the total number of rows affected
+	 * @see org.springframework.jdbc.core.JdbcTemplate#batchUpdate(String, java.util.Iterator, int[], int)
+	 */
+	public int batchUpdate(final Iterator batchArgs, int batchSize) throws InvalidDataAccessApiUsageException {
+		if (!isCompiled()) {
+			compile();
+		}
+		List jdbcParameters = getJdbcParameters();
+		int[] types = new int[jdbcParameters.size()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = ((SqlParameter) jdbcParameters.get(i)).getSqlType();
+		}
+		Iterator validatingArgs = new Iterator() {
+			public boolean hasNext() {
+				return batchArgs.hasNext();
+			}
+			public Object next() {
+				Object[] args = (Object[]) batchArgs.next();
+				validateParameters(args);
+				return (isNamedParameterSql() ? toNamedParameterValues(args) : args);
+			}
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+		logger.debug("Executing batch update statement: " + getSql());
+		return getJdbcTemplate().batchUpdate(getJdbcSql(), validatingArgs, types, batchSize);
 	}
 
 	/**
@@ -80,7 +80,8 @@ public class SQLErrorCodeSQLExceptionTranslator implements SQLExceptionTranslato
 	/**
 	 * Create a SQLErrorCode translator for the given DataSource.
 	 * Invoking this constructor will cause a connection to be obtained from the 
-	 * DataSource to get the metadata
+	 * DataSource to get the metadata, unless SQLErrorCodesFactory has already
+	 * cached the error codes for this DataSource
 	 * @param ds DataSource to use to find metadata and establish which error
 	 * codes are usable
 	 */
@@ -91,7 +92,8 @@ public class SQLErrorCodeSQLExceptionTranslator implements SQLExceptionTranslato
 	/**
 	 * Set the DataSource.
 	 * Setting this property will cause a connection to be obtained from the 
-	 * DataSource to get the metadata
+	 * DataSource to get the metadata, unless SQLErrorCodesFactory has already
+	 * cached the error codes for this DataSource
 	 * @param ds DataSource to use to find metadata and establish which error
 	 * codes are usable
 	 */
@@ -116,6 +118,15 @@ public class SQLErrorCodeSQLExceptionTranslator implements SQLExceptionTranslato
 		this.sqlErrorCodes = sec;		
 	}
 
+	/**
+	 * Return the error codes used by this translator.
+	 * @return the SQLErrorCodes, or null if neither error codes
+	 * nor a DataSource have been set
+	 */
+	public SQLErrorCodes getSqlErrorCodes() {
+		return sqlErrorCodes;
+	}
+
 	public DataAccessException translate(String task, String sql, SQLException sqlex) {
 		// first, try custom translation
 		DataAccessException dex = customTranslate(task, sql, sqlex);
@@ -20,8 +20,10 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.sql.DataSource;
 
@@ -45,6 +47,13 @@ import org.springframework.jdbc.datasource.DataSourceUtils;
  * Reads the default file in this package if not overridden by a file
  * in the root of the classpath (e.g. in the WEB-INF/classes directory).
  *
+ * <p>The SQLErrorCodes resolved for a DataSource are cached, keyed weakly
+ * by DataSource, so that only the first lookup for a DataSource needs to
+ * obtain a connection and read its DatabaseMetaData. This keeps creating
+ * new JdbcTemplates or HibernateTemplates at runtime cheap. Lookups that
+ * could not determine the database product name are not cached, so a
+ * database that is not available yet will be checked again on next use.
+ *
  * @author Thomas Risberg
  * @author Rod Johnson
  * @version $Id: SQLErrorCodesFactory.java,v 1.8 2004/03/18 02:46:15 trisberg Exp $
@@ -87,6 +96,11 @@ public class SQLErrorCodesFactory {
 	*/
 	private Map rdbmsErrorCodes;
 
+	/**
+	 * Map keyed by DataSource containing the SQLErrorCodes resolved for it.
+	 */
+	private final Map dataSourceCache = Collections.synchronizedMap(new WeakHashMap());
+
 	/**
 	 * Not public to enforce Singleton design pattern.
 	 * Would be private except to allow testing via overriding the
@@ -153,9 +167,19 @@ public class SQLErrorCodesFactory {
 	 * Return SQLErrorCodes for the given DataSource,
 	 * evaluating databaseProductName from DatabaseMetaData,
 	 * or an empty error codes instance if no SQLErrorCodes were found.
+	 * <p>Reuses the SQLErrorCodes cached for the DataSource if available.
+	 * Concurrent first access might read the metadata of the same DataSource
+	 * twice, which is harmless: the results are the same.
 	 * @see java.sql.DatabaseMetaData#getDatabaseProductName
 	 */
 	public SQLErrorCodes getErrorCodes(DataSource ds) {
+		SQLErrorCodes sec = (SQLErrorCodes) this.dataSourceCache.get(ds);
+		if (sec != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using cached SQLErrorCodes for DataSource [" + ds + "]");
+			}
+			return sec;
+		}
 		logger.info("Looking up default SQLErrorCodes for DataSource");
 		Connection con = null;
 		try {
@@ -180,11 +204,13 @@ public class SQLErrorCodesFactory {
 					if (dbName != null) {
 						logger.info("Database Product Name is " + dbName);
 						logger.info("Driver Version is " + driverVersion);
-						SQLErrorCodes sec = (SQLErrorCodes) this.rdbmsErrorCodes.get(dbName);
-						if (sec != null) {
-							return sec;
+						sec = (SQLErrorCodes) this.rdbmsErrorCodes.get(dbName);
+						if (sec == null) {
+							logger.info("Error Codes for " + dbName + " not found");
+							sec = new SQLErrorCodes();
 						}
-						logger.info("Error Codes for " + dbName + " not found");
+						this.dataSourceCache.put(ds, sec);
+						return sec;
 					}
 				}
 				else {
@@ -218,4 +244,14 @@ public class SQLErrorCodesFactory {
 		return sec;
 	}
 
+	/**
+	 * Remove the SQLErrorCodes cached for the given DataSource, if any,
+	 * for example after the DataSource has been switched to a different
+	 * database. The next lookup will read the DatabaseMetaData again.
+	 * @param ds the DataSource to forget
+	 */
+	public void clearCache(DataSource ds) {
+		this.dataSourceCache.remove(ds);
+	}
+
 }
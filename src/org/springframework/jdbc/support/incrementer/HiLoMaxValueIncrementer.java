@@ -0,0 +1,413 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.support.incrementer;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * DataFieldMaxValueIncrementer that allocates blocks of keys according to
+ * the hi/lo algorithm: Each value retrieved from an underlying incrementer,
+ * the "hi" value, reserves a block of "blockSize" keys, which are then
+ * served without accessing the database. A hi value of n reserves the keys
+ * from <code>(n - 1) * blockSize + 1</code> to <code>n * blockSize</code>,
+ * so a sequence starting at 1 yields keys starting at 1. Hi values need
+ * to be positive.
+ *
+ * <p>Any of the sequence or table based incrementers can serve as the
+ * underlying incrementer, for example OracleSequenceMaxValueIncrementer,
+ * PostgreSQLSequenceMaxValueIncrementer, HsqlMaxValueIncrementer or
+ * MySQLMaxValueIncrementer. The underlying incrementer needs to return
+ * consecutive values and should not use a cache of its own. All users of
+ * the sequence need to apply the same block size to not obtain duplicate
+ * keys.
+ *
+ * <p>Keys are handed out from an atomic counter without any locking, so
+ * concurrent inserts do not serialize on key generation. A new block is
+ * fetched by one thread while other threads wait for it.
+ *
+ * <p>If a "prefetchThreshold" is specified, the next block is fetched in
+ * the background when the number of remaining keys in the current block
+ * drops to the threshold, to avoid waiting for the database at all. All
+ * background fetches run on a single daemon thread, which is started on
+ * the first prefetch and stopped on destroy. Such a background fetch
+ * obtains its own connection, outside of any transaction of the thread
+ * that triggered it. After a failed background fetch, blocks are fetched
+ * on demand only, until an on-demand fetch succeeds again: during a
+ * database outage, every failure is thus reported to a caller.
+ *
+ * <p>As with caching incrementers, unused keys of a block are lost when the
+ * application is stopped, so there may be holes of up to the block size
+ * (or twice the block size with prefetching) in the numbering.
+ *
+ * @since 1.0.1
+ * @see #setHiValueIncrementer
+ * @see #setBlockSize
+ * @see #setPrefetchThreshold
+ */
+public class HiLoMaxValueIncrementer implements DataFieldMaxValueIncrementer, InitializingBean, DisposableBean {
+
+	/** Block that is exhausted from the start, to fetch the first block on demand */
+	private static final Block NO_BLOCK = new Block(0, -1);
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private DataFieldMaxValueIncrementer hiValueIncrementer;
+
+	private int blockSize = 100;
+
+	private int prefetchThreshold = 0;
+
+	/** The length to which a string result should be pre-pended with zeroes */
+	private int paddingLength = 0;
+
+	/** The block to serve keys from */
+	private volatile Block currentBlock = NO_BLOCK;
+
+	/** Held while switching to a new block, including fetching it on demand */
+	private final ReentrantLock blockLock = new ReentrantLock();
+
+	/** The Future for the hi value of the next block, if being prefetched */
+	private final AtomicReference prefetchFuture = new AtomicReference();
+
+	/** Whether prefetching is suspended after a failed background fetch */
+	private volatile boolean prefetchSuspended = false;
+
+	/** Single-threaded executor for background fetches, created on demand */
+	private ExecutorService prefetchExecutor;
+
+	private boolean destroyed = false;
+
+
+	/**
+	 * Default constructor.
+	 */
+	public HiLoMaxValueIncrementer() {
+	}
+
+	/**
+	 * Convenience constructor.
+	 * @param hiValueIncrementer the incrementer to retrieve hi values from
+	 * @param blockSize the number of keys per hi value
+	 */
+	public HiLoMaxValueIncrementer(DataFieldMaxValueIncrementer hiValueIncrementer, int blockSize) {
+		this.hiValueIncrementer = hiValueIncrementer;
+		this.blockSize = blockSize;
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Set the incrementer to retrieve hi values from,
+	 * typically a database sequence or sequence table.
+	 */
+	public void setHiValueIncrementer(DataFieldMaxValueIncrementer hiValueIncrementer) {
+		this.hiValueIncrementer = hiValueIncrementer;
+	}
+
+	/**
+	 * Return the incrementer to retrieve hi values from.
+	 */
+	public DataFieldMaxValueIncrementer getHiValueIncrementer() {
+		return hiValueIncrementer;
+	}
+
+	/**
+	 * Set the number of keys that each hi value reserves. Default is 100.
+	 */
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Return the number of keys that each hi value reserves.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Set the number of remaining keys in the current block at which
+	 * the next block gets fetched in the background.
+	 * Default is 0, indicating to fetch blocks on demand only.
+	 */
+	public void setPrefetchThreshold(int prefetchThreshold) {
+		this.prefetchThreshold = prefetchThreshold;
+	}
+
+	/**
+	 * Return the number of remaining keys at which the next block gets fetched.
+	 */
+	public int getPrefetchThreshold() {
+		return prefetchThreshold;
+	}
+
+	/**
+	 * Set the padding length, i.e. the length to which a string result
+	 * should be pre-pended with zeroes.
+	 */
+	public void setPaddingLength(int paddingLength) {
+		this.paddingLength = paddingLength;
+	}
+
+	/**
+	 * Return the padding length for String values.
+	 */
+	public int getPaddingLength() {
+		return paddingLength;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.hiValueIncrementer == null) {
+			throw new IllegalArgumentException("hiValueIncrementer is required");
+		}
+		if (this.blockSize < 1) {
+			throw new IllegalArgumentException("blockSize must be at least 1");
+		}
+		if (this.prefetchThreshold >= this.blockSize) {
+			throw new IllegalArgumentException("prefetchThreshold must be less than blockSize");
+		}
+	}
+
+	/**
+	 * Stop the background fetch thread, if started. A running background
+	 * fetch gets interrupted, a queued one cancelled. Blocks are fetched
+	 * on demand only after this.
+	 */
+	public synchronized void destroy() {
+		this.destroyed = true;
+		if (this.prefetchExecutor != null) {
+			List queuedTasks = this.prefetchExecutor.shutdownNow();
+			for (Iterator it = queuedTasks.iterator(); it.hasNext();) {
+				((Future) it.next()).cancel(false);
+			}
+		}
+	}
+
+
+	/**
+	 * Return the next key as int.
+	 * @throws DataAccessResourceFailureException if the key exceeds the int range
+	 */
+	public int nextIntValue() throws DataAccessException {
+		long key = getNextKey();
+		if (key > Integer.MAX_VALUE) {
+			throw new DataAccessResourceFailureException("Key " + key + " exceeds the int range - use nextLongValue");
+		}
+		return (int) key;
+	}
+
+	public long nextLongValue() throws DataAccessException {
+		return getNextKey();
+	}
+
+	public String nextStringValue() throws DataAccessException {
+		String s = Long.toString(getNextKey());
+		int len = s.length();
+		if (len < this.paddingLength) {
+			StringBuffer buf = new StringBuffer(this.paddingLength);
+			for (int i = 0; i < this.paddingLength - len; i++) {
+				buf.append('0');
+			}
+			buf.append(s);
+			s = buf.toString();
+		}
+		return s;
+	}
+
+	/**
+	 * Determine the next key to use, fetching a new block if necessary.
+	 * <p>Exactly one caller obtains the key at the prefetch threshold of a
+	 * block, so each block triggers at most one background fetch.
+	 * @throws DataAccessResourceFailureException if interrupted while waiting
+	 * for a new block, with the interrupted status of the current thread restored
+	 */
+	protected long getNextKey() throws DataAccessException {
+		while (true) {
+			Block block = this.currentBlock;
+			long key = block.nextKey.getAndIncrement();
+			if (key <= block.maxKey) {
+				if (this.prefetchThreshold > 0 && block.maxKey - key == this.prefetchThreshold) {
+					startPrefetch();
+				}
+				return key;
+			}
+			switchBlock(block);
+		}
+	}
+
+	/**
+	 * Replace the given exhausted block with the next one, unless another
+	 * thread already did so. Uses the prefetched hi value if available,
+	 * else fetches the next hi value on demand.
+	 */
+	private void switchBlock(Block exhaustedBlock) throws DataAccessException {
+		try {
+			this.blockLock.lockInterruptibly();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new DataAccessResourceFailureException("Interrupted while waiting for next block of keys");
+		}
+		try {
+			if (this.currentBlock != exhaustedBlock) {
+				return;
+			}
+			long hiValue = takePrefetchedHiValue();
+			if (hiValue < 0) {
+				hiValue = fetchHiValue();
+				this.prefetchSuspended = false;
+			}
+			long maxKey = hiValue * this.blockSize;
+			this.currentBlock = new Block(maxKey - this.blockSize + 1, maxKey);
+		}
+		finally {
+			this.blockLock.unlock();
+		}
+	}
+
+	/**
+	 * Return the result of the pending background fetch, waiting for it
+	 * if necessary. To be called with the block lock held.
+	 * @return the prefetched hi value, or -1 if there is no background
+	 * fetch or if it failed
+	 */
+	private long takePrefetchedHiValue() throws DataAccessException {
+		Future future = (Future) this.prefetchFuture.get();
+		if (future == null) {
+			return -1;
+		}
+		try {
+			long hiValue = ((Long) future.get()).longValue();
+			this.prefetchFuture.set(null);
+			return hiValue;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new DataAccessResourceFailureException("Interrupted while waiting for next block of keys");
+		}
+		catch (CancellationException ex) {
+			this.prefetchFuture.set(null);
+			return -1;
+		}
+		catch (ExecutionException ex) {
+			this.prefetchFuture.set(null);
+			this.prefetchSuspended = true;
+			logger.warn("Could not prefetch next block of keys - fetching on demand", ex.getCause());
+			return -1;
+		}
+	}
+
+	/**
+	 * Retrieve the next hi value from the underlying incrementer.
+	 */
+	private long fetchHiValue() throws DataAccessException {
+		long hiValue = this.hiValueIncrementer.nextLongValue();
+		if (hiValue < 1) {
+			throw new DataAccessResourceFailureException("Hi value must be positive, but was " + hiValue);
+		}
+		return hiValue;
+	}
+
+	/**
+	 * Fetch the next hi value on the background thread, unless prefetching
+	 * is suspended or a background fetch is already pending.
+	 */
+	private void startPrefetch() {
+		if (this.prefetchSuspended) {
+			return;
+		}
+		FutureTask task = new FutureTask(new Callable() {
+			public Object call() {
+				return new Long(fetchHiValue());
+			}
+		});
+		if (this.prefetchFuture.compareAndSet(null, task)) {
+			ExecutorService executor = getPrefetchExecutor();
+			try {
+				if (executor != null) {
+					executor.execute(task);
+					return;
+				}
+			}
+			catch (RejectedExecutionException ex) {
+				// destroyed in the meantime
+			}
+			this.prefetchFuture.compareAndSet(task, null);
+		}
+	}
+
+	/**
+	 * Return the executor for background fetches, creating it if necessary.
+	 * @return the executor, or null if this incrementer has been destroyed
+	 */
+	private synchronized ExecutorService getPrefetchExecutor() {
+		if (this.destroyed) {
+			return null;
+		}
+		if (this.prefetchExecutor == null) {
+			this.prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "HiLoMaxValueIncrementer-prefetch");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return this.prefetchExecutor;
+	}
+
+
+	/**
+	 * Range of keys reserved by one hi value, with the next key to serve.
+	 * The counter may run past the last key while threads find the block
+	 * exhausted; such values are never handed out.
+	 */
+	private static class Block {
+
+		private final AtomicLong nextKey;
+
+		private final long maxKey;
+
+		public Block(long firstKey, long maxKey) {
+			this.nextKey = new AtomicLong(firstKey);
+			this.maxKey = maxKey;
+		}
+	}
+
+}
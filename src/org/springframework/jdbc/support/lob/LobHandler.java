@@ -41,6 +41,11 @@ import java.sql.SQLException;
  * you need to use OracleLobHandler there, which uses Oracle's BLOB/CLOB API
  * for both all access.
  *
+ * <p>The stream accessors return streams that are tied to the current row of
+ * the ResultSet: They need to be consumed before the ResultSet is advanced or
+ * closed, but avoid materializing large content in memory. LobUtils and
+ * AbstractLobStreamingResultSetExtractor help with copying such streams.
+ *
  * <p>Of course, you need to declare different field types for each database.
  * In Oracle, any binary content needs to go into a BLOB, and all character content
  * beyond 4000 bytes needs to go into a CLOB. In MySQL, there is no notion of a
@@ -52,6 +57,7 @@ import java.sql.SQLException;
  * @since 23.12.2003
  * @see DefaultLobHandler
  * @see OracleLobHandler
+ * @see LobUtils
  * @see java.sql.ResultSet#getBytes
  * @see java.sql.ResultSet#getBinaryStream
  * @see java.sql.ResultSet#getString
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.support.lob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Utility methods for streaming LOB contents from a ResultSet to an
+ * OutputStream or Writer, without materializing the content in memory.
+ * Convenient within RowCallbackHandler implementations, for example to
+ * write each BLOB of a result to a file or a servlet response.
+ *
+ * <p>In contrast to FileCopyUtils, the target stream does not get closed,
+ * so that the contents of multiple rows can be written to the same stream.
+ * The LOB stream retrieved from the ResultSet is closed after copying.
+ *
+ * @since 1.0.1
+ * @see LobHandler#getBlobAsBinaryStream
+ * @see LobHandler#getClobAsCharacterStream
+ * @see org.springframework.jdbc.core.RowCallbackHandler
+ * @see org.springframework.jdbc.core.support.AbstractLobStreamingResultSetExtractor
+ */
+public abstract class LobUtils {
+
+	public static final int BUFFER_SIZE = 8192;
+
+	private static final Log logger = LogFactory.getLog(LobUtils.class);
+
+	/**
+	 * Copy the BLOB content of the given column to the given OutputStream.
+	 * Writes nothing if the BLOB is null.
+	 * @param lobHandler the LobHandler to retrieve the content with
+	 * @param rs the ResultSet to retrieve the content from
+	 * @param columnIndex the column index to use
+	 * @param out the stream to copy to (will not be closed)
+	 * @return the number of bytes copied
+	 * @throws SQLException if thrown by JDBC methods
+	 * @throws IOException in case of I/O errors
+	 */
+	public static long copyBlob(LobHandler lobHandler, ResultSet rs, int columnIndex, OutputStream out)
+			throws SQLException, IOException {
+		InputStream in = lobHandler.getBlobAsBinaryStream(rs, columnIndex);
+		if (in == null) {
+			return 0;
+		}
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long count = 0;
+			int nrOfBytes = -1;
+			while ((nrOfBytes = in.read(buffer)) != -1) {
+				out.write(buffer, 0, nrOfBytes);
+				count += nrOfBytes;
+			}
+			out.flush();
+			return count;
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+				logger.warn("Could not close BLOB InputStream", ex);
+			}
+		}
+	}
+
+	/**
+	 * Copy the CLOB content of the given column to the given Writer.
+	 * Writes nothing if the CLOB is null.
+	 * @param lobHandler the LobHandler to retrieve the content with
+	 * @param rs the ResultSet to retrieve the content from
+	 * @param columnIndex the column index to use
+	 * @param out the Writer to copy to (will not be closed)
+	 * @return the number of characters copied
+	 * @throws SQLException if thrown by JDBC methods
+	 * @throws IOException in case of I/O errors
+	 */
+	public static long copyClob(LobHandler lobHandler, ResultSet rs, int columnIndex, Writer out)
+			throws SQLException, IOException {
+		Reader in = lobHandler.getClobAsCharacterStream(rs, columnIndex);
+		if (in == null) {
+			return 0;
+		}
+		try {
+			char[] buffer = new char[BUFFER_SIZE];
+			long count = 0;
+			int nrOfChars = -1;
+			while ((nrOfChars = in.read(buffer)) != -1) {
+				out.write(buffer, 0, nrOfChars);
+				count += nrOfChars;
+			}
+			out.flush();
+			return count;
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+				logger.warn("Could not close CLOB Reader", ex);
+			}
+		}
+	}
+
+}
@@ -239,12 +239,59 @@ public interface HibernateOperations {
 	 * Delete all given persistent instances.
 	 * This can be combined with any of the find methods to delete by query
 	 * in two lines of code, similar to Session's delete by query methods.
+	 * <p>HibernateTemplate flushes and clears the Session after every
+	 * "batchSize" entities, if specified. Clearing evicts <i>all</i> instances
+	 * from the Session, including ones loaded earlier in the same transaction,
+	 * which are detached from then on. Without a "batchSize", the entities
+	 * are just deleted, leaving flushing to the Session.
 	 * @param entities the persistent instances to delete
 	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setBatchSize
 	 * @see net.sf.hibernate.Session#delete(String)
 	 */
 	void deleteAll(final Collection entities) throws DataAccessException;
 
+	/**
+	 * Save all given persistent instances.
+	 * <p>HibernateTemplate flushes and clears the Session after every
+	 * "batchSize" entities, if specified. Clearing evicts <i>all</i> instances
+	 * from the Session, including ones loaded earlier in the same transaction,
+	 * which are detached from then on.
+	 * @param entities the persistent instances to save
+	 * @return a List with the generated identifiers, in iteration order
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setBatchSize
+	 * @see net.sf.hibernate.Session#save(Object)
+	 */
+	List saveAll(final Collection entities) throws DataAccessException;
+
+	/**
+	 * Save respectively update all given persistent instances,
+	 * according to their IDs (matching the configured "unsaved-value"?).
+	 * <p>HibernateTemplate flushes and clears the Session after every
+	 * "batchSize" entities, if specified. Clearing evicts <i>all</i> instances
+	 * from the Session, including ones loaded earlier in the same transaction,
+	 * which are detached from then on.
+	 * @param entities the persistent instances to save respectively update
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setBatchSize
+	 * @see net.sf.hibernate.Session#saveOrUpdate(Object)
+	 */
+	void saveOrUpdateAll(final Collection entities) throws DataAccessException;
+
+	/**
+	 * Update all given persistent instances.
+	 * <p>HibernateTemplate flushes and clears the Session after every
+	 * "batchSize" entities, if specified. Clearing evicts <i>all</i> instances
+	 * from the Session, including ones loaded earlier in the same transaction,
+	 * which are detached from then on.
+	 * @param entities the persistent instances to update
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setBatchSize
+	 * @see net.sf.hibernate.Session#update(Object)
+	 */
+	void updateAll(final Collection entities) throws DataAccessException;
+
 
 	//-------------------------------------------------------------------------
 	// Convenience finder methods
@@ -469,4 +516,72 @@ public interface HibernateOperations {
 	List findByNamedQueryAndValueBean(final String queryName, final Object valueBean)
 			throws DataAccessException;
 
+
+	//-------------------------------------------------------------------------
+	// Convenience methods for scrolling through query results
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Execute a query, passing each result to the given handler instead of
+	 * materializing all results in a List. Persistent instances loaded by
+	 * the query get evicted from the Session in chunks, unless the Session
+	 * is bound to the thread. Associated objects do not get evicted.
+	 * @param queryString a query expressed in Hibernate's query language
+	 * @param handler the callback to process each result
+	 * @return the number of results processed
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setScrollChunkSize
+	 * @see net.sf.hibernate.Query#scroll
+	 */
+	int scroll(final String queryString, final HibernateResultHandler handler)
+			throws DataAccessException;
+
+	/**
+	 * Execute a query, binding a number of values to "?" parameters
+	 * in the query string, and passing each result to the given handler.
+	 * Persistent instances loaded by the query get evicted from the Session
+	 * in chunks, unless the Session is bound to the thread.
+	 * @param queryString a query expressed in Hibernate's query language
+	 * @param values the values of the parameters
+	 * @param handler the callback to process each result
+	 * @return the number of results processed
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setScrollChunkSize
+	 * @see net.sf.hibernate.Query#scroll
+	 */
+	int scroll(final String queryString, final Object[] values, final HibernateResultHandler handler)
+			throws DataAccessException;
+
+	/**
+	 * Execute a named query, passing each result to the given handler.
+	 * A named query is defined in a Hibernate mapping file.
+	 * Persistent instances loaded by the query get evicted from the Session
+	 * in chunks, unless the Session is bound to the thread.
+	 * @param queryName the name of a Hibernate query in a mapping file
+	 * @param handler the callback to process each result
+	 * @return the number of results processed
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setScrollChunkSize
+	 * @see net.sf.hibernate.Session#getNamedQuery(String)
+	 */
+	int scrollByNamedQuery(final String queryName, final HibernateResultHandler handler)
+			throws DataAccessException;
+
+	/**
+	 * Execute a named query, binding a number of values to "?" parameters
+	 * in the query string, and passing each result to the given handler.
+	 * A named query is defined in a Hibernate mapping file.
+	 * Persistent instances loaded by the query get evicted from the Session
+	 * in chunks, unless the Session is bound to the thread.
+	 * @param queryName the name of a Hibernate query in a mapping file
+	 * @param values the values of the parameters
+	 * @param handler the callback to process each result
+	 * @return the number of results processed
+	 * @throws org.springframework.dao.DataAccessException in case of Hibernate errors
+	 * @see HibernateTemplate#setScrollChunkSize
+	 * @see net.sf.hibernate.Session#getNamedQuery(String)
+	 */
+	int scrollByNamedQuery(final String queryName, final Object[] values, final HibernateResultHandler handler)
+			throws DataAccessException;
+
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.orm.hibernate;
+
+import net.sf.hibernate.HibernateException;
+
+/**
+ * Callback interface for processing query results one at a time.
+ * To be used with HibernateTemplate's scroll methods, which stream
+ * the results of a query to the handler instead of materializing
+ * them in a List.
+ *
+ * <p>Persistent instances loaded by the query get evicted from the
+ * Session in chunks, unless the Session is bound to the thread, so
+ * implementations should not hold on to them for later modification.
+ * Reassociate them with the Session via update or lock if necessary.
+ * Associated objects loaded during processing do not get evicted.
+ *
+ * @since 1.0.1
+ * @see HibernateTemplate#scroll(String, HibernateResultHandler)
+ * @see HibernateTemplate#setScrollChunkSize
+ */
+public interface HibernateResultHandler {
+
+	/**
+	 * Process a single query result. Gets called in the order of
+	 * the query results, within the Session that executes the query.
+	 * @param result the result: a persistent instance or scalar value
+	 * for a single select expression, else an Object array
+	 * (analogous to the elements of a Session.find result List)
+	 * @throws HibernateException in case of Hibernate errors,
+	 * for example on lazy loading of associations
+	 */
+	void processResult(Object result) throws HibernateException;
+
+}
@@ -18,6 +18,7 @@ package org.springframework.orm.hibernate;
 
 import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -27,6 +28,7 @@ import net.sf.hibernate.FlushMode;
 import net.sf.hibernate.HibernateException;
 import net.sf.hibernate.LockMode;
 import net.sf.hibernate.Query;
+import net.sf.hibernate.ScrollableResults;
 import net.sf.hibernate.Session;
 import net.sf.hibernate.SessionFactory;
 import net.sf.hibernate.type.Type;
@@ -90,6 +92,19 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 
 	private boolean allowCreate = true;
 
+	private int batchSize = 0;
+
+	private int scrollChunkSize = 100;
+
+	/** Monitor for the bulk operation counters */
+	private final Object bulkStatisticsMonitor = new Object();
+
+	private long bulkEntityCount = 0;
+
+	private long bulkFlushCount = 0;
+
+	private long bulkTime = 0;
+
 	/**
 	 * Create a new HibernateTemplate instance.
 	 */
@@ -136,6 +151,100 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 		return allowCreate;
 	}
 
+	/**
+	 * Set the number of entities after which the bulk operations saveAll,
+	 * saveOrUpdateAll, updateAll and deleteAll flush and clear the Session.
+	 * Default is 0, i.e. no intermediate flushing, with deleteAll simply
+	 * deleting each entity.
+	 * <p>Setting this keeps the Session's first-level cache bounded when
+	 * writing large numbers of entities, and lets Hibernate send the pending
+	 * SQL in JDBC batches. Ideally a multiple of the JDBC batch size of the
+	 * SessionFactory.
+	 * <p>Note that clearing the Session evicts <i>all</i> its persistent
+	 * instances, including ones loaded earlier within the same transaction.
+	 * @see #saveAll
+	 * @see LocalSessionFactoryBean#setJdbcBatchSize
+	 * @see net.sf.hibernate.Session#flush
+	 * @see net.sf.hibernate.Session#clear
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the number of entities after which bulk operations
+	 * flush and clear the Session.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the number of results after which the scroll methods evict the
+	 * persistent instances processed so far from the Session. Default is 100.
+	 * A value of 0 disables eviction.
+	 * <p>Eviction keeps the Session's first-level cache bounded when scrolling
+	 * through large result sets. Pending changes get flushed before eviction,
+	 * unless the Session's flush mode is FlushMode.NEVER.
+	 * <p>Only instances that the scroll itself loaded get evicted, which is
+	 * only known for a Session opened for the scroll operation. A Session
+	 * bound to the thread, for example by a transaction or an "open Session
+	 * in view" filter, may hold instances that the caller loaded before, so
+	 * its contents are left untouched.
+	 * <p>Note that only the query results themselves get evicted. Associated
+	 * objects loaded during processing are not evicted and remain in the
+	 * Session, unless evictions get cascaded to them via the mapping. Memory
+	 * consumption is thus only constant for results without associations.
+	 * @see #scroll(String, HibernateResultHandler)
+	 * @see net.sf.hibernate.Session#evict
+	 */
+	public void setScrollChunkSize(int scrollChunkSize) {
+		this.scrollChunkSize = scrollChunkSize;
+	}
+
+	/**
+	 * Return the number of results after which the scroll methods
+	 * evict processed persistent instances from the Session.
+	 */
+	public int getScrollChunkSize() {
+		return scrollChunkSize;
+	}
+
+	/**
+	 * Return the number of entities processed by bulk operations
+	 * of this template so far. Without a "batchSize", deleteAll
+	 * is not counted, as it does not go through the bulk processing.
+	 * @see #setBatchSize
+	 */
+	public long getBulkEntityCount() {
+		synchronized (this.bulkStatisticsMonitor) {
+			return bulkEntityCount;
+		}
+	}
+
+	/**
+	 * Return the number of intermediate Session flushes performed
+	 * by bulk operations of this template so far.
+	 * @see #setBatchSize
+	 */
+	public long getBulkFlushCount() {
+		synchronized (this.bulkStatisticsMonitor) {
+			return bulkFlushCount;
+		}
+	}
+
+	/**
+	 * Return the total time spent in bulk operations of this template
+	 * so far, in milliseconds. Together with getBulkEntityCount, this
+	 * allows for computing the bulk throughput.
+	 * @see #getBulkEntityCount
+	 */
+	public long getBulkTime() {
+		synchronized (this.bulkStatisticsMonitor) {
+			return bulkTime;
+		}
+	}
+
 
 	public Object execute(HibernateCallback action) throws DataAccessException {
 		Session session = (!this.allowCreate ?
@@ -309,16 +418,98 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 	}
 
 	public void deleteAll(final Collection entities) throws DataAccessException {
-		execute(new HibernateCallback() {
-			public Object doInHibernate(Session session) throws HibernateException {
-				for (Iterator it = entities.iterator(); it.hasNext();) {
-					session.delete(it.next());
+		if (this.batchSize > 0) {
+			executeBulk(entities, new BulkCallback() {
+				public Object doWithEntity(Session session, Object entity) throws HibernateException {
+					session.delete(entity);
+					return null;
+				}
+			});
+		}
+		else {
+			execute(new HibernateCallback() {
+				public Object doInHibernate(Session session) throws HibernateException {
+					for (Iterator it = entities.iterator(); it.hasNext();) {
+						session.delete(it.next());
+					}
+					return null;
 				}
+			});
+		}
+	}
+
+	public List saveAll(final Collection entities) throws DataAccessException {
+		return executeBulk(entities, new BulkCallback() {
+			public Object doWithEntity(Session session, Object entity) throws HibernateException {
+				return session.save(entity);
+			}
+		});
+	}
+
+	public void saveOrUpdateAll(final Collection entities) throws DataAccessException {
+		executeBulk(entities, new BulkCallback() {
+			public Object doWithEntity(Session session, Object entity) throws HibernateException {
+				session.saveOrUpdate(entity);
+				return null;
+			}
+		});
+	}
+
+	public void updateAll(final Collection entities) throws DataAccessException {
+		executeBulk(entities, new BulkCallback() {
+			public Object doWithEntity(Session session, Object entity) throws HibernateException {
+				session.update(entity);
 				return null;
 			}
 		});
 	}
 
+	/**
+	 * Apply the given callback to all given entities within a single Session,
+	 * flushing and clearing the Session after every "batchSize" entities.
+	 * @param entities the entities to process
+	 * @param callback the operation to apply to each entity
+	 * @return a List with the non-null results of the callback
+	 * @see #setBatchSize
+	 */
+	private List executeBulk(final Collection entities, final BulkCallback callback) throws DataAccessException {
+		return executeFind(new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException {
+				long startTime = System.currentTimeMillis();
+				List results = new ArrayList();
+				int count = 0;
+				int flushCount = 0;
+				try {
+					for (Iterator it = entities.iterator(); it.hasNext();) {
+						Object result = callback.doWithEntity(session, it.next());
+						if (result != null) {
+							results.add(result);
+						}
+						count++;
+						if (batchSize > 0 && count % batchSize == 0) {
+							session.flush();
+							session.clear();
+							flushCount++;
+						}
+					}
+				}
+				finally {
+					long time = System.currentTimeMillis() - startTime;
+					synchronized (bulkStatisticsMonitor) {
+						bulkEntityCount += count;
+						bulkFlushCount += flushCount;
+						bulkTime += time;
+					}
+					if (logger.isDebugEnabled()) {
+						logger.debug("Processed " + count + " entities with " + flushCount +
+						    " intermediate flushes in " + time + " ms");
+					}
+				}
+				return results;
+			}
+		});
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Convenience finder methods
@@ -528,6 +719,116 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 	}
 
 
+	//-------------------------------------------------------------------------
+	// Convenience methods for scrolling through query results
+	//-------------------------------------------------------------------------
+
+	public int scroll(String queryString, HibernateResultHandler handler) throws DataAccessException {
+		return scroll(queryString, null, handler);
+	}
+
+	public int scroll(final String queryString, final Object[] values, final HibernateResultHandler handler)
+			throws DataAccessException {
+		Integer count = (Integer) execute(new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException {
+				Query queryObject = createQuery(session, queryString);
+				if (values != null) {
+					for (int i = 0; i < values.length; i++) {
+						queryObject.setParameter(i, values[i]);
+					}
+				}
+				return new Integer(processResults(session, queryObject, handler));
+			}
+		});
+		return count.intValue();
+	}
+
+	public int scrollByNamedQuery(String queryName, HibernateResultHandler handler) throws DataAccessException {
+		return scrollByNamedQuery(queryName, null, handler);
+	}
+
+	public int scrollByNamedQuery(final String queryName, final Object[] values, final HibernateResultHandler handler)
+			throws DataAccessException {
+		Integer count = (Integer) execute(new HibernateCallback() {
+			public Object doInHibernate(Session session) throws HibernateException {
+				Query queryObject = getNamedQuery(session, queryName);
+				if (values != null) {
+					for (int i = 0; i < values.length; i++) {
+						queryObject.setParameter(i, values[i]);
+					}
+				}
+				return new Integer(processResults(session, queryObject, handler));
+			}
+		});
+		return count.intValue();
+	}
+
+	/**
+	 * Scroll through the results of the given Query, passing each result to the
+	 * given handler and evicting processed persistent instances in chunks.
+	 * @param session current Hibernate Session
+	 * @param queryObject the Query to execute
+	 * @param handler the callback to process each result
+	 * @return the number of results processed
+	 * @throws HibernateException in case of Hibernate errors
+	 * @see #setScrollChunkSize
+	 */
+	private int processResults(Session session, Query queryObject, HibernateResultHandler handler)
+			throws HibernateException {
+		// A thread-bound Session may contain instances loaded by the caller,
+		// which must keep their identity: only evict from our own Session.
+		boolean evict = (this.scrollChunkSize > 0 &&
+				!TransactionSynchronizationManager.hasResource(getSessionFactory()));
+		ScrollableResults results = queryObject.scroll();
+		List processed = new ArrayList();
+		int count = 0;
+		try {
+			while (results.next()) {
+				Object[] row = results.get();
+				handler.processResult(row.length == 1 ? row[0] : row);
+				count++;
+				if (evict) {
+					for (int i = 0; i < row.length; i++) {
+						if (row[i] != null && session.contains(row[i])) {
+							processed.add(row[i]);
+						}
+					}
+					if (count % this.scrollChunkSize == 0) {
+						evictProcessed(session, processed);
+					}
+				}
+			}
+			evictProcessed(session, processed);
+		}
+		finally {
+			results.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Evict the given persistent instances from the given Session,
+	 * flushing pending changes first if the flush mode allows it.
+	 * @param session current Hibernate Session
+	 * @param entities List of persistent instances, cleared afterwards
+	 */
+	private void evictProcessed(Session session, List entities) throws HibernateException {
+		if (entities.isEmpty()) {
+			return;
+		}
+		if (session.getFlushMode() != FlushMode.NEVER) {
+			session.flush();
+		}
+		for (Iterator it = entities.iterator(); it.hasNext();) {
+			session.evict(it.next());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Evicted " + entities.size() + " processed instances from Hibernate session");
+		}
+		entities.clear();
+	}
+
+
 	/**
 	 * Create a Query object for the given Session and the given query string.
 	 * To be used within a HibernateCallback.
@@ -582,4 +883,14 @@ public class HibernateTemplate extends HibernateAccessor implements HibernateOpe
 		return criteria;
 	}
 
+
+	/**
+	 * Callback for a single entity within a bulk operation.
+	 * @see #executeBulk
+	 */
+	private interface BulkCallback {
+
+		Object doWithEntity(Session session, Object entity) throws HibernateException;
+	}
+
 }
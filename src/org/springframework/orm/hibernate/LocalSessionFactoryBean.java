@@ -122,6 +122,10 @@ public class LocalSessionFactoryBean implements FactoryBean, InitializingBean, D
 
 	private Properties hibernateProperties;
 
+	private int jdbcBatchSize = -1;
+
+	private int jdbcFetchSize = -1;
+
 	private DataSource dataSource;
 
 	private TransactionManager jtaTransactionManager;
@@ -213,6 +217,34 @@ public class LocalSessionFactoryBean implements FactoryBean, InitializingBean, D
 		this.hibernateProperties = hibernateProperties;
 	}
 
+	/**
+	 * Set the JDBC batch size for the SessionFactory, i.e. the number of
+	 * pending inserts, updates and deletes that Hibernate sends to the
+	 * database in one JDBC batch. If set, this will override the
+	 * corresponding setting in Hibernate properties.
+	 * <p>Particularly useful in combination with HibernateTemplate's batch
+	 * size for bulk operations, which should be a multiple of this value.
+	 * A value of 0 disables JDBC batching.
+	 * @see net.sf.hibernate.cfg.Environment#STATEMENT_BATCH_SIZE
+	 * @see HibernateTemplate#setBatchSize
+	 */
+	public void setJdbcBatchSize(int jdbcBatchSize) {
+		this.jdbcBatchSize = jdbcBatchSize;
+	}
+
+	/**
+	 * Set the JDBC fetch size for the SessionFactory, i.e. the number of rows
+	 * that the JDBC driver fetches from the database per round trip. If set,
+	 * this will override the corresponding setting in Hibernate properties.
+	 * <p>Particularly useful in combination with HibernateTemplate's scroll
+	 * methods, to keep the JDBC driver from buffering large result sets.
+	 * @see net.sf.hibernate.cfg.Environment#STATEMENT_FETCH_SIZE
+	 * @see HibernateTemplate#scroll(String, HibernateResultHandler)
+	 */
+	public void setJdbcFetchSize(int jdbcFetchSize) {
+		this.jdbcFetchSize = jdbcFetchSize;
+	}
+
 	/**
 	 * Set the DataSource to be used by the SessionFactory.
 	 * If set, this will override corresponding settings in Hibernate properties.
@@ -331,6 +363,14 @@ public class LocalSessionFactoryBean implements FactoryBean, InitializingBean, D
 			// config.addProperties(this.hibernateProperties);
 		}
 
+		if (this.jdbcBatchSize >= 0) {
+			config.setProperty(Environment.STATEMENT_BATCH_SIZE, Integer.toString(this.jdbcBatchSize));
+		}
+
+		if (this.jdbcFetchSize >= 0) {
+			config.setProperty(Environment.STATEMENT_FETCH_SIZE, Integer.toString(this.jdbcFetchSize));
+		}
+
 		if (this.dataSource != null) {
 			// make given DataSource available for SessionFactory configuration
 			config.setProperty(Environment.CONNECTION_PROVIDER, LocalDataSourceConnectionProvider.class.getName());
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.transaction.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Abstract implementation of TransactionAttributeSource that caches the
+ * attribute resolved for each method and target class. Subclasses just
+ * need to implement computeTransactionAttribute, which will be invoked
+ * once per method and target class. The absence of an attribute, i.e. a
+ * non-transactional method, gets cached as well.
+ *
+ * <p>As getTransactionAttribute is called on every invocation of a
+ * transactional proxy, the cache is optimized for lookups: It is replaced
+ * on every addition rather than modified, so that lookups can proceed
+ * without synchronization. Additions are rare after all methods of a proxy
+ * have been resolved once, which TransactionProxyFactoryBean does eagerly.
+ *
+ * <p>Subclasses that allow for changing their attribute definitions need
+ * to call clearCache after such changes.
+ *
+ * @since 1.0.1
+ * @see #computeTransactionAttribute
+ * @see #clearCache
+ * @see TransactionProxyFactoryBean
+ */
+public abstract class AbstractCachingTransactionAttributeSource implements TransactionAttributeSource {
+
+	/**
+	 * Canonical value held in cache to indicate no transaction attribute was
+	 * found for this method, and we don't need to look again.
+	 */
+	private final static Object NULL_TRANSACTION_ATTRIBUTE = new Object();
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	/**
+	 * Cache of TransactionAttributes, keyed by MethodCacheKey.
+	 * Never modified once published; replaced on additions.
+	 */
+	private volatile Map attributeCache = Collections.EMPTY_MAP;
+
+	private final Object cacheMonitor = new Object();
+
+	/**
+	 * Return the transaction attribute for this method invocation,
+	 * resolving it via computeTransactionAttribute on first access.
+	 * @param method method for the current invocation. Can't be null
+	 * @param targetClass target class for this invocation. May be null.
+	 * @return TransactionAttribute for this method, or null if the method is non-transactional
+	 * @see #computeTransactionAttribute
+	 */
+	public TransactionAttribute getTransactionAttribute(Method method, Class targetClass) {
+		Object cacheKey = new MethodCacheKey(method, targetClass);
+		Object cached = this.attributeCache.get(cacheKey);
+		if (cached != null) {
+			return (cached != NULL_TRANSACTION_ATTRIBUTE ? (TransactionAttribute) cached : null);
+		}
+		TransactionAttribute attr = computeTransactionAttribute(method, targetClass);
+		synchronized (this.cacheMonitor) {
+			Map newCache = new HashMap(this.attributeCache);
+			newCache.put(cacheKey, (attr != null ? (Object) attr : NULL_TRANSACTION_ATTRIBUTE));
+			this.attributeCache = newCache;
+		}
+		return attr;
+	}
+
+	/**
+	 * Remove all cached transaction attributes, for example after
+	 * changes to the attribute definitions of this source.
+	 */
+	public void clearCache() {
+		synchronized (this.cacheMonitor) {
+			this.attributeCache = Collections.EMPTY_MAP;
+		}
+	}
+
+	/**
+	 * Determine the transaction attribute for the given method, without caching.
+	 * getTransactionAttribute is a caching decorator for this method.
+	 * @param method method for the current invocation. Can't be null
+	 * @param targetClass target class for this invocation. May be null.
+	 * @return TransactionAttribute for this method, or null if the method is non-transactional
+	 */
+	protected abstract TransactionAttribute computeTransactionAttribute(Method method, Class targetClass);
+
+
+	/**
+	 * Cache key for a method and a target class.
+	 * The target class is compared by identity.
+	 */
+	private static class MethodCacheKey {
+
+		private final Method method;
+
+		private final Class targetClass;
+
+		public MethodCacheKey(Method method, Class targetClass) {
+			this.method = method;
+			this.targetClass = targetClass;
+		}
+
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MethodCacheKey)) {
+				return false;
+			}
+			MethodCacheKey otherKey = (MethodCacheKey) other;
+			return ((this.method == otherKey.method || this.method.equals(otherKey.method)) &&
+					this.targetClass == otherKey.targetClass);
+		}
+
+		public int hashCode() {
+			return this.method.hashCode() * 29 + (this.targetClass != null ? this.targetClass.hashCode() : 0);
+		}
+	}
+
+}
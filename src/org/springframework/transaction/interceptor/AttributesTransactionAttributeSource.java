@@ -18,14 +18,10 @@ package org.springframework.transaction.interceptor;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
 import org.springframework.aop.framework.support.AopUtils;
 import org.springframework.metadata.Attributes;
 
@@ -37,7 +33,8 @@ import org.springframework.metadata.Attributes;
  * Any transaction attribute associated with the target method completely
  * overrides a class transaction attribute.
  * <br>
- * This implementation caches attributes by method after they are first used.
+ * This implementation caches attributes by method and target class after
+ * they are first used, as provided by AbstractCachingTransactionAttributeSource.
  * If it's ever desirable to allow dynamic changing of transaction attributes
  * (unlikely) caching could be made configurable. Caching is desirable because
  * of the cost of evaluating rollback rules.
@@ -45,71 +42,17 @@ import org.springframework.metadata.Attributes;
  * @see org.springframework.metadata.Attributes
  * @version $Id: AttributesTransactionAttributeSource.java,v 1.6 2004/03/18 02:46:05 trisberg Exp $
  */
-public class AttributesTransactionAttributeSource implements TransactionAttributeSource {
-	
-	protected final Log logger = LogFactory.getLog(getClass());
-	
-	/**
-	 * Canonical value held in cache to indicate no transaction attribute was
-	 * found for this method, and we don't need to look again
-	 */
-	private final static Object NULL_TX_ATTRIBUTE = new Object();
+public class AttributesTransactionAttributeSource extends AbstractCachingTransactionAttributeSource {
 	
 	/**
 	 * Underlying Attributes implementation we're using
 	 */
 	private final Attributes attributes;
-	
-	/**
-	 * Cache of TransactionAttributes, keyed by Method and target class
-	 */
-	private HashMap cache = new HashMap();
 
 	public AttributesTransactionAttributeSource(Attributes attributes) {
 		this.attributes = attributes;
 	}
 
-	/**
-	 * Return the transaction attribute for this method invocation.
-	 * Defaults to the class's transaction attribute if no method
-	 * attribute is found
-	 * @param method method for the current invocation. Can't be null
-	 * @param targetClass target class for this invocation. May be null.
-	 * @return TransactionAttribute for this method, or null if the method is non-transactional
-	 */
-	public TransactionAttribute getTransactionAttribute(Method method, Class targetClass) {
-		// First, see if we have a cached value
-		Object cacheKey = cacheKey(method, targetClass);
-		Object cached = cache.get(cacheKey);
-		if (cached != null) {
-			// Value will either be canonical value indicating there is no transaction attribute,
-			// or an actual transaction attribute
-			if (cached == NULL_TX_ATTRIBUTE) {
-				return null;
-			}
-			else {
-				return (TransactionAttribute) cached;
-			}
-		}
-		else {
-			// We need to work it out
-			TransactionAttribute txAtt = computeTransactionAttribute(method, targetClass);
-			// Put it in the cache
-			if (txAtt == null) {
-				cache.put(cacheKey, NULL_TX_ATTRIBUTE);
-			}
-			else {
-				cache.put(cacheKey, txAtt);
-			}
-			return txAtt;
-		}
-	}
-	
-	private Object cacheKey(Method method, Class targetClass) {
-		// Class may be null, method can't
-		return targetClass + "" + System.identityHashCode(method);
-	}
-	
 	/**
 	 * Same return as getTransactionAttribute method, but doesn't cache the result.
 	 * getTransactionAttribute is a caching decorator for this method.
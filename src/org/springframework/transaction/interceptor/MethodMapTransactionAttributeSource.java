@@ -23,9 +23,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
 import org.springframework.transaction.TransactionUsageException;
 
 /**
@@ -37,9 +34,7 @@ import org.springframework.transaction.TransactionUsageException;
  * @author Juergen Hoeller
  * @see #isMatch
  */
-public class MethodMapTransactionAttributeSource implements TransactionAttributeSource {
-
-	protected final Log logger = LogFactory.getLog(getClass());
+public class MethodMapTransactionAttributeSource extends AbstractCachingTransactionAttributeSource {
 
 	/** Map from Method to TransactionAttribute */
 	private Map methodMap = new HashMap();
@@ -140,6 +135,7 @@ public class MethodMapTransactionAttributeSource implements TransactionAttribute
 	public void addTransactionalMethod(Method method, TransactionAttribute attr) {
 		logger.info("Adding transactional method [" + method + "] with attribute [" + attr + "]");
 		this.methodMap.put(method, attr);
+		clearCache();
 	}
 
 	/**
@@ -155,7 +151,7 @@ public class MethodMapTransactionAttributeSource implements TransactionAttribute
 				(mappedName.startsWith("*") && methodName.endsWith(mappedName.substring(1, mappedName.length())));
 	}
 
-	public TransactionAttribute getTransactionAttribute(Method method, Class targetClass) {
+	protected TransactionAttribute computeTransactionAttribute(Method method, Class targetClass) {
 		return (TransactionAttribute) this.methodMap.get(method);
 	}
 
@@ -22,19 +22,17 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
 /**
  * Simple implementation of TransactionAttributeSource that
  * allows attributes to be matched by registered name.
+ *
+ * <p>The attribute resolved for a method is cached, so the registered
+ * names only need to be matched once per method and target class.
  * @author Juergen Hoeller
  * @since 21.08.2003
  * @see #isMatch
  */
-public class NameMatchTransactionAttributeSource implements TransactionAttributeSource {
-
-	protected final Log logger = LogFactory.getLog(getClass());
+public class NameMatchTransactionAttributeSource extends AbstractCachingTransactionAttributeSource {
 
 	private Map nameMap = new HashMap();
 
@@ -45,6 +43,7 @@ public class NameMatchTransactionAttributeSource implements TransactionAttribute
 	 */
 	public void setNameMap(Map nameMap) {
 		this.nameMap = nameMap;
+		clearCache();
 	}
 
 	/**
@@ -74,9 +73,10 @@ public class NameMatchTransactionAttributeSource implements TransactionAttribute
 	public void addTransactionalMethod(String methodName, TransactionAttribute attr) {
 		logger.debug("Adding transactional method [" + methodName + "] with attribute [" + attr + "]");
 		this.nameMap.put(methodName, attr);
+		clearCache();
 	}
 
-	public TransactionAttribute getTransactionAttribute(Method method, Class targetClass) {
+	protected TransactionAttribute computeTransactionAttribute(Method method, Class targetClass) {
 		String methodName = method.getName();
 		TransactionAttribute attr = (TransactionAttribute) this.nameMap.get(methodName);
 		if (attr != null) {
@@ -16,6 +16,7 @@
 
 package org.springframework.transaction.interceptor;
 
+import java.lang.reflect.Method;
 import java.util.Properties;
 
 import org.aopalliance.aop.AspectException;
@@ -54,6 +55,10 @@ import org.springframework.transaction.PlatformTransactionManager;
  * additional interceptors to the mix, like PerformanceMonitorInterceptor or
  * HibernateInterceptor/JdoInterceptor.
  *
+ * <p>The transaction attributes of all proxied methods are resolved on proxy
+ * creation, so that a caching TransactionAttributeSource does not need to
+ * resolve them on the first invocations.
+ *
  * @author Juergen Hoeller
  * @author Dmitriy Kopylenko
  * @author Rod Johnson
@@ -228,6 +233,27 @@ public class TransactionProxyFactoryBean extends ProxyConfig implements FactoryB
 			proxyFactory.setInterfaces(AopUtils.getAllInterfaces(this.target));
 		}
 		this.proxy = proxyFactory.getProxy();
+		preloadTransactionAttributes(proxyFactory);
+	}
+
+	/**
+	 * Resolve the transaction attributes of all proxied methods once,
+	 * for the target class that invocations will be made on.
+	 * @param proxyFactory the ProxyFactory that created the proxy
+	 * @see AbstractCachingTransactionAttributeSource
+	 */
+	protected void preloadTransactionAttributes(ProxyFactory proxyFactory) {
+		Class targetClass = proxyFactory.getTargetSource().getTargetClass();
+		Class[] interfaces = proxyFactory.getProxiedInterfaces();
+		if (interfaces.length == 0 && targetClass != null) {
+			interfaces = new Class[] {targetClass};
+		}
+		for (int i = 0; i < interfaces.length; i++) {
+			Method[] methods = interfaces[i].getMethods();
+			for (int j = 0; j < methods.length; j++) {
+				this.transactionAttributeSource.getTransactionAttribute(methods[j], targetClass);
+			}
+		}
 	}
 
 	/**
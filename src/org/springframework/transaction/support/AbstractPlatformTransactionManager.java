@@ -186,7 +186,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 					logger.debug("Creating new transaction, suspending current one");
 				}
 				Object suspendedResources = suspend(transaction);
-				doBegin(transaction, definition);
+				begin(transaction, definition);
 				boolean newSynchronization = (this.transactionSynchronization != SYNCHRONIZATION_NEVER);
 				return newTransactionStatus(transaction, true, newSynchronization,
 				                            definition.isReadOnly(), debugEnabled, suspendedResources);
@@ -213,7 +213,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			if (debugEnabled) {
 				logger.debug("Creating new transaction");
 			}
-			doBegin(transaction, definition);
+			begin(transaction, definition);
 			boolean newSynchronization = (this.transactionSynchronization != SYNCHRONIZATION_NEVER);
 			return newTransactionStatus(transaction, true, newSynchronization,
 			                            definition.isReadOnly(), debugEnabled, null);
@@ -226,6 +226,29 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		}
 	}
 
+	/**
+	 * Begin a new transaction, exposing its read-only flag to resource
+	 * management code before delegating to the doBegin template method.
+	 * @param transaction the current transaction object
+	 * @param definition the TransactionDefinition for the new transaction
+	 * @see TransactionSynchronizationManager#isCurrentTransactionReadOnly
+	 * @see #doBegin
+	 */
+	private void begin(Object transaction, TransactionDefinition definition) throws TransactionException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(definition.isReadOnly());
+		try {
+			doBegin(transaction, definition);
+		}
+		catch (RuntimeException ex) {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+			throw ex;
+		}
+		catch (Error err) {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+			throw err;
+		}
+	}
+
 	/**
 	 * Create a new TransactionStatus for the given arguments,
 	 * initializing transaction synchronization if appropriate.
@@ -253,6 +276,8 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	private Object suspend(Object transaction) throws TransactionException {
 		List suspendedSynchronizations = null;
 		Object holder = doSuspend(transaction);
+		boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
 		if (TransactionSynchronizationManager.isSynchronizationActive()) {
 			suspendedSynchronizations = TransactionSynchronizationManager.getSynchronizations();
 			for (Iterator it = suspendedSynchronizations.iterator(); it.hasNext();) {
@@ -260,7 +285,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			}
 			TransactionSynchronizationManager.clearSynchronization();
 		}
-		return new SuspendedResourcesHolder(suspendedSynchronizations, holder);
+		return new SuspendedResourcesHolder(suspendedSynchronizations, holder, readOnly);
 	}
 
 	/**
@@ -282,6 +307,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				TransactionSynchronizationManager.registerSynchronization(synchronization);
 			}
 		}
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(resourcesHolder.isReadOnly());
 		doResume(transaction, resourcesHolder.getSuspendedResources());
 	}
 
@@ -479,6 +505,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			TransactionSynchronizationManager.clearSynchronization();
 		}
 		if (status.isNewTransaction()) {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
 			doCleanupAfterCompletion(status.getTransaction());
 		}
 		if (status.getSuspendedResources() != null) {
@@ -602,9 +629,13 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 
 		private final Object suspendedResources;
 
-		private SuspendedResourcesHolder(List suspendedSynchronizations, Object suspendedResources) {
+		private final boolean readOnly;
+
+		private SuspendedResourcesHolder(List suspendedSynchronizations, Object suspendedResources,
+		                                 boolean readOnly) {
 			this.suspendedSynchronizations = suspendedSynchronizations;
 			this.suspendedResources = suspendedResources;
+			this.readOnly = readOnly;
 		}
 
 		private List getSuspendedSynchronizations() {
@@ -614,6 +645,10 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		private Object getSuspendedResources() {
 			return suspendedResources;
 		}
+
+		private boolean isReadOnly() {
+			return readOnly;
+		}
 	}
 
 }
@@ -75,6 +75,8 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final ThreadLocal synchronizations = new ThreadLocal();
 
+	private static final ThreadLocal currentTransactionReadOnly = new ThreadLocal();
+
 
 	//-------------------------------------------------------------------------
 	// Management of transaction-associated resource handles
@@ -216,4 +218,33 @@ public abstract class TransactionSynchronizationManager {
 		synchronizations.set(null);
 	}
 
+
+	//-------------------------------------------------------------------------
+	// Exposure of transaction characteristics
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Expose a read-only flag for the current transaction.
+	 * Called by transaction manager on transaction begin and on cleanup.
+	 * @param readOnly true to mark the current transaction as read-only;
+	 * false to reset such a read-only marker
+	 */
+	public static void setCurrentTransactionReadOnly(boolean readOnly) {
+		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+	}
+
+	/**
+	 * Return whether the current transaction is marked as read-only.
+	 * To be called by resource management code when preparing a newly
+	 * created resource, for example to route a JDBC Connection request
+	 * to a read replica.
+	 * <p>The flag is set by AbstractPlatformTransactionManager before
+	 * the transaction manager obtains resources for a new transaction.
+	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly
+	 * @see AbstractPlatformTransactionManager#getTransaction
+	 */
+	public static boolean isCurrentTransactionReadOnly() {
+		return (currentTransactionReadOnly.get() != null);
+	}
+
 }
@@ -18,7 +18,8 @@ package org.springframework.util;
 
 /**
  * Utility class for diagnostic purposes, to analyze the
- * ClassLoader hierarchy for any object.
+ * ClassLoader hierarchy for any object. Also checks whether
+ * classes can be safely held in static caches.
  * @author Rod Johnson
  * @since 02 April 2001
  * @see java.lang.ClassLoader
@@ -63,4 +64,31 @@ public abstract class ClassLoaderUtils {
 		return s + showClassLoaderHierarchy(parent, delim, tabText, indent + 1);
 	}
 
+	/**
+	 * Check whether the given class is cache-safe in the given context,
+	 * i.e. whether it is loaded by the given class loader or a parent of it.
+	 * Classes loaded by other class loaders, e.g. by a web application class
+	 * loader below a shared library, should not be strongly referenced from
+	 * static caches in order to not prevent their class loader from being
+	 * garbage collected on redeployment.
+	 * @param clazz the class to analyze
+	 * @param classLoader the class loader whose lifecycle the cache is bound to
+	 * @return whether the given class can be strongly cached
+	 */
+	public static boolean isCacheSafe(Class clazz, ClassLoader classLoader) {
+		ClassLoader target = clazz.getClassLoader();
+		if (target == null) {
+			// loaded by the bootstrap class loader
+			return true;
+		}
+		ClassLoader cur = classLoader;
+		while (cur != null) {
+			if (cur == target) {
+				return true;
+			}
+			cur = cur.getParent();
+		}
+		return false;
+	}
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simple cache with a maximum number of entries, evicting the least
+ * recently used entry when full. Keys and values must not be null.
+ *
+ * <p>Backed by an access-ordered java.util.LinkedHashMap. All methods
+ * are synchronized, and lookups modify the access order, so this class
+ * is meant for caches with a single user at a time, like per-connection
+ * statement caches, rather than for read-mostly caches shared by many threads.
+ *
+ * <p>Subclasses can override onEviction to release resources held
+ * by evicted values.
+ *
+ * @since 1.0.1
+ * @see #onEviction
+ */
+public class LruCache {
+
+	private final int maxSize;
+
+	/** Entries in access order, least recently used entry first */
+	private final Map entries;
+
+
+	/**
+	 * Create a new LruCache with the given maximum number of entries.
+	 * @param maxSize the maximum number of entries, must be positive
+	 */
+	public LruCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive");
+		}
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry eldest) {
+				if (size() > LruCache.this.maxSize) {
+					onEviction(eldest.getKey(), eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Return the maximum number of entries.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Return the current number of entries.
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Return the value cached for the given key, marking it as most recently used.
+	 * @param key the key
+	 * @return the value, or null if none cached
+	 */
+	public synchronized Object get(Object key) {
+		return this.entries.get(key);
+	}
+
+	/**
+	 * Cache the given value for the given key, as most recently used entry.
+	 * Evicts the least recently used entry if the cache is full.
+	 * @param key the key
+	 * @param value the value
+	 * @return the value previously cached for the key, or null if none
+	 */
+	public synchronized Object put(Object key, Object value) {
+		return this.entries.put(key, value);
+	}
+
+	/**
+	 * Remove the entry for the given key, without calling onEviction.
+	 * @param key the key
+	 * @return the value cached for the key, or null if none
+	 */
+	public synchronized Object remove(Object key) {
+		return this.entries.remove(key);
+	}
+
+	/**
+	 * Remove all entries, without calling onEviction.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Callback for entries evicted because the cache is full.
+	 * Called with the lock on this cache held. Default implementation is empty.
+	 * @param key the key of the evicted entry
+	 * @param value the value of the evicted entry
+	 */
+	protected void onEviction(Object key, Object value) {
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+/**
+ * Compiled form of an Ant-style path pattern, as understood by PathMatcher.
+ * Compile a pattern once and match it against any number of paths:
+ * matching does not create any objects.
+ *
+ * <p>Patterns use the following rules:
+ * <ul>
+ * <li>'*' matches zero or more characters</li>
+ * <li>'?' matches one characters</li>
+ * <li>** matches zero or more 'directories' in a path</li>
+ * </ul>
+ *
+ * <p>Instances are immutable and thus thread-safe.
+ *
+ * @since 1.0.1
+ * @see PathMatcher
+ */
+public final class PathPattern {
+
+	private static final int LITERAL_SEGMENT = 0;
+
+	private static final int WILDCARD_SEGMENT = 1;
+
+	private static final int ANY_PATH_SEGMENT = 2;
+
+
+	private final String pattern;
+
+	private final boolean absolute;
+
+	private final String[] segments;
+
+	private final int[] segmentTypes;
+
+
+	/**
+	 * Compile the given path pattern.
+	 * @param pattern the pattern, e.g. "/admin/**\/*.html"
+	 */
+	public PathPattern(String pattern) {
+		this.pattern = pattern;
+		this.absolute = pattern.startsWith("/");
+		List segmentList = new ArrayList();
+		StringTokenizer st = new StringTokenizer(pattern, "/");
+		while (st.hasMoreTokens()) {
+			String segment = st.nextToken();
+			// "**/**" is equivalent to "**"
+			if (!segment.equals("**") || segmentList.isEmpty() ||
+					!segmentList.get(segmentList.size() - 1).equals("**")) {
+				segmentList.add(segment);
+			}
+		}
+		this.segments = (String[]) segmentList.toArray(new String[segmentList.size()]);
+		this.segmentTypes = new int[this.segments.length];
+		for (int i = 0; i < this.segments.length; i++) {
+			if (this.segments[i].equals("**")) {
+				this.segmentTypes[i] = ANY_PATH_SEGMENT;
+			}
+			else if (this.segments[i].indexOf('*') != -1 || this.segments[i].indexOf('?') != -1) {
+				this.segmentTypes[i] = WILDCARD_SEGMENT;
+			}
+			else {
+				this.segmentTypes[i] = LITERAL_SEGMENT;
+			}
+		}
+	}
+
+	/**
+	 * Return the pattern that this object was compiled from.
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Match the given path against this pattern.
+	 * @param path the path to match
+	 * @return whether the path matches
+	 */
+	public boolean matches(String path) {
+		if (path.startsWith("/") != this.absolute) {
+			return false;
+		}
+		return matchSegments(0, path, 0);
+	}
+
+	/**
+	 * Match the pattern from the given segment on against the path
+	 * from the given index on. Recurses only for "**" segments.
+	 */
+	private boolean matchSegments(int segmentIndex, String path, int pathIndex) {
+		while (true) {
+			pathIndex = skipSeparators(path, pathIndex);
+			if (segmentIndex == this.segments.length) {
+				return (pathIndex == path.length());
+			}
+			if (this.segmentTypes[segmentIndex] == ANY_PATH_SEGMENT) {
+				if (segmentIndex == this.segments.length - 1) {
+					return true;
+				}
+				// try to match the rest of the pattern at each remaining path segment
+				while (true) {
+					if (matchSegments(segmentIndex + 1, path, pathIndex)) {
+						return true;
+					}
+					if (pathIndex == path.length()) {
+						return false;
+					}
+					pathIndex = skipSeparators(path, segmentEnd(path, pathIndex));
+				}
+			}
+			if (pathIndex == path.length()) {
+				return false;
+			}
+			int segmentEnd = segmentEnd(path, pathIndex);
+			if (!matchSegment(segmentIndex, path, pathIndex, segmentEnd)) {
+				return false;
+			}
+			segmentIndex++;
+			pathIndex = segmentEnd;
+		}
+	}
+
+	/**
+	 * Match the given pattern segment against the path segment
+	 * between the given indexes.
+	 */
+	private boolean matchSegment(int segmentIndex, String path, int start, int end) {
+		String segment = this.segments[segmentIndex];
+		if (this.segmentTypes[segmentIndex] == LITERAL_SEGMENT) {
+			return (end - start == segment.length() && path.regionMatches(start, segment, 0, segment.length()));
+		}
+		// '*' matches zero or more characters, '?' exactly one:
+		// on mismatch, let the last '*' consume one more character
+		int patternIndex = 0;
+		int pathIndex = start;
+		int starIndex = -1;
+		int starPathIndex = -1;
+		while (pathIndex < end) {
+			char ch = (patternIndex < segment.length() ? segment.charAt(patternIndex) : 0);
+			if (patternIndex < segment.length() && ch != '*' && (ch == '?' || ch == path.charAt(pathIndex))) {
+				patternIndex++;
+				pathIndex++;
+			}
+			else if (ch == '*') {
+				starIndex = patternIndex++;
+				starPathIndex = pathIndex;
+			}
+			else if (starIndex != -1) {
+				patternIndex = starIndex + 1;
+				pathIndex = ++starPathIndex;
+			}
+			else {
+				return false;
+			}
+		}
+		while (patternIndex < segment.length() && segment.charAt(patternIndex) == '*') {
+			patternIndex++;
+		}
+		return (patternIndex == segment.length());
+	}
+
+	private static int skipSeparators(String path, int index) {
+		while (index < path.length() && path.charAt(index) == '/') {
+			index++;
+		}
+		return index;
+	}
+
+	private static int segmentEnd(String path, int index) {
+		int end = path.indexOf('/', index);
+		return (end != -1 ? end : path.length());
+	}
+
+
+	public boolean equals(Object other) {
+		return (other instanceof PathPattern && this.pattern.equals(((PathPattern) other).pattern));
+	}
+
+	public int hashCode() {
+		return this.pattern.hashCode();
+	}
+
+	public String toString() {
+		return this.pattern;
+	}
+
+}
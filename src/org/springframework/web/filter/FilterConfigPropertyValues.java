@@ -68,9 +68,9 @@ class FilterConfigPropertyValues implements PropertyValues {
 		List missingProps = (requiredProperties == null) ? new ArrayList(0) : new ArrayList(requiredProperties);
 
 		this.mutablePropertyValues = new MutablePropertyValues();
-		Enumeration enum = config.getInitParameterNames();
-		while (enum.hasMoreElements()) {
-			String property = (String) enum.nextElement();
+		Enumeration paramNames = config.getInitParameterNames();
+		while (paramNames.hasMoreElements()) {
+			String property = (String) paramNames.nextElement();
 			Object value = config.getInitParameter(property);
 			this.mutablePropertyValues.addPropertyValue(new PropertyValue(property, value));
 			missingProps.remove(property);
@@ -53,9 +53,9 @@ class ServletConfigPropertyValues extends MutablePropertyValues {
 	public ServletConfigPropertyValues(ServletConfig config, String[] requiredProperties) throws ServletException {
 		List missingProps = (requiredProperties != null) ? Arrays.asList(requiredProperties) : null;
 
-		Enumeration enum = config.getInitParameterNames();
-		while (enum.hasMoreElements()) {
-			String property = (String) enum.nextElement();
+		Enumeration paramNames = config.getInitParameterNames();
+		while (paramNames.hasMoreElements()) {
+			String property = (String) paramNames.nextElement();
 			Object value = config.getInitParameter(property);
 			addPropertyValue(new PropertyValue(property, value));
 			if (missingProps != null) {
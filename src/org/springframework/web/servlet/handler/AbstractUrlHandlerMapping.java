@@ -16,15 +16,14 @@
 
 package org.springframework.web.servlet.handler;
 
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContextException;
-import org.springframework.util.PathMatcher;
 import org.springframework.web.util.UrlPathHelper;
 
 /**
@@ -35,6 +34,13 @@ import org.springframework.web.util.UrlPathHelper;
  * <p>Supports direct matches, e.g. a registered "/test" matches "/test",
  * and various Ant-style pattern matches, e.g. a registered "/t*" matches
  * both "/test" and "/team". For details, see the PathMatcher class.
+ * If several patterns match, the most specific one wins: patterns are
+ * compared segment by segment, with literal segments being more specific
+ * than segments with wildcards, and those more specific than "**".
+ *
+ * <p>Registered paths are compiled into a trie of path segments, so a lookup
+ * doesn't need to match the path against every pattern. Results are cached
+ * per lookup path, see the "lookupCacheLimit" property.
  *
  * @author Juergen Hoeller
  * @since 16.04.2003
@@ -44,12 +50,27 @@ import org.springframework.web.util.UrlPathHelper;
  */
 public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping {
 
+	/** Default maximum number of cached lookup paths */
+	public static final int DEFAULT_LOOKUP_CACHE_LIMIT = 1024;
+
+	/** Marker for cached lookup paths without handler */
+	private static final Object NO_HANDLER = new Object();
+
+
 	private UrlPathHelper urlPathHelper = new UrlPathHelper();
 
 	private boolean lazyInitHandlers = false;
 
 	private Map handlerMap = new HashMap();
 
+	/** Registered paths and patterns, for lookup of non-direct matches */
+	private final UrlPathTrie handlerTrie = new UrlPathTrie();
+
+	private int lookupCacheLimit = DEFAULT_LOOKUP_CACHE_LIMIT;
+
+	/** Handlers (or NO_HANDLER) keyed by lookup path */
+	private final Map lookupCache = Collections.synchronizedMap(new HashMap());
+
 
 	/**
 	 * Set if URL lookup should always use full path within current servlet
@@ -101,6 +122,18 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping {
 		this.lazyInitHandlers = lazyInitHandlers;
 	}
 
+	/**
+	 * Set the maximum number of lookup paths to cache the matching handler for.
+	 * Lookup paths come from request URLs, so the cache is cleared when full,
+	 * rather than growing with every distinct URL requested. Default is 1024;
+	 * 0 turns off caching.
+	 * @see #DEFAULT_LOOKUP_CACHE_LIMIT
+	 */
+	public void setLookupCacheLimit(int lookupCacheLimit) {
+		this.lookupCacheLimit = lookupCacheLimit;
+		this.lookupCache.clear();
+	}
+
 
 	/**
 	 * Look up a handler for the URL path of the given request.
@@ -118,6 +151,7 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping {
 	 * <p>Supports direct matches, e.g. a registered "/test" matches "/test",
 	 * and various Ant-style pattern matches, e.g. a registered "/t*" matches
 	 * both "/test" and "/team". For details, see the PathMatcher class.
+	 * <p>If several patterns match, the most specific one is used.
 	 * @param urlPath URL the bean is mapped to
 	 * @return the associated handler instance, or null if not found
 	 * @see org.springframework.util.PathMatcher
@@ -127,14 +161,33 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping {
 		Object handler = this.handlerMap.get(urlPath);
 		if (handler == null) {
 			// pattern match?
-			for (Iterator it = this.handlerMap.keySet().iterator(); it.hasNext();) {
-				String registeredPath = (String) it.next();
-				if (PathMatcher.match(registeredPath, urlPath)) {
-					handler = this.handlerMap.get(registeredPath);
+			handler = lookupPatternHandler(urlPath);
+		}
+		return handler;
+	}
+
+	/**
+	 * Look up the handler for the most specific pattern matching the given
+	 * URL path, caching the result.
+	 * @param urlPath URL the bean is mapped to
+	 * @return the associated handler instance, or null if not found
+	 */
+	private Object lookupPatternHandler(String urlPath) {
+		if (this.lookupCacheLimit <= 0) {
+			return this.handlerTrie.match(urlPath);
+		}
+		Object handler = this.lookupCache.get(urlPath);
+		if (handler == null) {
+			handler = this.handlerTrie.match(urlPath);
+			synchronized (this.lookupCache) {
+				if (this.lookupCache.size() >= this.lookupCacheLimit) {
+					this.lookupCache.clear();
 				}
+				this.lookupCache.put(urlPath, (handler != null ? handler : NO_HANDLER));
 			}
+			return handler;
 		}
-		return handler;
+		return (handler != NO_HANDLER ? handler : null);
 	}
 
 	/**
@@ -163,6 +216,8 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping {
 		}
 		else {
 			this.handlerMap.put(urlPath, handler);
+			this.handlerTrie.put(urlPath, handler);
+			this.lookupCache.clear();
 			logger.info("Mapped URL path [" + urlPath + "] onto handler [" + handler + "]");
 		}
 	}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import org.springframework.util.PathPattern;
+
+/**
+ * Trie of Ant-style URL path patterns, with one level per path segment.
+ * Used by AbstractUrlHandlerMapping to find the handler for a lookup path
+ * without matching the path against every registered pattern.
+ *
+ * <p>Follows the matching rules of PathMatcher. If several patterns match
+ * a path, the most specific one wins. Patterns are compared segment by segment
+ * from left to right: a literal segment is more specific than a segment with
+ * wildcards, which is more specific than "**". Of two segments with wildcards,
+ * the one with fewer '*' characters is more specific, then the one with more
+ * other characters; remaining ties are decided by the lexical order of the
+ * segments. A "**" matching fewer segments is more specific.
+ *
+ * <p>Not thread-safe for modification: all patterns are supposed
+ * to be added before looking up paths.
+ *
+ * @since 1.0.1
+ * @see AbstractUrlHandlerMapping
+ * @see org.springframework.util.PathMatcher
+ */
+final class UrlPathTrie {
+
+	private static final String ANY_PATH_SEGMENT = "**";
+
+	private final Node absoluteRoot = new Node();
+
+	private final Node relativeRoot = new Node();
+
+
+	/**
+	 * Add the given path pattern, replacing the value for an equivalent
+	 * pattern, i.e. one with the same segments.
+	 * @param pattern the path pattern, which may contain '*', '?' and '**'
+	 * @param value the value to return for paths matching the pattern
+	 */
+	public void put(String pattern, Object value) {
+		Node node = (pattern.startsWith("/") ? this.absoluteRoot : this.relativeRoot);
+		String[] segments = tokenizePath(pattern);
+		for (int i = 0; i < segments.length; i++) {
+			node = node.getOrAddChild(segments[i]);
+		}
+		node.value = value;
+	}
+
+	/**
+	 * Return the value of the most specific pattern that matches the given path.
+	 * @param path the path to match, e.g. a URL lookup path
+	 * @return the associated value, or null if no pattern matches
+	 */
+	public Object match(String path) {
+		Node root = (path.startsWith("/") ? this.absoluteRoot : this.relativeRoot);
+		return match(root, tokenizePath(path), 0);
+	}
+
+	private static Object match(Node node, String[] segments, int index) {
+		if (index == segments.length) {
+			if (node.value != null) {
+				return node.value;
+			}
+			// "**" may match zero segments
+			return (node.anyPathChild != null ? match(node.anyPathChild, segments, index) : null);
+		}
+
+		String segment = segments[index];
+		if (node.literalChildren != null) {
+			Node child = (Node) node.literalChildren.get(segment);
+			if (child != null) {
+				Object value = match(child, segments, index + 1);
+				if (value != null) {
+					return value;
+				}
+			}
+		}
+		if (node.wildcardChildren != null) {
+			for (int i = 0; i < node.wildcardChildren.size(); i++) {
+				Node child = (Node) node.wildcardChildren.get(i);
+				if (child.segmentPattern.matches(segment)) {
+					Object value = match(child, segments, index + 1);
+					if (value != null) {
+						return value;
+					}
+				}
+			}
+		}
+		if (node.anyPathChild != null) {
+			for (int i = index; i <= segments.length; i++) {
+				Object value = match(node.anyPathChild, segments, i);
+				if (value != null) {
+					return value;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Break up the given path into segments,
+	 * in the same way as PathMatcher does.
+	 */
+	private static String[] tokenizePath(String path) {
+		StringTokenizer st = new StringTokenizer(path, "/");
+		String[] segments = new String[st.countTokens()];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = st.nextToken();
+		}
+		return segments;
+	}
+
+
+	/**
+	 * Node of the trie, representing one pattern segment.
+	 */
+	private static class Node {
+
+		/** Pattern segment of this node, null for the roots */
+		private final String segment;
+
+		/** Compiled segment for nodes with '*' or '?', else null */
+		private PathPattern segmentPattern;
+
+		/** Value for the pattern ending at this node, if any */
+		private Object value;
+
+		/** Children for literal segments, keyed by segment */
+		private Map literalChildren;
+
+		/** Children for segments with '*' or '?', most specific first */
+		private List wildcardChildren;
+
+		/** Child for a "**" segment */
+		private Node anyPathChild;
+
+		public Node() {
+			this(null);
+		}
+
+		private Node(String segment) {
+			this.segment = segment;
+		}
+
+		public Node getOrAddChild(String segment) {
+			if (ANY_PATH_SEGMENT.equals(segment)) {
+				if (this.anyPathChild == null) {
+					this.anyPathChild = new Node(segment);
+				}
+				return this.anyPathChild;
+			}
+			if (segment.indexOf('*') == -1 && segment.indexOf('?') == -1) {
+				if (this.literalChildren == null) {
+					this.literalChildren = new HashMap();
+				}
+				Node child = (Node) this.literalChildren.get(segment);
+				if (child == null) {
+					child = new Node(segment);
+					this.literalChildren.put(segment, child);
+				}
+				return child;
+			}
+			if (this.wildcardChildren == null) {
+				this.wildcardChildren = new ArrayList();
+			}
+			int index = 0;
+			for (; index < this.wildcardChildren.size(); index++) {
+				Node child = (Node) this.wildcardChildren.get(index);
+				int comparison = compareWildcardSegments(segment, child.segment);
+				if (comparison == 0) {
+					return child;
+				}
+				if (comparison < 0) {
+					break;
+				}
+			}
+			Node child = new Node(segment);
+			child.segmentPattern = new PathPattern(segment);
+			this.wildcardChildren.add(index, child);
+			return child;
+		}
+
+		/**
+		 * Compare the given segments with wildcards by specificity.
+		 * @return a negative number if the first segment is more specific,
+		 * a positive number if the second one is, 0 if they are equal
+		 */
+		private static int compareWildcardSegments(String segment1, String segment2) {
+			int stars1 = countStars(segment1);
+			int stars2 = countStars(segment2);
+			if (stars1 != stars2) {
+				return stars1 - stars2;
+			}
+			int literals1 = segment1.length() - stars1;
+			int literals2 = segment2.length() - stars2;
+			if (literals1 != literals2) {
+				return literals2 - literals1;
+			}
+			return segment1.compareTo(segment2);
+		}
+
+		private static int countStars(String segment) {
+			int count = 0;
+			for (int i = 0; i < segment.length(); i++) {
+				if (segment.charAt(i) == '*') {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+}
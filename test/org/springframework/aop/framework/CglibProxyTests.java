@@ -124,5 +124,49 @@ public class CglibProxyTests extends AbstractAopProxyTests {
 		
 	}
 
+	public void testProxyClassReusedForSameShape() {
+		TestBean target1 = new TestBean();
+		target1.setAge(1);
+		NopInterceptor nop1 = new NopInterceptor();
+		AdvisedSupport pc1 = new AdvisedSupport(new Class[] { ITestBean.class });
+		pc1.setTarget(target1);
+		pc1.addInterceptor(nop1);
+
+		TestBean target2 = new TestBean();
+		target2.setAge(2);
+		NopInterceptor nop2 = new NopInterceptor();
+		AdvisedSupport pc2 = new AdvisedSupport(new Class[] { ITestBean.class });
+		pc2.setTarget(target2);
+		pc2.addInterceptor(nop2);
+
+		int proxyCount = DefaultAopProxyFactory.getCglibProxyCount();
+		ITestBean proxy1 = (ITestBean) new Cglib2AopProxy(pc1).getProxy();
+		int proxyClassCount = DefaultAopProxyFactory.getCglibProxyClassCount();
+		ITestBean proxy2 = (ITestBean) new Cglib2AopProxy(pc2).getProxy();
+		assertSame("Proxy class reused", proxy1.getClass(), proxy2.getClass());
+		assertEquals(proxyCount + 2, DefaultAopProxyFactory.getCglibProxyCount());
+		assertEquals("No new proxy class generated", proxyClassCount, DefaultAopProxyFactory.getCglibProxyClassCount());
+		assertTrue(DefaultAopProxyFactory.getCglibProxyClassCacheHitRatio() > 0);
+
+		// each proxy still uses its own configuration
+		assertEquals(1, proxy1.getAge());
+		assertEquals(2, proxy2.getAge());
+		assertEquals(1, nop1.getCount());
+		assertEquals(1, nop2.getCount());
+		assertFalse(proxy1.equals(proxy2));
+	}
+
+	public void testOptimizedProxyClassNotReusedForDifferentAdvisors() {
+		AdvisedSupport pc1 = new AdvisedSupport(new Class[] { ITestBean.class });
+		pc1.setTarget(new TestBean());
+		pc1.setOptimize(true);
+		pc1.addInterceptor(new NopInterceptor());
+		AdvisedSupport pc2 = new AdvisedSupport(new Class[] { ITestBean.class });
+		pc2.setTarget(new TestBean());
+		pc2.setOptimize(true);
+		pc2.addInterceptor(new NopInterceptor());
+		assertNotSame(new Cglib2AopProxy(pc1).getProxy().getClass(), new Cglib2AopProxy(pc2).getProxy().getClass());
+	}
+
 
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.aop.framework;
+
+import org.springframework.aop.interceptor.NopInterceptor;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * Standalone single-threaded benchmark for advised invocations through
+ * JdkDynamicAopProxy and Cglib2AopProxy, reporting the time per call
+ * with 0, 1, 3 and 10 interceptors in the chain.
+ * Not a unit test: run via the main method, optionally passing the
+ * measurement time per configuration in milliseconds.
+ *
+ * @since 1.0.1
+ * @see ReflectiveMethodInvocation
+ * @see InterceptorChain
+ */
+public class InterceptorChainBenchmark {
+
+	private static final int[] INTERCEPTOR_COUNTS = {0, 1, 3, 10};
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		ITestBean[] jdkProxies = new ITestBean[INTERCEPTOR_COUNTS.length];
+		ITestBean[] cglibProxies = new ITestBean[INTERCEPTOR_COUNTS.length];
+		for (int i = 0; i < INTERCEPTOR_COUNTS.length; i++) {
+			ProxyFactory pf = new ProxyFactory(new TestBean("rod", 31));
+			for (int j = 0; j < INTERCEPTOR_COUNTS[i]; j++) {
+				pf.addInterceptor(new NopInterceptor());
+			}
+			jdkProxies[i] = (ITestBean) pf.getProxy();
+			pf.setProxyTargetClass(true);
+			cglibProxies[i] = (ITestBean) pf.getProxy();
+		}
+
+		// first round warms up the JIT, the best of the following rounds gets reported
+		double[] jdkNanos = new double[INTERCEPTOR_COUNTS.length];
+		double[] cglibNanos = new double[INTERCEPTOR_COUNTS.length];
+		for (int round = 0; round <= ROUNDS; round++) {
+			for (int i = 0; i < INTERCEPTOR_COUNTS.length; i++) {
+				double jdk = run(jdkProxies[i], duration);
+				double cglib = run(cglibProxies[i], duration);
+				if (round == 1 || (round > 1 && jdk < jdkNanos[i])) {
+					jdkNanos[i] = jdk;
+				}
+				if (round == 1 || (round > 1 && cglib < cglibNanos[i])) {
+					cglibNanos[i] = cglib;
+				}
+			}
+		}
+		for (int i = 0; i < INTERCEPTOR_COUNTS.length; i++) {
+			System.out.println(INTERCEPTOR_COUNTS[i] + " interceptors: JDK " + Math.round(jdkNanos[i]) +
+					" ns/call, CGLIB " + Math.round(cglibNanos[i]) + " ns/call");
+		}
+	}
+
+	private static double run(ITestBean proxy, long duration) {
+		long startTime = System.currentTimeMillis();
+		long endTime = startTime + duration;
+		long count = 0;
+		int result = 0;
+		while (System.currentTimeMillis() < endTime) {
+			for (int j = 0; j < 10000; j++) {
+				result += proxy.getAge();
+			}
+			count += 10000;
+		}
+		if (result == 0) {
+			throw new IllegalStateException("Unexpected result");
+		}
+		return (System.currentTimeMillis() - startTime) * 1000000.0 / count;
+	}
+
+}
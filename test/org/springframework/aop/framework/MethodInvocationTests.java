@@ -24,6 +24,7 @@ import junit.framework.TestCase;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.DynamicMethodMatcher;
 import org.springframework.beans.TestBean;
 
 /**
@@ -117,4 +118,43 @@ new Attrib4jAttributeRegistry());
 		// in the inner class above
 		invocation.toString();
 	}
+
+	public void testNonMatchingDynamicMethodMatcherSkipped() throws Throwable {
+		Method m = Object.class.getMethod("hashCode", null);
+		final Object returnValue = new Object();
+		MethodInterceptor notInvoked = new MethodInterceptor() {
+			public Object invoke(MethodInvocation invocation) throws Throwable {
+				throw new IllegalStateException("Interceptor should have been skipped");
+			}
+		};
+		MethodInterceptor mi = new MethodInterceptor() {
+			public Object invoke(MethodInvocation invocation) throws Throwable {
+				return returnValue;
+			}
+		};
+		DynamicMethodMatcher neverMatches = new DynamicMethodMatcher() {
+			public boolean matches(Method m, Class targetClass, Object[] args) {
+				return false;
+			}
+		};
+		List is = new LinkedList();
+		is.add(new InterceptorAndDynamicMethodMatcher(notInvoked, neverMatches));
+		is.add(new InterceptorAndDynamicMethodMatcher(notInvoked, neverMatches));
+		is.add(mi);
+		InterceptorChain chain = InterceptorChain.forList(is);
+		assertEquals(3, chain.size());
+		assertSame(chain, InterceptorChain.forList(chain));
+
+		ReflectiveMethodInvocation invocation = new ReflectiveMethodInvocation(new Object(), null, m, null, null, chain);
+		assertSame(returnValue, invocation.proceed());
+	}
+
+	public void testEmptyChainInvokesJoinpoint() throws Throwable {
+		Method m = Object.class.getMethod("toString", null);
+		Object target = new Object();
+		assertSame(InterceptorChain.EMPTY, InterceptorChain.forList(new LinkedList()));
+		ReflectiveMethodInvocation invocation =
+				new ReflectiveMethodInvocation(new Object(), target, m, null, null, InterceptorChain.EMPTY);
+		assertEquals(target.toString(), invocation.proceed());
+	}
 }
\ No newline at end of file
@@ -16,13 +16,21 @@
 
 package org.springframework.aop.framework;
 
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import junit.framework.TestCase;
 
 import org.aopalliance.intercept.Interceptor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.aop.Advisor;
 import org.springframework.aop.interceptor.NopInterceptor;
 import org.springframework.aop.support.DefaultIntroductionAdvisor;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
 import org.springframework.beans.IOther;
 import org.springframework.beans.ITestBean;
 import org.springframework.beans.TestBean;
@@ -256,4 +264,183 @@ public class ProxyFactoryTests extends TestCase {
 		assertTrue(factory.countInterceptorsOfType(NopInterceptor.class) == 2);
 	}
 
+	public void testAdvisorChainsCalculatedOncePerMethod() {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		NopInterceptor nop = new NopInterceptor();
+		CountingSetterAdvisor advisor = new CountingSetterAdvisor(nop);
+		pf.addAdvisor(advisor);
+		ITestBean proxied = (ITestBean) pf.getProxy();
+		assertEquals(0, advisor.matchCount);
+		proxied.setAge(5);
+		proxied.setAge(6);
+		assertEquals(6, proxied.getAge());
+		assertEquals(6, proxied.getAge());
+		assertEquals(2, advisor.matchCount);
+		assertEquals(2, nop.getCount());
+
+		// advice change discards cached chains
+		pf.addInterceptor(new NopInterceptor());
+		proxied.setAge(7);
+		assertEquals(3, advisor.matchCount);
+		assertEquals(3, nop.getCount());
+	}
+
+	public void testPrecomputedAdvisorChains() {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.setPrecomputeAdvisorChains(true);
+		NopInterceptor nop = new NopInterceptor();
+		CountingSetterAdvisor advisor = new CountingSetterAdvisor(nop);
+		pf.addAdvisor(advisor);
+		ITestBean proxied = (ITestBean) pf.getProxy();
+		int precomputed = advisor.matchCount;
+		assertTrue("Chains precomputed on proxy creation", precomputed > 0);
+		proxied.setAge(5);
+		proxied.setName("name");
+		assertEquals(5, proxied.getAge());
+		assertEquals("No chains calculated on invocation", precomputed, advisor.matchCount);
+		assertEquals(2, nop.getCount());
+
+		pf.removeAdvisor(advisor);
+		assertEquals("Removed advisor not consulted", precomputed, advisor.matchCount);
+		proxied.setAge(6);
+		assertEquals(2, nop.getCount());
+	}
+
+	/**
+	 * Several threads perform the first invocations on a JDK and a CGLIB proxy
+	 * for the same configuration at the same time, then keep invoking while
+	 * the advice changes underneath them.
+	 */
+	public void testConcurrentInvocationsAndAdviceChange() throws Exception {
+		TestBean target = new TestBean("rod", 31);
+		ProxyFactory pf = new ProxyFactory(target);
+		CountingGetterAdvisor advisor = new CountingGetterAdvisor(new NopInterceptor());
+		pf.addAdvisor(advisor);
+		final ITestBean jdkProxy = (ITestBean) pf.getProxy();
+		pf.setProxyTargetClass(true);
+		final ITestBean cglibProxy = (ITestBean) pf.getProxy();
+		assertFalse(jdkProxy instanceof TestBean);
+		assertTrue(cglibProxy instanceof TestBean);
+
+		final int threadCount = 8;
+		final Object monitor = new Object();
+		final boolean[] flags = new boolean[2];  // [0]: go, [1]: stop
+		final Throwable[] failure = new Throwable[1];
+		final int[] invocations = new int[1];
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						synchronized (monitor) {
+							while (!flags[0]) {
+								monitor.wait();
+							}
+						}
+						while (true) {
+							synchronized (monitor) {
+								if (flags[1]) {
+									return;
+								}
+								invocations[0]++;
+								monitor.notifyAll();
+							}
+							assertEquals(31, jdkProxy.getAge());
+							assertEquals("rod", jdkProxy.getName());
+							assertEquals(31, cglibProxy.getAge());
+							assertEquals("rod", cglibProxy.getName());
+						}
+					}
+					catch (Throwable ex) {
+						synchronized (monitor) {
+							failure[0] = ex;
+							flags[1] = true;
+							monitor.notifyAll();
+						}
+					}
+				}
+			};
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+
+		ThreadRecordingInterceptor recorder = new ThreadRecordingInterceptor();
+		synchronized (monitor) {
+			flags[0] = true;
+			monitor.notifyAll();
+			// let all threads get through their first invocations
+			while (invocations[0] < threadCount * 10 && !flags[1]) {
+				monitor.wait();
+			}
+		}
+		// each getter of both proxies computed once, even if invoked concurrently
+		assertEquals(4, advisor.getMatchCount());
+
+		pf.addInterceptor(recorder);
+		long deadline = System.currentTimeMillis() + 10000;
+		synchronized (monitor) {
+			while (recorder.getThreadCount() < threadCount && !flags[1] && System.currentTimeMillis() < deadline) {
+				monitor.wait(100);
+			}
+			flags[1] = true;
+		}
+		for (int i = 0; i < threadCount; i++) {
+			threads[i].join(10000);
+		}
+		if (failure[0] != null) {
+			fail("Concurrent invocation failed: " + failure[0]);
+		}
+		assertEquals("Advice change seen by all threads", threadCount, recorder.getThreadCount());
+		assertEquals(8, advisor.getMatchCount());
+	}
+
+
+	private static class CountingSetterAdvisor extends StaticMethodMatcherPointcutAdvisor {
+
+		private int matchCount;
+
+		public CountingSetterAdvisor(NopInterceptor nop) {
+			super(nop);
+		}
+
+		public boolean matches(Method method, Class targetClass) {
+			this.matchCount++;
+			return method.getName().startsWith("set");
+		}
+	}
+
+
+	private static class CountingGetterAdvisor extends StaticMethodMatcherPointcutAdvisor {
+
+		private int matchCount;
+
+		public CountingGetterAdvisor(NopInterceptor nop) {
+			super(nop);
+		}
+
+		public synchronized boolean matches(Method method, Class targetClass) {
+			this.matchCount++;
+			return method.getName().startsWith("get");
+		}
+
+		public synchronized int getMatchCount() {
+			return matchCount;
+		}
+	}
+
+
+	private static class ThreadRecordingInterceptor implements MethodInterceptor {
+
+		private final Set threads = Collections.synchronizedSet(new HashSet());
+
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			this.threads.add(Thread.currentThread());
+			return invocation.proceed();
+		}
+
+		public int getThreadCount() {
+			return this.threads.size();
+		}
+	}
+
 }
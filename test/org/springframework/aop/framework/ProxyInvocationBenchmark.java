@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.aop.framework;
+
+import org.springframework.aop.interceptor.NopInterceptor;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * Standalone throughput benchmark for advised invocations through
+ * JdkDynamicAopProxy and Cglib2AopProxy, with an increasing number of
+ * threads sharing the proxies and thus the advisor chain cache.
+ * Not a unit test: run via the main method, optionally passing the
+ * measurement time per thread count in milliseconds.
+ *
+ * @since 1.0.1
+ * @see HashMapCachingAdvisorChainFactory
+ */
+public class ProxyInvocationBenchmark {
+
+	private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+	public static void main(String[] args) throws Exception {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		ProxyFactory pf = new ProxyFactory(new TestBean("rod", 31));
+		pf.addInterceptor(new NopInterceptor());
+		pf.addInterceptor(new NopInterceptor());
+		ITestBean jdkProxy = (ITestBean) pf.getProxy();
+		pf.setProxyTargetClass(true);
+		ITestBean cglibProxy = (ITestBean) pf.getProxy();
+
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < THREAD_COUNTS.length; i++) {
+				long jdkCalls = run(jdkProxy, THREAD_COUNTS[i], duration);
+				long cglibCalls = run(cglibProxy, THREAD_COUNTS[i], duration);
+				if (round == 1) {
+					System.out.println(THREAD_COUNTS[i] + " threads: JDK " + (jdkCalls * 1000 / duration) +
+							" invocations/s, CGLIB " + (cglibCalls * 1000 / duration) + " invocations/s");
+				}
+			}
+		}
+	}
+
+	private static long run(final ITestBean proxy, int threadCount, long duration)
+			throws InterruptedException {
+		final long endTime = System.currentTimeMillis() + duration;
+		final long[] counts = new long[threadCount];
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					long count = 0;
+					while (System.currentTimeMillis() < endTime) {
+						for (int j = 0; j < 1000; j++) {
+							if (j % 2 == 0) {
+								proxy.getAge();
+							}
+							else {
+								proxy.getName();
+							}
+						}
+						count += 1000;
+					}
+					counts[index] = count;
+				}
+			};
+			threads[i].start();
+		}
+		long total = 0;
+		for (int i = 0; i < threadCount; i++) {
+			threads[i].join();
+			total += counts[i];
+		}
+		return total;
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.beans;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.0.1
+ */
+public class CachedIntrospectionResultsTests extends TestCase {
+
+	public void testResultsForCacheSafeClassAreCached() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(TestBean.class);
+		assertSame(results, CachedIntrospectionResults.forClass(TestBean.class));
+	}
+
+	public void testResultsForClassFromChildLoaderAreCached() throws Exception {
+		ClassLoader child = new URLClassLoader(
+				new URL[] {getClass().getProtectionDomain().getCodeSource().getLocation()}, null);
+		Class childClass = child.loadClass(SimpleBean.class.getName());
+		assertNotSame(SimpleBean.class, childClass);
+
+		Reference ref = new WeakReference(CachedIntrospectionResults.forClass(childClass));
+		// only the cache holds the results now; it must keep them without memory pressure
+		System.gc();
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(childClass);
+		assertSame(ref.get(), results);
+		assertEquals(childClass, results.getBeanClass());
+		assertNotNull(results.getPropertyDescriptor("name"));
+	}
+
+
+	public static class SimpleBean {
+
+		private String name;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
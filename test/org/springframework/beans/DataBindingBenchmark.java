@@ -0,0 +1,361 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.beans;
+
+/**
+ * Standalone benchmark for data binding: sets 30 String-valued properties,
+ * half of which need conversion to int, on a new bean per iteration via
+ * BeanWrapperImpl.setPropertyValues. Not a unit test: run via the main method,
+ * optionally passing the measurement time in milliseconds. For a before/after
+ * comparison, run this class against the classes of both revisions.
+ *
+ * @since 1.0.1
+ * @see CachedIntrospectionResults
+ */
+public class DataBindingBenchmark {
+
+	private static final int PROPERTY_COUNT = 30;
+
+	public static void main(String[] args) {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		for (int i = 0; i < PROPERTY_COUNT; i++) {
+			pvs.addPropertyValue("property" + i, Integer.toString(i));
+		}
+
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			long count = 0;
+			long endTime = System.currentTimeMillis() + duration;
+			while (System.currentTimeMillis() < endTime) {
+				for (int i = 0; i < 100; i++) {
+					BeanWrapper bw = new BeanWrapperImpl(new BindingBean());
+					bw.setPropertyValues(pvs);
+				}
+				count += 100;
+			}
+			if (round == 1) {
+				System.out.println(PROPERTY_COUNT + " properties: " + (count * 1000 / duration) + " beans bound/s");
+			}
+		}
+	}
+
+
+	public static class BindingBean {
+
+		private String property0;
+
+		private int property1;
+
+		private String property2;
+
+		private int property3;
+
+		private String property4;
+
+		private int property5;
+
+		private String property6;
+
+		private int property7;
+
+		private String property8;
+
+		private int property9;
+
+		private String property10;
+
+		private int property11;
+
+		private String property12;
+
+		private int property13;
+
+		private String property14;
+
+		private int property15;
+
+		private String property16;
+
+		private int property17;
+
+		private String property18;
+
+		private int property19;
+
+		private String property20;
+
+		private int property21;
+
+		private String property22;
+
+		private int property23;
+
+		private String property24;
+
+		private int property25;
+
+		private String property26;
+
+		private int property27;
+
+		private String property28;
+
+		private int property29;
+
+		public String getProperty0() {
+			return property0;
+		}
+
+		public void setProperty0(String property0) {
+			this.property0 = property0;
+		}
+
+		public int getProperty1() {
+			return property1;
+		}
+
+		public void setProperty1(int property1) {
+			this.property1 = property1;
+		}
+
+		public String getProperty2() {
+			return property2;
+		}
+
+		public void setProperty2(String property2) {
+			this.property2 = property2;
+		}
+
+		public int getProperty3() {
+			return property3;
+		}
+
+		public void setProperty3(int property3) {
+			this.property3 = property3;
+		}
+
+		public String getProperty4() {
+			return property4;
+		}
+
+		public void setProperty4(String property4) {
+			this.property4 = property4;
+		}
+
+		public int getProperty5() {
+			return property5;
+		}
+
+		public void setProperty5(int property5) {
+			this.property5 = property5;
+		}
+
+		public String getProperty6() {
+			return property6;
+		}
+
+		public void setProperty6(String property6) {
+			this.property6 = property6;
+		}
+
+		public int getProperty7() {
+			return property7;
+		}
+
+		public void setProperty7(int property7) {
+			this.property7 = property7;
+		}
+
+		public String getProperty8() {
+			return property8;
+		}
+
+		public void setProperty8(String property8) {
+			this.property8 = property8;
+		}
+
+		public int getProperty9() {
+			return property9;
+		}
+
+		public void setProperty9(int property9) {
+			this.property9 = property9;
+		}
+
+		public String getProperty10() {
+			return property10;
+		}
+
+		public void setProperty10(String property10) {
+			this.property10 = property10;
+		}
+
+		public int getProperty11() {
+			return property11;
+		}
+
+		public void setProperty11(int property11) {
+			this.property11 = property11;
+		}
+
+		public String getProperty12() {
+			return property12;
+		}
+
+		public void setProperty12(String property12) {
+			this.property12 = property12;
+		}
+
+		public int getProperty13() {
+			return property13;
+		}
+
+		public void setProperty13(int property13) {
+			this.property13 = property13;
+		}
+
+		public String getProperty14() {
+			return property14;
+		}
+
+		public void setProperty14(String property14) {
+			this.property14 = property14;
+		}
+
+		public int getProperty15() {
+			return property15;
+		}
+
+		public void setProperty15(int property15) {
+			this.property15 = property15;
+		}
+
+		public String getProperty16() {
+			return property16;
+		}
+
+		public void setProperty16(String property16) {
+			this.property16 = property16;
+		}
+
+		public int getProperty17() {
+			return property17;
+		}
+
+		public void setProperty17(int property17) {
+			this.property17 = property17;
+		}
+
+		public String getProperty18() {
+			return property18;
+		}
+
+		public void setProperty18(String property18) {
+			this.property18 = property18;
+		}
+
+		public int getProperty19() {
+			return property19;
+		}
+
+		public void setProperty19(int property19) {
+			this.property19 = property19;
+		}
+
+		public String getProperty20() {
+			return property20;
+		}
+
+		public void setProperty20(String property20) {
+			this.property20 = property20;
+		}
+
+		public int getProperty21() {
+			return property21;
+		}
+
+		public void setProperty21(int property21) {
+			this.property21 = property21;
+		}
+
+		public String getProperty22() {
+			return property22;
+		}
+
+		public void setProperty22(String property22) {
+			this.property22 = property22;
+		}
+
+		public int getProperty23() {
+			return property23;
+		}
+
+		public void setProperty23(int property23) {
+			this.property23 = property23;
+		}
+
+		public String getProperty24() {
+			return property24;
+		}
+
+		public void setProperty24(String property24) {
+			this.property24 = property24;
+		}
+
+		public int getProperty25() {
+			return property25;
+		}
+
+		public void setProperty25(int property25) {
+			this.property25 = property25;
+		}
+
+		public String getProperty26() {
+			return property26;
+		}
+
+		public void setProperty26(String property26) {
+			this.property26 = property26;
+		}
+
+		public int getProperty27() {
+			return property27;
+		}
+
+		public void setProperty27(int property27) {
+			this.property27 = property27;
+		}
+
+		public String getProperty28() {
+			return property28;
+		}
+
+		public void setProperty28(String property28) {
+			this.property28 = property28;
+		}
+
+		public int getProperty29() {
+			return property29;
+		}
+
+		public void setProperty29(int property29) {
+			this.property29 = property29;
+		}
+	}
+
+}
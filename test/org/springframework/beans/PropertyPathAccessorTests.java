@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.beans;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.0.1
+ */
+public class PropertyPathAccessorTests extends TestCase {
+
+	public void testAccessorIsCached() {
+		PropertyPathAccessor accessor = PropertyPathAccessor.forPath(TestBean.class, "spouse.name");
+		assertSame(accessor, PropertyPathAccessor.forPath(TestBean.class, "spouse.name"));
+		assertNotSame(accessor, PropertyPathAccessor.forPath(TestBean.class, "spouse.age"));
+		assertEquals(TestBean.class, accessor.getBeanClass());
+		assertEquals("spouse.name", accessor.getPropertyPath());
+		assertTrue(accessor.isNested());
+		assertFalse(PropertyPathAccessor.forPath(TestBean.class, "name").isNested());
+	}
+
+	public void testAccessorCacheIsLimited() {
+		Class clazz = IndexedTestBean.class;
+		for (int i = 0; i < CachedIntrospectionResults.MAX_CACHED_PROPERTY_PATHS; i++) {
+			PropertyPathAccessor.forPath(clazz, "map[key" + i + "]");
+		}
+		PropertyPathAccessor accessor = PropertyPathAccessor.forPath(clazz, "map[uncached]");
+		assertNotSame(accessor, PropertyPathAccessor.forPath(clazz, "map[uncached]"));
+		assertEquals("map[uncached]", accessor.getPropertyPath());
+		assertSame(PropertyPathAccessor.forPath(clazz, "map[key0]"), PropertyPathAccessor.forPath(clazz, "map[key0]"));
+	}
+
+	public void testSimpleProperty() {
+		TestBean tb = new TestBean("rod", 31);
+		PropertyPathAccessor accessor = PropertyPathAccessor.forPath(TestBean.class, "name");
+		assertEquals("rod", accessor.getPropertyValue(tb));
+		accessor.setPropertyValue(tb, "juergen");
+		assertEquals("juergen", tb.getName());
+		assertEquals(new Integer(31), PropertyPathAccessor.forPath(TestBean.class, "age").getPropertyValue(tb));
+	}
+
+	public void testNestedProperty() {
+		TestBean tb = new TestBean("rod", 31);
+		TestBean spouse = new TestBean("kerry", 34);
+		tb.setSpouse(spouse);
+		PropertyPathAccessor accessor = PropertyPathAccessor.forPath(TestBean.class, "spouse.name");
+		assertEquals("kerry", accessor.getPropertyValue(tb));
+		accessor.setPropertyValue(tb, "kate");
+		assertEquals("kate", spouse.getName());
+
+		// same accessor applied to a different object graph
+		TestBean other = new TestBean("other", 1);
+		other.setSpouse(new TestBean("otherSpouse", 2));
+		assertEquals("otherSpouse", accessor.getPropertyValue(other));
+	}
+
+	public void testNullValueInNestedPath() {
+		PropertyPathAccessor accessor = PropertyPathAccessor.forPath(TestBean.class, "spouse.name");
+		try {
+			accessor.getPropertyValue(new TestBean());
+			fail("Should have thrown NullValueInNestedPathException");
+		}
+		catch (NullValueInNestedPathException ex) {
+			// expected
+		}
+		try {
+			accessor.setPropertyValue(new TestBean(), "name");
+			fail("Should have thrown NullValueInNestedPathException");
+		}
+		catch (NullValueInNestedPathException ex) {
+			// expected
+		}
+	}
+
+	public void testIndexedProperties() {
+		IndexedTestBean bean = new IndexedTestBean();
+		assertEquals("name0", PropertyPathAccessor.forPath(IndexedTestBean.class, "array[0].name").getPropertyValue(bean));
+		assertEquals("name3", PropertyPathAccessor.forPath(IndexedTestBean.class, "list[1].name").getPropertyValue(bean));
+		assertEquals("name6", PropertyPathAccessor.forPath(IndexedTestBean.class, "set[0].name").getPropertyValue(bean));
+		assertEquals("name5", PropertyPathAccessor.forPath(IndexedTestBean.class, "map[key2].name").getPropertyValue(bean));
+		assertEquals("name4", PropertyPathAccessor.forPath(IndexedTestBean.class, "map['key1'].name").getPropertyValue(bean));
+
+		PropertyPathAccessor.forPath(IndexedTestBean.class, "array[1].name").setPropertyValue(bean, "newName");
+		assertEquals("newName", bean.getArray()[1].getName());
+		TestBean tb = new TestBean("added", 0);
+		PropertyPathAccessor.forPath(IndexedTestBean.class, "map[key3]").setPropertyValue(bean, tb);
+		assertSame(tb, bean.getMap().get("key3"));
+		PropertyPathAccessor.forPath(IndexedTestBean.class, "list[3]").setPropertyValue(bean, tb);
+		assertEquals(4, bean.getList().size());
+		assertNull(bean.getList().get(2));
+		assertSame(tb, bean.getList().get(3));
+	}
+
+	public void testNotWritableProperty() {
+		try {
+			PropertyPathAccessor.forPath(TestBean.class, "bogus").setPropertyValue(new TestBean(), "value");
+			fail("Should have thrown NotWritablePropertyException");
+		}
+		catch (NotWritablePropertyException ex) {
+			// expected
+		}
+	}
+
+	public void testTypeMismatch() {
+		try {
+			PropertyPathAccessor.forPath(TestBean.class, "age").setPropertyValue(new TestBean(), "notANumber");
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			// expected
+		}
+	}
+
+	public void testConsistentWithBeanWrapper() {
+		IndexedTestBean bean = new IndexedTestBean();
+		BeanWrapper bw = new BeanWrapperImpl(bean);
+		String[] paths = new String[] {"array[0].name", "list[0].name", "set[1].name", "map[key1].name", "map[\"key2\"].age"};
+		for (int i = 0; i < paths.length; i++) {
+			assertEquals(bw.getPropertyValue(paths[i]),
+					PropertyPathAccessor.forPath(IndexedTestBean.class, paths[i]).getPropertyValue(bean));
+		}
+	}
+
+	public void testSubclassWithSetterForReadOnlyProperty() {
+		HolderBean bean = new HolderBean();
+		PropertyPathAccessor accessor = PropertyPathAccessor.forPath(HolderBean.class, "holder.value");
+		bean.setHolder(new ReadOnlyValueHolder());
+		assertNull(accessor.getPropertyValue(bean));
+		try {
+			accessor.setPropertyValue(bean, "value");
+			fail("Should have thrown NotWritablePropertyException");
+		}
+		catch (NotWritablePropertyException ex) {
+			// expected
+		}
+
+		bean.setHolder(new WritableValueHolder());
+		accessor.setPropertyValue(bean, "value");
+		assertEquals("value", accessor.getPropertyValue(bean));
+	}
+
+
+	public static class HolderBean {
+
+		private ReadOnlyValueHolder holder;
+
+		public ReadOnlyValueHolder getHolder() {
+			return holder;
+		}
+
+		public void setHolder(ReadOnlyValueHolder holder) {
+			this.holder = holder;
+		}
+	}
+
+
+	public static class ReadOnlyValueHolder {
+
+		protected String value;
+
+		public String getValue() {
+			return value;
+		}
+	}
+
+
+	public static class WritableValueHolder extends ReadOnlyValueHolder {
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+	}
+
+}
@@ -27,6 +27,10 @@ import junit.framework.TestCase;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.XmlBeanFactory;
 import org.springframework.beans.propertyeditors.CustomDateEditor;
 
@@ -99,6 +103,52 @@ public class ConcurrentBeanFactoryTests extends TestCase {
 		}
 	}
 
+	public void testConcurrentSingletonCreation() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("other", new RuntimeBeanReference("slow2"));
+		lbf.registerBeanDefinition("slow1", new RootBeanDefinition(SlowSingletonBean.class, pvs));
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("other", new RuntimeBeanReference("slow1"));
+		lbf.registerBeanDefinition("slow2", new RootBeanDefinition(SlowSingletonBean.class, pvs));
+		lbf.registerAlias("slow1", "slowAlias");
+		SlowSingletonBean.instanceCount = 0;
+
+		final Object[] results = new Object[20];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						SlowSingletonBean bean = (SlowSingletonBean) lbf.getBean(index % 2 == 0 ? "slow1" : "slowAlias");
+						// never see a singleton that is still in creation
+						if (!bean.isInitialized() || !bean.getOther().isInitialized()) {
+							throw new IllegalStateException("Exposed incompletely initialized singleton");
+						}
+						results[index] = bean;
+					}
+					catch (Throwable t) {
+						ex = t;
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		if (ex != null) {
+			fail(ex.getMessage());
+		}
+		assertEquals("Each singleton created once", 2, SlowSingletonBean.instanceCount);
+		for (int i = 0; i < results.length; i++) {
+			assertSame(lbf.getBean("slow1"), results[i]);
+		}
+		assertSame(lbf.getBean("slow1"), ((SlowSingletonBean) lbf.getBean("slow2")).getOther());
+	}
+
+
 	private class TestRun implements Runnable {
 
 		public void run() {
@@ -130,6 +180,39 @@ public class ConcurrentBeanFactoryTests extends TestCase {
 	}
 
 
+	public static class SlowSingletonBean implements InitializingBean {
+
+		private static int instanceCount;
+
+		private SlowSingletonBean other;
+
+		private boolean initialized;
+
+		public SlowSingletonBean() {
+			synchronized (SlowSingletonBean.class) {
+				instanceCount++;
+			}
+		}
+
+		public SlowSingletonBean getOther() {
+			return other;
+		}
+
+		public void setOther(SlowSingletonBean other) {
+			this.other = other;
+		}
+
+		public boolean isInitialized() {
+			return initialized;
+		}
+
+		public void afterPropertiesSet() throws InterruptedException {
+			Thread.sleep(50);
+			this.initialized = true;
+		}
+	}
+
+
 	public static class ConcurrentBean {
 
 		private Date date;
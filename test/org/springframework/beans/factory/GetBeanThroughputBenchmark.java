@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.beans.factory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Standalone throughput benchmark for getBean calls on existing singletons,
+ * by bean name and by alias, with an increasing number of threads.
+ * Not a unit test: run via the main method, optionally passing the
+ * measurement time per thread count in milliseconds.
+ *
+ * <p>Besides DefaultListableBeanFactory itself, measures the bare lookup
+ * of the previous read path (alias and singleton lookups in synchronized
+ * maps, with the alias resolved twice per call) against the bare lookup of
+ * the current one (unsynchronized reads of snapshot maps, alias resolved once).
+ * Also reports the time taken by preInstantiateSingletons for an increasing
+ * number of singletons. For a comparison of complete getBean calls, run this
+ * class against the classes of both revisions.
+ *
+ * @since 1.0.1
+ * @see org.springframework.beans.factory.support.AbstractBeanFactory#getBean
+ */
+public class GetBeanThroughputBenchmark {
+
+	private static final int BEAN_COUNT = 200;
+
+	private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+	private static final int[] STARTUP_BEAN_COUNTS = {1000, 5000, 20000};
+
+	public static void main(String[] args) throws Exception {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		DefaultListableBeanFactory lbf = createBeanFactory(BEAN_COUNT);
+		lbf.registerAlias("bean7", "alias");
+		lbf.preInstantiateSingletons();
+		BeanFactory synchronizedLookup = new SingletonLookupBeanFactory(lbf, true);
+		BeanFactory snapshotLookup = new SingletonLookupBeanFactory(lbf, false);
+
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < THREAD_COUNTS.length; i++) {
+				long factoryCalls = run(lbf, THREAD_COUNTS[i], duration);
+				long synchronizedCalls = run(synchronizedLookup, THREAD_COUNTS[i], duration);
+				long snapshotCalls = run(snapshotLookup, THREAD_COUNTS[i], duration);
+				if (round == 1) {
+					System.out.println(THREAD_COUNTS[i] + " threads: " +
+							(factoryCalls * 1000 / duration) + " getBean/s bean factory, " +
+							(synchronizedCalls * 1000 / duration) + " lookups/s synchronized, " +
+							(snapshotCalls * 1000 / duration) + " lookups/s snapshot");
+				}
+			}
+		}
+
+		for (int i = 0; i < STARTUP_BEAN_COUNTS.length; i++) {
+			DefaultListableBeanFactory startupFactory = createBeanFactory(STARTUP_BEAN_COUNTS[i]);
+			long startTime = System.currentTimeMillis();
+			startupFactory.preInstantiateSingletons();
+			System.out.println(STARTUP_BEAN_COUNTS[i] + " singletons: preInstantiateSingletons took " +
+					(System.currentTimeMillis() - startTime) + " ms");
+		}
+	}
+
+	private static DefaultListableBeanFactory createBeanFactory(int beanCount) {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		for (int i = 0; i < beanCount; i++) {
+			lbf.registerBeanDefinition("bean" + i, new RootBeanDefinition(TestBean.class, null));
+		}
+		return lbf;
+	}
+
+	private static long run(final BeanFactory beanFactory, int threadCount, long duration)
+			throws InterruptedException {
+		final long endTime = System.currentTimeMillis() + duration;
+		final long[] counts = new long[threadCount];
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					long count = 0;
+					while (System.currentTimeMillis() < endTime) {
+						for (int j = 0; j < 1000; j++) {
+							beanFactory.getBean(j % 2 == 0 ? "bean" + (j % BEAN_COUNT) : "alias");
+						}
+						count += 1000;
+					}
+					counts[index] = count;
+				}
+			};
+			threads[i].start();
+		}
+		long total = 0;
+		for (int i = 0; i < threadCount; i++) {
+			threads[i].join();
+			total += counts[i];
+		}
+		return total;
+	}
+
+
+	/**
+	 * Read-only view of the singletons of a bean factory that only performs
+	 * the singleton lookup of AbstractBeanFactory's getBean, either like the
+	 * previous read path or like the current one.
+	 */
+	private static class SingletonLookupBeanFactory implements BeanFactory {
+
+		private final boolean synchronizedLookup;
+
+		private final Map aliasMap;
+
+		private final Map singletonCache;
+
+		public SingletonLookupBeanFactory(DefaultListableBeanFactory lbf, boolean synchronizedLookup) {
+			this.synchronizedLookup = synchronizedLookup;
+			Map aliasMap = new HashMap();
+			Map singletonCache = new HashMap();
+			String[] beanNames = lbf.getBeanDefinitionNames();
+			for (int i = 0; i < beanNames.length; i++) {
+				singletonCache.put(beanNames[i], lbf.getBean(beanNames[i]));
+				String[] aliases = lbf.getAliases(beanNames[i]);
+				for (int j = 0; j < aliases.length; j++) {
+					aliasMap.put(aliases[j], beanNames[i]);
+				}
+			}
+			if (synchronizedLookup) {
+				this.aliasMap = Collections.synchronizedMap(aliasMap);
+				this.singletonCache = Collections.synchronizedMap(singletonCache);
+			}
+			else {
+				this.aliasMap = Collections.unmodifiableMap(aliasMap);
+				this.singletonCache = Collections.unmodifiableMap(singletonCache);
+			}
+		}
+
+		public Object getBean(String name) throws BeansException {
+			String beanName = transformedBeanName(name);
+			Object sharedInstance = this.singletonCache.get(beanName);
+			if (sharedInstance == null) {
+				throw new NoSuchBeanDefinitionException(name, "Not a singleton");
+			}
+			if (this.synchronizedLookup) {
+				// the previous read path resolved the bean name once more
+				beanName = transformedBeanName(name);
+			}
+			if (name.startsWith(AbstractBeanFactory.FACTORY_BEAN_PREFIX) && !(sharedInstance instanceof FactoryBean)) {
+				throw new BeanIsNotAFactoryException(beanName, sharedInstance);
+			}
+			return sharedInstance;
+		}
+
+		private String transformedBeanName(String name) {
+			if (name.startsWith(AbstractBeanFactory.FACTORY_BEAN_PREFIX)) {
+				name = name.substring(AbstractBeanFactory.FACTORY_BEAN_PREFIX.length());
+			}
+			String canonicalName = (String) this.aliasMap.get(name);
+			return canonicalName != null ? canonicalName : name;
+		}
+
+		public Object getBean(String name, Class requiredType) throws BeansException {
+			return getBean(name);
+		}
+
+		public boolean containsBean(String name) {
+			return this.singletonCache.containsKey(transformedBeanName(name));
+		}
+
+		public boolean isSingleton(String name) {
+			return true;
+		}
+
+		public String[] getAliases(String name) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
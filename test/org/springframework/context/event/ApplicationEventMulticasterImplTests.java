@@ -0,0 +1,314 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.TestListener;
+import org.springframework.context.support.StaticApplicationContext;
+
+/**
+ * @since 1.0.1
+ */
+public class ApplicationEventMulticasterImplTests extends TestCase {
+
+	public void testNoDuplicateListeners() {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		TestListener listener = new TestListener();
+		multicaster.addApplicationListener(listener);
+		multicaster.addApplicationListener(listener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(1, listener.getEventCount());
+
+		multicaster.removeApplicationListener(listener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(1, listener.getEventCount());
+	}
+
+	public void testSmartListenerOnlyNotifiedOfSupportedEvents() {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		TestListener plainListener = new TestListener();
+		MyEventListener smartListener = new MyEventListener();
+		multicaster.addApplicationListener(plainListener);
+		multicaster.addApplicationListener(smartListener);
+
+		multicaster.onApplicationEvent(new MyEvent(this));
+		multicaster.onApplicationEvent(new MyOtherEvent(this));
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(3, plainListener.getEventCount());
+		assertEquals(2, smartListener.events.size());
+		assertEquals("Listeners cached per event class", 2, smartListener.supportsEventTypeCount);
+
+		// listener changes discard cached listeners
+		multicaster.removeApplicationListener(plainListener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(3, plainListener.getEventCount());
+		assertEquals(3, smartListener.events.size());
+		assertEquals(3, smartListener.supportsEventTypeCount);
+	}
+
+	public void testListenerRemovedDuringDelivery() {
+		final ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		final TestListener listener = new TestListener();
+		multicaster.addApplicationListener(new ApplicationListener() {
+			public void onApplicationEvent(ApplicationEvent e) {
+				multicaster.removeAllListeners();
+			}
+		});
+		multicaster.addApplicationListener(listener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals("Event delivered to listeners registered at publication", 1, listener.getEventCount());
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(1, listener.getEventCount());
+	}
+
+	public void testAsyncDelivery() throws Exception {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		multicaster.setAsyncThreadCount(2);
+		MyEventListener listener = new MyEventListener();
+		multicaster.addApplicationListener(listener);
+		for (int i = 0; i < 100; i++) {
+			multicaster.onApplicationEvent(new MyEvent(this));
+		}
+		listener.waitForEvents(100);
+		assertFalse("Not delivered in publishing thread", listener.threads.contains(Thread.currentThread()));
+
+		multicaster.destroy();
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals("Delivered in publishing thread after shutdown", 101, listener.events.size());
+		assertSame(Thread.currentThread(), listener.threads.get(100));
+	}
+
+	public void testAsyncDeliveryAfterWorkerInterrupted() throws Exception {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		multicaster.setAsyncThreadCount(1);
+		MyEventListener listener = new MyEventListener();
+		multicaster.addApplicationListener(listener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		listener.waitForEvents(1);
+
+		Thread worker = (Thread) listener.threads.get(0);
+		worker.interrupt();
+		worker.join(5000);
+		assertFalse("Interrupted worker thread stopped", worker.isAlive());
+
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals("Delivered in publishing thread without workers", 2, listener.events.size());
+		assertSame(Thread.currentThread(), listener.threads.get(1));
+		multicaster.destroy();
+	}
+
+	public void testAsyncQueueFullCallerRuns() throws Exception {
+		BlockingListener listener = new BlockingListener();
+		ApplicationEventMulticasterImpl multicaster = createBlockedMulticaster(listener, "QUEUE_FULL_CALLER_RUNS");
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(1, listener.events.size());
+		assertSame(Thread.currentThread(), listener.threads.get(0));
+		listener.release();
+		listener.waitForEvents(4);
+		multicaster.destroy();
+	}
+
+	public void testAsyncQueueFullDiscard() throws Exception {
+		BlockingListener listener = new BlockingListener();
+		ApplicationEventMulticasterImpl multicaster = createBlockedMulticaster(listener, "QUEUE_FULL_DISCARD");
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertEquals(0, listener.events.size());
+		listener.release();
+		listener.waitForEvents(3);
+		multicaster.destroy();
+		Thread.sleep(50);
+		assertEquals(3, listener.events.size());
+	}
+
+	public void testAsyncQueueFullBlock() throws Exception {
+		final BlockingListener listener = new BlockingListener();
+		ApplicationEventMulticasterImpl multicaster = createBlockedMulticaster(listener, "QUEUE_FULL_BLOCK");
+		new Thread() {
+			public void run() {
+				try {
+					Thread.sleep(100);
+				}
+				catch (InterruptedException ex) {
+				}
+				listener.release();
+			}
+		}.start();
+		long start = System.currentTimeMillis();
+		multicaster.onApplicationEvent(new MyEvent(this));
+		assertTrue("Publisher blocked until queue had space", System.currentTimeMillis() - start >= 50);
+		listener.waitForEvents(4);
+		assertFalse(listener.threads.contains(Thread.currentThread()));
+		multicaster.destroy();
+	}
+
+	public void testInvalidQueueFullPolicy() {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		try {
+			multicaster.setQueueFullPolicyName("PROPAGATION_REQUIRED");
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+		try {
+			multicaster.setQueueFullPolicy(99);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	public void testMulticasterBeanUsedByContext() throws Exception {
+		ListenerApplicationContext ac = new ListenerApplicationContext();
+		MyEventListener listener = new MyEventListener();
+		ac.addListener(listener);
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("asyncThreadCount", "1");
+		ac.registerSingleton("applicationEventMulticaster", ApplicationEventMulticasterImpl.class, pvs);
+		ac.registerSingleton("myEventListener", MyEventListener.class, new MutablePropertyValues());
+		ac.refresh();
+
+		MyEventListener beanListener = (MyEventListener) ac.getBean("myEventListener");
+		ac.publishEvent(new MyEvent(this));
+		beanListener.waitForEvents(1);
+		assertFalse(beanListener.threads.contains(Thread.currentThread()));
+		listener.waitForEvents(1);
+		ac.close();
+	}
+
+	/**
+	 * Return a multicaster with one worker thread blocked in the given listener
+	 * and a full queue of two further events.
+	 */
+	private ApplicationEventMulticasterImpl createBlockedMulticaster(BlockingListener listener, String queueFullPolicy)
+			throws InterruptedException {
+		ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+		multicaster.setAsyncThreadCount(1);
+		multicaster.setAsyncQueueCapacity(2);
+		multicaster.setQueueFullPolicyName(queueFullPolicy);
+		multicaster.addApplicationListener(listener);
+		multicaster.onApplicationEvent(new MyEvent(this));
+		listener.waitForBlocked();
+		multicaster.onApplicationEvent(new MyEvent(this));
+		multicaster.onApplicationEvent(new MyEvent(this));
+		return multicaster;
+	}
+
+
+	public static class MyEvent extends ApplicationEvent {
+
+		public MyEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	public static class MyOtherEvent extends ApplicationEvent {
+
+		public MyOtherEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	public static class MyEventListener implements SmartApplicationListener {
+
+		protected final List events = Collections.synchronizedList(new ArrayList());
+
+		protected final List threads = Collections.synchronizedList(new ArrayList());
+
+		private int supportsEventTypeCount;
+
+		public boolean supportsEventType(Class eventType) {
+			this.supportsEventTypeCount++;
+			return MyEvent.class.isAssignableFrom(eventType);
+		}
+
+		public void onApplicationEvent(ApplicationEvent e) {
+			synchronized (this) {
+				this.events.add(e);
+				this.threads.add(Thread.currentThread());
+				notifyAll();
+			}
+		}
+
+		public synchronized void waitForEvents(int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (this.events.size() < count && System.currentTimeMillis() < deadline) {
+				wait(100);
+			}
+			assertEquals(count, this.events.size());
+		}
+	}
+
+
+	private static class ListenerApplicationContext extends StaticApplicationContext {
+
+		public void addListener(ApplicationListener listener) {
+			super.addListener(listener);
+		}
+	}
+
+
+	/**
+	 * Listener that blocks the first worker thread until released.
+	 */
+	private static class BlockingListener extends MyEventListener {
+
+		private boolean blocked;
+
+		private boolean released;
+
+		public void onApplicationEvent(ApplicationEvent e) {
+			if (Thread.currentThread().getName().startsWith(ApplicationEventMulticasterImpl.class.getName())) {
+				synchronized (this) {
+					this.blocked = true;
+					notifyAll();
+					while (!this.released) {
+						try {
+							wait();
+						}
+						catch (InterruptedException ex) {
+						}
+					}
+				}
+			}
+			super.onApplicationEvent(e);
+		}
+
+		public synchronized void waitForBlocked() throws InterruptedException {
+			while (!this.blocked) {
+				wait();
+			}
+		}
+
+		public synchronized void release() {
+			this.released = true;
+			notifyAll();
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.TypeMismatchDataAccessException;
+
+/**
+ * Mock object based tests for BeanPropertyRowMapper and RowMapperResultReader.
+ */
+public class BeanPropertyRowMapperTests extends TestCase {
+
+	public void testMapRowsWithCachedPlan() throws Exception {
+		MockControl ctrlMetaData = MockControl.createControl(ResultSetMetaData.class);
+		ResultSetMetaData mockMetaData = (ResultSetMetaData) ctrlMetaData.getMock();
+		mockMetaData.getColumnCount();
+		ctrlMetaData.setReturnValue(5);
+		mockMetaData.getColumnLabel(1);
+		ctrlMetaData.setReturnValue("NAME");
+		mockMetaData.getColumnLabel(2);
+		ctrlMetaData.setReturnValue("age");
+		mockMetaData.getColumnLabel(3);
+		ctrlMetaData.setReturnValue("BIRTH_DATE");
+		mockMetaData.getColumnLabel(4);
+		ctrlMetaData.setReturnValue("balance");
+		mockMetaData.getColumnLabel(5);
+		ctrlMetaData.setReturnValue("UNKNOWN");
+		ctrlMetaData.replay();
+
+		Timestamp birthDate = new Timestamp(1000);
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.getMetaData();
+		ctrlResultSet.setReturnValue(mockMetaData, 1);
+		mockResultSet.getString(1);
+		ctrlResultSet.setReturnValue("Bubba");
+		mockResultSet.getInt(2);
+		ctrlResultSet.setReturnValue(22);
+		mockResultSet.wasNull();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.getTimestamp(3);
+		ctrlResultSet.setReturnValue(birthDate);
+		mockResultSet.getBigDecimal(4);
+		ctrlResultSet.setReturnValue(new BigDecimal("1.5"));
+		mockResultSet.getString(1);
+		ctrlResultSet.setReturnValue("Fred");
+		mockResultSet.getInt(2);
+		ctrlResultSet.setReturnValue(0);
+		mockResultSet.wasNull();
+		ctrlResultSet.setReturnValue(true);
+		mockResultSet.getTimestamp(3);
+		ctrlResultSet.setReturnValue(null);
+		mockResultSet.getBigDecimal(4);
+		ctrlResultSet.setReturnValue(null);
+		ctrlResultSet.replay();
+
+		RowMapperResultReader reader = new RowMapperResultReader(new BeanPropertyRowMapper(Person.class));
+		reader.processRow(mockResultSet);
+		reader.processRow(mockResultSet);
+		List results = reader.getResults();
+		assertEquals(2, results.size());
+
+		Person bubba = (Person) results.get(0);
+		assertEquals("Bubba", bubba.getName());
+		assertEquals(22, bubba.getAge());
+		assertEquals(birthDate, bubba.getBirthDate());
+		assertEquals(new BigDecimal("1.5"), bubba.getBalance());
+
+		Person fred = (Person) results.get(1);
+		assertEquals("Fred", fred.getName());
+		assertEquals("null not applied to primitive property", -1, fred.getAge());
+		assertNull(fred.getBirthDate());
+		assertNull(fred.getBalance());
+
+		ctrlMetaData.verify();
+		ctrlResultSet.verify();
+	}
+
+	public void testMapRowWithIncompatibleObjectValue() throws Exception {
+		MockControl ctrlMetaData = MockControl.createControl(ResultSetMetaData.class);
+		ResultSetMetaData mockMetaData = (ResultSetMetaData) ctrlMetaData.getMock();
+		mockMetaData.getColumnCount();
+		ctrlMetaData.setReturnValue(1);
+		mockMetaData.getColumnLabel(1);
+		ctrlMetaData.setReturnValue("spouse");
+		ctrlMetaData.replay();
+
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.getMetaData();
+		ctrlResultSet.setReturnValue(mockMetaData);
+		mockResultSet.getObject(1);
+		ctrlResultSet.setReturnValue("Fred");
+		ctrlResultSet.replay();
+
+		try {
+			new BeanPropertyRowMapper(Person.class).mapRow(mockResultSet, 0);
+			fail("Should have thrown TypeMismatchDataAccessException");
+		}
+		catch (TypeMismatchDataAccessException ex) {
+			// expected
+		}
+		ctrlResultSet.verify();
+	}
+
+	public void testClassWithoutNoArgConstructor() {
+		try {
+			new BeanPropertyRowMapper(Integer.class);
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age = -1;
+
+		private Date birthDate;
+
+		private BigDecimal balance;
+
+		private Person spouse;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Date getBirthDate() {
+			return birthDate;
+		}
+
+		public void setBirthDate(Date birthDate) {
+			this.birthDate = birthDate;
+		}
+
+		public BigDecimal getBalance() {
+			return balance;
+		}
+
+		public void setBalance(BigDecimal balance) {
+			this.balance = balance;
+		}
+
+		public Person getSpouse() {
+			return spouse;
+		}
+
+		public void setSpouse(Person spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+}
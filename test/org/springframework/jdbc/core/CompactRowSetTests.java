@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+/**
+ * Mock object based tests for CompactRowSet.
+ */
+public class CompactRowSetTests extends TestCase {
+
+	private MockControl ctrlResultSet;
+
+	private ResultSet mockResultSet;
+
+	/**
+	 * Prepare a mock ResultSet with the given column names and rows,
+	 * expecting each value to be read once via getObject.
+	 */
+	private void prepareResultSet(String[] columnNames, Object[][] rows) throws SQLException {
+		MockControl ctrlMetaData = MockControl.createControl(ResultSetMetaData.class);
+		ResultSetMetaData mockMetaData = (ResultSetMetaData) ctrlMetaData.getMock();
+		mockMetaData.getColumnCount();
+		ctrlMetaData.setReturnValue(columnNames.length);
+		for (int i = 0; i < columnNames.length; i++) {
+			mockMetaData.getColumnName(i + 1);
+			ctrlMetaData.setReturnValue(columnNames[i]);
+		}
+		ctrlMetaData.replay();
+
+		this.ctrlResultSet = MockControl.createControl(ResultSet.class);
+		this.mockResultSet = (ResultSet) this.ctrlResultSet.getMock();
+		this.mockResultSet.getMetaData();
+		this.ctrlResultSet.setReturnValue(mockMetaData);
+		for (int r = 0; r < rows.length; r++) {
+			this.mockResultSet.next();
+			this.ctrlResultSet.setReturnValue(true);
+			for (int i = 0; i < columnNames.length; i++) {
+				this.mockResultSet.getObject(i + 1);
+				this.ctrlResultSet.setReturnValue(rows[r][i]);
+			}
+		}
+		this.mockResultSet.next();
+		this.ctrlResultSet.setReturnValue(false);
+		this.ctrlResultSet.replay();
+	}
+
+	public void testPrimitiveColumnsWithNulls() throws Exception {
+		Object[][] rows = new Object[40][];
+		for (int r = 0; r < rows.length; r++) {
+			rows[r] = new Object[] {
+					(r % 3 == 0 ? null : new Integer(r)), new Long(r * 1000L),
+					(r == 0 ? null : new Double(r / 2.0)), "name" + r};
+		}
+		prepareResultSet(new String[] {"ID", "AMOUNT", "RATIO", "NAME"}, rows);
+
+		CompactRowSet rowSet = new CompactRowSet(this.mockResultSet);
+		assertEquals(40, rowSet.size());
+		assertEquals(40, rowSet.getRowCount());
+		assertEquals(4, rowSet.getColumnCount());
+		assertEquals("RATIO", rowSet.getColumnName(3));
+		assertEquals(3, rowSet.findColumn("RATIO"));
+		for (int r = 0; r < rows.length; r++) {
+			Map expected = new HashMap();
+			expected.put("ID", rows[r][0]);
+			expected.put("AMOUNT", rows[r][1]);
+			expected.put("RATIO", rows[r][2]);
+			expected.put("NAME", rows[r][3]);
+			assertEquals(expected, rowSet.get(r));
+			assertEquals(rowSet.get(r), expected);
+			assertEquals(expected.hashCode(), rowSet.get(r).hashCode());
+			assertEquals(r % 3 == 0, rowSet.isNull(r, 1));
+			assertEquals(r % 3 == 0 ? 0 : r, rowSet.getInt(r, 1));
+			assertEquals(r * 1000L, rowSet.getLong(r, 2));
+		}
+		assertNull(rowSet.getObject(0, "RATIO"));
+		assertEquals(0.5, rowSet.getDouble(1, 3), 0.0);
+		this.ctrlResultSet.verify();
+	}
+
+	public void testMixedColumnFallsBackToObjects() throws Exception {
+		Object[][] rows = new Object[][] {
+				{null}, {new Integer(1)}, {null}, {new BigDecimal("2.5")}, {new Integer(3)}};
+		prepareResultSet(new String[] {"VALUE"}, rows);
+
+		CompactRowSet rowSet = new CompactRowSet(this.mockResultSet);
+		for (int r = 0; r < rows.length; r++) {
+			assertEquals(rows[r][0], rowSet.getObject(r, 1));
+			assertEquals(rows[r][0] == null, rowSet.isNull(r, 1));
+		}
+		assertEquals(2, rowSet.getInt(3, 1));
+		this.ctrlResultSet.verify();
+	}
+
+	public void testAllNullColumn() throws Exception {
+		prepareResultSet(new String[] {"VALUE"}, new Object[][] {{null}, {null}});
+
+		CompactRowSet rowSet = new CompactRowSet(this.mockResultSet);
+		assertEquals(2, rowSet.size());
+		assertTrue(rowSet.isNull(1, 1));
+		assertNull(((Map) rowSet.get(1)).get("VALUE"));
+		assertTrue(((Map) rowSet.get(1)).containsKey("VALUE"));
+		this.ctrlResultSet.verify();
+	}
+
+	public void testDuplicateColumnNames() throws Exception {
+		prepareResultSet(new String[] {"ID", "ID"}, new Object[][] {{new Integer(1), new Integer(2)}});
+
+		CompactRowSet rowSet = new CompactRowSet(this.mockResultSet);
+		Map row = (Map) rowSet.get(0);
+		assertEquals(1, row.size());
+		assertEquals("last column wins, as in a HashMap", new Integer(2), row.get("ID"));
+		assertEquals(new Integer(1), rowSet.getObject(0, 1));
+		this.ctrlResultSet.verify();
+	}
+
+	public void testReadOnly() throws Exception {
+		prepareResultSet(new String[] {"ID"}, new Object[][] {{new Integer(1)}});
+
+		CompactRowSet rowSet = new CompactRowSet(this.mockResultSet);
+		try {
+			((Map) rowSet.get(0)).put("ID", new Integer(2));
+			fail("Should have thrown UnsupportedOperationException");
+		}
+		catch (UnsupportedOperationException ex) {
+			// expected
+		}
+		try {
+			rowSet.remove(0);
+			fail("Should have thrown UnsupportedOperationException");
+		}
+		catch (UnsupportedOperationException ex) {
+			// expected
+		}
+		try {
+			rowSet.get(1);
+			fail("Should have thrown IndexOutOfBoundsException");
+		}
+		catch (IndexOutOfBoundsException ex) {
+			// expected
+		}
+	}
+
+}
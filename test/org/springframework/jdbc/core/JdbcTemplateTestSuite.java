@@ -25,6 +25,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -43,10 +44,14 @@ import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.jdbc.JdbcTestCase;
 import org.springframework.jdbc.SQLWarningException;
 import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.ReadOnlyRoutingDataSource;
 import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
 import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
 import org.springframework.jdbc.support.nativejdbc.NativeJdbcExtractor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /** 
  * Mock object based tests for JdbcTemplate.
@@ -707,6 +712,164 @@ public class JdbcTemplateTestSuite extends JdbcTestCase {
 		ctrlDatabaseMetaData.verify();
 	}
 
+	public void testBatchUpdateWithIterator() throws Exception {
+		final String sql = "INSERT INTO CUSTMR (ID, NAME) VALUES (?, ?)";
+
+		MockControl ctrlPreparedStatement = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement mockPreparedStatement = (PreparedStatement) ctrlPreparedStatement.getMock();
+		mockPreparedStatement.getConnection();
+		ctrlPreparedStatement.setReturnValue(mockConnection, 2);
+		mockPreparedStatement.setObject(1, new Integer(1));
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(2, "rod");
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(1, new Integer(2));
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(2, "juergen");
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(1, new Integer(3));
+		ctrlPreparedStatement.setVoidCallable(2);
+		mockPreparedStatement.setObject(2, "thomas");
+		ctrlPreparedStatement.setVoidCallable(2);
+		mockPreparedStatement.addBatch();
+		ctrlPreparedStatement.setVoidCallable(4);
+		mockPreparedStatement.executeBatch();
+		ctrlPreparedStatement.setReturnValue(new int[] {1, 1});
+		mockPreparedStatement.executeBatch();
+		ctrlPreparedStatement.setReturnValue(new int[] {Statement.SUCCESS_NO_INFO});
+		mockPreparedStatement.executeBatch();
+		ctrlPreparedStatement.setReturnValue(new int[] {1});
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null, 2);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable(2);
+
+		MockControl ctrlDatabaseMetaData = MockControl.createControl(DatabaseMetaData.class);
+		DatabaseMetaData mockDatabaseMetaData = (DatabaseMetaData) ctrlDatabaseMetaData.getMock();
+		mockDatabaseMetaData.getDatabaseProductName();
+		ctrlDatabaseMetaData.setReturnValue("MySQL");
+		mockDatabaseMetaData.getDriverVersion();
+		ctrlDatabaseMetaData.setReturnValue("1.2.3");
+		mockDatabaseMetaData.supportsBatchUpdates();
+		ctrlDatabaseMetaData.setReturnValue(true);
+
+		mockConnection.prepareStatement(sql);
+		ctrlConnection.setReturnValue(mockPreparedStatement, 2);
+		mockConnection.getMetaData();
+		ctrlConnection.setReturnValue(mockDatabaseMetaData, 2);
+
+		ctrlPreparedStatement.replay();
+		ctrlDatabaseMetaData.replay();
+		replay();
+
+		List batchArgs = new ArrayList();
+		batchArgs.add(new Object[] {new Integer(1), "rod"});
+		batchArgs.add(new Object[] {new Integer(2), "juergen"});
+		batchArgs.add(new Object[] {new Integer(3), "thomas"});
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		assertEquals("unknown update count counted as one row", 3, template.batchUpdate(sql, batchArgs.iterator(), 2));
+		// batch support is cached for the DataSource
+		batchArgs = batchArgs.subList(2, 3);
+		assertEquals(1, template.batchUpdate(sql, batchArgs.iterator(), 2));
+
+		ctrlPreparedStatement.verify();
+		ctrlDatabaseMetaData.verify();
+	}
+
+	public void testBatchUpdateWithIteratorAndTooManyArguments() throws Exception {
+		final String sql = "INSERT INTO CUSTMR (ID, NAME) VALUES (?, ?)";
+
+		MockControl ctrlPreparedStatement = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement mockPreparedStatement = (PreparedStatement) ctrlPreparedStatement.getMock();
+		mockPreparedStatement.getConnection();
+		ctrlPreparedStatement.setReturnValue(mockConnection);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement(sql);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		ctrlPreparedStatement.replay();
+		replay();
+
+		List batchArgs = new ArrayList();
+		batchArgs.add(new Object[] {new Integer(1), "rod"});
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		try {
+			template.batchUpdate(sql, batchArgs.iterator(), new int[] {Types.INTEGER}, 2);
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+
+		ctrlPreparedStatement.verify();
+	}
+
+	public void testBatchUpdateWithMaxBatchSize() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final int[] ids = new int[] { 100, 200, 300 };
+
+		MockControl ctrlPreparedStatement = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement mockPreparedStatement = (PreparedStatement) ctrlPreparedStatement.getMock();
+		mockPreparedStatement.getConnection();
+		ctrlPreparedStatement.setReturnValue(mockConnection);
+		for (int i = 0; i < ids.length; i++) {
+			mockPreparedStatement.setInt(1, ids[i]);
+			ctrlPreparedStatement.setVoidCallable();
+		}
+		mockPreparedStatement.addBatch();
+		ctrlPreparedStatement.setVoidCallable(3);
+		mockPreparedStatement.executeBatch();
+		ctrlPreparedStatement.setReturnValue(new int[] {1, 2});
+		mockPreparedStatement.executeBatch();
+		ctrlPreparedStatement.setReturnValue(new int[] {3});
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		MockControl ctrlDatabaseMetaData = MockControl.createControl(DatabaseMetaData.class);
+		DatabaseMetaData mockDatabaseMetaData = (DatabaseMetaData) ctrlDatabaseMetaData.getMock();
+		mockDatabaseMetaData.getDatabaseProductName();
+		ctrlDatabaseMetaData.setReturnValue("MySQL");
+		mockDatabaseMetaData.getDriverVersion();
+		ctrlDatabaseMetaData.setReturnValue("1.2.3");
+		mockDatabaseMetaData.supportsBatchUpdates();
+		ctrlDatabaseMetaData.setReturnValue(true);
+
+		mockConnection.prepareStatement(sql);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+		mockConnection.getMetaData();
+		ctrlConnection.setReturnValue(mockDatabaseMetaData, 2);
+
+		ctrlPreparedStatement.replay();
+		ctrlDatabaseMetaData.replay();
+		replay();
+
+		BatchPreparedStatementSetter setter = new BatchPreparedStatementSetter() {
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				ps.setInt(1, ids[i]);
+			}
+			public int getBatchSize() {
+				return ids.length;
+			}
+		};
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		template.setMaxBatchSize(2);
+		int[] actualRowsAffected = template.batchUpdate(sql, setter);
+		assertEquals(3, actualRowsAffected.length);
+		for (int i = 0; i < actualRowsAffected.length; i++) {
+			assertEquals(i + 1, actualRowsAffected[i]);
+		}
+
+		ctrlPreparedStatement.verify();
+		ctrlDatabaseMetaData.verify();
+	}
+
 	/**
 	 * Test case where a batch update fails
 	 * @throws Exception
@@ -1780,6 +1943,243 @@ public class JdbcTemplateTestSuite extends JdbcTestCase {
 		ctrlStatement.verify();
 	}
 
+	public void testQueryForRowSet() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+
+		MockControl ctrlResultSetMetaData = MockControl.createControl(ResultSetMetaData.class);
+		ResultSetMetaData mockResultSetMetaData = (ResultSetMetaData) ctrlResultSetMetaData.getMock();
+		mockResultSetMetaData.getColumnCount();
+		ctrlResultSetMetaData.setReturnValue(1);
+		mockResultSetMetaData.getColumnName(1);
+		ctrlResultSetMetaData.setReturnValue("age");
+
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.getMetaData();
+		ctrlResultSet.setReturnValue(mockResultSetMetaData);
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(true);
+		mockResultSet.getObject(1);
+		ctrlResultSet.setReturnValue(new Integer(11));
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(true);
+		mockResultSet.getObject(1);
+		ctrlResultSet.setReturnValue(new Integer(12));
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		MockControl ctrlStatement = MockControl.createControl(Statement.class);
+		Statement mockStatement = (Statement) ctrlStatement.getMock();
+		mockStatement.executeQuery(sql);
+		ctrlStatement.setReturnValue(mockResultSet);
+		mockStatement.getWarnings();
+		ctrlStatement.setReturnValue(null);
+		mockStatement.close();
+		ctrlStatement.setVoidCallable();
+
+		mockConnection.createStatement();
+		ctrlConnection.setReturnValue(mockStatement);
+
+		ctrlResultSetMetaData.replay();
+		ctrlResultSet.replay();
+		ctrlStatement.replay();
+		replay();
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+
+		CompactRowSet rowSet = template.queryForRowSet(sql);
+		assertEquals("All rows returned", 2, rowSet.size());
+		assertEquals("First row is Integer", new Integer(11), ((Map) rowSet.get(0)).get("age"));
+		assertEquals("Second row is Integer", 12, rowSet.getInt(1, 1));
+
+		ctrlResultSet.verify();
+		ctrlStatement.verify();
+	}
+
+	public void testStatementSettingsApplied() throws Exception {
+		String sql = "SELECT FORENAME FROM CUSTMR";
+
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		MockControl ctrlStatement = MockControl.createControl(Statement.class);
+		Statement mockStatement = (Statement) ctrlStatement.getMock();
+		mockStatement.setFetchSize(100);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setMaxRows(1000);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setQueryTimeout(30);
+		ctrlStatement.setVoidCallable();
+		mockStatement.executeQuery(sql);
+		ctrlStatement.setReturnValue(mockResultSet);
+		mockStatement.getWarnings();
+		ctrlStatement.setReturnValue(null);
+		mockStatement.close();
+		ctrlStatement.setVoidCallable();
+
+		mockConnection.createStatement();
+		ctrlConnection.setReturnValue(mockStatement);
+
+		ctrlResultSet.replay();
+		ctrlStatement.replay();
+		replay();
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		template.setFetchSize(100);
+		template.setMaxRows(1000);
+		template.setQueryTimeout(30);
+		assertEquals(100, template.getFetchSize());
+		assertEquals(1000, template.getMaxRows());
+		assertEquals(30, template.getQueryTimeout());
+		template.query(sql, new RowCountCallbackHandler());
+
+		ctrlResultSet.verify();
+		ctrlStatement.verify();
+	}
+
+	public void testBatchSupportCacheKeyResolvesTargetDataSource() throws Exception {
+		JdbcTemplate template = new JdbcTemplate();
+		template.setDataSource(mockDataSource);
+		assertSame(mockDataSource, template.getBatchSupportCacheKey());
+		LazyConnectionDataSourceProxy lazyProxy = new LazyConnectionDataSourceProxy();
+		lazyProxy.setTargetDataSource(mockDataSource);
+		template.setDataSource(lazyProxy);
+		assertSame(mockDataSource, template.getBatchSupportCacheKey());
+		ReadOnlyRoutingDataSource routingDataSource = new ReadOnlyRoutingDataSource();
+		template.setDataSource(routingDataSource);
+		assertNull(template.getBatchSupportCacheKey());
+		lazyProxy.setTargetDataSource(routingDataSource);
+		template.setDataSource(lazyProxy);
+		assertNull(template.getBatchSupportCacheKey());
+	}
+
+	public void testPerCallStatementSettingsOverrideTemplateSettings() throws Exception {
+		String sql = "SELECT FORENAME FROM CUSTMR";
+
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		MockControl ctrlStatement = MockControl.createStrictControl(Statement.class);
+		Statement mockStatement = (Statement) ctrlStatement.getMock();
+		mockStatement.setFetchSize(100);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setQueryTimeout(30);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setFetchSize(5000);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setQueryTimeout(600);
+		ctrlStatement.setVoidCallable();
+		mockStatement.executeQuery(sql);
+		ctrlStatement.setReturnValue(mockResultSet);
+		mockStatement.getWarnings();
+		ctrlStatement.setReturnValue(null);
+		mockStatement.close();
+		ctrlStatement.setVoidCallable();
+
+		mockConnection.createStatement();
+		ctrlConnection.setReturnValue(mockStatement);
+
+		ctrlResultSet.replay();
+		ctrlStatement.replay();
+		replay();
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		template.setFetchSize(100);
+		template.setQueryTimeout(30);
+		template.query(sql, new StatementSettings(5000, 0, 600), new RowCountCallbackHandler());
+
+		ctrlResultSet.verify();
+		ctrlStatement.verify();
+	}
+
+	public void testPerCallStatementSettingsWithPreparedStatementArgs() throws Exception {
+		String sql = "SELECT FORENAME FROM CUSTMR WHERE ID = ?";
+		Integer argument = new Integer(99);
+
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		MockControl ctrlPreparedStatement = MockControl.createStrictControl(PreparedStatement.class);
+		PreparedStatement mockPreparedStatement = (PreparedStatement) ctrlPreparedStatement.getMock();
+		mockPreparedStatement.setFetchSize(5000);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setMaxRows(10);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(1, argument);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.executeQuery();
+		ctrlPreparedStatement.setReturnValue(mockResultSet);
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement(sql);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		ctrlResultSet.replay();
+		ctrlPreparedStatement.replay();
+		replay();
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		StatementSettings settings = new StatementSettings();
+		settings.setFetchSize(5000);
+		settings.setMaxRows(10);
+		template.query(sql, new Object[] {argument}, settings, new RowCountCallbackHandler());
+
+		ctrlResultSet.verify();
+		ctrlPreparedStatement.verify();
+	}
+
+	public void testTransactionTimeoutTakesPrecedenceOverQueryTimeout() throws Exception {
+		String sql = "UPDATE CUSTMR SET FORENAME = 'rod'";
+
+		MockControl ctrlStatement = MockControl.createControl(Statement.class);
+		Statement mockStatement = (Statement) ctrlStatement.getMock();
+		mockStatement.setQueryTimeout(100);
+		ctrlStatement.setVoidCallable();
+		mockStatement.executeUpdate(sql);
+		ctrlStatement.setReturnValue(1);
+		mockStatement.getWarnings();
+		ctrlStatement.setReturnValue(null);
+		mockStatement.close();
+		ctrlStatement.setVoidCallable();
+
+		mockConnection.createStatement();
+		ctrlConnection.setReturnValue(mockStatement);
+
+		ctrlStatement.replay();
+		replay();
+
+		ConnectionHolder holder = new ConnectionHolder(mockConnection);
+		holder.setTimeoutInSeconds(100);
+		TransactionSynchronizationManager.bindResource(mockDataSource, holder);
+		try {
+			JdbcTemplate template = new JdbcTemplate(mockDataSource);
+			template.setQueryTimeout(30);
+			assertEquals(1, template.update(sql));
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(mockDataSource);
+		}
+
+		ctrlStatement.verify();
+	}
+
 	
 	private static interface JdbcTemplateCallback {
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Standalone benchmark for reading large results with JdbcTemplate from an
+ * in-process HSQLDB database. Reports the heap retained while reading a
+ * result with an increasing number of rows, for queryForList, queryForRowSet,
+ * and a RowCallbackHandler with per-call StatementSettings. Not a unit test:
+ * run via the main method, optionally passing the row counts.
+ *
+ * <p>Note that HSQLDB's in-process driver materializes the entire result on
+ * query execution, ignoring the fetch size, so the callback figures include
+ * the driver's copy of the result. With drivers that honour the fetch size,
+ * the callback path does not grow with the number of rows.
+ *
+ * @since 1.0.1
+ * @see StatementSettings
+ */
+public class LargeResultHeapBenchmark {
+
+	private static final int[] DEFAULT_ROW_COUNTS = {10000, 100000, 400000};
+
+	public static void main(String[] args) throws Exception {
+		int[] rowCounts = DEFAULT_ROW_COUNTS;
+		if (args.length > 0) {
+			rowCounts = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				rowCounts[i] = Integer.parseInt(args[i]);
+			}
+		}
+		SingleConnectionDataSource ds =
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		JdbcTemplate template = new JdbcTemplate(ds);
+		template.execute("CREATE TABLE export (id INTEGER, name VARCHAR(50), amount DOUBLE)");
+
+		System.out.println("rows: queryForList / queryForRowSet / RowCallbackHandler, MB retained");
+		int rowsInTable = 0;
+		for (int i = 0; i < rowCounts.length; i++) {
+			rowsInTable = insertRows(template, rowsInTable, rowCounts[i]);
+			String sql = "SELECT id, name, amount FROM export";
+
+			long baseline = usedHeap();
+			List list = template.queryForList(sql);
+			long listHeap = usedHeap() - baseline;
+			list = null;
+
+			baseline = usedHeap();
+			CompactRowSet rowSet = template.queryForRowSet(sql);
+			long rowSetHeap = usedHeap() - baseline;
+			rowSet = null;
+
+			baseline = usedHeap();
+			HeapSamplingCallbackHandler rch = new HeapSamplingCallbackHandler(rowsInTable);
+			template.query(sql, new StatementSettings(1000, 0, 0), rch);
+			long callbackHeap = rch.maxUsedHeap - baseline;
+
+			System.out.println(rowsInTable + ": " + toMegabytes(listHeap) + " / " + toMegabytes(rowSetHeap) +
+					" / " + toMegabytes(callbackHeap));
+		}
+		ds.destroy();
+	}
+
+	private static int insertRows(JdbcTemplate template, final int from, final int to) {
+		template.batchUpdate("INSERT INTO export VALUES (?, ?, ?)", new BatchPreparedStatementSetter() {
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				ps.setInt(1, from + i);
+				ps.setString(2, "name" + (from + i));
+				ps.setDouble(3, (from + i) * 1.5);
+			}
+			public int getBatchSize() {
+				return to - from;
+			}
+		});
+		return to;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long toMegabytes(long bytes) {
+		return Math.max(bytes, 0) / (1024 * 1024);
+	}
+
+
+	/**
+	 * RowCallbackHandler that reads each row and samples the heap
+	 * in use after half and after all of the rows have been read.
+	 */
+	private static class HeapSamplingCallbackHandler implements RowCallbackHandler {
+
+		private final int rowCount;
+
+		private int rowNum;
+
+		private long maxUsedHeap;
+
+		public HeapSamplingCallbackHandler(int rowCount) {
+			this.rowCount = rowCount;
+		}
+
+		public void processRow(ResultSet rs) throws SQLException {
+			rs.getInt(1);
+			rs.getString(2);
+			rs.getDouble(3);
+			this.rowNum++;
+			if (this.rowNum == this.rowCount / 2 || this.rowNum == this.rowCount) {
+				this.maxUsedHeap = Math.max(this.maxUsedHeap, usedHeap());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Standalone benchmark for mapping rows to JavaBeans: reads a 5-column
+ * result from an in-process HSQLDB database with a handwritten RowMapper,
+ * with a BeanPropertyRowMapper, and with a BeanWrapperImpl per row that
+ * sets each property from getObject. Not a unit test: run via the main
+ * method, optionally passing the measurement time per variant in
+ * milliseconds and the number of rows.
+ *
+ * @since 1.0.1
+ * @see BeanPropertyRowMapper
+ */
+public class RowMappingBenchmark {
+
+	private static final String SQL = "SELECT id, first_name, last_name, age, balance FROM person";
+
+	private static final String[] PROPERTY_NAMES = {"id", "firstName", "lastName", "age", "balance"};
+
+	public static void main(String[] args) throws Exception {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		final int rowCount = (args.length > 1 ? Integer.parseInt(args[1]) : 20000);
+		SingleConnectionDataSource ds =
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		JdbcTemplate template = new JdbcTemplate(ds);
+		template.execute("CREATE TABLE person (id INTEGER, first_name VARCHAR(50), last_name VARCHAR(50), " +
+				"age INTEGER, balance DOUBLE)");
+		template.batchUpdate("INSERT INTO person VALUES (?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				ps.setInt(1, i);
+				ps.setString(2, "first" + i);
+				ps.setString(3, "last" + i);
+				ps.setInt(4, i % 100);
+				ps.setDouble(5, i * 1.5);
+			}
+			public int getBatchSize() {
+				return rowCount;
+			}
+		});
+
+		RowMapper[] rowMappers = {new HandwrittenRowMapper(), new BeanPropertyRowMapper(Person.class),
+				new BeanWrapperRowMapper()};
+		String[] names = {"handwritten RowMapper", "BeanPropertyRowMapper", "BeanWrapperImpl per row"};
+		System.out.println(rowCount + " rows per query:");
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < rowMappers.length; i++) {
+				long count = 0;
+				long startTime = System.currentTimeMillis();
+				long endTime = startTime + duration;
+				while (System.currentTimeMillis() < endTime) {
+					RowMapperResultReader reader = new RowMapperResultReader(rowMappers[i], rowCount);
+					template.query(SQL, reader);
+					if (reader.getResults().size() != rowCount) {
+						throw new IllegalStateException("Unexpected number of rows");
+					}
+					count++;
+				}
+				if (round == 1) {
+					long elapsed = System.currentTimeMillis() - startTime;
+					System.out.println(names[i] + ": " + (elapsed * 1000 / count) + " us per query");
+				}
+			}
+		}
+		ds.destroy();
+	}
+
+
+	public static class Person {
+
+		private int id;
+
+		private String firstName;
+
+		private String lastName;
+
+		private int age;
+
+		private double balance;
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public double getBalance() {
+			return balance;
+		}
+
+		public void setBalance(double balance) {
+			this.balance = balance;
+		}
+	}
+
+
+	private static class HandwrittenRowMapper implements RowMapper {
+
+		public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+			Person person = new Person();
+			person.setId(rs.getInt(1));
+			person.setFirstName(rs.getString(2));
+			person.setLastName(rs.getString(3));
+			person.setAge(rs.getInt(4));
+			person.setBalance(rs.getDouble(5));
+			return person;
+		}
+	}
+
+
+	private static class BeanWrapperRowMapper implements RowMapper {
+
+		public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+			BeanWrapper bw = new BeanWrapperImpl(new Person());
+			for (int i = 0; i < PROPERTY_NAMES.length; i++) {
+				bw.setPropertyValue(PROPERTY_NAMES[i], rs.getObject(i + 1));
+			}
+			return bw.getWrappedInstance();
+		}
+	}
+
+}
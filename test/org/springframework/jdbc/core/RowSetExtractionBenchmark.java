@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Standalone benchmark for extracting a large result into memory: reads a
+ * 4-column result from an in-process HSQLDB database with queryForList and
+ * with queryForRowSet, reporting the extraction time and the heap retained
+ * by the extracted result. Not a unit test: run via the main method,
+ * optionally passing the number of rows and the number of timed rounds.
+ *
+ * <p>The VARCHAR values are shared with HSQLDB's own table storage, so
+ * they are not counted in either heap figure.
+ *
+ * @since 1.0.1
+ * @see CompactRowSet
+ */
+public class RowSetExtractionBenchmark {
+
+	private static final String SQL = "SELECT id, name, code, amount FROM report";
+
+	public static void main(String[] args) throws Exception {
+		final int rowCount = (args.length > 0 ? Integer.parseInt(args[0]) : 1000000);
+		int rounds = (args.length > 1 ? Integer.parseInt(args[1]) : 3);
+		SingleConnectionDataSource ds =
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		JdbcTemplate template = new JdbcTemplate(ds);
+		template.execute("CREATE TABLE report (id INTEGER, name VARCHAR(50), code BIGINT, amount DOUBLE)");
+		template.batchUpdate("INSERT INTO report VALUES (?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				ps.setInt(1, i);
+				ps.setString(2, "name" + i);
+				ps.setLong(3, i * 1000L);
+				ps.setDouble(4, i * 1.5);
+			}
+			public int getBatchSize() {
+				return rowCount;
+			}
+		});
+
+		System.out.println(rowCount + " rows: extraction time, MB retained");
+		// first round warms up the JIT, later rounds get reported
+		for (int round = 0; round <= rounds; round++) {
+			long baseline = usedHeap();
+			long startTime = System.currentTimeMillis();
+			List list = template.queryForList(SQL);
+			long listTime = System.currentTimeMillis() - startTime;
+			long listHeap = usedHeap() - baseline;
+			if (list.size() != rowCount) {
+				throw new IllegalStateException("Unexpected number of rows");
+			}
+			list = null;
+
+			baseline = usedHeap();
+			startTime = System.currentTimeMillis();
+			CompactRowSet rowSet = template.queryForRowSet(SQL);
+			long rowSetTime = System.currentTimeMillis() - startTime;
+			long rowSetHeap = usedHeap() - baseline;
+			if (rowSet.size() != rowCount) {
+				throw new IllegalStateException("Unexpected number of rows");
+			}
+			rowSet = null;
+
+			if (round > 0) {
+				System.out.println("queryForList: " + listTime + " ms, " + toMegabytes(listHeap) + " MB / " +
+						"queryForRowSet: " + rowSetTime + " ms, " + toMegabytes(rowSetHeap) + " MB");
+			}
+		}
+		ds.destroy();
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long toMegabytes(long bytes) {
+		return Math.max(bytes, 0) / (1024 * 1024);
+	}
+
+}
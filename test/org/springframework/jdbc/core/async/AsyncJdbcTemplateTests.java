@@ -0,0 +1,272 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.async;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests AsyncJdbcTemplate against a DataSource whose queries take
+ * a fixed time, to show that independent queries run concurrently.
+ */
+public class AsyncJdbcTemplateTests extends TestCase {
+
+	private static final long QUERY_DELAY = 200;
+
+	private static final int QUERY_COUNT = 10;
+
+	private SlowDataSource dataSource;
+
+	private AsyncJdbcTemplate asyncTemplate;
+
+	protected void setUp() {
+		this.dataSource = new SlowDataSource(QUERY_DELAY);
+		this.asyncTemplate = new AsyncJdbcTemplate(new JdbcTemplate(this.dataSource));
+		this.asyncTemplate.setMaxThreads(QUERY_COUNT);
+	}
+
+	protected void tearDown() {
+		this.asyncTemplate.destroy();
+	}
+
+	public void testScatterRunsQueriesConcurrently() {
+		JdbcCallback[] callbacks = new JdbcCallback[QUERY_COUNT];
+		for (int i = 0; i < callbacks.length; i++) {
+			callbacks[i] = new JdbcCallback() {
+				public Object doInJdbc(JdbcOperations jdbcOperations) {
+					return new Integer(jdbcOperations.queryForInt("SELECT COUNT(*) FROM T"));
+				}
+			};
+		}
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < callbacks.length; i++) {
+			callbacks[i].doInJdbc(this.asyncTemplate.getJdbcTemplate());
+		}
+		long sequential = System.currentTimeMillis() - start;
+		this.dataSource.getThreads().clear();
+
+		start = System.currentTimeMillis();
+		Object[] results = this.asyncTemplate.scatter(callbacks);
+		long concurrent = System.currentTimeMillis() - start;
+
+		assertEquals(QUERY_COUNT, results.length);
+		for (int i = 0; i < results.length; i++) {
+			assertEquals(new Integer(1), results[i]);
+		}
+		assertTrue("Sequential execution takes at least " + (QUERY_COUNT * QUERY_DELAY) + " ms",
+				sequential >= QUERY_COUNT * QUERY_DELAY);
+		assertTrue("Concurrent execution took " + concurrent + " ms, sequential " + sequential + " ms",
+				concurrent < sequential / 2);
+		assertEquals("Concurrent queries used multiple threads", QUERY_COUNT, this.dataSource.getThreads().size());
+	}
+
+	public void testQueryForObjectWithTimeout() {
+		JdbcFuture future = this.asyncTemplate.queryForObject("SELECT COUNT(*) FROM T", null, Integer.class);
+		try {
+			future.get(QUERY_DELAY / 4);
+			fail("Should have thrown AsyncQueryTimeoutException");
+		}
+		catch (AsyncQueryTimeoutException ex) {
+			// expected
+		}
+		assertEquals(new Integer(1), future.get(QUERY_DELAY * 10));
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+	}
+
+	public void testQueuedCallbackCancelledOnTimeout() {
+		this.asyncTemplate.setMaxThreads(1);
+		JdbcFuture first = this.asyncTemplate.queryForObject("SELECT COUNT(*) FROM T", null, Integer.class);
+		JdbcFuture second = this.asyncTemplate.queryForObject("SELECT COUNT(*) FROM T", null, Integer.class);
+		try {
+			second.get(QUERY_DELAY / 4);
+			fail("Should have thrown AsyncQueryTimeoutException");
+		}
+		catch (AsyncQueryTimeoutException ex) {
+			// expected
+		}
+		assertTrue(second.isCancelled());
+		assertEquals(new Integer(1), first.get());
+		assertEquals(1, this.dataSource.getThreads().size());
+	}
+
+	public void testInterruptWhileWaiting() {
+		this.asyncTemplate.setMaxThreads(1);
+		JdbcFuture first = this.asyncTemplate.queryForObject("SELECT COUNT(*) FROM T", null, Integer.class);
+		JdbcFuture second = this.asyncTemplate.queryForObject("SELECT COUNT(*) FROM T", null, Integer.class);
+		Thread.currentThread().interrupt();
+		try {
+			second.get();
+			fail("Should have thrown AsyncJdbcInterruptedException");
+		}
+		catch (AsyncJdbcInterruptedException ex) {
+			// expected
+		}
+		assertTrue("Interrupted status restored", Thread.interrupted());
+		assertTrue(second.isCancelled());
+		assertEquals(new Integer(1), first.get());
+	}
+
+	public void testExceptionRethrownToCaller() {
+		final DataAccessException failure = new DataRetrievalFailureException("failure");
+		JdbcFuture future = this.asyncTemplate.submit(new JdbcCallback() {
+			public Object doInJdbc(JdbcOperations jdbcOperations) {
+				throw failure;
+			}
+		});
+		try {
+			future.get();
+			fail("Should have thrown DataRetrievalFailureException");
+		}
+		catch (DataRetrievalFailureException ex) {
+			assertSame(failure, ex);
+		}
+	}
+
+	public void testScatterWithinTransactionRunsInCallingThread() {
+		final Set threads = Collections.synchronizedSet(new HashSet());
+		JdbcCallback callback = new JdbcCallback() {
+			public Object doInJdbc(JdbcOperations jdbcOperations) {
+				threads.add(Thread.currentThread());
+				return null;
+			}
+		};
+		TransactionSynchronizationManager.bindResource(this.dataSource, new ConnectionHolder(null));
+		try {
+			this.asyncTemplate.scatter(new JdbcCallback[] {callback, callback, callback});
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(this.dataSource);
+		}
+		assertEquals(1, threads.size());
+		assertTrue(threads.contains(Thread.currentThread()));
+	}
+
+	public void testSubmitAfterShutdown() {
+		this.asyncTemplate.destroy();
+		try {
+			this.asyncTemplate.queryForList("SELECT * FROM T", null);
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (DataAccessException ex) {
+			// expected
+		}
+	}
+
+
+	/**
+	 * DataSource whose statements take the given time to execute a query,
+	 * each returning a single row with a single column value of 1.
+	 */
+	private static class SlowDataSource extends DriverManagerDataSource {
+
+		private final long delay;
+
+		private final Set threads = Collections.synchronizedSet(new HashSet());
+
+		public SlowDataSource(long delay) {
+			this.delay = delay;
+		}
+
+		public Set getThreads() {
+			return threads;
+		}
+
+		public Connection getConnection() {
+			return (Connection) createProxy(Connection.class);
+		}
+
+		public Connection getConnection(String username, String password) {
+			return getConnection();
+		}
+
+		private Object createProxy(Class intf) {
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {intf}, new InvocationHandler() {
+				private boolean beforeFirst = true;
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					String name = method.getName();
+					if (name.equals("createStatement") || name.equals("prepareStatement") ||
+							name.equals("getMetaData")) {
+						return createProxy(method.getReturnType());
+					}
+					if (name.equals("executeQuery")) {
+						threads.add(Thread.currentThread());
+						Thread.sleep(delay);
+						return createProxy(ResultSet.class);
+					}
+					if (name.equals("next")) {
+						boolean result = this.beforeFirst;
+						this.beforeFirst = false;
+						return new Boolean(result);
+					}
+					if (name.equals("getObject")) {
+						return new Integer(1);
+					}
+					if (name.equals("getColumnCount")) {
+						return new Integer(1);
+					}
+					if (name.equals("getColumnName")) {
+						return "C";
+					}
+					if (name.equals("hashCode")) {
+						return new Integer(System.identityHashCode(proxy));
+					}
+					if (name.equals("equals")) {
+						return new Boolean(proxy == args[0]);
+					}
+					return defaultValue(method.getReturnType());
+				}
+			});
+		}
+
+		private static Object defaultValue(Class type) throws SQLException {
+			if (type == boolean.class) {
+				return Boolean.FALSE;
+			}
+			if (type == int.class) {
+				return new Integer(0);
+			}
+			if (type == long.class) {
+				return new Long(0);
+			}
+			if (type.isPrimitive() && type != void.class) {
+				throw new SQLException("Unsupported operation returning " + type);
+			}
+			return null;
+		}
+	}
+
+}
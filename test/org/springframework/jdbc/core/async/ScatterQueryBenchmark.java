@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.async;
+
+import java.sql.Connection;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Standalone benchmark for fan-out queries: runs 10 callbacks against an
+ * in-process HSQLDB database sequentially in the calling thread, and via
+ * AsyncJdbcTemplate.scatter with 1, 4 and 10 worker threads. Each callback
+ * executes a query and then sleeps for a configurable time to stand in for
+ * the network and server time of a remote database; with no latency, the
+ * figures show the overhead of handing callbacks to worker threads. Not a
+ * unit test: run via the main method, optionally passing the simulated
+ * latency per query in milliseconds and the number of timed rounds.
+ *
+ * @since 1.0.1
+ * @see AsyncJdbcTemplate#scatter
+ */
+public class ScatterQueryBenchmark {
+
+	private static final int CALLBACK_COUNT = 10;
+
+	private static final int[] THREAD_COUNTS = {1, 4, 10};
+
+	public static void main(String[] args) throws Exception {
+		final long latency = (args.length > 0 ? Long.parseLong(args[0]) : 50);
+		int rounds = (args.length > 1 ? Integer.parseInt(args[1]) : 3);
+		DriverManagerDataSource ds =
+				new DriverManagerDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "");
+		// keeps the in-memory database alive between the connections of the callbacks
+		Connection con = ds.getConnection();
+		JdbcTemplate template = new JdbcTemplate(ds);
+		template.execute("CREATE TABLE item (id INTEGER)");
+		template.update("INSERT INTO item VALUES (1)");
+
+		JdbcCallback[] callbacks = new JdbcCallback[CALLBACK_COUNT];
+		for (int i = 0; i < callbacks.length; i++) {
+			callbacks[i] = new JdbcCallback() {
+				public Object doInJdbc(JdbcOperations jdbcOperations) {
+					Object result = jdbcOperations.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+					if (latency > 0) {
+						try {
+							Thread.sleep(latency);
+						}
+						catch (InterruptedException ex) {
+							Thread.currentThread().interrupt();
+						}
+					}
+					return result;
+				}
+			};
+		}
+		AsyncJdbcTemplate[] asyncTemplates = new AsyncJdbcTemplate[THREAD_COUNTS.length];
+		for (int i = 0; i < asyncTemplates.length; i++) {
+			asyncTemplates[i] = new AsyncJdbcTemplate(template);
+			asyncTemplates[i].setMaxThreads(THREAD_COUNTS[i]);
+			asyncTemplates[i].afterPropertiesSet();
+		}
+
+		int iterations = (latency > 0 ? 5 : 2000);
+		System.out.println(CALLBACK_COUNT + " queries with " + latency + " ms latency each, us per fan-out:");
+		// first round warms up the JIT, later rounds get reported
+		for (int round = 0; round <= rounds; round++) {
+			long startTime = System.currentTimeMillis();
+			for (int n = 0; n < iterations; n++) {
+				for (int i = 0; i < callbacks.length; i++) {
+					callbacks[i].doInJdbc(template);
+				}
+			}
+			long sequential = (System.currentTimeMillis() - startTime) * 1000 / iterations;
+			StringBuffer line = new StringBuffer("sequential: " + sequential);
+			for (int i = 0; i < asyncTemplates.length; i++) {
+				startTime = System.currentTimeMillis();
+				for (int n = 0; n < iterations; n++) {
+					asyncTemplates[i].scatter(callbacks);
+				}
+				long scatter = (System.currentTimeMillis() - startTime) * 1000 / iterations;
+				line.append(" / scatter with " + THREAD_COUNTS[i] + " threads: " + scatter);
+			}
+			if (round > 0) {
+				System.out.println(line);
+			}
+		}
+		for (int i = 0; i < asyncTemplates.length; i++) {
+			asyncTemplates[i].destroy();
+		}
+		con.close();
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Standalone benchmark for preparing named parameter statements: parses a
+ * statement with 4 parameters, one of them an IN list, then substitutes the
+ * JDBC placeholders and builds the value array. Measures a single statement,
+ * whose ParsedSql comes from the cache, and statements that differ on every
+ * call, cycling through more statements than the cache holds. Not a unit
+ * test: run via the main method, optionally passing the measurement time per
+ * variant in milliseconds.
+ *
+ * @since 1.0.1
+ * @see NamedParameterUtils#parseSqlStatement
+ */
+public class NamedParameterBenchmark {
+
+	private static final String SQL =
+			"SELECT id, name FROM customer WHERE region = :region AND status IN (:status) " +
+			"AND created > :since AND name <> 'a:b' AND balance < :limit";
+
+	private static final int DISTINCT_STATEMENTS = NamedParameterUtils.PARSED_SQL_CACHE_LIMIT * 4;
+
+	public static void main(String[] args) {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		Map paramMap = new HashMap();
+		paramMap.put("region", "EU");
+		paramMap.put("status", Arrays.asList(new Object[] {"A", "B", "C"}));
+		paramMap.put("since", new Long(0));
+		paramMap.put("limit", new Integer(1000));
+		String[] distinctSql = new String[DISTINCT_STATEMENTS];
+		for (int i = 0; i < distinctSql.length; i++) {
+			distinctSql[i] = SQL + " AND " + i + " = " + i;
+		}
+
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			long cachedTime = measure(new String[] {SQL}, paramMap, duration);
+			long distinctTime = measure(distinctSql, paramMap, duration);
+			if (round == 1) {
+				System.out.println("same statement: " + cachedTime + " ns per call");
+				System.out.println(DISTINCT_STATEMENTS + " distinct statements: " + distinctTime + " ns per call");
+			}
+		}
+	}
+
+	private static long measure(String[] sql, Map paramMap, long duration) {
+		long count = 0;
+		long startTime = System.currentTimeMillis();
+		long endTime = startTime + duration;
+		while (System.currentTimeMillis() < endTime) {
+			for (int i = 0; i < sql.length; i++) {
+				ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql[i]);
+				NamedParameterUtils.substituteNamedParameters(parsedSql, paramMap);
+				NamedParameterUtils.buildValueArray(parsedSql, paramMap);
+			}
+			count += sql.length;
+		}
+		long elapsed = System.currentTimeMillis() - startTime;
+		return elapsed * 1000000 / count;
+	}
+
+}
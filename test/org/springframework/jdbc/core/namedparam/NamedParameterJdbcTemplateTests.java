@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import org.easymock.AbstractMatcher;
+import org.easymock.MockControl;
+
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * Tests for NamedParameterJdbcTemplate, based on a mock JdbcOperations.
+ */
+public class NamedParameterJdbcTemplateTests extends TestCase {
+
+	private MockControl ctrlJdbcOperations;
+
+	private JdbcOperations mockJdbcOperations;
+
+	protected void setUp() {
+		this.ctrlJdbcOperations = MockControl.createControl(JdbcOperations.class);
+		this.mockJdbcOperations = (JdbcOperations) this.ctrlJdbcOperations.getMock();
+		this.ctrlJdbcOperations.setDefaultMatcher(new AbstractMatcher() {
+			protected boolean parameterMatches(Object expected, Object actual) {
+				if (expected instanceof Object[] && actual instanceof Object[]) {
+					return Arrays.equals((Object[]) expected, (Object[]) actual);
+				}
+				return super.parameterMatches(expected, actual);
+			}
+		});
+	}
+
+	public void testQueryForList() {
+		List result = new ArrayList();
+		this.mockJdbcOperations.queryForList("select * from t where a = ? and b in (?, ?)",
+		                                     new Object[] {"x", new Integer(1), new Integer(2)});
+		this.ctrlJdbcOperations.setReturnValue(result);
+		this.ctrlJdbcOperations.replay();
+
+		NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(this.mockJdbcOperations);
+		Map params = new HashMap();
+		params.put("a", "x");
+		params.put("b", Arrays.asList(new Object[] {new Integer(1), new Integer(2)}));
+		assertSame(result, template.queryForList("select * from t where a = :a and b in (:b)", params));
+		this.ctrlJdbcOperations.verify();
+	}
+
+	public void testUpdate() {
+		this.mockJdbcOperations.update("update t set a = ? where b = ? or c = ?",
+		                               new Object[] {null, "y", null});
+		this.ctrlJdbcOperations.setReturnValue(3);
+		this.ctrlJdbcOperations.replay();
+
+		NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(this.mockJdbcOperations);
+		Map params = new HashMap();
+		params.put("a", null);
+		params.put("b", "y");
+		assertEquals(3, template.update("update t set a = :a where b = :b or c = :a", params));
+		assertSame(this.mockJdbcOperations, template.getJdbcOperations());
+		this.ctrlJdbcOperations.verify();
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+public class NamedParameterUtilsTests extends TestCase {
+
+	public void testParseSql() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(
+				"select * from t where a = :a and b = :b_2 or a = :a");
+		assertEquals(3, parsedSql.getNamedParameterCount());
+		assertEquals("a", parsedSql.getParameterName(0));
+		assertEquals("b_2", parsedSql.getParameterName(1));
+		assertEquals("a", parsedSql.getParameterName(2));
+		assertEquals(0, parsedSql.getUnnamedParameterCount());
+		assertEquals("select * from t where a = ? and b = ? or a = ?", parsedSql.getJdbcSql());
+	}
+
+	public void testParseSqlSkipsLiteralsCommentsAndCasts() {
+		String sql = "select ':a', \"x:b\" from t -- :c ?\n where /* :d ? */ d = :e::int and t = '10:30'";
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+		assertEquals(1, parsedSql.getNamedParameterCount());
+		assertEquals("e", parsedSql.getParameterName(0));
+		assertEquals(0, parsedSql.getUnnamedParameterCount());
+		assertEquals("select ':a', \"x:b\" from t -- :c ?\n where /* :d ? */ d = ?::int and t = '10:30'",
+		             parsedSql.getJdbcSql());
+	}
+
+	public void testParseSqlCountsUnnamedParameters() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("select * from t where a = ? and b = '?'");
+		assertEquals(0, parsedSql.getNamedParameterCount());
+		assertEquals(1, parsedSql.getUnnamedParameterCount());
+		assertEquals(parsedSql.getSql(), parsedSql.getJdbcSql());
+	}
+
+	public void testParsedSqlIsCached() {
+		String sql = "select * from t where a = :a";
+		assertSame(NamedParameterUtils.parseSqlStatement(sql),
+		           NamedParameterUtils.parseSqlStatement(new String(sql)));
+	}
+
+	public void testParsedSqlCacheStopsGrowingWhenFull() {
+		NamedParameterUtils.clearParsedSqlCache();
+		try {
+			String sql = "select * from t where kept = :a";
+			ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+			for (int i = 1; i < NamedParameterUtils.PARSED_SQL_CACHE_LIMIT; i++) {
+				NamedParameterUtils.parseSqlStatement("select * from t where filler = " + i);
+			}
+			assertSame(parsedSql, NamedParameterUtils.parseSqlStatement(sql));
+			String uncachedSql = "select * from t where uncached = :a";
+			ParsedSql uncached = NamedParameterUtils.parseSqlStatement(uncachedSql);
+			assertNotSame(uncached, NamedParameterUtils.parseSqlStatement(uncachedSql));
+			assertEquals(uncached.getJdbcSql(), NamedParameterUtils.parseSqlStatement(uncachedSql).getJdbcSql());
+			assertSame(parsedSql, NamedParameterUtils.parseSqlStatement(sql));
+		}
+		finally {
+			NamedParameterUtils.clearParsedSqlCache();
+		}
+	}
+
+	public void testInListBucketSizes() {
+		assertEquals(1, NamedParameterUtils.getInListBucketSize(1));
+		assertEquals(4, NamedParameterUtils.getInListBucketSize(4));
+		assertEquals(8, NamedParameterUtils.getInListBucketSize(5));
+		assertEquals(64, NamedParameterUtils.getInListBucketSize(33));
+		assertEquals(256, NamedParameterUtils.getInListBucketSize(256));
+		assertEquals(300, NamedParameterUtils.getInListBucketSize(257));
+		assertEquals(1000, NamedParameterUtils.getInListBucketSize(1000));
+	}
+
+	public void testSubstituteAndBuildValues() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(
+				"select * from t where a = :a and b in (:list) and c = :a");
+		List list = new ArrayList();
+		for (int i = 0; i < 6; i++) {
+			list.add(new Integer(i));
+		}
+		Map params = new HashMap();
+		params.put("a", "x");
+		params.put("list", list);
+		String sql = NamedParameterUtils.substituteNamedParameters(parsedSql, params);
+		assertEquals("select * from t where a = ? and b in (?, ?, ?, ?, ?, ?, ?, ?) and c = ?", sql);
+		assertSame("expanded SQL is cached", sql, NamedParameterUtils.substituteNamedParameters(parsedSql, params));
+		Object[] values = NamedParameterUtils.buildValueArray(parsedSql, params);
+		Integer last = new Integer(5);
+		assertTrue(Arrays.equals(new Object[] {"x", new Integer(0), new Integer(1), new Integer(2), new Integer(3),
+		                                       new Integer(4), last, last, last, "x"}, values));
+
+		params.put("list", new Integer(7));
+		assertSame(parsedSql.getJdbcSql(), NamedParameterUtils.substituteNamedParameters(parsedSql, params));
+		assertEquals(3, NamedParameterUtils.buildValueArray(parsedSql, params).length);
+	}
+
+	public void testMissingValue() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("select * from t where a = :a and b = :b");
+		Map params = new HashMap();
+		params.put("a", "x");
+		try {
+			NamedParameterUtils.buildValueArray(parsedSql, params);
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+		params.put("b", null);
+		assertEquals(2, NamedParameterUtils.buildValueArray(parsedSql, params).length);
+	}
+
+	public void testEmptyCollection() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("select * from t where a in (:a)");
+		Map params = new HashMap();
+		params.put("a", new ArrayList());
+		try {
+			NamedParameterUtils.substituteNamedParameters(parsedSql, params);
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+	}
+
+	public void testUnnamedParametersRejected() {
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("select * from t where a = :a and b = ?");
+		try {
+			NamedParameterUtils.substituteNamedParameters(parsedSql, new HashMap());
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+	}
+
+}
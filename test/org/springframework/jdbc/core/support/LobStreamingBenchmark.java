@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.lob.DefaultLobHandler;
+import org.springframework.jdbc.support.lob.LobCreator;
+import org.springframework.jdbc.support.lob.LobHandler;
+import org.springframework.jdbc.support.lob.LobUtils;
+
+/**
+ * Standalone benchmark for LOB transfer: writes a BLOB from a byte array and
+ * from a stream, and reads it into a byte array and through LobUtils.copyBlob,
+ * on an in-process HSQLDB database. Reports the time taken and the bytes
+ * allocated by the calling thread, where the JVM exposes per-thread allocation
+ * counts. Not a unit test: run via the main method, optionally passing the
+ * BLOB size in megabytes.
+ *
+ * <p>Note that HSQLDB's in-process driver buffers streamed parameters itself
+ * and returns its internal array from getBytes, so it cannot show the savings
+ * of streaming; drivers that transfer LOBs as streams can.
+ *
+ * @since 1.0.1
+ * @see LobUtils#copyBlob
+ * @see AbstractLobCreatingPreparedStatementCallback
+ * @see AbstractLobStreamingResultSetExtractor
+ */
+public class LobStreamingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int size = (args.length > 0 ? Integer.parseInt(args[0]) : 50) * 1024 * 1024;
+		SingleConnectionDataSource ds =
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		JdbcTemplate template = new JdbcTemplate(ds);
+		template.execute("CREATE TABLE content (id INTEGER, data LONGVARBINARY)");
+		final LobHandler lobHandler = new DefaultLobHandler();
+
+		System.out.println((size / (1024 * 1024)) + " MB BLOB: time, MB allocated by the calling thread");
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			template.update("DELETE FROM content");
+			final byte[] content = new byte[size];
+			long allocated = allocatedBytes();
+			long startTime = System.currentTimeMillis();
+			template.execute("INSERT INTO content VALUES (1, ?)",
+					new AbstractLobCreatingPreparedStatementCallback(lobHandler) {
+						protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+							lobCreator.setBlobAsBytes(ps, 1, content);
+						}
+					});
+			report(round, "insert from byte array", startTime, allocated);
+
+			allocated = allocatedBytes();
+			startTime = System.currentTimeMillis();
+			template.execute("INSERT INTO content VALUES (2, ?)",
+					new AbstractLobCreatingPreparedStatementCallback(lobHandler) {
+						protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+							lobCreator.setBlobAsBinaryStream(ps, 1, new ZeroInputStream(size), size);
+						}
+					});
+			report(round, "insert from stream", startTime, allocated);
+
+			PreparedStatementSetter pss = new PreparedStatementSetter() {
+				public void setValues(PreparedStatement ps) throws SQLException {
+					ps.setInt(1, 1);
+				}
+			};
+			allocated = allocatedBytes();
+			startTime = System.currentTimeMillis();
+			template.query("SELECT data FROM content WHERE id = ?", pss, new AbstractLobStreamingResultSetExtractor() {
+				protected void streamData(ResultSet rs) throws SQLException {
+					if (lobHandler.getBlobAsBytes(rs, 1).length != size) {
+						throw new IllegalStateException("Unexpected BLOB size");
+					}
+				}
+			});
+			report(round, "read into byte array", startTime, allocated);
+
+			allocated = allocatedBytes();
+			startTime = System.currentTimeMillis();
+			template.query("SELECT data FROM content WHERE id = ?", pss, new AbstractLobStreamingResultSetExtractor() {
+				protected void streamData(ResultSet rs) throws SQLException, IOException {
+					if (LobUtils.copyBlob(lobHandler, rs, 1, new NullOutputStream()) != size) {
+						throw new IllegalStateException("Unexpected BLOB size");
+					}
+				}
+			});
+			report(round, "read via copyBlob", startTime, allocated);
+		}
+		ds.destroy();
+	}
+
+	private static void report(int round, String name, long startTime, long allocated) {
+		if (round == 1) {
+			long elapsed = System.currentTimeMillis() - startTime;
+			long allocatedNow = allocatedBytes();
+			String allocation = (allocated >= 0 && allocatedNow >= 0 ?
+					(allocatedNow - allocated) / (1024 * 1024) + " MB" : "n/a");
+			System.out.println(name + ": " + elapsed + " ms, " + allocation);
+		}
+	}
+
+	/**
+	 * Return the number of bytes allocated by the current thread so far,
+	 * or -1 if the JVM does not expose it.
+	 */
+	private static long allocatedBytes() {
+		try {
+			Class mxBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+			Method method = mxBeanClass.getMethod("getThreadAllocatedBytes", new Class[] {long.class});
+			Object result = method.invoke(ManagementFactory.getThreadMXBean(),
+					new Object[] {new Long(Thread.currentThread().getId())});
+			return ((Long) result).longValue();
+		}
+		catch (Exception ex) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * InputStream that returns the given number of zero bytes.
+	 */
+	private static class ZeroInputStream extends InputStream {
+
+		private int remaining;
+
+		public ZeroInputStream(int size) {
+			this.remaining = size;
+		}
+
+		public int read() {
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			this.remaining--;
+			return 0;
+		}
+
+		public int read(byte[] buf, int off, int len) {
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			int count = Math.min(len, this.remaining);
+			for (int i = off; i < off + count; i++) {
+				buf[i] = 0;
+			}
+			this.remaining -= count;
+			return count;
+		}
+	}
+
+
+	/**
+	 * OutputStream that discards all content.
+	 */
+	private static class NullOutputStream extends OutputStream {
+
+		public void write(int b) {
+		}
+
+		public void write(byte[] buf, int off, int len) {
+		}
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.core.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.LobRetrievalFailureException;
+import org.springframework.jdbc.support.lob.DefaultLobHandler;
+import org.springframework.jdbc.support.lob.LobCreator;
+import org.springframework.jdbc.support.lob.LobHandler;
+import org.springframework.jdbc.support.lob.LobUtils;
+
+public class LobSupportTests extends TestCase {
+
+	public void testCreatingPreparedStatementCallback() throws SQLException {
+		MockControl lobHandlerControl = MockControl.createControl(LobHandler.class);
+		LobHandler lobHandler = (LobHandler) lobHandlerControl.getMock();
+		MockControl lobCreatorControl = MockControl.createControl(LobCreator.class);
+		final LobCreator lobCreator = (LobCreator) lobCreatorControl.getMock();
+		MockControl psControl = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+
+		lobHandler.getLobCreator();
+		lobHandlerControl.setReturnValue(lobCreator);
+		lobCreator.close();
+		lobCreatorControl.setVoidCallable(1);
+		ps.executeUpdate();
+		psControl.setReturnValue(3);
+
+		lobHandlerControl.replay();
+		lobCreatorControl.replay();
+		psControl.replay();
+
+		final StringBuffer set = new StringBuffer();
+		AbstractLobCreatingPreparedStatementCallback psc = new AbstractLobCreatingPreparedStatementCallback(lobHandler) {
+			protected void setValues(PreparedStatement ps, LobCreator lobCreatorToUse) {
+				assertSame(lobCreator, lobCreatorToUse);
+				set.append("test");
+			}
+		};
+		assertEquals(new Integer(3), psc.doInPreparedStatement(ps));
+		assertEquals("test", set.toString());
+
+		lobHandlerControl.verify();
+		lobCreatorControl.verify();
+		psControl.verify();
+	}
+
+	public void testCreatingPreparedStatementCallbackClosesLobCreatorOnFailure() throws SQLException {
+		MockControl lobHandlerControl = MockControl.createControl(LobHandler.class);
+		LobHandler lobHandler = (LobHandler) lobHandlerControl.getMock();
+		MockControl lobCreatorControl = MockControl.createControl(LobCreator.class);
+		LobCreator lobCreator = (LobCreator) lobCreatorControl.getMock();
+		MockControl psControl = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+
+		lobHandler.getLobCreator();
+		lobHandlerControl.setReturnValue(lobCreator);
+		lobCreator.close();
+		lobCreatorControl.setVoidCallable(1);
+		ps.executeUpdate();
+		psControl.setThrowable(new SQLException());
+
+		lobHandlerControl.replay();
+		lobCreatorControl.replay();
+		psControl.replay();
+
+		AbstractLobCreatingPreparedStatementCallback psc = new AbstractLobCreatingPreparedStatementCallback(lobHandler) {
+			protected void setValues(PreparedStatement ps, LobCreator lobCreator) {
+			}
+		};
+		try {
+			psc.doInPreparedStatement(ps);
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+
+		lobHandlerControl.verify();
+		lobCreatorControl.verify();
+		psControl.verify();
+	}
+
+	public void testStreamingResultSetExtractorNoRows() throws SQLException {
+		MockControl rsControl = MockControl.createControl(ResultSet.class);
+		ResultSet rs = (ResultSet) rsControl.getMock();
+		rs.next();
+		rsControl.setReturnValue(false);
+		rsControl.replay();
+
+		MockLobStreamingResultSetExtractor lobRse = new MockLobStreamingResultSetExtractor(false);
+		try {
+			lobRse.extractData(rs);
+			fail("Should have thrown DataRetrievalFailureException");
+		}
+		catch (DataRetrievalFailureException ex) {
+			// expected
+		}
+		rsControl.verify();
+	}
+
+	public void testStreamingResultSetExtractorOneRow() throws SQLException {
+		MockControl rsControl = MockControl.createControl(ResultSet.class);
+		ResultSet rs = (ResultSet) rsControl.getMock();
+		rs.next();
+		rsControl.setReturnValue(true);
+		rs.next();
+		rsControl.setReturnValue(false);
+		rsControl.replay();
+
+		MockLobStreamingResultSetExtractor lobRse = new MockLobStreamingResultSetExtractor(false);
+		lobRse.extractData(rs);
+		assertEquals(1, lobRse.invoked);
+		rsControl.verify();
+	}
+
+	public void testStreamingResultSetExtractorMultipleRows() throws SQLException {
+		MockControl rsControl = MockControl.createControl(ResultSet.class);
+		ResultSet rs = (ResultSet) rsControl.getMock();
+		rs.next();
+		rsControl.setReturnValue(true, 2);
+		rsControl.replay();
+
+		MockLobStreamingResultSetExtractor lobRse = new MockLobStreamingResultSetExtractor(false);
+		try {
+			lobRse.extractData(rs);
+			fail("Should have thrown DataRetrievalFailureException");
+		}
+		catch (DataRetrievalFailureException ex) {
+			// expected
+		}
+		assertEquals(1, lobRse.invoked);
+		rsControl.verify();
+	}
+
+	public void testStreamingResultSetExtractorCorrectException() throws SQLException {
+		MockControl rsControl = MockControl.createControl(ResultSet.class);
+		ResultSet rs = (ResultSet) rsControl.getMock();
+		rs.next();
+		rsControl.setReturnValue(true);
+		rsControl.replay();
+
+		MockLobStreamingResultSetExtractor lobRse = new MockLobStreamingResultSetExtractor(true);
+		try {
+			lobRse.extractData(rs);
+			fail("Should have thrown LobRetrievalFailureException");
+		}
+		catch (LobRetrievalFailureException ex) {
+			// expected
+		}
+		rsControl.verify();
+	}
+
+	public void testCopyBlobAndClob() throws SQLException, IOException {
+		MockControl rsControl = MockControl.createControl(ResultSet.class);
+		ResultSet rs = (ResultSet) rsControl.getMock();
+		rs.getBinaryStream(1);
+		rsControl.setReturnValue(new ByteArrayInputStream(new byte[20000]));
+		rs.getBinaryStream(2);
+		rsControl.setReturnValue(null);
+		rs.getCharacterStream(3);
+		rsControl.setReturnValue(new StringReader("content"));
+		rsControl.replay();
+
+		LobHandler lobHandler = new DefaultLobHandler();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(20000, LobUtils.copyBlob(lobHandler, rs, 1, out));
+		assertEquals(0, LobUtils.copyBlob(lobHandler, rs, 2, out));
+		assertEquals(20000, out.size());
+		StringWriter writer = new StringWriter();
+		assertEquals(7, LobUtils.copyClob(lobHandler, rs, 3, writer));
+		assertEquals("content", writer.toString());
+		rsControl.verify();
+	}
+
+
+	private static class MockLobStreamingResultSetExtractor extends AbstractLobStreamingResultSetExtractor {
+
+		public int invoked;
+
+		private final boolean error;
+
+		public MockLobStreamingResultSetExtractor(boolean error) {
+			this.error = error;
+		}
+
+		protected void streamData(ResultSet rs) throws IOException {
+			this.invoked++;
+			if (this.error) {
+				throw new IOException();
+			}
+			OutputStream out = new ByteArrayOutputStream();
+			out.write(1);
+		}
+	}
+
+}
@@ -18,6 +18,7 @@ package org.springframework.jdbc.datasource;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 
 import junit.framework.TestCase;
 import org.easymock.MockControl;
@@ -87,4 +88,25 @@ public class DriverManagerDataSourceTests extends TestCase {
 		}
 	}
 
+	public void testUnwrap() throws Exception {
+		DriverManagerDataSource ds = new DriverManagerDataSource();
+		assertTrue(ds.isWrapperFor(SmartDataSource.class));
+		assertSame(ds, ds.unwrap(SmartDataSource.class));
+		assertFalse(ds.isWrapperFor(Connection.class));
+		try {
+			ds.unwrap(Connection.class);
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// OK
+		}
+		try {
+			ds.getParentLogger();
+			fail("Should have thrown SQLFeatureNotSupportedException");
+		}
+		catch (SQLFeatureNotSupportedException ex) {
+			// OK
+		}
+	}
+
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Standalone benchmark for deferred connection acquisition: 16 threads run
+ * 200 transactions each through a DataSourceTransactionManager, with 70% of
+ * the transactions served from a cache without touching the database. The
+ * others run a query on an in-process HSQLDB database and then wait for
+ * 2 ms, standing in for the time a remote database takes; every transaction
+ * does 1 ms of other work. Reports the number of connections fetched from
+ * the DataSource, the peak number held at once and the time-weighted average
+ * number held, with the transaction manager working on the DataSource
+ * directly and on a LazyConnectionDataSourceProxy for it. Not a unit test:
+ * run via the main method.
+ *
+ * @since 1.0.1
+ * @see LazyConnectionDataSourceProxy
+ */
+public class LazyConnectionBenchmark {
+
+	private static final int THREAD_COUNT = 16;
+
+	private static final int TRANSACTIONS_PER_THREAD = 200;
+
+	public static void main(String[] args) throws Exception {
+		DriverManagerDataSource targetDataSource =
+				new DriverManagerDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "");
+		// keeps the in-memory database alive between the transactions' connections
+		Connection con = targetDataSource.getConnection();
+		new JdbcTemplate(targetDataSource).execute("CREATE TABLE item (id INTEGER)");
+
+		ConnectionCountingDataSource eagerDataSource = new ConnectionCountingDataSource(targetDataSource);
+		run(eagerDataSource, eagerDataSource);
+		ConnectionCountingDataSource lazyTarget = new ConnectionCountingDataSource(targetDataSource);
+		LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy();
+		lazyDataSource.setTargetDataSource(lazyTarget);
+		lazyDataSource.setDefaultAutoCommit(true);
+		lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		lazyDataSource.afterPropertiesSet();
+		run(lazyDataSource, lazyTarget);
+
+		System.out.println(THREAD_COUNT + " threads, " + TRANSACTIONS_PER_THREAD +
+				" transactions each, 70% cache hits: acquisitions / peak held / average held");
+		System.out.println("eager: " + eagerDataSource);
+		System.out.println("lazy: " + lazyTarget);
+		con.close();
+	}
+
+	private static void run(DataSource dataSource, ConnectionCountingDataSource countingDataSource)
+			throws InterruptedException {
+		final TransactionTemplate transactionTemplate =
+				new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		Thread[] threads = new Thread[THREAD_COUNT];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++) {
+						final boolean cacheHit = (j % 10 < 7);
+						transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+							protected void doInTransactionWithoutResult(TransactionStatus status) {
+								if (!cacheHit) {
+									jdbcTemplate.queryForInt("SELECT COUNT(*) FROM item");
+									pause(2);
+								}
+								pause(1);
+							}
+						});
+					}
+				}
+			};
+		}
+		countingDataSource.start();
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		countingDataSource.stop();
+	}
+
+	private static void pause(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * DataSource decorator that keeps track of the connections held
+	 * by its callers, i.e. fetched and not closed yet.
+	 */
+	private static class ConnectionCountingDataSource extends AbstractDataSource {
+
+		private final DataSource targetDataSource;
+
+		private int acquisitions;
+
+		private int held;
+
+		private int peakHeld;
+
+		private long startTime;
+
+		private long lastChange;
+
+		/** Sum of held connections multiplied by the milliseconds they were held */
+		private long heldMillis;
+
+		private long endTime;
+
+		public ConnectionCountingDataSource(DataSource targetDataSource) {
+			this.targetDataSource = targetDataSource;
+		}
+
+		public synchronized void start() {
+			this.startTime = System.currentTimeMillis();
+			this.lastChange = this.startTime;
+		}
+
+		public synchronized void stop() {
+			changeHeld(0);
+			this.endTime = System.currentTimeMillis();
+		}
+
+		private synchronized void changeHeld(int delta) {
+			long now = System.currentTimeMillis();
+			this.heldMillis += this.held * (now - this.lastChange);
+			this.lastChange = now;
+			this.held += delta;
+			this.peakHeld = Math.max(this.peakHeld, this.held);
+			if (delta > 0) {
+				this.acquisitions++;
+			}
+		}
+
+		public Connection getConnection() throws SQLException {
+			final Connection target = this.targetDataSource.getConnection();
+			changeHeld(1);
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {Connection.class},
+					new InvocationHandler() {
+						private boolean closed = false;
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							if (method.getName().equals("close") && !this.closed) {
+								this.closed = true;
+								changeHeld(-1);
+							}
+							try {
+								return method.invoke(target, args);
+							}
+							catch (InvocationTargetException ex) {
+								throw ex.getTargetException();
+							}
+						}
+					});
+		}
+
+		public Connection getConnection(String username, String password) throws SQLException {
+			throw new UnsupportedOperationException("Not supported by ConnectionCountingDataSource");
+		}
+
+		public synchronized String toString() {
+			long duration = Math.max(this.endTime - this.startTime, 1);
+			long averageHeldTimesTen = this.heldMillis * 10 / duration;
+			return this.acquisitions + " / " + this.peakHeld + " / " +
+					(averageHeldTimesTen / 10) + "." + (averageHeldTimesTen % 10) + " (" + duration + " ms)";
+		}
+	}
+
+}
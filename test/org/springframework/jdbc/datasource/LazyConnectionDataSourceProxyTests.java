@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @since 1.0.1
+ */
+public class LazyConnectionDataSourceProxyTests extends TestCase {
+
+	public void testDefaultsDeterminedFromTarget() throws Exception {
+		MockControl conControl = MockControl.createControl(Connection.class);
+		Connection con = (Connection) conControl.getMock();
+		con.getAutoCommit();
+		conControl.setReturnValue(false, 1);
+		con.getTransactionIsolation();
+		conControl.setReturnValue(Connection.TRANSACTION_SERIALIZABLE, 1);
+		con.close();
+		conControl.setVoidCallable(1);
+		MockControl dsControl = MockControl.createControl(DataSource.class);
+		DataSource ds = (DataSource) dsControl.getMock();
+		ds.getConnection();
+		dsControl.setReturnValue(con, 1);
+		conControl.replay();
+		dsControl.replay();
+
+		Connection lazyCon = new LazyConnectionDataSourceProxy(ds).getConnection();
+		assertTrue(!lazyCon.getAutoCommit());
+		assertEquals(Connection.TRANSACTION_SERIALIZABLE, lazyCon.getTransactionIsolation());
+		assertTrue(!lazyCon.isReadOnly());
+		lazyCon.close();
+		assertTrue(lazyCon.isClosed());
+		conControl.verify();
+		dsControl.verify();
+	}
+
+	public void testTransactionWithoutStatement() throws Exception {
+		MockControl dsControl = MockControl.createControl(DataSource.class);
+		final DataSource ds = (DataSource) dsControl.getMock();
+		dsControl.replay();
+
+		final LazyConnectionDataSourceProxy lazyDs = new LazyConnectionDataSourceProxy();
+		lazyDs.setTargetDataSource(ds);
+		lazyDs.setDefaultAutoCommit(true);
+		lazyDs.setDefaultTransactionIsolationName("TRANSACTION_READ_COMMITTED");
+		lazyDs.afterPropertiesSet();
+
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(lazyDs));
+		tt.setReadOnly(true);
+		tt.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				assertTrue("Has thread connection", TransactionSynchronizationManager.hasResource(lazyDs));
+			}
+		});
+		assertTrue("Hasn't thread connection", !TransactionSynchronizationManager.hasResource(lazyDs));
+		dsControl.verify();
+	}
+
+	public void testTransactionWithStatement() throws Exception {
+		MockControl stmtControl = MockControl.createControl(Statement.class);
+		Statement stmt = (Statement) stmtControl.getMock();
+		MockControl conControl = MockControl.createControl(Connection.class);
+		Connection con = (Connection) conControl.getMock();
+		con.setReadOnly(true);
+		conControl.setVoidCallable(1);
+		con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		conControl.setVoidCallable(1);
+		con.setAutoCommit(false);
+		conControl.setVoidCallable(1);
+		con.createStatement();
+		conControl.setReturnValue(stmt, 1);
+		con.commit();
+		conControl.setVoidCallable(1);
+		con.setAutoCommit(true);
+		conControl.setVoidCallable(1);
+		con.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		conControl.setVoidCallable(1);
+		con.isReadOnly();
+		conControl.setReturnValue(true, 1);
+		con.setReadOnly(false);
+		conControl.setVoidCallable(1);
+		con.close();
+		conControl.setVoidCallable(1);
+		MockControl dsControl = MockControl.createControl(DataSource.class);
+		DataSource ds = (DataSource) dsControl.getMock();
+		ds.getConnection();
+		dsControl.setReturnValue(con, 1);
+		stmtControl.replay();
+		conControl.replay();
+		dsControl.replay();
+
+		final LazyConnectionDataSourceProxy lazyDs = new LazyConnectionDataSourceProxy();
+		lazyDs.setTargetDataSource(ds);
+		lazyDs.setDefaultAutoCommit(true);
+		lazyDs.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		lazyDs.afterPropertiesSet();
+
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(lazyDs));
+		tt.setReadOnly(true);
+		tt.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				Connection lazyCon = DataSourceUtils.getConnection(lazyDs);
+				try {
+					lazyCon.createStatement();
+				}
+				catch (SQLException ex) {
+					fail("Should not have thrown SQLException");
+				}
+			}
+		});
+		stmtControl.verify();
+		conControl.verify();
+		dsControl.verify();
+	}
+
+	public void testClosedConnectionHandle() throws Exception {
+		MockControl dsControl = MockControl.createControl(DataSource.class);
+		DataSource ds = (DataSource) dsControl.getMock();
+		dsControl.replay();
+
+		LazyConnectionDataSourceProxy lazyDs = new LazyConnectionDataSourceProxy();
+		lazyDs.setTargetDataSource(ds);
+		lazyDs.setDefaultAutoCommit(true);
+		lazyDs.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		lazyDs.afterPropertiesSet();
+
+		Connection lazyCon = lazyDs.getConnection();
+		lazyCon.commit();
+		lazyCon.rollback();
+		lazyCon.close();
+		try {
+			lazyCon.createStatement();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+		dsControl.verify();
+	}
+
+	public void testUnwrapDelegatesToTarget() throws Exception {
+		DriverManagerDataSource targetDs = new DriverManagerDataSource();
+		LazyConnectionDataSourceProxy lazyDs = new LazyConnectionDataSourceProxy();
+		lazyDs.setTargetDataSource(targetDs);
+		assertSame(lazyDs, lazyDs.unwrap(DataSource.class));
+		assertTrue(lazyDs.isWrapperFor(SmartDataSource.class));
+		assertSame(targetDs, lazyDs.unwrap(SmartDataSource.class));
+		assertFalse(lazyDs.isWrapperFor(Connection.class));
+		try {
+			lazyDs.unwrap(Connection.class);
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+	}
+
+}
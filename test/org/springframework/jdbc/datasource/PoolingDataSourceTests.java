@@ -0,0 +1,491 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+/**
+ * @since 1.0.1
+ */
+public class PoolingDataSourceTests extends TestCase {
+
+	public void testConnectionIsReused() throws Exception {
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		Connection con = ds.getConnection();
+		assertEquals(1, ds.getNumActive());
+		assertEquals(0, ds.getNumIdle());
+		con.close();
+		assertEquals(0, ds.getNumActive());
+		assertEquals(1, ds.getNumIdle());
+
+		Connection con2 = ds.getConnection();
+		assertNotSame(con, con2);
+		con2.close();
+		assertEquals(1, ds.getCreatedCount());
+		assertEquals(2, ds.getBorrowCount());
+		long[] histogram = ds.getWaitTimeHistogram();
+		assertEquals(PoolingDataSource.WAIT_TIME_HISTOGRAM_BOUNDS.length + 1, histogram.length);
+		long histogramTotal = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			histogramTotal += histogram[i];
+		}
+		assertEquals(2, histogramTotal);
+		assertTrue(ds.shouldClose(con2));
+		ds.destroy();
+		ds.verify();
+	}
+
+	public void testClosedHandleCannotBeUsed() throws Exception {
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		Connection con = ds.getConnection();
+		con.close();
+		con.close();
+		assertTrue(con.isClosed());
+		try {
+			con.createStatement();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+		assertEquals(1, ds.getNumIdle());
+	}
+
+	public void testMaxWaitTimesOut() throws Exception {
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setMaxActive(1);
+		ds.setMaxWait(50);
+		Connection con = ds.getConnection();
+		try {
+			ds.getConnection();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+		assertEquals(1, ds.getTimeoutCount());
+		con.close();
+		ds.getConnection().close();
+		assertEquals(1, ds.getCreatedCount());
+	}
+
+	public void testInterruptedWaiterKeepsInterruptStatus() throws Exception {
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setMaxActive(1);
+		Connection con = ds.getConnection();
+		Thread.currentThread().interrupt();
+		try {
+			ds.getConnection();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+		finally {
+			assertTrue(Thread.interrupted());
+		}
+		assertEquals(0, ds.getNumWaiters());
+		con.close();
+		ds.getConnection().close();
+		assertEquals(1, ds.getCreatedCount());
+	}
+
+	public void testWaitingThreadGetsReturnedConnection() throws Exception {
+		final TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setMaxActive(1);
+		final Connection con = ds.getConnection();
+		final List borrowed = new ArrayList();
+		Thread thread = new Thread() {
+			public void run() {
+				try {
+					Connection con2 = ds.getConnection();
+					borrowed.add(con2);
+					con2.close();
+				}
+				catch (SQLException ex) {
+					borrowed.add(ex);
+				}
+			}
+		};
+		thread.start();
+		while (ds.getNumWaiters() == 0 && thread.isAlive()) {
+			Thread.yield();
+		}
+		assertEquals(1, ds.getNumWaiters());
+		assertTrue(borrowed.isEmpty());
+		con.close();
+		thread.join(5000);
+		assertEquals(1, borrowed.size());
+		assertTrue(borrowed.get(0) instanceof Connection);
+		assertEquals(1, ds.getCreatedCount());
+		assertEquals(1, ds.getNumIdle());
+		assertEquals(0, ds.getNumWaiters());
+	}
+
+	public void testNonAutoCommitConnectionIsRolledBackOnReturn() throws Exception {
+		MockControl ctrlConnection = MockControl.createControl(Connection.class);
+		Connection mockConnection = (Connection) ctrlConnection.getMock();
+		mockConnection.getAutoCommit();
+		ctrlConnection.setReturnValue(false);
+		mockConnection.rollback();
+		ctrlConnection.setVoidCallable();
+		mockConnection.setAutoCommit(true);
+		ctrlConnection.setVoidCallable();
+		mockConnection.isClosed();
+		ctrlConnection.setReturnValue(false);
+		ctrlConnection.replay();
+
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.connections.add(mockConnection);
+		ds.getConnection().close();
+		assertEquals(1, ds.getNumIdle());
+		ctrlConnection.verify();
+	}
+
+	public void testInvalidConnectionIsDiscardedOnBorrow() throws Exception {
+		MockControl ctrlConnection = MockControl.createControl(Connection.class);
+		Connection mockConnection = (Connection) ctrlConnection.getMock();
+		mockConnection.getAutoCommit();
+		ctrlConnection.setReturnValue(true);
+		mockConnection.isClosed();
+		ctrlConnection.setReturnValue(false);
+		mockConnection.isClosed();
+		ctrlConnection.setReturnValue(true);
+		mockConnection.close();
+		ctrlConnection.setVoidCallable();
+		ctrlConnection.replay();
+
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setTestOnBorrow(true);
+		ds.connections.add(mockConnection);
+		ds.getConnection().close();
+		Connection con = ds.getConnection();
+		assertEquals(2, ds.getCreatedCount());
+		con.close();
+		ctrlConnection.verify();
+	}
+
+	public void testEvictIdleConnections() throws Exception {
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setMinEvictableIdleTimeMillis(0);
+		Connection con = ds.getConnection();
+		Connection con2 = ds.getConnection();
+		con.close();
+		ds.evict();
+		assertEquals(0, ds.getNumIdle());
+		assertEquals(1, ds.getNumActive());
+		((MockControl) ds.mockControls.get(0)).verify();
+		con2.close();
+		assertEquals(1, ds.getNumIdle());
+	}
+
+	public void testWithDataSourceUtils() throws Exception {
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		Connection con = DataSourceUtils.getConnection(ds);
+		DataSourceUtils.closeConnectionIfNecessary(con, ds);
+		assertEquals(0, ds.getNumActive());
+		assertEquals(1, ds.getNumIdle());
+	}
+
+	public void testDestroyClosesIdleConnections() throws Exception {
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.getConnection().close();
+		ds.destroy();
+		assertEquals(0, ds.getNumIdle());
+		ds.verify();
+		try {
+			ds.getConnection();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+	}
+
+	public void testStatementCache() throws Exception {
+		String sql = "SELECT NAME FROM CUSTMR WHERE ID = ?";
+
+		MockControl ctrlStatement = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement mockStatement = (PreparedStatement) ctrlStatement.getMock();
+		mockStatement.getFetchSize();
+		ctrlStatement.setReturnValue(0);
+		mockStatement.getMaxRows();
+		ctrlStatement.setReturnValue(0);
+		mockStatement.getQueryTimeout();
+		ctrlStatement.setReturnValue(0);
+		mockStatement.setInt(1, 1);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setFetchSize(100);
+		ctrlStatement.setVoidCallable();
+		mockStatement.clearParameters();
+		ctrlStatement.setVoidCallable(2);
+		mockStatement.clearWarnings();
+		ctrlStatement.setVoidCallable(2);
+		mockStatement.setFetchSize(0);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setMaxRows(0);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setQueryTimeout(0);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setInt(1, 2);
+		ctrlStatement.setVoidCallable();
+		ctrlStatement.replay();
+
+		MockControl ctrlConnection = MockControl.createControl(Connection.class);
+		Connection mockConnection = (Connection) ctrlConnection.getMock();
+		mockConnection.prepareStatement(sql);
+		ctrlConnection.setReturnValue(mockStatement);
+		mockConnection.getAutoCommit();
+		ctrlConnection.setDefaultReturnValue(true);
+		mockConnection.isClosed();
+		ctrlConnection.setDefaultReturnValue(false);
+		ctrlConnection.replay();
+
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setStatementCacheSize(10);
+		ds.connections.add(mockConnection);
+
+		Connection con = ds.getConnection();
+		PreparedStatement ps = con.prepareStatement(sql);
+		assertSame(con, ps.getConnection());
+		ps.setInt(1, 1);
+		ps.setFetchSize(100);
+		ps.close();
+		con.close();
+
+		con = ds.getConnection();
+		ps = con.prepareStatement(sql);
+		ps.setInt(1, 2);
+		ps.close();
+		try {
+			ps.setInt(1, 3);
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+		con.close();
+
+		assertEquals(1, ds.getStatementCacheHits());
+		assertEquals(1, ds.getStatementCacheMisses());
+		ctrlStatement.verify();
+		ctrlConnection.verify();
+	}
+
+	public void testStatementCacheClosesLeastRecentlyUsedStatement() throws Exception {
+		MockControl ctrlStatement = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement mockStatement = (PreparedStatement) ctrlStatement.getMock();
+		mockStatement.getFetchSize();
+		ctrlStatement.setReturnValue(0, 2);
+		mockStatement.getMaxRows();
+		ctrlStatement.setReturnValue(0, 2);
+		mockStatement.getQueryTimeout();
+		ctrlStatement.setReturnValue(0, 2);
+		mockStatement.clearParameters();
+		ctrlStatement.setVoidCallable(2);
+		mockStatement.clearWarnings();
+		ctrlStatement.setVoidCallable(2);
+		mockStatement.close();
+		ctrlStatement.setVoidCallable(1);
+		ctrlStatement.replay();
+
+		MockControl ctrlConnection = MockControl.createControl(Connection.class);
+		Connection mockConnection = (Connection) ctrlConnection.getMock();
+		mockConnection.prepareStatement("SELECT 1");
+		ctrlConnection.setReturnValue(mockStatement);
+		mockConnection.prepareStatement("SELECT 2", 1004, 1007);
+		ctrlConnection.setReturnValue(mockStatement);
+		mockConnection.getAutoCommit();
+		ctrlConnection.setDefaultReturnValue(true);
+		mockConnection.isClosed();
+		ctrlConnection.setDefaultReturnValue(false);
+		ctrlConnection.replay();
+
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setStatementCacheSize(1);
+		ds.connections.add(mockConnection);
+
+		Connection con = ds.getConnection();
+		con.prepareStatement("SELECT 1").close();
+		con.prepareStatement("SELECT 2", 1004, 1007).close();
+		con.close();
+
+		assertEquals(2, ds.getStatementCacheMisses());
+		ctrlStatement.verify();
+		ctrlConnection.verify();
+	}
+
+	public void testOpenStatementsAreClosedOnReturn() throws Exception {
+		MockControl ctrlStatement = MockControl.createControl(Statement.class);
+		Statement mockStatement = (Statement) ctrlStatement.getMock();
+		mockStatement.close();
+		ctrlStatement.setVoidCallable(1);
+		ctrlStatement.replay();
+
+		MockControl ctrlCallable = MockControl.createControl(CallableStatement.class);
+		CallableStatement mockCallable = (CallableStatement) ctrlCallable.getMock();
+		mockCallable.close();
+		ctrlCallable.setVoidCallable(1);
+		ctrlCallable.replay();
+
+		MockControl ctrlConnection = MockControl.createControl(Connection.class);
+		Connection mockConnection = (Connection) ctrlConnection.getMock();
+		mockConnection.createStatement();
+		ctrlConnection.setReturnValue(mockStatement);
+		mockConnection.prepareCall("{call proc}");
+		ctrlConnection.setReturnValue(mockCallable);
+		mockConnection.getAutoCommit();
+		ctrlConnection.setDefaultReturnValue(true);
+		mockConnection.isClosed();
+		ctrlConnection.setDefaultReturnValue(false);
+		ctrlConnection.replay();
+
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.connections.add(mockConnection);
+
+		Connection con = ds.getConnection();
+		Statement stmt = con.createStatement();
+		CallableStatement cs = con.prepareCall("{call proc}");
+		assertSame(con, stmt.getConnection());
+		assertSame(con, cs.getConnection());
+		cs.close();
+		cs.close();
+		con.close();
+
+		try {
+			stmt.executeQuery("SELECT 1");
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+		stmt.close();
+		ctrlStatement.verify();
+		ctrlCallable.verify();
+		ctrlConnection.verify();
+	}
+
+	public void testOpenCachedStatementIsReturnedToCacheOnReturn() throws Exception {
+		String sql = "SELECT NAME FROM CUSTMR WHERE ID = ?";
+
+		MockControl ctrlStatement = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement mockStatement = (PreparedStatement) ctrlStatement.getMock();
+		mockStatement.getFetchSize();
+		ctrlStatement.setReturnValue(0);
+		mockStatement.getMaxRows();
+		ctrlStatement.setReturnValue(0);
+		mockStatement.getQueryTimeout();
+		ctrlStatement.setReturnValue(0);
+		mockStatement.setInt(1, 1);
+		ctrlStatement.setVoidCallable(2);
+		mockStatement.clearParameters();
+		ctrlStatement.setVoidCallable(2);
+		mockStatement.clearWarnings();
+		ctrlStatement.setVoidCallable(2);
+		ctrlStatement.replay();
+
+		MockControl ctrlConnection = MockControl.createControl(Connection.class);
+		Connection mockConnection = (Connection) ctrlConnection.getMock();
+		mockConnection.prepareStatement(sql);
+		ctrlConnection.setReturnValue(mockStatement);
+		mockConnection.getAutoCommit();
+		ctrlConnection.setDefaultReturnValue(true);
+		mockConnection.isClosed();
+		ctrlConnection.setDefaultReturnValue(false);
+		ctrlConnection.replay();
+
+		TestPoolingDataSource ds = new TestPoolingDataSource();
+		ds.setStatementCacheSize(10);
+		ds.connections.add(mockConnection);
+
+		Connection con = ds.getConnection();
+		PreparedStatement leaked = con.prepareStatement(sql);
+		leaked.setInt(1, 1);
+		con.close();
+
+		con = ds.getConnection();
+		PreparedStatement ps = con.prepareStatement(sql);
+		ps.setInt(1, 1);
+		try {
+			leaked.setInt(1, 2);
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+		ps.close();
+		con.close();
+
+		assertEquals(1, ds.getStatementCacheHits());
+		assertEquals(1, ds.getStatementCacheMisses());
+		ctrlStatement.verify();
+		ctrlConnection.verify();
+	}
+
+
+	/**
+	 * PoolingDataSource that hands out mock connections, using the
+	 * given connections first. Default mocks expect to be closed once.
+	 */
+	private static class TestPoolingDataSource extends PoolingDataSource {
+
+		private final List connections = new ArrayList();
+
+		private final List mockControls = new ArrayList();
+
+		protected Connection getConnectionFromDriverManager(String url, String username, String password) {
+			if (!this.connections.isEmpty()) {
+				return (Connection) this.connections.remove(0);
+			}
+			MockControl ctrlConnection = MockControl.createControl(Connection.class);
+			Connection mockConnection = (Connection) ctrlConnection.getMock();
+			try {
+				mockConnection.getAutoCommit();
+				ctrlConnection.setDefaultReturnValue(true);
+				mockConnection.isClosed();
+				ctrlConnection.setDefaultReturnValue(false);
+				mockConnection.close();
+				ctrlConnection.setVoidCallable(1);
+			}
+			catch (SQLException ex) {
+				throw new IllegalStateException(ex.getMessage());
+			}
+			ctrlConnection.replay();
+			this.mockControls.add(ctrlConnection);
+			return mockConnection;
+		}
+
+		/**
+		 * Verify that all mock connections have been closed.
+		 */
+		public void verify() {
+			for (int i = 0; i < this.mockControls.size(); i++) {
+				((MockControl) this.mockControls.get(i)).verify();
+			}
+		}
+	}
+
+}
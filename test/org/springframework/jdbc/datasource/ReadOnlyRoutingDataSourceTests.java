@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @since 1.0.1
+ */
+public class ReadOnlyRoutingDataSourceTests extends TestCase {
+
+	private MockControl[] dsControls = new MockControl[3];
+
+	private DataSource[] dataSources = new DataSource[3];
+
+	private void initDataSources(int[] connectionCounts) throws Exception {
+		for (int i = 0; i < this.dataSources.length; i++) {
+			MockControl conControl = MockControl.createNiceControl(Connection.class);
+			Connection con = (Connection) conControl.getMock();
+			conControl.replay();
+			this.dsControls[i] = MockControl.createControl(DataSource.class);
+			this.dataSources[i] = (DataSource) this.dsControls[i].getMock();
+			if (connectionCounts[i] > 0) {
+				this.dataSources[i].getConnection();
+				this.dsControls[i].setReturnValue(con, connectionCounts[i]);
+			}
+			this.dsControls[i].replay();
+		}
+	}
+
+	private ReadOnlyRoutingDataSource createRoutingDataSource() {
+		List replicas = new ArrayList();
+		replicas.add(this.dataSources[1]);
+		replicas.add(this.dataSources[2]);
+		return new ReadOnlyRoutingDataSource(this.dataSources[0], replicas);
+	}
+
+	private void verifyDataSources() {
+		for (int i = 0; i < this.dsControls.length; i++) {
+			this.dsControls[i].verify();
+		}
+	}
+
+	private void assertMetrics(ReadOnlyRoutingDataSource ds, int index, int active, long total) {
+		ReadOnlyRoutingDataSource.TargetMetrics metrics =
+		    (ReadOnlyRoutingDataSource.TargetMetrics) ds.getTargetMetrics().get(index);
+		assertEquals(this.dataSources[index], metrics.getDataSource());
+		assertEquals(active, metrics.getActiveConnectionCount());
+		assertEquals(total, metrics.getTotalConnectionCount());
+	}
+
+	public void testNonTransactionalAccessUsesPrimary() throws Exception {
+		initDataSources(new int[] {2, 0, 0});
+		ReadOnlyRoutingDataSource ds = createRoutingDataSource();
+		Connection con = ds.getConnection();
+		assertMetrics(ds, 0, 1, 1);
+		con.close();
+		con.close();
+		assertMetrics(ds, 0, 0, 1);
+		ds.getConnection().close();
+		assertMetrics(ds, 0, 0, 2);
+		assertMetrics(ds, 1, 0, 0);
+		assertMetrics(ds, 2, 0, 0);
+		verifyDataSources();
+	}
+
+	public void testTransactionRouting() throws Exception {
+		initDataSources(new int[] {2, 1, 0});
+		final ReadOnlyRoutingDataSource ds = createRoutingDataSource();
+		final TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(ds));
+
+		tt.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				assertTrue("Not read-only", !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+				assertMetrics(ds, 0, 1, 1);
+			}
+		});
+		assertMetrics(ds, 0, 0, 1);
+
+		tt.setReadOnly(true);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				assertTrue("Read-only", TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+				assertMetrics(ds, 1, 1, 1);
+				TransactionTemplate tt2 = new TransactionTemplate(tt.getTransactionManager());
+				tt2.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+				tt2.execute(new TransactionCallbackWithoutResult() {
+					protected void doInTransactionWithoutResult(TransactionStatus status) {
+						assertTrue("Not read-only", !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+						assertMetrics(ds, 0, 1, 2);
+					}
+				});
+				assertTrue("Read-only again", TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+			}
+		});
+		assertTrue("Flag reset", !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertMetrics(ds, 0, 0, 2);
+		assertMetrics(ds, 1, 0, 1);
+		assertMetrics(ds, 2, 0, 0);
+		verifyDataSources();
+	}
+
+	public void testRoundRobin() throws Exception {
+		initDataSources(new int[] {0, 2, 2});
+		ReadOnlyRoutingDataSource ds = createRoutingDataSource();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		try {
+			for (int i = 0; i < 4; i++) {
+				ds.getConnection().close();
+				assertMetrics(ds, 1 + i % 2, 0, i / 2 + 1);
+			}
+		}
+		finally {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		}
+		verifyDataSources();
+	}
+
+	public void testLeastActive() throws Exception {
+		initDataSources(new int[] {0, 2, 2});
+		ReadOnlyRoutingDataSource ds = createRoutingDataSource();
+		ds.setLoadBalancingStrategyName("LOAD_BALANCING_LEAST_ACTIVE");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		try {
+			Connection con1 = ds.getConnection();
+			assertMetrics(ds, 1, 1, 1);
+			Connection con2 = ds.getConnection();
+			assertMetrics(ds, 2, 1, 1);
+			con1.close();
+			ds.getConnection();
+			assertMetrics(ds, 1, 1, 2);
+			con2.close();
+			ds.getConnection();
+			assertMetrics(ds, 2, 1, 2);
+		}
+		finally {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		}
+		verifyDataSources();
+	}
+
+	public void testReadOnlyWithoutReplicasUsesPrimary() throws Exception {
+		initDataSources(new int[] {1, 0, 0});
+		ReadOnlyRoutingDataSource ds = new ReadOnlyRoutingDataSource(this.dataSources[0], new ArrayList());
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		try {
+			ds.getConnection().close();
+		}
+		finally {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		}
+		assertEquals(1, ds.getTargetMetrics().size());
+		assertMetrics(ds, 0, 0, 1);
+		verifyDataSources();
+	}
+
+	public void testInvalidConfiguration() {
+		ReadOnlyRoutingDataSource ds = new ReadOnlyRoutingDataSource();
+		try {
+			ds.afterPropertiesSet();
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+		try {
+			ds.setLoadBalancingStrategy(5);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
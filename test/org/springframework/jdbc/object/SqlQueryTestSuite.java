@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -418,6 +419,133 @@ public class SqlQueryTestSuite extends JdbcTestCase {
 			cust.getForename().equals("rod"));
 	}
 
+	public void testFindCustomerByNamedParam() throws SQLException {
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(true);
+		mockResultSet.getInt("id");
+		ctrlResultSet.setReturnValue(1);
+		mockResultSet.getString("forename");
+		ctrlResultSet.setReturnValue("rod");
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		mockPreparedStatement.setString(1, "rod");
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(2, new Integer(1), Types.NUMERIC);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setString(3, "rod");
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.executeQuery();
+		ctrlPreparedStatement.setReturnValue(mockResultSet);
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement(
+				"select id, forename from custmr where forename = ? and id = ? or ? = 'x:y'");
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		replay();
+
+		class CustomerQuery extends MappingSqlQuery {
+
+			public CustomerQuery(DataSource ds) {
+				super(ds, "select id, forename from custmr where forename = :name and id = :id or :name = 'x:y'");
+				declareParameter(new SqlParameter("id", Types.NUMERIC));
+				declareParameter(new SqlParameter("name", Types.VARCHAR));
+				compile();
+			}
+
+			protected Object mapRow(ResultSet rs, int rownum) throws SQLException {
+				Customer cust = new Customer();
+				cust.setId(rs.getInt(COLUMN_NAMES[0]));
+				cust.setForename(rs.getString(COLUMN_NAMES[1]));
+				return cust;
+			}
+		}
+		CustomerQuery query = new CustomerQuery(mockDataSource);
+		Map params = new HashMap();
+		params.put("id", new Integer(1));
+		params.put("name", "rod");
+		Customer cust = (Customer) query.findObjectByNamedParam(params);
+
+		assertTrue("Customer id was assigned correctly", cust.getId() == 1);
+		assertTrue("Customer forename was assigned correctly", cust.getForename().equals("rod"));
+		ctrlPreparedStatement.verify();
+	}
+
+	public void testListCustomersWithNamedParamInList() throws SQLException {
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		// five ids, padded to a bucket of eight by repeating the last one
+		for (int i = 1; i <= 8; i++) {
+			mockPreparedStatement.setObject(i, new Integer(Math.min(i, 5)), Types.NUMERIC);
+			ctrlPreparedStatement.setVoidCallable();
+		}
+		mockPreparedStatement.executeQuery();
+		ctrlPreparedStatement.setReturnValue(mockResultSet);
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement("select id, forename from custmr where id in (?, ?, ?, ?, ?, ?, ?, ?)");
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		replay();
+
+		class CustomerQuery extends MappingSqlQuery {
+
+			public CustomerQuery(DataSource ds) {
+				super(ds, "select id, forename from custmr where id in (:ids)");
+				declareParameter(new SqlParameter("ids", Types.NUMERIC));
+				compile();
+			}
+
+			protected Object mapRow(ResultSet rs, int rownum) throws SQLException {
+				return null;
+			}
+		}
+		CustomerQuery query = new CustomerQuery(mockDataSource);
+		List ids = new ArrayList();
+		for (int i = 1; i <= 5; i++) {
+			ids.add(new Integer(i));
+		}
+		List customers = query.execute(new Object[] {ids});
+		assertEquals(0, customers.size());
+		ctrlPreparedStatement.verify();
+	}
+
+	public void testNamedParamNotDeclared() {
+		replay();
+
+		class CustomerQuery extends MappingSqlQuery {
+
+			public CustomerQuery(DataSource ds) {
+				super(ds, "select id from custmr where id = :id");
+				declareParameter(new SqlParameter("other", Types.NUMERIC));
+			}
+
+			protected Object mapRow(ResultSet rs, int rownum) throws SQLException {
+				return null;
+			}
+		}
+		CustomerQuery query = new CustomerQuery(mockDataSource);
+		try {
+			query.compile();
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+	}
+
 	public void testFindCustomerString() throws SQLException {
 		mockResultSet.next();
 		ctrlResultSet.setReturnValue(true);
@@ -16,12 +16,18 @@
 
 package org.springframework.jdbc.object;
 
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.easymock.MockControl;
 
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.JdbcTestCase;
 import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
 import org.springframework.jdbc.core.SqlParameter;
@@ -146,6 +152,99 @@ public class SqlUpdateTestSuite extends JdbcTestCase {
 		assertEquals(1, rowsAffected);
 	}
 
+	public void testBatchUpdate() throws SQLException {
+		mockPreparedStatement.getConnection();
+		ctrlPreparedStatement.setReturnValue(mockConnection);
+		mockPreparedStatement.setObject(1, new Integer(1), Types.NUMERIC);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(1, new Integer(2), Types.NUMERIC);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(1, new Integer(3), Types.NUMERIC);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.addBatch();
+		ctrlPreparedStatement.setVoidCallable(3);
+		mockPreparedStatement.executeBatch();
+		ctrlPreparedStatement.setReturnValue(new int[] {2, 1});
+		mockPreparedStatement.executeBatch();
+		ctrlPreparedStatement.setReturnValue(new int[] {4});
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		MockControl ctrlDatabaseMetaData = MockControl.createControl(DatabaseMetaData.class);
+		DatabaseMetaData mockDatabaseMetaData = (DatabaseMetaData) ctrlDatabaseMetaData.getMock();
+		mockDatabaseMetaData.getDatabaseProductName();
+		ctrlDatabaseMetaData.setReturnValue("MySQL");
+		mockDatabaseMetaData.getDriverVersion();
+		ctrlDatabaseMetaData.setReturnValue("1.2.3");
+		mockDatabaseMetaData.supportsBatchUpdates();
+		ctrlDatabaseMetaData.setReturnValue(true);
+		ctrlDatabaseMetaData.replay();
+
+		mockConnection.getMetaData();
+		ctrlConnection.setReturnValue(mockDatabaseMetaData, 2);
+		mockConnection.prepareStatement(UPDATE_INT);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		replay();
+
+		List batchArgs = new ArrayList();
+		batchArgs.add(new Object[] {new Integer(1)});
+		batchArgs.add(new Object[] {new Integer(2)});
+		batchArgs.add(new Object[] {new Integer(3)});
+		IntUpdater pc = new IntUpdater();
+		int rowsAffected = pc.batchUpdate(batchArgs.iterator(), 2);
+		assertEquals(7, rowsAffected);
+		ctrlDatabaseMetaData.verify();
+	}
+
+	public void testUpdateByNamedParam() throws SQLException {
+		mockPreparedStatement.setObject(1, new Integer(1), Types.NUMERIC);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(2, new Integer(2), Types.NUMERIC);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.executeUpdate();
+		ctrlPreparedStatement.setReturnValue(1);
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement(UPDATE_INT_INT);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		replay();
+
+		SqlUpdate pc = new SqlUpdate();
+		pc.setDataSource(mockDataSource);
+		pc.setSql("update seat_status set booking_id = null where performance_id = :perf and price_band_id = :band");
+		pc.declareParameter(new SqlParameter("band", Types.NUMERIC));
+		pc.declareParameter(new SqlParameter("perf", Types.NUMERIC));
+		pc.compile();
+		Map params = new HashMap();
+		params.put("perf", new Integer(1));
+		params.put("band", new Integer(2));
+		int rowsAffected = pc.updateByNamedParam(params);
+		assertEquals(1, rowsAffected);
+	}
+
+	public void testUpdateByNamedParamWithMissingValue() {
+		replay();
+
+		SqlUpdate pc = new SqlUpdate();
+		pc.setDataSource(mockDataSource);
+		pc.setSql("update seat_status set booking_id = null where performance_id = :perf");
+		pc.declareParameter(new SqlParameter("perf", Types.NUMERIC));
+		try {
+			pc.updateByNamedParam(new HashMap());
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+	}
+
 	public void testUpdateString() {
 		try {
 			mockPreparedStatement.setString(1, "rod");
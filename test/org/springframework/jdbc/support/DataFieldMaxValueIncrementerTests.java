@@ -20,12 +20,20 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
 import junit.framework.TestCase;
 import org.easymock.MockControl;
 
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.HiLoMaxValueIncrementer;
 import org.springframework.jdbc.support.incrementer.HsqlMaxValueIncrementer;
 import org.springframework.jdbc.support.incrementer.MySQLMaxValueIncrementer;
 import org.springframework.jdbc.support.incrementer.OracleSequenceMaxValueIncrementer;
@@ -250,4 +258,287 @@ public class DataFieldMaxValueIncrementerTests extends TestCase {
 		rsControl.verify();
 	}
 
+	public void testHiLoMaxValueIncrementer() {
+		MockControl hiControl = MockControl.createControl(DataFieldMaxValueIncrementer.class);
+		DataFieldMaxValueIncrementer hiIncrementer = (DataFieldMaxValueIncrementer) hiControl.getMock();
+		hiIncrementer.nextLongValue();
+		hiControl.setReturnValue(1);
+		hiIncrementer.nextLongValue();
+		hiControl.setReturnValue(5);
+		hiControl.replay();
+
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer();
+		incrementer.setHiValueIncrementer(hiIncrementer);
+		incrementer.setBlockSize(3);
+		incrementer.setPaddingLength(2);
+		incrementer.afterPropertiesSet();
+
+		assertEquals(1, incrementer.nextIntValue());
+		assertEquals(2, incrementer.nextLongValue());
+		assertEquals("03", incrementer.nextStringValue());
+		assertEquals(13, incrementer.nextLongValue());
+		assertEquals(14, incrementer.nextIntValue());
+
+		hiControl.verify();
+	}
+
+	public void testHiLoMaxValueIncrementerWithConcurrentThreads() throws InterruptedException {
+		CountingIncrementer hiIncrementer = new CountingIncrementer();
+		final HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer(hiIncrementer, 10);
+		final Set keys = Collections.synchronizedSet(new HashSet());
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						keys.add(new Long(incrementer.nextLongValue()));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		assertEquals("All keys unique", 8000, keys.size());
+		assertEquals(800, hiIncrementer.getCount());
+		for (long i = 1; i <= 8000; i++) {
+			assertTrue(keys.contains(new Long(i)));
+		}
+	}
+
+	public void testHiLoMaxValueIncrementerWithPrefetch() throws InterruptedException {
+		CountingIncrementer hiIncrementer = new CountingIncrementer();
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer();
+		incrementer.setHiValueIncrementer(hiIncrementer);
+		incrementer.setBlockSize(10);
+		incrementer.setPrefetchThreshold(5);
+		incrementer.afterPropertiesSet();
+
+		for (long i = 1; i <= 4; i++) {
+			assertEquals(i, incrementer.nextLongValue());
+		}
+		assertEquals(1, hiIncrementer.getCount());
+		assertEquals(5, incrementer.nextLongValue());
+		for (int i = 0; i < 100 && hiIncrementer.getCount() < 2; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals("Next block prefetched", 2, hiIncrementer.getCount());
+		for (long i = 6; i <= 20; i++) {
+			assertEquals(i, incrementer.nextLongValue());
+		}
+	}
+
+	public void testHiLoMaxValueIncrementerSuspendsPrefetchAfterFailure() throws InterruptedException {
+		FailingIncrementer hiIncrementer = new FailingIncrementer();
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer();
+		incrementer.setHiValueIncrementer(hiIncrementer);
+		incrementer.setBlockSize(10);
+		incrementer.setPrefetchThreshold(5);
+		incrementer.afterPropertiesSet();
+		try {
+			for (long i = 1; i <= 4; i++) {
+				assertEquals(i, incrementer.nextLongValue());
+			}
+			hiIncrementer.setFailing(true);
+			for (long i = 5; i <= 10; i++) {
+				assertEquals(i, incrementer.nextLongValue());
+			}
+			for (int i = 0; i < 3; i++) {
+				try {
+					incrementer.nextLongValue();
+					fail("Should have thrown DataAccessResourceFailureException");
+				}
+				catch (DataAccessResourceFailureException ex) {
+					// expected
+				}
+			}
+			assertEquals("No background fetch after failure", 5, hiIncrementer.getCallCount());
+
+			hiIncrementer.setFailing(false);
+			for (long i = 11; i <= 15; i++) {
+				assertEquals(i, incrementer.nextLongValue());
+			}
+			for (int i = 0; i < 100 && hiIncrementer.getCallCount() < 7; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals("Prefetching resumed", 7, hiIncrementer.getCallCount());
+			for (long i = 16; i <= 25; i++) {
+				assertEquals(i, incrementer.nextLongValue());
+			}
+		}
+		finally {
+			incrementer.destroy();
+		}
+	}
+
+	public void testHiLoMaxValueIncrementerWithInvalidHiValue() {
+		MockControl hiControl = MockControl.createControl(DataFieldMaxValueIncrementer.class);
+		DataFieldMaxValueIncrementer hiIncrementer = (DataFieldMaxValueIncrementer) hiControl.getMock();
+		hiIncrementer.nextLongValue();
+		hiControl.setReturnValue(0);
+		hiControl.replay();
+
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer(hiIncrementer, 10);
+		try {
+			incrementer.nextLongValue();
+			fail("Should have thrown DataAccessResourceFailureException");
+		}
+		catch (DataAccessResourceFailureException ex) {
+			// expected
+		}
+		hiControl.verify();
+	}
+
+	public void testHiLoMaxValueIncrementerWithKeyBeyondIntRange() {
+		MockControl hiControl = MockControl.createControl(DataFieldMaxValueIncrementer.class);
+		DataFieldMaxValueIncrementer hiIncrementer = (DataFieldMaxValueIncrementer) hiControl.getMock();
+		hiIncrementer.nextLongValue();
+		hiControl.setReturnValue(Integer.MAX_VALUE / 10 + 2);
+		hiControl.replay();
+
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer(hiIncrementer, 10);
+		try {
+			incrementer.nextIntValue();
+			fail("Should have thrown DataAccessResourceFailureException");
+		}
+		catch (DataAccessResourceFailureException ex) {
+			// expected
+		}
+		assertEquals(Integer.MAX_VALUE + 5L, incrementer.nextLongValue());
+		hiControl.verify();
+	}
+
+	public void testHiLoMaxValueIncrementerInterruptedWhileWaitingForBlock() throws InterruptedException {
+		final BlockingIncrementer hiIncrementer = new BlockingIncrementer();
+		final HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer(hiIncrementer, 10);
+		final List keys = Collections.synchronizedList(new ArrayList());
+		Thread fetcher = new Thread() {
+			public void run() {
+				keys.add(new Long(incrementer.nextLongValue()));
+			}
+		};
+		fetcher.start();
+		hiIncrementer.waitUntilFetching();
+
+		Thread.currentThread().interrupt();
+		try {
+			incrementer.nextLongValue();
+			fail("Should have thrown DataAccessResourceFailureException");
+		}
+		catch (DataAccessResourceFailureException ex) {
+			// expected
+		}
+		assertTrue("Interrupted status restored", Thread.interrupted());
+
+		hiIncrementer.release();
+		fetcher.join(5000);
+		assertEquals(1, keys.size());
+		assertEquals(new Long(1), keys.get(0));
+		assertEquals(2, incrementer.nextLongValue());
+	}
+
+
+	private static class CountingIncrementer implements DataFieldMaxValueIncrementer {
+
+		private long count = 0;
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		public int nextIntValue() {
+			return (int) nextLongValue();
+		}
+
+		public synchronized long nextLongValue() {
+			return ++this.count;
+		}
+
+		public String nextStringValue() {
+			return Long.toString(nextLongValue());
+		}
+	}
+
+
+	/**
+	 * Incrementer that counts successful calls, failing while told to.
+	 */
+	private static class FailingIncrementer implements DataFieldMaxValueIncrementer {
+
+		private boolean failing = false;
+
+		private int callCount = 0;
+
+		private long count = 0;
+
+		public synchronized void setFailing(boolean failing) {
+			this.failing = failing;
+		}
+
+		public synchronized int getCallCount() {
+			return callCount;
+		}
+
+		public int nextIntValue() {
+			return (int) nextLongValue();
+		}
+
+		public synchronized long nextLongValue() {
+			this.callCount++;
+			if (this.failing) {
+				throw new DataAccessResourceFailureException("Database down");
+			}
+			return ++this.count;
+		}
+
+		public String nextStringValue() {
+			return Long.toString(nextLongValue());
+		}
+	}
+
+
+	/**
+	 * Incrementer that returns 1, blocking until released.
+	 */
+	private static class BlockingIncrementer implements DataFieldMaxValueIncrementer {
+
+		private boolean fetching = false;
+
+		private boolean released = false;
+
+		public synchronized void waitUntilFetching() throws InterruptedException {
+			while (!this.fetching) {
+				wait();
+			}
+		}
+
+		public synchronized void release() {
+			this.released = true;
+			notifyAll();
+		}
+
+		public int nextIntValue() {
+			return (int) nextLongValue();
+		}
+
+		public synchronized long nextLongValue() {
+			this.fetching = true;
+			notifyAll();
+			while (!this.released) {
+				try {
+					wait();
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException("Interrupted");
+				}
+			}
+			return 1;
+		}
+
+		public String nextStringValue() {
+			return Long.toString(nextLongValue());
+		}
+	}
+
 }
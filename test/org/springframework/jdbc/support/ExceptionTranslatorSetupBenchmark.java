@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Standalone benchmark for creating JdbcTemplates at runtime: each iteration
+ * creates a new JdbcTemplate for the same DataSource and initializes it,
+ * which builds its default SQLErrorCodeSQLExceptionTranslator. Runs against
+ * a DriverManagerDataSource for an in-process HSQLDB database. Not a unit
+ * test: run via the main method, optionally passing the measurement time in
+ * milliseconds. For a before/after comparison, run this class against the
+ * classes of both revisions.
+ *
+ * <p>An in-process HSQLDB connection is very cheap to open. With a networked
+ * database, every lookup that misses the error codes cache costs a full
+ * connection open and close.
+ *
+ * @since 1.0.1
+ * @see SQLErrorCodesFactory#getErrorCodes(javax.sql.DataSource)
+ */
+public class ExceptionTranslatorSetupBenchmark {
+
+	public static void main(String[] args) {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		DriverManagerDataSource ds =
+				new DriverManagerDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "");
+
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			long count = 0;
+			long startTime = System.currentTimeMillis();
+			long endTime = startTime + duration;
+			while (System.currentTimeMillis() < endTime) {
+				for (int i = 0; i < 100; i++) {
+					JdbcTemplate template = new JdbcTemplate();
+					template.setDataSource(ds);
+					template.afterPropertiesSet();
+				}
+				count += 100;
+			}
+			if (round == 1) {
+				long elapsed = System.currentTimeMillis() - startTime;
+				System.out.println("JdbcTemplate with exception translator: " +
+						(elapsed * 1000000 / count) + " ns per template");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.jdbc.support;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.HiLoMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.HsqlMaxValueIncrementer;
+
+/**
+ * Standalone benchmark for key generation: reports the keys per second that
+ * 1, 4 and 16 threads obtain from a HsqlMaxValueIncrementer on an in-process
+ * HSQLDB database, and from a HiLoMaxValueIncrementer with a block size of
+ * 100 on top of it, with and without prefetching. An optional latency gets
+ * added to each hi value fetch, standing in for the round trip to a remote
+ * database. Not a unit test: run via the main method, optionally passing the
+ * measurement time per variant in milliseconds and the latency per hi value
+ * fetch in milliseconds.
+ *
+ * @since 1.0.1
+ * @see HiLoMaxValueIncrementer
+ */
+public class KeyGenerationBenchmark {
+
+	private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+	public static void main(String[] args) throws Exception {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		long latency = (args.length > 1 ? Long.parseLong(args[1]) : 0);
+		SingleConnectionDataSource ds =
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		JdbcTemplate template = new JdbcTemplate(ds);
+		template.execute("CREATE TABLE key_sequence (value IDENTITY)");
+		template.execute("INSERT INTO key_sequence VALUES (0)");
+		template.execute("CREATE TABLE hi_sequence (value IDENTITY)");
+		template.execute("INSERT INTO hi_sequence VALUES (0)");
+
+		DataFieldMaxValueIncrementer sequence = new HsqlMaxValueIncrementer(ds, "key_sequence", "value");
+		DataFieldMaxValueIncrementer hiSequence =
+				new LatencyIncrementer(new HsqlMaxValueIncrementer(ds, "hi_sequence", "value"), latency);
+		HiLoMaxValueIncrementer hiLo = new HiLoMaxValueIncrementer(hiSequence, 100);
+		HiLoMaxValueIncrementer prefetchingHiLo = new HiLoMaxValueIncrementer(hiSequence, 100);
+		prefetchingHiLo.setPrefetchThreshold(50);
+		prefetchingHiLo.afterPropertiesSet();
+
+		DataFieldMaxValueIncrementer[] incrementers = {sequence, hiLo, prefetchingHiLo};
+		String[] names = {"HsqlMaxValueIncrementer", "HiLoMaxValueIncrementer",
+				"HiLoMaxValueIncrementer with prefetching"};
+		System.out.println("keys/s with " + latency + " ms latency per hi value fetch:");
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < incrementers.length; i++) {
+				StringBuffer line = new StringBuffer(names[i] + ":");
+				for (int j = 0; j < THREAD_COUNTS.length; j++) {
+					long count = measure(incrementers[i], THREAD_COUNTS[j], duration);
+					line.append(" " + THREAD_COUNTS[j] + " threads " + (count * 1000 / duration));
+				}
+				if (round == 1) {
+					System.out.println(line);
+				}
+			}
+		}
+		prefetchingHiLo.destroy();
+		ds.destroy();
+	}
+
+	private static long measure(final DataFieldMaxValueIncrementer incrementer, int threadCount, long duration)
+			throws InterruptedException {
+		final long endTime = System.currentTimeMillis() + duration;
+		final long[] counts = new long[threadCount];
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					long count = 0;
+					while (System.currentTimeMillis() < endTime) {
+						for (int k = 0; k < 100; k++) {
+							incrementer.nextLongValue();
+						}
+						count += 100;
+					}
+					counts[index] = count;
+				}
+			};
+			threads[i].start();
+		}
+		long total = 0;
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+			total += counts[i];
+		}
+		return total;
+	}
+
+
+	/**
+	 * Incrementer decorator that sleeps for the given time before each value.
+	 */
+	private static class LatencyIncrementer implements DataFieldMaxValueIncrementer {
+
+		private final DataFieldMaxValueIncrementer target;
+
+		private final long latency;
+
+		public LatencyIncrementer(DataFieldMaxValueIncrementer target, long latency) {
+			this.target = target;
+			this.latency = latency;
+		}
+
+		public int nextIntValue() throws DataAccessException {
+			return (int) nextLongValue();
+		}
+
+		public long nextLongValue() throws DataAccessException {
+			if (this.latency > 0) {
+				try {
+					Thread.sleep(this.latency);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return this.target.nextLongValue();
+		}
+
+		public String nextStringValue() throws DataAccessException {
+			return Long.toString(nextLongValue());
+		}
+	}
+
+}
@@ -177,6 +177,56 @@ public class SQLErrorCodesFactoryTests extends TestCase {
 		ctrlDataSource.verify();
 	}
 
+	public void testErrorCodesCachedPerDataSource() throws Exception {
+		MockControl mdControl = MockControl.createControl(DatabaseMetaData.class);
+		DatabaseMetaData md = (DatabaseMetaData) mdControl.getMock();
+		md.getDatabaseProductName();
+		mdControl.setReturnValue("Oracle");
+		md.getDriverVersion();
+		mdControl.setReturnValue("version");
+		mdControl.replay();
+
+		MockControl ctrlConnection = MockControl.createControl(Connection.class);
+		Connection mockConnection = (Connection) ctrlConnection.getMock();
+		mockConnection.getMetaData();
+		ctrlConnection.setReturnValue(md, 1);
+		mockConnection.close();
+		ctrlConnection.setVoidCallable(1);
+		ctrlConnection.replay();
+
+		MockControl ctrlDataSource = MockControl.createControl(DataSource.class);
+		DataSource mockDataSource = (DataSource) ctrlDataSource.getMock();
+		mockDataSource.getConnection();
+		ctrlDataSource.setReturnValue(mockConnection, 1);
+		ctrlDataSource.replay();
+
+		SQLErrorCodesFactory factory = SQLErrorCodesFactory.getInstance();
+		SQLErrorCodes sec = factory.getErrorCodes(mockDataSource);
+		assertIsOracle(sec);
+		// served from the cache, without a further connection
+		assertSame(sec, factory.getErrorCodes(mockDataSource));
+		assertSame(sec, new SQLErrorCodeSQLExceptionTranslator(mockDataSource).getSqlErrorCodes());
+
+		mdControl.verify();
+		ctrlConnection.verify();
+		ctrlDataSource.verify();
+		factory.clearCache(mockDataSource);
+	}
+
+	public void testFailedLookupNotCached() throws Exception {
+		MockControl ctrlDataSource = MockControl.createControl(DataSource.class);
+		DataSource mockDataSource = (DataSource) ctrlDataSource.getMock();
+		mockDataSource.getConnection();
+		ctrlDataSource.setThrowable(new SQLException(), 2);
+		ctrlDataSource.replay();
+
+		SQLErrorCodesFactory factory = SQLErrorCodesFactory.getInstance();
+		assertIsEmpty(factory.getErrorCodes(mockDataSource));
+		assertIsEmpty(factory.getErrorCodes(mockDataSource));
+
+		ctrlDataSource.verify();
+	}
+
 	private void assertIsEmpty(SQLErrorCodes sec) {
 		// Codes should be empty
 		assertEquals(0, sec.getBadSqlGrammarCodes().length);
@@ -32,6 +32,7 @@ import net.sf.hibernate.ObjectNotFoundException;
 import net.sf.hibernate.PersistentObjectException;
 import net.sf.hibernate.Query;
 import net.sf.hibernate.QueryException;
+import net.sf.hibernate.ScrollableResults;
 import net.sf.hibernate.Session;
 import net.sf.hibernate.SessionFactory;
 import net.sf.hibernate.StaleObjectStateException;
@@ -576,6 +577,120 @@ public class HibernateTemplateTests extends TestCase {
 		tbs.add(tb1);
 		tbs.add(tb2);
 		ht.deleteAll(tbs);
+		assertEquals("Not routed through bulk processing", 0, ht.getBulkEntityCount());
+		sfControl.verify();
+		sessionControl.verify();
+	}
+
+	public void testSaveAllWithBatchSize() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createStrictControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		TestBean tb1 = new TestBean();
+		TestBean tb2 = new TestBean();
+		TestBean tb3 = new TestBean();
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.save(tb1);
+		sessionControl.setReturnValue(new Integer(1), 1);
+		session.save(tb2);
+		sessionControl.setReturnValue(new Integer(2), 1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.clear();
+		sessionControl.setVoidCallable(1);
+		session.save(tb3);
+		sessionControl.setReturnValue(new Integer(3), 1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setBatchSize(2);
+		List tbs = new ArrayList();
+		tbs.add(tb1);
+		tbs.add(tb2);
+		tbs.add(tb3);
+		List ids = ht.saveAll(tbs);
+		assertEquals(3, ids.size());
+		assertEquals(new Integer(1), ids.get(0));
+		assertEquals(new Integer(3), ids.get(2));
+		assertEquals(3, ht.getBulkEntityCount());
+		assertEquals(1, ht.getBulkFlushCount());
+		sfControl.verify();
+		sessionControl.verify();
+	}
+
+	public void testSaveOrUpdateAll() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		TestBean tb1 = new TestBean();
+		TestBean tb2 = new TestBean();
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.saveOrUpdate(tb1);
+		sessionControl.setVoidCallable(1);
+		session.saveOrUpdate(tb2);
+		sessionControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		List tbs = new ArrayList();
+		tbs.add(tb1);
+		tbs.add(tb2);
+		ht.saveOrUpdateAll(tbs);
+		assertEquals(2, ht.getBulkEntityCount());
+		assertEquals(0, ht.getBulkFlushCount());
+		sfControl.verify();
+		sessionControl.verify();
+	}
+
+	public void testUpdateAllWithBatchSize() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createStrictControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		TestBean tb1 = new TestBean();
+		TestBean tb2 = new TestBean();
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.update(tb1);
+		sessionControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.clear();
+		sessionControl.setVoidCallable(1);
+		session.update(tb2);
+		sessionControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.clear();
+		sessionControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setBatchSize(1);
+		List tbs = new ArrayList();
+		tbs.add(tb1);
+		tbs.add(tb2);
+		ht.updateAll(tbs);
+		assertEquals(2, ht.getBulkFlushCount());
 		sfControl.verify();
 		sessionControl.verify();
 	}
@@ -757,6 +872,192 @@ public class HibernateTemplateTests extends TestCase {
 		}
 	}
 
+	public void testScrollWithParametersAndEviction() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createStrictControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		MockControl queryControl = MockControl.createControl(Query.class);
+		Query query = (Query) queryControl.getMock();
+		MockControl resultsControl = MockControl.createStrictControl(ScrollableResults.class);
+		ScrollableResults results = (ScrollableResults) resultsControl.getMock();
+		TestBean tb1 = new TestBean();
+		TestBean tb2 = new TestBean();
+		TestBean tb3 = new TestBean();
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.createQuery("some query string");
+		sessionControl.setReturnValue(query, 1);
+		query.setParameter(0, "myvalue");
+		queryControl.setReturnValue(query, 1);
+		query.scroll();
+		queryControl.setReturnValue(results, 1);
+		results.next();
+		resultsControl.setReturnValue(true, 1);
+		results.get();
+		resultsControl.setReturnValue(new Object[] {tb1}, 1);
+		session.contains(tb1);
+		sessionControl.setReturnValue(true, 1);
+		results.next();
+		resultsControl.setReturnValue(true, 1);
+		results.get();
+		resultsControl.setReturnValue(new Object[] {tb2}, 1);
+		session.contains(tb2);
+		sessionControl.setReturnValue(true, 1);
+		session.getFlushMode();
+		sessionControl.setReturnValue(FlushMode.AUTO, 1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.evict(tb1);
+		sessionControl.setVoidCallable(1);
+		session.evict(tb2);
+		sessionControl.setVoidCallable(1);
+		results.next();
+		resultsControl.setReturnValue(true, 1);
+		results.get();
+		resultsControl.setReturnValue(new Object[] {tb3}, 1);
+		session.contains(tb3);
+		sessionControl.setReturnValue(true, 1);
+		results.next();
+		resultsControl.setReturnValue(false, 1);
+		session.getFlushMode();
+		sessionControl.setReturnValue(FlushMode.NEVER, 1);
+		session.evict(tb3);
+		sessionControl.setVoidCallable(1);
+		results.close();
+		resultsControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+		queryControl.replay();
+		resultsControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setScrollChunkSize(2);
+		final List processed = new ArrayList();
+		int count = ht.scroll("some query string", new Object[] {"myvalue"}, new HibernateResultHandler() {
+			public void processResult(Object result) {
+				processed.add(result);
+			}
+		});
+		assertEquals(3, count);
+		assertEquals(3, processed.size());
+		assertTrue("Correct result", processed.get(2) == tb3);
+		sfControl.verify();
+		sessionControl.verify();
+		queryControl.verify();
+		resultsControl.verify();
+	}
+
+	public void testScrollWithThreadBoundSessionDoesNotEvict() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createStrictControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		MockControl queryControl = MockControl.createControl(Query.class);
+		Query query = (Query) queryControl.getMock();
+		MockControl resultsControl = MockControl.createStrictControl(ScrollableResults.class);
+		ScrollableResults results = (ScrollableResults) resultsControl.getMock();
+		TestBean tb1 = new TestBean();
+		TestBean tb2 = new TestBean();
+		session.createQuery("some query string");
+		sessionControl.setReturnValue(query, 1);
+		query.scroll();
+		queryControl.setReturnValue(results, 1);
+		results.next();
+		resultsControl.setReturnValue(true, 1);
+		results.get();
+		resultsControl.setReturnValue(new Object[] {tb1}, 1);
+		results.next();
+		resultsControl.setReturnValue(true, 1);
+		results.get();
+		resultsControl.setReturnValue(new Object[] {tb2}, 1);
+		results.next();
+		resultsControl.setReturnValue(false, 1);
+		results.close();
+		resultsControl.setVoidCallable(1);
+		sfControl.replay();
+		sessionControl.replay();
+		queryControl.replay();
+		resultsControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		ht.setScrollChunkSize(1);
+		TransactionSynchronizationManager.bindResource(sf, new SessionHolder(session));
+		final List processed = new ArrayList();
+		int count;
+		try {
+			count = ht.scroll("some query string", new HibernateResultHandler() {
+				public void processResult(Object result) {
+					processed.add(result);
+				}
+			});
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(sf);
+		}
+		assertEquals(2, count);
+		assertTrue("Correct result", processed.get(1) == tb2);
+		sfControl.verify();
+		sessionControl.verify();
+		queryControl.verify();
+		resultsControl.verify();
+	}
+
+	public void testScrollByNamedQueryWithScalarRows() throws HibernateException {
+		MockControl sfControl = MockControl.createControl(SessionFactory.class);
+		SessionFactory sf = (SessionFactory) sfControl.getMock();
+		MockControl sessionControl = MockControl.createControl(Session.class);
+		Session session = (Session) sessionControl.getMock();
+		MockControl queryControl = MockControl.createControl(Query.class);
+		Query query = (Query) queryControl.getMock();
+		MockControl resultsControl = MockControl.createStrictControl(ScrollableResults.class);
+		ScrollableResults results = (ScrollableResults) resultsControl.getMock();
+		Object[] row = new Object[] {"myvalue", new Integer(2)};
+		sf.openSession();
+		sfControl.setReturnValue(session, 1);
+		session.getNamedQuery("some query name");
+		sessionControl.setReturnValue(query, 1);
+		query.scroll();
+		queryControl.setReturnValue(results, 1);
+		results.next();
+		resultsControl.setReturnValue(true, 1);
+		results.get();
+		resultsControl.setReturnValue(row, 1);
+		session.contains(null);
+		sessionControl.setMatcher(MockControl.ALWAYS_MATCHER);
+		sessionControl.setReturnValue(false, 2);
+		results.next();
+		resultsControl.setReturnValue(false, 1);
+		results.close();
+		resultsControl.setVoidCallable(1);
+		session.flush();
+		sessionControl.setVoidCallable(1);
+		session.close();
+		sessionControl.setReturnValue(null, 1);
+		sfControl.replay();
+		sessionControl.replay();
+		queryControl.replay();
+		resultsControl.replay();
+
+		HibernateTemplate ht = new HibernateTemplate(sf);
+		final List processed = new ArrayList();
+		int count = ht.scrollByNamedQuery("some query name", new HibernateResultHandler() {
+			public void processResult(Object result) {
+				processed.add(result);
+			}
+		});
+		assertEquals(1, count);
+		assertTrue("Correct result", processed.get(0) == row);
+		sfControl.verify();
+		sessionControl.verify();
+		queryControl.verify();
+		resultsControl.verify();
+	}
+
 	public void testFindByValueBean() throws HibernateException {
 		MockControl sfControl = MockControl.createControl(SessionFactory.class);
 		SessionFactory sf = (SessionFactory) sfControl.getMock();
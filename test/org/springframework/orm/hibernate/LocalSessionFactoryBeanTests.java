@@ -145,6 +145,22 @@ public class LocalSessionFactoryBeanTests extends TestCase {
 		assertTrue(invocations.contains("newSessionFactory"));
 	}
 
+	public void testLocalSessionFactoryBeanWithJdbcBatchAndFetchSize() throws Exception {
+		final Set invocations = new HashSet();
+		LocalSessionFactoryBean sfb = new LocalSessionFactoryBean() {
+			protected SessionFactory newSessionFactory(Configuration config) throws HibernateException {
+				assertEquals("50", config.getProperty(Environment.STATEMENT_BATCH_SIZE));
+				assertEquals("100", config.getProperty(Environment.STATEMENT_FETCH_SIZE));
+				invocations.add("newSessionFactory");
+				return null;
+			}
+		};
+		sfb.setJdbcBatchSize(50);
+		sfb.setJdbcFetchSize(100);
+		sfb.afterPropertiesSet();
+		assertTrue(invocations.contains("newSessionFactory"));
+	}
+
 	public void testLocalSessionFactoryBeanWithValidProperties() throws Exception {
 		final Set invocations = new HashSet();
 		LocalSessionFactoryBean sfb = new LocalSessionFactoryBean() {
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.transaction.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+public class NameMatchTransactionAttributeSourceTests extends TestCase {
+
+	public void testMostSpecificNameMatch() throws Exception {
+		NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
+		TransactionAttribute getAttr = new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_SUPPORTS);
+		TransactionAttribute getNameAttr = new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRED);
+		tas.addTransactionalMethod("get*", getAttr);
+		tas.addTransactionalMethod("getN*", getNameAttr);
+
+		assertSame(getNameAttr, tas.getTransactionAttribute(ITestBean.class.getMethod("getName", null), TestBean.class));
+		assertSame(getAttr, tas.getTransactionAttribute(ITestBean.class.getMethod("getAge", null), TestBean.class));
+		assertNull(tas.getTransactionAttribute(
+				ITestBean.class.getMethod("setAge", new Class[] {int.class}), TestBean.class));
+	}
+
+	public void testAttributesCachedPerMethodAndTargetClass() throws Exception {
+		CountingTransactionAttributeSource tas = new CountingTransactionAttributeSource();
+		TransactionAttribute attr = new DefaultTransactionAttribute();
+		tas.addTransactionalMethod("get*", attr);
+		Method getName = ITestBean.class.getMethod("getName", null);
+		Method setName = ITestBean.class.getMethod("setName", new Class[] {String.class});
+
+		for (int i = 0; i < 3; i++) {
+			assertSame(attr, tas.getTransactionAttribute(getName, TestBean.class));
+			assertNull(tas.getTransactionAttribute(setName, TestBean.class));
+		}
+		assertEquals(2, tas.computed);
+
+		assertSame(attr, tas.getTransactionAttribute(getName, null));
+		assertEquals(3, tas.computed);
+	}
+
+	public void testCacheClearedOnNewAttribute() throws Exception {
+		CountingTransactionAttributeSource tas = new CountingTransactionAttributeSource();
+		Method setName = ITestBean.class.getMethod("setName", new Class[] {String.class});
+		assertNull(tas.getTransactionAttribute(setName, TestBean.class));
+
+		TransactionAttribute attr = new DefaultTransactionAttribute();
+		tas.addTransactionalMethod("set*", attr);
+		assertSame(attr, tas.getTransactionAttribute(setName, TestBean.class));
+		assertEquals(2, tas.computed);
+	}
+
+	public void testTransactionProxyFactoryBeanPreloadsAttributes() throws Exception {
+		MockControl ptmControl = MockControl.createControl(PlatformTransactionManager.class);
+		PlatformTransactionManager ptm = (PlatformTransactionManager) ptmControl.getMock();
+		ptmControl.replay();
+
+		CountingTransactionAttributeSource tas = new CountingTransactionAttributeSource();
+		Properties props = new Properties();
+		props.setProperty("set*", "PROPAGATION_REQUIRED");
+		tas.setProperties(props);
+
+		TransactionProxyFactoryBean proxyFactory = new TransactionProxyFactoryBean();
+		proxyFactory.setTransactionManager(ptm);
+		proxyFactory.setTarget(new TestBean("name", 20));
+		proxyFactory.setTransactionAttributeSource(tas);
+		proxyFactory.afterPropertiesSet();
+		int computed = tas.computed;
+		assertTrue(computed > 0);
+
+		ITestBean proxy = (ITestBean) proxyFactory.getObject();
+		assertEquals("name", proxy.getName());
+		assertEquals(20, proxy.getAge());
+		assertEquals(computed, tas.computed);
+		ptmControl.verify();
+	}
+
+
+	private static class CountingTransactionAttributeSource extends NameMatchTransactionAttributeSource {
+
+		public int computed;
+
+		protected TransactionAttribute computeTransactionAttribute(Method method, Class targetClass) {
+			this.computed++;
+			return super.computeTransactionAttribute(method, targetClass);
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+
+package org.springframework.transaction.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Properties;
+
+import org.springframework.transaction.CountingTxManager;
+
+/**
+ * Standalone benchmark for transaction attribute resolution: a
+ * NameMatchTransactionAttributeSource with 200 name patterns, where the
+ * invoked method only matches a "proc*" wildcard. Reports the time per
+ * attribute lookup, and per call of a no-op service behind a
+ * TransactionProxyFactoryBean with a transaction manager that does no work.
+ * Not a unit test: run via the main method, optionally passing the
+ * measurement time per variant in milliseconds. For a before/after
+ * comparison, run this class against the classes of both revisions.
+ *
+ * @since 1.0.1
+ * @see AbstractCachingTransactionAttributeSource
+ */
+public class TransactionAttributeLookupBenchmark {
+
+	private static final int PATTERN_COUNT = 200;
+
+	public static void main(String[] args) throws Exception {
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 1000);
+		Properties attributes = new Properties();
+		for (int i = 0; i < PATTERN_COUNT - 1; i++) {
+			attributes.setProperty("method" + i, "PROPAGATION_REQUIRED");
+		}
+		attributes.setProperty("proc*", "PROPAGATION_SUPPORTS");
+		NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
+		tas.setProperties(attributes);
+		Method method = Service.class.getMethod("process", new Class[0]);
+
+		TransactionProxyFactoryBean proxyFactory = new TransactionProxyFactoryBean();
+		proxyFactory.setTransactionManager(new CountingTxManager());
+		proxyFactory.setTarget(new NoOpService());
+		proxyFactory.setTransactionAttributes(attributes);
+		proxyFactory.afterPropertiesSet();
+		Service service = (Service) proxyFactory.getObject();
+
+		// first round warms up the JIT, second round gets reported
+		for (int round = 0; round < 2; round++) {
+			long count = 0;
+			long startTime = System.currentTimeMillis();
+			long endTime = startTime + duration;
+			while (System.currentTimeMillis() < endTime) {
+				for (int i = 0; i < 1000; i++) {
+					tas.getTransactionAttribute(method, NoOpService.class);
+				}
+				count += 1000;
+			}
+			long lookupTime = (System.currentTimeMillis() - startTime) * 1000000 / count;
+
+			count = 0;
+			startTime = System.currentTimeMillis();
+			endTime = startTime + duration;
+			while (System.currentTimeMillis() < endTime) {
+				for (int i = 0; i < 1000; i++) {
+					service.process();
+				}
+				count += 1000;
+			}
+			long callTime = (System.currentTimeMillis() - startTime) * 1000000 / count;
+			if (round == 1) {
+				System.out.println(PATTERN_COUNT + " patterns: " + lookupTime + " ns per lookup, " +
+						callTime + " ns per proxied call");
+			}
+		}
+	}
+
+
+	public interface Service {
+
+		void process();
+	}
+
+
+	public static class NoOpService implements Service {
+
+		public void process() {
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.util;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.0.1
+ */
+public class ClassLoaderUtilsTests extends TestCase {
+
+	public void testBootstrapClassIsCacheSafe() {
+		assertTrue(ClassLoaderUtils.isCacheSafe(String.class, getClass().getClassLoader()));
+		assertTrue(ClassLoaderUtils.isCacheSafe(String.class, null));
+	}
+
+	public void testClassFromSameLoaderIsCacheSafe() {
+		assertTrue(ClassLoaderUtils.isCacheSafe(getClass(), getClass().getClassLoader()));
+	}
+
+	public void testClassFromParentLoaderIsCacheSafe() {
+		ClassLoader child = new URLClassLoader(new URL[0], getClass().getClassLoader());
+		assertTrue(ClassLoaderUtils.isCacheSafe(getClass(), child));
+	}
+
+	public void testClassFromChildLoaderIsNotCacheSafe() throws Exception {
+		ClassLoader child = new URLClassLoader(
+				new URL[] {getClass().getProtectionDomain().getCodeSource().getLocation()}, null);
+		Class childClass = child.loadClass(SimpleClass.class.getName());
+		assertNotSame(SimpleClass.class, childClass);
+		assertFalse(ClassLoaderUtils.isCacheSafe(childClass, getClass().getClassLoader()));
+	}
+
+
+	public static class SimpleClass {
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.0.1
+ */
+public class LruCacheTests extends TestCase {
+
+	public void testLeastRecentlyUsedEntryIsEvicted() {
+		final List evicted = new ArrayList();
+		LruCache cache = new LruCache(2) {
+			protected void onEviction(Object key, Object value) {
+				evicted.add(key);
+			}
+		};
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertEquals("1", cache.get("a"));
+		cache.put("c", "3");
+		assertEquals(2, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals("1", cache.get("a"));
+		assertEquals("3", cache.get("c"));
+		assertEquals(1, evicted.size());
+		assertEquals("b", evicted.get(0));
+	}
+
+	public void testPutReplacesExistingEntry() {
+		LruCache cache = new LruCache(2);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("a", "3");
+		cache.put("c", "4");
+		assertEquals(2, cache.size());
+		assertEquals("3", cache.get("a"));
+		assertNull(cache.get("b"));
+	}
+
+	public void testRemoveAndClear() {
+		LruCache cache = new LruCache(3);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertEquals("1", cache.remove("a"));
+		assertNull(cache.get("a"));
+		assertEquals(1, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get("b"));
+	}
+
+	public void testInvalidMaxSize() {
+		try {
+			new LruCache(0);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+package org.springframework.util;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.0.1
+ */
+public class PathPatternTests extends TestCase {
+
+	public void testLiteralPattern() {
+		PathPattern pattern = new PathPattern("/docs/index.html");
+		assertTrue(pattern.matches("/docs/index.html"));
+		assertTrue(pattern.matches("//docs//index.html/"));
+		assertFalse(pattern.matches("docs/index.html"));
+		assertFalse(pattern.matches("/docs/index.htm"));
+		assertFalse(pattern.matches("/docs/index.html/x"));
+	}
+
+	public void testWildcardPattern() {
+		PathPattern pattern = new PathPattern("/docs/*.h?ml");
+		assertTrue(pattern.matches("/docs/index.html"));
+		assertTrue(pattern.matches("/docs/.hxml"));
+		assertFalse(pattern.matches("/docs/index.htm"));
+		assertFalse(pattern.matches("/docs/sub/index.html"));
+		assertTrue(new PathPattern("*a*b").matches("xaxbab"));
+		assertFalse(new PathPattern("*a*b").matches("xaxba"));
+	}
+
+	public void testAnyPathPattern() {
+		PathPattern pattern = new PathPattern("/docs/**/test/*.jsp");
+		assertTrue(pattern.matches("/docs/test/a.jsp"));
+		assertTrue(pattern.matches("/docs/x/y/test/a.jsp"));
+		assertTrue(pattern.matches("/docs/test/test/a.jsp"));
+		assertFalse(pattern.matches("/docs/x/test"));
+		assertFalse(pattern.matches("/docs/x/test/a.jsp/b"));
+		assertTrue(new PathPattern("/docs/**").matches("/docs"));
+		assertTrue(new PathPattern("/docs/**/**").matches("/docs/a/b"));
+		assertTrue(new PathPattern("**/*.jsp").matches("a/b/c.jsp"));
+	}
+
+	public void testEqualsAndHashCode() {
+		PathPattern pattern = new PathPattern("/docs/**");
+		assertEquals(new PathPattern("/docs/**"), pattern);
+		assertEquals(new PathPattern("/docs/**").hashCode(), pattern.hashCode());
+		assertFalse(pattern.equals(new PathPattern("/docs/*")));
+		assertEquals("/docs/**", pattern.toString());
+	}
+
+	public void testPathMatcherReusesCompiledPatterns() {
+		PathPattern pattern = PathMatcher.getPathPattern("/cached/**/*.html");
+		assertSame(pattern, PathMatcher.getPathPattern("/cached/**/*.html"));
+		assertTrue(PathMatcher.match("/cached/**/*.html", "/cached/a/b.html"));
+	}
+
+	public void testPathMatcherCacheStopsGrowingWhenFull() {
+		PathMatcher.clearPatternCache();
+		try {
+			PathPattern cached = PathMatcher.getPathPattern("/cached/*.html");
+			for (int i = 1; i < PathMatcher.PATTERN_CACHE_LIMIT; i++) {
+				assertTrue(PathMatcher.match("/filler" + i + "/*", "/filler" + i + "/x"));
+			}
+			assertSame(cached, PathMatcher.getPathPattern("/cached/*.html"));
+			PathPattern pattern = PathMatcher.getPathPattern("/uncached/*.html");
+			assertNotSame(pattern, PathMatcher.getPathPattern("/uncached/*.html"));
+			assertEquals(pattern, PathMatcher.getPathPattern("/uncached/*.html"));
+			assertTrue(PathMatcher.match("/uncached/*.html", "/uncached/a.html"));
+		}
+		finally {
+			PathMatcher.clearPatternCache();
+		}
+	}
+
+}
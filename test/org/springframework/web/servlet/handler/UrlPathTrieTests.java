@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */ 
+
+package org.springframework.web.servlet.handler;
+
+import junit.framework.TestCase;
+
+import org.springframework.util.PathMatcher;
+
+/**
+ * @since 1.0.1
+ */
+public class UrlPathTrieTests extends TestCase {
+
+	private static final String[] PATTERNS = {
+		"test", "/test", "/test.jpg", "t?st", "/?/a", "/a/??", "*", "/*", "test*", "/*test*",
+		"/*.*", "test*aaa", "/**", "/*/**", "/**/*", "/bla/**/bla", "/**/test", "/bla/**/**/bla",
+		"/bla*bla/test", "/*bla/test", "/????", "/**/*bla", "/*bla*/**/bla/**", "/*bla*/**/bla/*",
+		"*bla*/**/bla/**", "*bla*/**/bla/*", "/x/x/**/bla", "/a/**/b/**/c", "/a/**", "", "/",
+	};
+
+	private static final String[] PATHS = {
+		"test", "/test", "test.jpg", "/test.jpg", "/a", "/a/a", "/a/bb", "/aa/a", "testTest", "/testing/testing",
+		"/bla/testing/testing/bla", "/bla/testing/testing/bla/bla", "/bla/bla/test", "/bla/bla/bla/bla/bla/bla",
+		"/blaXXXbla/test", "/XXXbla/test", "/blaXXXbl/test", "/bala/bla", "/bla/bla/bla/bbb",
+		"/XXXblaXXXX/testing/testing/bla/testing/testing/", "/XXXblaXXXX/testing/testing/bla/testing",
+		"XXXblaXXXX/testing/testing/bla/testing/testing", "/x/x/x/", "/x/x/bla", "/a/b/c", "/a/x/b/y/c/z",
+		"/a/c/b", "/a", "/a/", "//a//b", "", "/", "test.test.test",
+	};
+
+	public void testConsistentWithPathMatcher() {
+		for (int i = 0; i < PATTERNS.length; i++) {
+			UrlPathTrie trie = new UrlPathTrie();
+			trie.put(PATTERNS[i], PATTERNS[i]);
+			for (int j = 0; j < PATHS.length; j++) {
+				boolean expected = PathMatcher.match(PATTERNS[i], PATHS[j]);
+				assertEquals("Pattern [" + PATTERNS[i] + "], path [" + PATHS[j] + "]",
+						expected, trie.match(PATHS[j]) != null);
+			}
+		}
+	}
+
+	public void testAllPatternsMatchingAnyPattern() {
+		UrlPathTrie trie = new UrlPathTrie();
+		for (int i = 0; i < PATTERNS.length; i++) {
+			trie.put(PATTERNS[i], PATTERNS[i]);
+		}
+		for (int j = 0; j < PATHS.length; j++) {
+			Object match = trie.match(PATHS[j]);
+			boolean expected = false;
+			for (int i = 0; i < PATTERNS.length; i++) {
+				expected = expected || PathMatcher.match(PATTERNS[i], PATHS[j]);
+			}
+			assertEquals("Path [" + PATHS[j] + "]", expected, match != null);
+			if (match != null) {
+				assertTrue(PathMatcher.match((String) match, PATHS[j]));
+			}
+		}
+	}
+
+	public void testMostSpecificMatch() {
+		UrlPathTrie trie = new UrlPathTrie();
+		trie.put("/**", "/**");
+		trie.put("/app/**", "/app/**");
+		trie.put("/app/*", "/app/*");
+		trie.put("/app/*.html", "/app/*.html");
+		trie.put("/app/view?.html", "/app/view?.html");
+		trie.put("/app/view1.html", "/app/view1.html");
+		trie.put("/app/**/edit", "/app/**/edit");
+		trie.put("/app/admin/**/edit", "/app/admin/**/edit");
+
+		assertEquals("/app/view1.html", trie.match("/app/view1.html"));
+		assertEquals("/app/view?.html", trie.match("/app/view2.html"));
+		assertEquals("/app/*.html", trie.match("/app/list.html"));
+		assertEquals("/app/*", trie.match("/app/list"));
+		assertEquals("/app/**", trie.match("/app/list/all"));
+		assertEquals("/app/**", trie.match("/app"));
+		assertEquals("/app/**/edit", trie.match("/app/x/y/edit"));
+		assertEquals("/app/admin/**/edit", trie.match("/app/admin/x/edit"));
+		assertEquals("/app/*", trie.match("/app/edit"));
+		assertEquals("/**", trie.match("/other/path"));
+		assertNull(trie.match("relative"));
+	}
+
+	public void testEquivalentPatternReplaced() {
+		UrlPathTrie trie = new UrlPathTrie();
+		trie.put("/a/*/b", "first");
+		trie.put("/a/*/b/", "second");
+		assertEquals("second", trie.match("/a/x/b"));
+	}
+
+	public void testLookupCache() throws Exception {
+		TestUrlHandlerMapping mapping = new TestUrlHandlerMapping();
+		mapping.setLookupCacheLimit(2);
+		mapping.registerHandler("/a/*", "a");
+		assertEquals("a", mapping.lookupHandler("/a/x"));
+		assertEquals("a", mapping.lookupHandler("/a/x"));
+		assertNull(mapping.lookupHandler("/b/x"));
+		assertNull(mapping.lookupHandler("/b/x"));
+		assertEquals("a", mapping.lookupHandler("/a/y"));
+		assertEquals("a", mapping.lookupHandler("/a/z"));
+
+		// new handler must not be hidden by cached lookups
+		mapping.registerHandler("/b/*", "b");
+		assertEquals("b", mapping.lookupHandler("/b/x"));
+
+		mapping.setLookupCacheLimit(0);
+		assertEquals("a", mapping.lookupHandler("/a/x"));
+		assertEquals("b", mapping.lookupHandler("/b/x"));
+		assertNull(mapping.lookupHandler("/c/x"));
+	}
+
+
+	private static class TestUrlHandlerMapping extends AbstractUrlHandlerMapping {
+
+		public TestUrlHandlerMapping() {
+			setLazyInitHandlers(true);
+		}
+	}
+
+}